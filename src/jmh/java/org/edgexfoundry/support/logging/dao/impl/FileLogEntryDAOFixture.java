@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sets up a FileLogEntryDAO outside of Spring the way the application context would, writing to
+ * a given file, and tears it down again
+ */
+final class FileLogEntryDAOFixture {
+
+  private FileLogEntryDAOFixture() {}
+
+  /**
+   * Create a file DAO persisting to the given file, loading whatever the file already holds
+   */
+  static FileLogEntryDAO open(File file, String maxSize) throws ReflectiveOperationException {
+    // keep the persisted logEntries off the console
+    ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(BaseLogEntryDAO.class))
+        .setAdditive(false);
+    FileLogEntryDAO dao = new FileLogEntryDAO();
+    set(dao, FileLogEntryDAO.class, "loggingFilePath", file.getPath());
+    set(dao, FileLogEntryDAO.class, "loggingFileMaxSize", maxSize);
+    set(dao, BaseLogEntryDAO.class, "addColor", false);
+    invoke(dao, "init");
+    dao.awaitWarmUp();
+    return dao;
+  }
+
+  /**
+   * Create a file DAO without any file behind it, holding the given logEntries in its index
+   */
+  static FileLogEntryDAO inMemory(List<LogEntry> entries) throws ReflectiveOperationException {
+    FileLogEntryDAO dao = new FileLogEntryDAO();
+    Field field = FileLogEntryDAO.class.getDeclaredField("logEntries");
+    field.setAccessible(true);
+    LogEntryIndex index = (LogEntryIndex) field.get(dao);
+    for (LogEntry entry : entries) {
+      index.add(entry);
+    }
+    return dao;
+  }
+
+  /**
+   * Detach the file appender of the DAO and delete its files
+   */
+  static void close(FileLogEntryDAO dao, File file) throws ReflectiveOperationException {
+    Method method =
+        FileLogEntryDAO.class.getDeclaredMethod("stopAndDetachFileAppdnder", String.class);
+    method.setAccessible(true);
+    method.invoke(dao, file.getPath());
+    for (File segment : dao.listSegments()) {
+      segment.delete();
+    }
+  }
+
+  /**
+   * Write the logEntries to the file in the format the file DAO persists them in, which is the
+   * format of LogEntry.toString except for logEntries without labels
+   */
+  static void write(File file, List<LogEntry> entries) throws IOException {
+    try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+      for (LogEntry entry : entries) {
+        writer.write(null == entry.getLabels()
+            ? entry.toString().replaceFirst("\\] null ", "] [] ") : entry.toString());
+        writer.newLine();
+      }
+    }
+  }
+
+  private static void set(Object target, Class<?> type, String name, Object value)
+      throws ReflectiveOperationException {
+    Field field = type.getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(target, value);
+  }
+
+  private static void invoke(Object target, String name) throws ReflectiveOperationException {
+    Method method = target.getClass().getDeclaredMethod(name);
+    method.setAccessible(true);
+    method.invoke(target);
+  }
+
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.event.Level;
+
+/**
+ * Latency of FileLogEntryDAO.findByCriteria over its in-memory index, across index sizes and
+ * criteria shapes: a time window only, log levels and an originService, and message keywords.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+@State(Scope.Benchmark)
+public class FindByCriteriaBenchmark {
+
+  public enum Shape {
+    // the middle tenth of the generated time span
+    TIME,
+    // WARN and ERROR entries of core-data
+    LEVEL_SERVICE,
+    // entries mentioning a timeout
+    KEYWORDS
+  }
+
+  @Param({"10000", "100000", "1000000", "5000000"})
+  private int size;
+
+  @Param({"TIME", "LEVEL_SERVICE", "KEYWORDS"})
+  private Shape shape;
+
+  // the REST read limit, and unbounded as for exports and deletes
+  @Param({"100", "-1"})
+  private int limit;
+
+  private FileLogEntryDAO dao;
+  private MatchCriteria criteria;
+
+  @Setup
+  public void setup() throws ReflectiveOperationException {
+    List<LogEntry> entries = new LogEntryGenerator().loggable(size);
+    dao = FileLogEntryDAOFixture.inMemory(entries);
+    criteria = new MatchCriteria();
+    switch (shape) {
+      case TIME:
+        criteria.setStart(entries.get(size * 9 / 20).getCreated());
+        criteria.setEnd(entries.get(size * 11 / 20).getCreated());
+        break;
+      case LEVEL_SERVICE:
+        criteria.setLogLevels(new Level[] {Level.WARN, Level.ERROR});
+        criteria.setOriginServices(new String[] {"core-data"});
+        break;
+      default:
+        criteria.setMessageKeywords(new String[] {"timeout"});
+        break;
+    }
+  }
+
+  @Benchmark
+  public List<LogEntry> findByCriteria() {
+    return dao.findByCriteria(criteria, limit);
+  }
+
+}
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.MongoClient;
+import com.mongodb.MongoCredential;
+import com.mongodb.ServerAddress;
+import com.mongodb.util.JSON;
+
+/**
+ * Sets up a MongoDBLogEntryDAO outside of Spring against a locally launched mongod, fills its
+ * collection and explains its queries. The database is given by the mongo.host, mongo.port,
+ * mongo.database and optional mongo.username/mongo.password system properties, which have to be
+ * passed on to the forked benchmark JVMs, e.g. -jvmArgsAppend -Dmongo.port=27018. Every logEntry
+ * of that database is removed by the benchmarks.
+ */
+final class MongoDBLogEntryDAOFixture {
+
+  private static final int LOAD_BATCH = 10000;
+
+  private MongoDBLogEntryDAOFixture() {}
+
+  static MongoTemplate connect() {
+    String database = System.getProperty("mongo.database", "logging-benchmark");
+    ServerAddress address = new ServerAddress(System.getProperty("mongo.host", "localhost"),
+        Integer.getInteger("mongo.port", 27017));
+    String username = System.getProperty("mongo.username");
+    MongoClient client = null == username ? new MongoClient(address)
+        : new MongoClient(address, Collections.singletonList(MongoCredential.createCredential(
+            username, database, System.getProperty("mongo.password", "").toCharArray())));
+    return new MongoTemplate(client, database);
+  }
+
+  static void close(MongoTemplate template) {
+    template.getDb().getMongo().close();
+  }
+
+  /**
+   * Create a MongoDB DAO persisting through the template
+   */
+  static MongoDBLogEntryDAO open(MongoTemplate template) throws ReflectiveOperationException {
+    // keep the persisted logEntries and the logged query criteria off the console
+    ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(BaseLogEntryDAO.class))
+        .setAdditive(false);
+    ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(MongoDBLogEntryDAO.class))
+        .setAdditive(false);
+    MongoDBLogEntryDAO dao = new MongoDBLogEntryDAO();
+    set(dao, MongoDBLogEntryDAO.class, "mongoTemplate", template);
+    set(dao, BaseLogEntryDAO.class, "addColor", false);
+    return dao;
+  }
+
+  /**
+   * Replace the content of the logEntry collection with the logEntries, inserted in bulk
+   */
+  static void load(MongoTemplate template, List<LogEntry> entries) {
+    template.remove(new Query(), LogEntry.class);
+    for (int i = 0; i < entries.size(); i += LOAD_BATCH) {
+      template.insert(entries.subList(i, Math.min(i + LOAD_BATCH, entries.size())),
+          LogEntry.class);
+    }
+  }
+
+  /**
+   * Explain the query the DAO runs for the criteria, with its execution statistics, and append
+   * the summary as a JSON line to the file named by the mongo.explain system property
+   * (mongo-explain.jsonl by default). The summary is printed as well, next to the JMH output of
+   * the benchmark.
+   *
+   * @param template
+   * @param criteria
+   * @param limit - 0 for no limit
+   * @param benchmark - name and parameters of the benchmark the plan belongs to
+   */
+  static void explain(MongoTemplate template, MatchCriteria criteria, int limit,
+      DBObject benchmark) throws ReflectiveOperationException, IOException {
+    Method toCriteria = MongoDBLogEntryDAO.class.getDeclaredMethod("toCriteria",
+        MatchCriteria.class);
+    toCriteria.setAccessible(true);
+    Criteria mongoCriteria = (Criteria) toCriteria.invoke(new MongoDBLogEntryDAO(), criteria);
+    Query query = null == mongoCriteria ? new Query() : new Query(mongoCriteria);
+    MongoConverter converter = template.getConverter();
+    DBObject filter = new QueryMapper(converter).getMappedObject(query.getQueryObject(),
+        converter.getMappingContext().getPersistentEntity(LogEntry.class));
+    BasicDBObject find =
+        new BasicDBObject("find", template.getCollectionName(LogEntry.class)).append("filter",
+            filter);
+    if (limit > 0) {
+      find.append("limit", limit);
+    }
+    DBObject explain = template.getDb()
+        .command(new BasicDBObject("explain", find).append("verbosity", "executionStats"));
+    DBObject stats = (DBObject) explain.get("executionStats");
+    DBObject winningPlan = (DBObject) ((DBObject) explain.get("queryPlanner")).get("winningPlan");
+    BasicDBObject summary = new BasicDBObject(benchmark.toMap()).append("plan", stages(winningPlan))
+        .append("nReturned", stats.get("nReturned"))
+        .append("totalKeysExamined", stats.get("totalKeysExamined"))
+        .append("totalDocsExamined", stats.get("totalDocsExamined"))
+        .append("executionTimeMillis", stats.get("executionTimeMillis"))
+        .append("filter", filter).append("winningPlan", winningPlan);
+    String line = JSON.serialize(summary);
+    System.out.println("explain: " + line);
+    try (PrintWriter out =
+        new PrintWriter(new FileWriter(System.getProperty("mongo.explain", "mongo-explain.jsonl"),
+            true))) {
+      out.println(line);
+    }
+  }
+
+  /**
+   * Flatten a plan into its stages from the top, e.g. LIMIT > FETCH > IXSCAN {created: 1}
+   */
+  private static String stages(DBObject plan) {
+    StringBuilder result = new StringBuilder(String.valueOf(plan.get("stage")));
+    if (null != plan.get("keyPattern")) {
+      result.append(' ').append(JSON.serialize(plan.get("keyPattern")));
+    }
+    if (null != plan.get("inputStage")) {
+      result.append(" > ").append(stages((DBObject) plan.get("inputStage")));
+    }
+    if (null != plan.get("inputStages")) {
+      result.append(" > [");
+      String separator = "";
+      for (Object input : (List<?>) plan.get("inputStages")) {
+        result.append(separator).append(stages((DBObject) input));
+        separator = ", ";
+      }
+      result.append(']');
+    }
+    return result.toString();
+  }
+
+  private static void set(Object target, Class<?> type, String name, Object value)
+      throws ReflectiveOperationException {
+    Field field = type.getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(target, value);
+  }
+
+}
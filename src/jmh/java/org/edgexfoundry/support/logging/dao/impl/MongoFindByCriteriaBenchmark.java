@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.event.Level;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.mongodb.BasicDBObject;
+
+/**
+ * Latency of MongoDBLogEntryDAO.findByCriteria for every criteria combination of the REST API,
+ * across collection sizes and index layouts. The explain plan of each query is reported next to
+ * the results, see MongoDBLogEntryDAOFixture.explain. The collection is only reloaded when its
+ * size differs, so run one size at a time (-p size=1000000) for it to be loaded once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class MongoFindByCriteriaBenchmark {
+
+  public enum Shape {
+    // the middle tenth of the generated time span, as every other shape over the whole span
+    TIME,
+    LABELS,
+    ORIGIN_SERVICES,
+    KEYWORDS,
+    LOG_LEVELS,
+    LOG_LEVELS_ORIGIN_SERVICES,
+    LOG_LEVELS_ORIGIN_SERVICES_LABELS,
+    LOG_LEVELS_ORIGIN_SERVICES_LABELS_KEYWORDS
+  }
+
+  @Param({"100000", "1000000"})
+  private int size;
+
+  @Param({"NONE", "CREATED", "COMPOUND"})
+  private MongoIndexLayout indexes;
+
+  @Param({"TIME", "LABELS", "ORIGIN_SERVICES", "KEYWORDS", "LOG_LEVELS",
+      "LOG_LEVELS_ORIGIN_SERVICES", "LOG_LEVELS_ORIGIN_SERVICES_LABELS",
+      "LOG_LEVELS_ORIGIN_SERVICES_LABELS_KEYWORDS"})
+  private Shape shape;
+
+  // the REST read limit, and no limit at all
+  @Param({"100", "0"})
+  private int limit;
+
+  private MongoTemplate template;
+  private MongoDBLogEntryDAO dao;
+  private MatchCriteria criteria;
+
+  @Setup
+  public void setup() throws ReflectiveOperationException, IOException {
+    template = MongoDBLogEntryDAOFixture.connect();
+    dao = MongoDBLogEntryDAOFixture.open(template);
+    List<LogEntry> entries = new LogEntryGenerator().loggable(size);
+    if (template.count(new Query(), LogEntry.class) != size) {
+      MongoDBLogEntryDAOFixture.load(template, entries);
+    }
+    indexes.apply(template);
+
+    criteria = new MatchCriteria();
+    criteria.setStart(entries.get(0).getCreated() - 1);
+    criteria.setEnd(entries.get(size - 1).getCreated() + 1);
+    switch (shape) {
+      case TIME:
+        criteria.setStart(entries.get(size * 9 / 20).getCreated());
+        criteria.setEnd(entries.get(size * 11 / 20).getCreated());
+        break;
+      case LABELS:
+        criteria.setLabels(new String[] {"device"});
+        break;
+      case ORIGIN_SERVICES:
+        criteria.setOriginServices(new String[] {"core-command"});
+        break;
+      case KEYWORDS:
+        criteria.setMessageKeywords(new String[] {"timeout"});
+        break;
+      case LOG_LEVELS:
+        criteria.setLogLevels(new Level[] {Level.WARN, Level.ERROR});
+        break;
+      case LOG_LEVELS_ORIGIN_SERVICES:
+        criteria.setLogLevels(new Level[] {Level.WARN, Level.ERROR});
+        criteria.setOriginServices(new String[] {"core-data"});
+        break;
+      case LOG_LEVELS_ORIGIN_SERVICES_LABELS:
+        criteria.setLogLevels(new Level[] {Level.WARN, Level.ERROR});
+        criteria.setOriginServices(new String[] {"core-data"});
+        criteria.setLabels(new String[] {"device"});
+        break;
+      default:
+        criteria.setLogLevels(new Level[] {Level.WARN, Level.ERROR});
+        criteria.setOriginServices(new String[] {"core-data"});
+        criteria.setLabels(new String[] {"device"});
+        criteria.setMessageKeywords(new String[] {"timeout"});
+        break;
+    }
+    MongoDBLogEntryDAOFixture.explain(template, criteria, limit,
+        new BasicDBObject("benchmark", getClass().getSimpleName()).append("size", size)
+            .append("indexes", indexes.name()).append("shape", shape.name())
+            .append("limit", limit));
+  }
+
+  @TearDown
+  public void close() {
+    MongoDBLogEntryDAOFixture.close(template);
+  }
+
+  @Benchmark
+  public List<LogEntry> findByCriteria() {
+    return dao.findByCriteria(criteria, limit);
+  }
+
+}
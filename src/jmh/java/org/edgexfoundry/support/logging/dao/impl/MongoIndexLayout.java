@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.logging.dao.MDC_ENUM_CONSTANTS;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.IndexOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+/**
+ * Candidate index layouts of the logEntry collection, which the application itself doesn't index
+ * yet
+ */
+public enum MongoIndexLayout {
+
+  // only the _id index
+  NONE,
+  // created, which every MatchCriteria query bounds
+  CREATED,
+  // created, plus originService/logLevel and labels each followed by created, matching the
+  // equality-then-range shape of the REST queries
+  COMPOUND;
+
+  /**
+   * Replace the indexes of the logEntry collection with this layout
+   */
+  void apply(MongoTemplate template) {
+    IndexOperations indexes = template.indexOps(LogEntry.class);
+    indexes.dropAllIndexes();
+    if (NONE == this) {
+      return;
+    }
+    indexes.ensureIndex(new Index().on(MDC_ENUM_CONSTANTS.CREATED.getValue(), Direction.ASC));
+    if (COMPOUND == this) {
+      indexes.ensureIndex(new Index().on(MDC_ENUM_CONSTANTS.ORIGINSERVICE.getValue(), Direction.ASC)
+          .on(MDC_ENUM_CONSTANTS.LOGLEVEL.getValue(), Direction.ASC)
+          .on(MDC_ENUM_CONSTANTS.CREATED.getValue(), Direction.ASC));
+      indexes.ensureIndex(new Index().on(MDC_ENUM_CONSTANTS.LABELS.getValue(), Direction.ASC)
+          .on(MDC_ENUM_CONSTANTS.CREATED.getValue(), Direction.ASC));
+    }
+  }
+
+}
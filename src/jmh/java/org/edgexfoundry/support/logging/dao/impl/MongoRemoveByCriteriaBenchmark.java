@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.mongodb.BasicDBObject;
+
+/**
+ * Time of one MongoDBLogEntryDAO.removeByCriteria deleting the oldest logEntries of the
+ * collection by time, as a retention clean-up would. findAllAndRemove reads every removed document
+ * back before deleting it by id, so the time grows with the number of logEntries removed. Every
+ * invocation starts from a freshly loaded collection, which holds another 100000 logEntries that
+ * are kept.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class MongoRemoveByCriteriaBenchmark {
+
+  private static final int KEPT = 100000;
+
+  @Param({"10000", "100000", "1000000"})
+  private int removed;
+
+  @Param({"NONE", "CREATED"})
+  private MongoIndexLayout indexes;
+
+  private MongoTemplate template;
+  private MongoDBLogEntryDAO dao;
+  private List<LogEntry> entries;
+  private MatchCriteria criteria;
+
+  @Setup(Level.Trial)
+  public void setup() throws ReflectiveOperationException, IOException {
+    template = MongoDBLogEntryDAOFixture.connect();
+    dao = MongoDBLogEntryDAOFixture.open(template);
+    entries = new LogEntryGenerator().loggable(removed + KEPT);
+    // time ranges are exclusive at both ends
+    criteria = new MatchCriteria();
+    criteria.setStart(entries.get(0).getCreated() - 1);
+    criteria.setEnd(entries.get(removed - 1).getCreated() + 1);
+    template.dropCollection(LogEntry.class);
+    indexes.apply(template);
+    MongoDBLogEntryDAOFixture.load(template, entries);
+    MongoDBLogEntryDAOFixture.explain(template, criteria, 0,
+        new BasicDBObject("benchmark", getClass().getSimpleName()).append("removed", removed)
+            .append("indexes", indexes.name()));
+  }
+
+  @Setup(Level.Invocation)
+  public void load() {
+    MongoDBLogEntryDAOFixture.load(template, entries);
+  }
+
+  @TearDown(Level.Trial)
+  public void close() {
+    template.dropCollection(LogEntry.class);
+    MongoDBLogEntryDAOFixture.close(template);
+  }
+
+  @Benchmark
+  public List<LogEntry> removeByCriteria() {
+    return dao.removeByCriteria(criteria);
+  }
+
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * Throughput of persisting logEntries to MongoDB, in logEntries per second: MongoDBLogEntryDAO.save
+ * inserting one document per logEntry from one and four threads, against one bulk insert of a
+ * batch of logEntries, which the DAO doesn't offer yet. Each index layout is measured since every
+ * index slows the inserts down. The collection is emptied every iteration.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MongoSaveBenchmark {
+
+  private static final int BATCH = 1000;
+
+  @State(Scope.Benchmark)
+  public static class Store {
+    @Param({"NONE", "CREATED", "COMPOUND"})
+    MongoIndexLayout indexes;
+
+    MongoTemplate template;
+    MongoDBLogEntryDAO dao;
+
+    @Setup(Level.Trial)
+    public void open() throws ReflectiveOperationException {
+      template = MongoDBLogEntryDAOFixture.connect();
+      dao = MongoDBLogEntryDAOFixture.open(template);
+    }
+
+    @Setup(Level.Iteration)
+    public void clear() {
+      template.dropCollection(LogEntry.class);
+      indexes.apply(template);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+      template.dropCollection(LogEntry.class);
+      MongoDBLogEntryDAOFixture.close(template);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Entries {
+    LogEntryGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      // a distinct but reproducible stream of logEntries per thread
+      generator =
+          new LogEntryGenerator(LogEntryGenerator.DEFAULT_SEED + Thread.currentThread().getId());
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public boolean save1(Store store, Entries entries) {
+    return store.dao.save(entries.generator.next());
+  }
+
+  @Benchmark
+  @Threads(4)
+  public boolean save4(Store store, Entries entries) {
+    return store.dao.save(entries.generator.next());
+  }
+
+  @Benchmark
+  @Threads(1)
+  @OperationsPerInvocation(BATCH)
+  public void insertBulk(Store store, Entries entries) {
+    // TRACE logEntries are left out, as save does
+    store.template.insert(entries.generator.loggable(BATCH), LogEntry.class);
+  }
+
+}
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of parsing one persisted log line back into a LogEntry, which bounds how fast the file
+ * DAO loads its index at startup and streams exports and query jobs
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParseBenchmark {
+
+  private static final int LINES = 4096;
+
+  private String[] lines;
+  private int next;
+
+  @Setup
+  public void setup() {
+    List<LogEntry> entries = new LogEntryGenerator().loggable(LINES);
+    lines = new String[LINES];
+    for (int i = 0; i < LINES; i++) {
+      lines[i] = entries.get(i).toString();
+    }
+  }
+
+  @Benchmark
+  public LogEntry convertString2LogEntry() {
+    next = (next + 1) & (LINES - 1);
+    return FileLogEntryDAO.convertString2LogEntry(lines[next]);
+  }
+
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time of one FileLogEntryDAO.removeByCriteria rewriting a large log file, removing a run of
+ * consecutive logEntries from its middle. Every invocation starts from a freshly written file.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class RemoveByCriteriaBenchmark {
+
+  @Param({"100000", "1000000"})
+  private int lines;
+
+  @Param({"10", "1000"})
+  private int removed;
+
+  private List<LogEntry> entries;
+  private MatchCriteria criteria;
+  private File file;
+  private FileLogEntryDAO dao;
+
+  @Setup(Level.Trial)
+  public void generate() {
+    entries = new LogEntryGenerator().loggable(lines);
+    // time ranges are exclusive at both ends
+    int first = lines / 2;
+    criteria = new MatchCriteria();
+    criteria.setStart(entries.get(first).getCreated() - 1);
+    criteria.setEnd(entries.get(first + removed - 1).getCreated() + 1);
+  }
+
+  @Setup(Level.Invocation)
+  public void open() throws IOException, ReflectiveOperationException {
+    file = File.createTempFile("edgex-logging-remove", ".log");
+    FileLogEntryDAOFixture.write(file, entries);
+    // large enough for the file never to roll during the benchmark
+    dao = FileLogEntryDAOFixture.open(file, "10GB");
+  }
+
+  @TearDown(Level.Invocation)
+  public void close() throws ReflectiveOperationException {
+    FileLogEntryDAOFixture.close(dao, file);
+  }
+
+  @Benchmark
+  public List<LogEntry> removeByCriteria() {
+    return dao.removeByCriteria(criteria);
+  }
+
+}
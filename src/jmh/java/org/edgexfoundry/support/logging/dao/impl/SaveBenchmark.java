@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of persisting logEntries to a rolling log file: the BaseLogEntryDAO.save logging
+ * through logback followed by the file DAO index update, from one thread up to one per core. The
+ * DAO and its files are recreated every iteration so the index doesn't grow without bound.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SaveBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Store {
+    File file;
+    FileLogEntryDAO dao;
+
+    @Setup(Level.Iteration)
+    public void open() throws IOException, ReflectiveOperationException {
+      file = File.createTempFile("edgex-logging-save", ".log");
+      dao = FileLogEntryDAOFixture.open(file, "5MB");
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() throws ReflectiveOperationException {
+      FileLogEntryDAOFixture.close(dao, file);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Entries {
+    LogEntryGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      // a distinct but reproducible stream of logEntries per thread
+      generator =
+          new LogEntryGenerator(LogEntryGenerator.DEFAULT_SEED + Thread.currentThread().getId());
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public boolean save1(Store store, Entries entries) {
+    return store.dao.save(entries.generator.next());
+  }
+
+  @Benchmark
+  @Threads(4)
+  public boolean save4(Store store, Entries entries) {
+    return store.dao.save(entries.generator.next());
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public boolean saveMax(Store store, Entries entries) {
+    return store.dao.save(entries.generator.next());
+  }
+
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Blocking client of the logging REST API sending the requests of a workload. Connections are kept
+ * alive between requests, as the client of a device service would do, and every response body is
+ * read to its end so that the connection can be reused.
+ */
+class LoadClient {
+
+  private static final String LOGS = "/api/v1/logs";
+  private static final String JSON = "application/json";
+  private static final long MINUTE = 60000L;
+  // span of the seeded entries removed by one delete request
+  private static final long DELETE_WINDOW = 1000L;
+
+  private final String base;
+  private final int limit;
+  private final ObjectMapper mapper = new ObjectMapper();
+  // start of the next window of old entries to delete
+  private final AtomicLong deleteCursor;
+
+  /**
+   * @param port - port the service listens on
+   * @param limit - limit of the queries, at most read.max.limit
+   * @param oldest - created timestamp of the oldest seeded logEntry
+   */
+  LoadClient(int port, int limit, long oldest) {
+    this.base = "http://localhost:" + port + LOGS;
+    this.limit = limit;
+    this.deleteCursor = new AtomicLong(oldest);
+  }
+
+  /**
+   * Send one request of the operation
+   *
+   * @param operation
+   * @param entry - logEntry to ingest, ignored by the other operations
+   * @param random - picks the shape of a query
+   * @return HTTP status of the response
+   * @throws IOException when the request can't be sent or the response can't be read
+   */
+  int send(Workload.Operation operation, LogEntry entry, Random random) throws IOException {
+    switch (operation) {
+      case INGEST:
+        return request("POST", base, mapper.writeValueAsBytes(entry));
+      case QUERY:
+        return request("GET", base + query(random.nextInt(3)), null);
+      case DELETE:
+      default:
+        long start = deleteCursor.getAndAdd(DELETE_WINDOW);
+        return request("DELETE", base + "/" + start + "/" + (start + DELETE_WINDOW - 1), null);
+    }
+  }
+
+  /**
+   * Queries end at the current time, so that no two of them share a cached result: recent entries
+   * by time only, errors and warnings of the busiest service, and a keyword search.
+   */
+  private String query(int shape) {
+    long now = System.currentTimeMillis();
+    switch (shape) {
+      case 0:
+        return "/" + (now - MINUTE) + "/" + now + "/" + limit;
+      case 1:
+        return "/logLevels/ERROR,WARN/originServices/core-data/" + (now - 10 * MINUTE) + "/" + now
+            + "/" + limit;
+      default:
+        return "/keywords/timeout/" + (now - 10 * MINUTE) + "/" + now + "/" + limit;
+    }
+  }
+
+  private int request(String method, String url, byte[] body) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+    connection.setRequestMethod(method);
+    connection.setRequestProperty("Accept", JSON);
+    if (null != body) {
+      connection.setDoOutput(true);
+      connection.setRequestProperty("Content-Type", JSON);
+      connection.setFixedLengthStreamingMode(body.length);
+      try (OutputStream out = connection.getOutputStream()) {
+        out.write(body);
+      }
+    }
+    int status = connection.getResponseCode();
+    InputStream response =
+        status < 400 ? connection.getInputStream() : connection.getErrorStream();
+    if (null != response) {
+      try (InputStream in = response) {
+        byte[] buffer = new byte[8192];
+        while (in.read(buffer) >= 0) {
+          // discard, only the latency matters
+        }
+      }
+    }
+    return status;
+  }
+
+}
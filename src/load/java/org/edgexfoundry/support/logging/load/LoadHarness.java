@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.load;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.edgexfoundry.EdgeXSupportLoggingApplication;
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.logging.dao.LogEntryDAO;
+import org.edgexfoundry.support.logging.dao.impl.LogEntryGenerator;
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * End to end load test of a single instance of the service. For every persistence mode and
+ * workload, the service is started in-process on a random port with a fresh store seeded with
+ * generated logEntries, warmed up, and then driven over HTTP at increasing constant rates until it
+ * no longer sustains the offered rate. The last sustained step is the knee of the
+ * throughput/latency curve. Every step is printed as it completes and appended to a CSV file.
+ *
+ * <p>
+ * Options are given as name=value: modes (file,mongodb), workloads, rate (first step, requests per
+ * second), max.rate, factor (between two steps), step and warmup (seconds), threads (concurrent
+ * connections), seed (number of logEntries stored beforehand), p99 (latency objective in
+ * milliseconds), dir (working directory) and out (CSV file). Arguments starting with -- are passed
+ * on to the service, e.g. --spring.data.mongodb.host=mongo-test.
+ *
+ * <p>
+ * The mongodb mode needs a running MongoDB, configured through the usual spring.data.mongodb
+ * properties; every logEntry of its collection is removed before each workload, so it must not
+ * point at a database whose logs matter.
+ */
+public class LoadHarness {
+
+  private static final String FILE = "file";
+  private static final String MONGODB = "mongodb";
+
+  private final Map<String, String> options = new HashMap<>();
+  private final List<String> serviceArgs = new ArrayList<>();
+  private final PrintStream report;
+
+  private LoadHarness(String[] args, PrintStream report) {
+    for (String arg : args) {
+      if (arg.startsWith("--")) {
+        serviceArgs.add(arg);
+      } else {
+        int separator = arg.indexOf('=');
+        if (separator < 0) {
+          throw new IllegalArgumentException("Expected name=value instead of " + arg);
+        }
+        options.put(arg.substring(0, separator), arg.substring(separator + 1));
+      }
+    }
+    this.report = report;
+  }
+
+  public static void main(String[] args) throws Exception {
+    PrintStream report = System.out;
+    LoadHarness harness = new LoadHarness(args, report);
+    File dir = new File(harness.option("dir", "target/load"));
+    dir.mkdirs();
+    // the service logs every logEntry to the console as well; keep that out of the report
+    System.setOut(new PrintStream(new FileOutputStream(new File(dir, "console.log")), true));
+    try {
+      harness.run(dir);
+    } finally {
+      System.setOut(report);
+    }
+    System.exit(0);
+  }
+
+  private void run(File dir) throws IOException, InterruptedException {
+    List<String> modes = Arrays.asList(option("modes", FILE).split(","));
+    List<Workload> workloads = new ArrayList<>();
+    for (String workload : option("workloads", "INGEST_HEAVY,QUERY_HEAVY,DELETE_DURING_INGEST")
+        .split(",")) {
+      workloads.add(Workload.valueOf(workload.trim().toUpperCase(Locale.ROOT)));
+    }
+    int threads = Integer.parseInt(option("threads", "64"));
+    System.setProperty("http.maxConnections", Integer.toString(threads));
+    ExecutorService senders =
+        Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("load-sender-"));
+    List<String> knees = new ArrayList<>();
+    File out = new File(option("out", new File(dir, "load-result.csv").getPath()));
+    try (PrintWriter csv = new PrintWriter(out, "UTF-8")) {
+      csv.println(StepResult.CSV_HEADER);
+      for (String mode : modes) {
+        for (Workload workload : workloads) {
+          knees.add(run(mode.trim(), workload, new File(dir, mode.trim() + "-" + workload),
+              threads, senders, csv));
+        }
+      }
+    } finally {
+      senders.shutdownNow();
+    }
+    report.println();
+    report.println("Knee of the throughput/latency curve (p99 objective " + option("p99", "100")
+        + " ms):");
+    for (String knee : knees) {
+      report.println(knee);
+    }
+    report.println("Steps written to " + out.getPath());
+  }
+
+  private String run(String mode, Workload workload, File store, int threads,
+      ExecutorService senders, PrintWriter csv) throws InterruptedException {
+    double first = Double.parseDouble(option("rate", "200"));
+    double maxRate = Double.parseDouble(option("max.rate", "50000"));
+    double factor = Double.parseDouble(option("factor", "1.5"));
+    long step = Long.parseLong(option("step", "10")) * 1000;
+    long warmup = Long.parseLong(option("warmup", "10")) * 1000;
+    double p99 = Double.parseDouble(option("p99", "100"));
+    int seed = Integer.parseInt(option("seed", "100000"));
+
+    ConfigurableApplicationContext context = boot(mode, store);
+    try {
+      int port = ((EmbeddedWebApplicationContext) context).getEmbeddedServletContainer().getPort();
+      int limit = context.getEnvironment().getProperty("read.max.limit", Integer.class, 100);
+      long oldest = seed(context, mode, seed);
+      RateStep rateStep =
+          new RateStep(new LoadClient(port, limit, oldest), workload, threads, senders);
+      report.println();
+      report.println("== " + mode + " " + workload + ", " + seed + " logEntries seeded");
+      rateStep.run(first, warmup);
+      report.println(StepResult.HEADER);
+      StepResult knee = null;
+      for (double rate = first; rate <= maxRate; rate *= factor) {
+        StepResult result = rateStep.run(rate, step);
+        report.println(result.toRow());
+        csv.println(result.toCsv(mode));
+        csv.flush();
+        if (!result.sustained(p99)) {
+          break;
+        }
+        knee = result;
+      }
+      if (null == knee) {
+        return String.format(Locale.ROOT, "%-8s %-20s below %.0f requests/s", mode, workload,
+            first);
+      }
+      return String.format(Locale.ROOT, "%-8s %-20s %.0f requests/s (p99 %.2f ms)", mode,
+          workload, knee.getAchieved(), knee.p99());
+    } finally {
+      context.close();
+    }
+  }
+
+  private ConfigurableApplicationContext boot(String mode, File store) {
+    store.mkdirs();
+    File[] previous = store.listFiles();
+    if (null != previous) {
+      for (File file : previous) {
+        file.delete();
+      }
+    }
+    List<String> args = new ArrayList<>(Arrays.asList("--server.port=0",
+        "--logging.persistence=" + mode,
+        "--logging.persistence.file=" + new File(store, "edgex-support-logging.log").getPath(),
+        "--logging.file=" + new File(store, "edgex-logging.log").getPath(),
+        "--logging.color.enabled=false"));
+    args.addAll(serviceArgs);
+    SpringApplication application = new SpringApplication(EdgeXSupportLoggingApplication.class);
+    application.setBannerMode(Banner.Mode.OFF);
+    return application.run(args.toArray(new String[args.size()]));
+  }
+
+  /**
+   * Store logEntries directly through the DAO, ending just before now so that the queries of the
+   * workloads find them
+   *
+   * @return created timestamp of the oldest logEntry
+   */
+  private long seed(ConfigurableApplicationContext context, String mode, int count) {
+    if (MONGODB.equals(mode)) {
+      context.getBean(MongoTemplate.class).remove(new Query(), LogEntry.class);
+    }
+    if (count <= 0) {
+      return System.currentTimeMillis();
+    }
+    LogEntryDAO dao = context.getBean(LogEntryDAO.class);
+    List<LogEntry> entries = new LogEntryGenerator().loggable(count);
+    long shift = System.currentTimeMillis() - entries.get(count - 1).getCreated() - 1;
+    for (LogEntry entry : entries) {
+      entry.setCreated(entry.getCreated() + shift);
+      dao.save(entry);
+    }
+    return entries.get(0).getCreated();
+  }
+
+  private String option(String name, String defaultValue) {
+    return options.getOrDefault(name, defaultValue);
+  }
+
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.load;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.edgexfoundry.support.logging.dao.impl.LogEntryGenerator;
+
+/**
+ * Sends the requests of a workload at a constant rate for the duration of a step, open loop. The
+ * schedule is fixed in advance and every sender thread owns every n-th slot of it. The latency of
+ * a request is recorded from the time its slot was due rather than from the time it was actually
+ * sent, so a service that stalls is charged for the requests it kept waiting instead of having
+ * them silently pushed back (coordinated omission). The latency from the actual send is recorded
+ * as well to show how much the correction matters.
+ */
+class RateStep {
+
+  private static final int SIGNIFICANT_DIGITS = 3;
+
+  private final LoadClient client;
+  private final Workload workload;
+  private final int threads;
+  private final ExecutorService senders;
+
+  RateStep(LoadClient client, Workload workload, int threads, ExecutorService senders) {
+    this.client = client;
+    this.workload = workload;
+    this.threads = threads;
+    this.senders = senders;
+  }
+
+  /**
+   * Run the step. Slots that are still unsent when the step ends are given up and reported as
+   * missed, so a saturated service can't stretch a step forever.
+   *
+   * @param rate - requests per second
+   * @param duration - in milliseconds
+   * @return outcome of the step
+   */
+  StepResult run(double rate, long duration) throws InterruptedException {
+    Recorder corrected = new Recorder(SIGNIFICANT_DIGITS);
+    Recorder raw = new Recorder(SIGNIFICANT_DIGITS);
+    Recorder[] operations = new Recorder[Workload.Operation.values().length];
+    for (int i = 0; i < operations.length; i++) {
+      operations[i] = new Recorder(SIGNIFICANT_DIGITS);
+    }
+    LongAdder ok = new LongAdder();
+    LongAdder rejected = new LongAdder();
+    LongAdder errors = new LongAdder();
+    LongAdder missed = new LongAdder();
+
+    long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+    long end = start + TimeUnit.MILLISECONDS.toNanos(duration);
+    AtomicLong lastDone = new AtomicLong(end);
+    List<Future<?>> futures = new ArrayList<>(threads);
+    for (int t = 0; t < threads; t++) {
+      final int first = t;
+      futures.add(senders.submit(() -> {
+        Random random = new Random(first);
+        LogEntryGenerator generator =
+            new LogEntryGenerator(LogEntryGenerator.DEFAULT_SEED + first);
+        for (long slot = first;; slot += threads) {
+          long due = start + slot * interval;
+          if (due - end >= 0) {
+            break;
+          }
+          long wait = due - System.nanoTime();
+          if (wait > 0) {
+            LockSupport.parkNanos(wait);
+          }
+          long sent = System.nanoTime();
+          if (sent - end >= 0) {
+            missed.add((end - due + interval * threads - 1) / (interval * threads));
+            break;
+          }
+          Workload.Operation operation = workload.pick(random.nextInt(100));
+          try {
+            int status = client.send(operation, generator.next(), random);
+            if (status < 300) {
+              ok.increment();
+            } else if (status == 413 || status == 503) {
+              rejected.increment();
+            } else {
+              errors.increment();
+            }
+          } catch (IOException e) {
+            errors.increment();
+          }
+          long done = System.nanoTime();
+          long latency = TimeUnit.NANOSECONDS.toMicros(done - due);
+          corrected.recordValue(latency);
+          operations[operation.ordinal()].recordValue(latency);
+          raw.recordValue(TimeUnit.NANOSECONDS.toMicros(done - sent));
+          lastDone.accumulateAndGet(done, (last, now) -> now - last > 0 ? now : last);
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Load sender failed", e.getCause());
+      }
+    }
+
+    long completed = ok.sum() + rejected.sum() + errors.sum();
+    double achieved = completed * (double) TimeUnit.SECONDS.toNanos(1) / (lastDone.get() - start);
+    Histogram[] perOperation = new Histogram[operations.length];
+    for (int i = 0; i < operations.length; i++) {
+      perOperation[i] = operations[i].getIntervalHistogram();
+    }
+    return new StepResult(workload, rate, achieved, ok.sum(), rejected.sum(), errors.sum(),
+        missed.sum(), corrected.getIntervalHistogram(), raw.getIntervalHistogram(), perOperation);
+  }
+
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.load;
+
+import java.util.Locale;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Outcome of one load step. Latencies are recorded in microseconds and reported in milliseconds.
+ */
+class StepResult {
+
+  static final String HEADER = String.format(Locale.ROOT,
+      "%-20s %9s %10s %8s %8s %8s %8s %9s %9s %9s %9s %9s %9s", "workload", "offered/s",
+      "achieved/s", "ok", "rejected", "errors", "missed", "p50 ms", "p90 ms", "p99 ms",
+      "p99.9 ms", "max ms", "raw p99 ms");
+
+  static final String CSV_HEADER = "mode,workload,offered,achieved,ok,rejected,errors,missed,"
+      + "p50,p90,p99,p999,max,raw_p50,raw_p99,ingest_p99,query_p99,delete_p99";
+
+  private final Workload workload;
+  private final double offered;
+  private final double achieved;
+  private final long ok;
+  private final long rejected;
+  private final long errors;
+  private final long missed;
+  private final Histogram corrected;
+  private final Histogram raw;
+  private final Histogram[] operations;
+
+  /**
+   * @param workload
+   * @param offered - requests per second the step was scheduled to send
+   * @param achieved - requests per second completed
+   * @param ok - requests answered with a 2xx
+   * @param rejected - requests shed by the service with a 413 or 503
+   * @param errors - requests failed otherwise, including I/O errors
+   * @param missed - scheduled requests never sent before the end of the step
+   * @param corrected - latencies from the time each request was due
+   * @param raw - latencies from the time each request was actually sent
+   * @param operations - corrected latencies per operation, indexed by ordinal
+   */
+  StepResult(Workload workload, double offered, double achieved, long ok, long rejected,
+      long errors, long missed, Histogram corrected, Histogram raw, Histogram[] operations) {
+    this.workload = workload;
+    this.offered = offered;
+    this.achieved = achieved;
+    this.ok = ok;
+    this.rejected = rejected;
+    this.errors = errors;
+    this.missed = missed;
+    this.corrected = corrected;
+    this.raw = raw;
+    this.operations = operations;
+  }
+
+  /**
+   * Whether the service kept up with the step: nearly all the offered requests were completed, at
+   * most 1% of them were shed or failed, and the corrected p99 stayed within the objective.
+   *
+   * @param p99Objective - in milliseconds
+   * @return true when the service sustained the offered rate
+   */
+  boolean sustained(double p99Objective) {
+    long sent = ok + rejected + errors;
+    return missed == 0 && achieved >= 0.95 * offered && (rejected + errors) * 100 <= sent
+        && millis(corrected, 99) <= p99Objective;
+  }
+
+  double getOffered() {
+    return offered;
+  }
+
+  double getAchieved() {
+    return achieved;
+  }
+
+  double p99() {
+    return millis(corrected, 99);
+  }
+
+  String toRow() {
+    return String.format(Locale.ROOT,
+        "%-20s %9.0f %10.0f %8d %8d %8d %8d %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f", workload,
+        offered, achieved, ok, rejected, errors, missed, millis(corrected, 50),
+        millis(corrected, 90), millis(corrected, 99), millis(corrected, 99.9),
+        millis(corrected, 100), millis(raw, 99));
+  }
+
+  String toCsv(String mode) {
+    return String.format(Locale.ROOT,
+        "%s,%s,%.0f,%.1f,%d,%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f", mode,
+        workload, offered, achieved, ok, rejected, errors, missed, millis(corrected, 50),
+        millis(corrected, 90), millis(corrected, 99), millis(corrected, 99.9),
+        millis(corrected, 100), millis(raw, 50), millis(raw, 99),
+        millis(operations[Workload.Operation.INGEST.ordinal()], 99),
+        millis(operations[Workload.Operation.QUERY.ordinal()], 99),
+        millis(operations[Workload.Operation.DELETE.ordinal()], 99));
+  }
+
+  private static double millis(Histogram histogram, double percentile) {
+    if (histogram.getTotalCount() == 0) {
+      return 0;
+    }
+    long value = percentile >= 100 ? histogram.getMaxValue()
+        : histogram.getValueAtPercentile(percentile);
+    return value / 1000.0;
+  }
+
+}
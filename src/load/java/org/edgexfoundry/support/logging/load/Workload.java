@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.load;
+
+/**
+ * Mix of requests sent to the service during a load step, as relative weights of the ingest, query
+ * and delete requests.
+ */
+public enum Workload {
+
+  /** Device services logging at full speed while a few dashboards poll the recent entries */
+  INGEST_HEAVY(90, 10, 0),
+  /** Operators troubleshooting: mostly searches, with the usual background ingest */
+  QUERY_HEAVY(20, 80, 0),
+  /** Ingest with retention deletes running against the oldest entries at the same time */
+  DELETE_DURING_INGEST(89, 10, 1);
+
+  private final int ingest;
+  private final int query;
+  private final int delete;
+
+  Workload(int ingest, int query, int delete) {
+    this.ingest = ingest;
+    this.query = query;
+    this.delete = delete;
+  }
+
+  /**
+   * Pick the operation of the next request
+   *
+   * @param value - uniformly distributed in [0, 100)
+   * @return operation to send
+   */
+  public Operation pick(int value) {
+    if (value < ingest) {
+      return Operation.INGEST;
+    }
+    if (value < ingest + query) {
+      return Operation.QUERY;
+    }
+    return Operation.DELETE;
+  }
+
+  public enum Operation {
+    INGEST, QUERY, DELETE
+  }
+
+}
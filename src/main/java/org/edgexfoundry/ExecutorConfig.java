@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry;
+
+import org.edgexfoundry.support.logging.service.Bulkhead;
+import org.edgexfoundry.support.logging.service.Bulkhead.RejectionPolicy;
+import org.edgexfoundry.support.logging.service.IngestLanes;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Separate, independently sized thread pools for the ingest, query and delete paths, so a heavy
+ * query or a delete rewriting the log file can never hold up log ingest. Ingest falls back to
+ * running on the caller's thread when its pool is saturated, so logEntries are slowed down rather
+ * than lost, while queries and deletes are rejected. Ingest itself is split into a priority lane
+ * for WARN and ERROR logEntries and a standard lane for the others, see IngestLanes. The scheduled
+ * tasks get a pool of their own too, rather than all sharing Spring's single scheduler thread.
+ */
+@Configuration
+public class ExecutorConfig {
+
+  public static final String INGEST_EXECUTOR = "ingestExecutor";
+  public static final String INGEST_PRIORITY_EXECUTOR = "ingestPriorityExecutor";
+  public static final String QUERY_EXECUTOR = "queryExecutor";
+  public static final String DELETE_EXECUTOR = "deleteExecutor";
+  public static final String TASK_SCHEDULER = "taskScheduler";
+
+  @Bean(name = INGEST_EXECUTOR, destroyMethod = "shutdown")
+  public Bulkhead ingestExecutor(@Value("${logging.executor.ingest.threads:4}") int threads,
+      @Value("${logging.executor.ingest.queue:10000}") int queue,
+      @Value("${logging.executor.ingest.rejection:CALLER_RUNS}") RejectionPolicy policy) {
+    return new Bulkhead("ingest", threads, queue, policy);
+  }
+
+  @Bean(name = INGEST_PRIORITY_EXECUTOR, destroyMethod = "shutdown")
+  public Bulkhead ingestPriorityExecutor(
+      @Value("${logging.executor.ingest.priority.threads:2}") int threads,
+      @Value("${logging.executor.ingest.priority.queue:10000}") int queue,
+      @Value("${logging.executor.ingest.priority.rejection:CALLER_RUNS}") RejectionPolicy policy) {
+    return new Bulkhead("ingest-priority", threads, queue, policy);
+  }
+
+  @Bean
+  public IngestLanes ingestLanes(@Qualifier(INGEST_PRIORITY_EXECUTOR) Bulkhead priority,
+      @Qualifier(INGEST_EXECUTOR) Bulkhead standard,
+      @Value("${logging.executor.ingest.shed.threshold:0.8}") double shedThreshold) {
+    return new IngestLanes(priority, standard, shedThreshold);
+  }
+
+  @Bean(name = QUERY_EXECUTOR, destroyMethod = "shutdown")
+  public Bulkhead queryExecutor(@Value("${logging.executor.query.threads:4}") int threads,
+      @Value("${logging.executor.query.queue:16}") int queue,
+      @Value("${logging.executor.query.rejection:ABORT}") RejectionPolicy policy) {
+    return new Bulkhead("query", threads, queue, policy);
+  }
+
+  @Bean(name = DELETE_EXECUTOR, destroyMethod = "shutdown")
+  public Bulkhead deleteExecutor(@Value("${logging.executor.delete.threads:1}") int threads,
+      @Value("${logging.executor.delete.queue:4}") int queue,
+      @Value("${logging.executor.delete.rejection:ABORT}") RejectionPolicy policy) {
+    return new Bulkhead("delete", threads, queue, policy);
+  }
+
+  @Bean(name = TASK_SCHEDULER, destroyMethod = "shutdown")
+  public ThreadPoolTaskScheduler taskScheduler(
+      @Value("${logging.executor.scheduler.threads:4}") int threads) {
+    ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    scheduler.setPoolSize(threads);
+    scheduler.setThreadNamePrefix("scheduler-");
+    return scheduler;
+  }
+
+}
@@ -22,8 +22,10 @@ import java.net.UnknownHostException;
 import java.util.Arrays;
 import java.util.List;
 
+import org.edgexfoundry.support.logging.dao.impl.ConditionalOnPersistence;
+import org.edgexfoundry.support.logging.metrics.LoggingMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.MongoDbFactory;
@@ -38,7 +40,7 @@ import com.mongodb.MongoCredential;
 import com.mongodb.ServerAddress;
 
 @Configuration
-@ConditionalOnProperty(name = {"logging.persistence"}, havingValue = "mongodb")
+@ConditionalOnPersistence("mongodb")
 public class MongoConfig extends AbstractMongoConfiguration {
 
   @Value("${spring.data.mongodb.username}")
@@ -68,6 +70,9 @@ public class MongoConfig extends AbstractMongoConfiguration {
   @Value("${spring.data.mongodb.socketKeepAlive}")
   private boolean socketKeepAlive;
 
+  @Autowired
+  private LoggingMetrics metrics;
+
   private MongoClient client;
 
   @Override
@@ -109,7 +114,8 @@ public class MongoConfig extends AbstractMongoConfiguration {
 
   private MongoClientOptions getMongoClientOptions() {
     return MongoClientOptions.builder().connectTimeout(connectTimeout).socketTimeout(socketTimeout)
-        .maxWaitTime(maxWaitTime).socketKeepAlive(socketKeepAlive).build();
+        .maxWaitTime(maxWaitTime).socketKeepAlive(socketKeepAlive).addCommandListener(metrics)
+        .build();
   }
 
 }
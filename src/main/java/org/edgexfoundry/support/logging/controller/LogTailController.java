@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.controller;
+
+import java.util.List;
+
+import org.edgexfoundry.exception.controller.LimitExceededException;
+import org.edgexfoundry.exception.controller.ServiceException;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.service.TailSubscription;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface LogTailController {
+
+  /**
+   * Subscribe to the LogEntries saved from now on that match the criteria given as request
+   * parameters (e.g. ?logLevels=WARN,ERROR&originServices=core-data). Each matching logEntry is
+   * pushed as a "logEntry" Server-Sent Event; when the subscriber can't keep up, dropped logEntries
+   * are reported with a "dropped" event carrying the number of logEntries lost.
+   * LimitExceededException (HTTP 413) if the number of subscribers exceeds the current max.
+   * ServiceException (HTTP 503) for unknown or unanticipated issues.
+   * 
+   * @param criteria - the criteria the pushed logEntries must match
+   * @return the Server-Sent Events emitter
+   * @throws LimitExceededException (HTTP 413) if the number of subscribers exceeds the current max
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  SseEmitter tail(MatchCriteria criteria);
+
+  /**
+   * Return the current live tail subscriptions along with their buffered, delivered and dropped
+   * logEntry counts. ServiceException (HTTP 503) for unknown or unanticipated issues.
+   * 
+   * @return the current subscriptions
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  List<TailSubscription> getSubscriptions();
+
+}
@@ -19,20 +19,28 @@
 package org.edgexfoundry.support.logging.controller;
 
 import java.util.List;
+import java.util.Map;
 
+import javax.servlet.http.HttpServletResponse;
+
+import org.edgexfoundry.exception.controller.DataValidationException;
 import org.edgexfoundry.exception.controller.LimitExceededException;
 import org.edgexfoundry.exception.controller.ServiceException;
 import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.query.LogQuery;
 import org.slf4j.event.Level;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 
 public interface LoggingController {
 
   /**
-   * Receive request to create a new logEntry into logging service. ServiceException (HTTP 503) for
-   * unknown or unanticipated issues.
+   * Receive request to create a new logEntry into logging service. HTTP 429 with the reason when
+   * the originService of the logEntry exceeds its rate limit, along with a Retry-After header, or
+   * took its storage quota. ServiceException (HTTP 503) for unknown or unanticipated issues.
    * 
    * @param entry - logEntry to be created
    * @return timestamp(in the form of long) being accepted
@@ -321,4 +329,116 @@ public interface LoggingController {
       @PathVariable Level[] logLevels, @PathVariable String[] originServices,
       @PathVariable String[] labels, @PathVariable String[] keywords, @PathVariable long start,
       @PathVariable long end);
+
+  /**
+   * Stream every LogEntry matching the specified criteria, without any limit, as newline delimited
+   * JSON (one LogEntry per line). Entries are written to the response while they are read from the
+   * persistence, so memory usage doesn't depend on the size of the export. ServiceException (HTTP
+   * 503) for unknown or unanticipated issues.
+   * 
+   * @param criteria - the criteria the exported logEntries must match
+   * @param gzip - true to gzip compress the response body
+   * @param response - the response the logEntries are written to
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  void exportLogEntries(@RequestBody MatchCriteria criteria, @RequestParam boolean gzip,
+      HttpServletResponse response);
+
+  /**
+   * Count the LogEntries matching the specified criteria for each logLevel. ServiceException (HTTP
+   * 503) for unknown or unanticipated issues.
+   * 
+   * @param criteria - the criteria the counted logEntries must match
+   * @return number of matching logEntries per logLevel
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  Map<String, Long> countLogEntriesByLogLevels(@RequestBody MatchCriteria criteria);
+
+  /**
+   * Count the LogEntries matching the specified criteria for each originService. ServiceException
+   * (HTTP 503) for unknown or unanticipated issues.
+   * 
+   * @param criteria - the criteria the counted logEntries must match
+   * @return number of matching logEntries per originService
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  Map<String, Long> countLogEntriesByOriginServices(@RequestBody MatchCriteria criteria);
+
+  /**
+   * Count the LogEntries matching the specified criteria for each label. A logEntry is counted once
+   * for each of its labels. ServiceException (HTTP 503) for unknown or unanticipated issues.
+   * 
+   * @param criteria - the criteria the counted logEntries must match
+   * @return number of matching logEntries per label
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  Map<String, Long> countLogEntriesByLabels(@RequestBody MatchCriteria criteria);
+
+  /**
+   * Count the LogEntries matching the specified criteria for each message template, most frequent
+   * first, e.g. to tell which message patterns spiked over a time range. Templates are mined from
+   * the messages as they are saved, with their variable parts as <*>. ServiceException (HTTP 503)
+   * for unknown or unanticipated issues.
+   * 
+   * @param criteria - the criteria the counted logEntries must match
+   * @return number of matching logEntries per template
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  Map<String, Long> countLogEntriesByTemplates(@RequestBody MatchCriteria criteria);
+
+  /**
+   * Count the LogEntries matching the specified criteria in fixed time buckets of the specified
+   * interval, e.g. per minute with an interval of 60000. DataValidationException (HTTP 409) if the
+   * interval is not positive. LimitExceededException (HTTP 413) if the criteria time range spans
+   * more buckets than the current max. ServiceException (HTTP 503) for unknown or unanticipated
+   * issues.
+   * 
+   * @param interval - size of the time buckets in milliseconds
+   * @param criteria - the criteria the counted logEntries must match
+   * @return number of matching logEntries keyed by the start (in long form) of each non empty
+   *         bucket
+   * @throws DataValidationException (HTTP 409) if the interval is not positive
+   * @throws LimitExceededException (HTTP 413) if the number of buckets exceeds the current max
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  Map<String, Long> countLogEntriesByTime(@PathVariable long interval,
+      @RequestBody MatchCriteria criteria);
+
+  /**
+   * Return the hits, misses, evictions and invalidations of the searchByCriteria result cache since
+   * startup, along with the number of queries and logEntries it currently holds. ServiceException
+   * (HTTP 503) for unknown or unanticipated issues.
+   * 
+   * @return cache statistics keyed by name
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  Map<String, Long> getCacheStats();
+
+  /**
+   * Return the saturation of the ingest, query and delete thread pools: pool size, active threads,
+   * queued and completed work, queue capacity and the work rejected since startup, per pool.
+   * ServiceException (HTTP 503) for unknown or unanticipated issues.
+   * 
+   * @return thread pool statistics keyed by pool name
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  Map<String, Map<String, Long>> getPoolStats();
+
+  /**
+   * Return the LogEntries matching a JSON query tree, limited in size by the limit parameter (the
+   * current max limit when absent). The tree combines clauses with AND, OR and NOT and tests fields
+   * with EQ, IN, PREFIX, CONTAINS, REGEX and a created RANGE, e.g. {"op":"AND","clauses":[{"op":
+   * "IN","field":"logLevel","values":["WARN","ERROR"]},{"op":"PREFIX","field":"originService",
+   * "value":"core-"}]}. DataValidationException (HTTP 409) if the query is not valid.
+   * LimitExceededException (HTTP 413) if the number of events exceeds the current max limit.
+   * ServiceException (HTTP 503) for unknown or unanticipated issues.
+   * 
+   * @param query - the query tree the logEntries must match
+   * @param limit - maximum number of events to fetch, must be <= MAX_LIMIT
+   * @return list of LogEntry matching the query
+   * @throws DataValidationException (HTTP 409) if the query is not valid
+   * @throws LimitExceededException (HTTP 413) if the number of events exceeds the current max limit
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  List<LogEntry> searchLogEntries(@RequestBody LogQuery query, @RequestParam Integer limit);
 }
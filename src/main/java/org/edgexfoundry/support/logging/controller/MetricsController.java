@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.controller;
+
+import java.util.Map;
+
+public interface MetricsController {
+
+  /**
+   * Return the performance metrics of the service keyed by dotted name: logEntries accepted and
+   * saved with their rates, saved rate per originService, latency percentiles of the DAO save,
+   * find and remove operations and of the MongoDB round trips, thread pool saturation (including
+   * the async ingest queue depth) and query result cache size. Rates are in logEntries per second
+   * and latencies in microseconds, over the last metrics interval. ServiceException (HTTP 503) for
+   * unknown or unanticipated issues.
+   * 
+   * @return metrics keyed by name
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  Map<String, Number> getMetrics();
+
+}
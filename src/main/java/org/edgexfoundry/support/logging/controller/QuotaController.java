@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.controller;
+
+import java.util.Map;
+
+import org.edgexfoundry.exception.controller.NotFoundException;
+import org.edgexfoundry.exception.controller.ServiceException;
+import org.springframework.web.bind.annotation.PathVariable;
+
+public interface QuotaController {
+
+  /**
+   * Return the usage of every known originService against its limits: logEntries and bytes held
+   * in the store, storage quota in bytes (0 for no quota), rate limit in logEntries per second (0
+   * for no limit) and the logEntries throttled by the rate limit and rejected over the quota since
+   * startup. ServiceException (HTTP 503) for unknown or unanticipated issues.
+   * 
+   * @return usage keyed by name per originService
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  Map<String, Map<String, Long>> getUsage();
+
+  /**
+   * Return the usage of one originService against its limits, as getUsage does.
+   * NotFoundException (HTTP 404) if the originService has no logEntry stored nor rejected.
+   * ServiceException (HTTP 503) for unknown or unanticipated issues.
+   * 
+   * @param originService
+   * @return usage keyed by name
+   * @throws NotFoundException (HTTP 404) if the originService is unknown
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  Map<String, Long> getUsage(@PathVariable String originService);
+
+}
@@ -18,27 +18,52 @@
 
 package org.edgexfoundry.support.logging.controller.impl;
 
+import java.io.OutputStream;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.log4j.Logger;
+import org.edgexfoundry.exception.controller.DataValidationException;
 import org.edgexfoundry.exception.controller.LimitExceededException;
 import org.edgexfoundry.exception.controller.ServiceException;
 import org.edgexfoundry.support.domain.logging.LogEntry;
 import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.controller.GatewayTimeoutException;
 import org.edgexfoundry.support.logging.controller.LoggingController;
+import org.edgexfoundry.support.logging.dao.MDC_ENUM_CONSTANTS;
+import org.edgexfoundry.support.logging.dao.QueryContext;
+import org.edgexfoundry.support.logging.metrics.LoggingMetrics;
+import org.edgexfoundry.support.logging.query.CompiledQuery;
+import org.edgexfoundry.support.logging.query.LogQuery;
 import org.edgexfoundry.support.logging.service.LoggingService;
+import org.edgexfoundry.support.logging.service.QuotaExceededException;
+import org.edgexfoundry.support.logging.service.QuotaService;
 import org.slf4j.event.Level;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 @RestController
 @RequestMapping("/api/v1/logs")
@@ -48,17 +73,49 @@ public class LoggingControllerImpl implements LoggingController {
 
   private static final String FETCH_ERROR = "Error fetching logEntry:";
   private static final String REMOVE_ERROR = "Error removing logEntry:";
+  private static final String EXPORT_ERROR = "Error exporting logEntry:";
+  private static final String COUNT_ERROR = "Error counting logEntry:";
   private static final String LOG_ENTRY = "LogEntry";
+  private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+  private static final String GZIP_ENCODING = "gzip";
+  private static final String TIMEOUT_ERROR = "LogEntry query exceeded its deadline";
+  // set to true on responses holding the partial results of a query that hit its deadline or ran
+  // while the persisted logEntries were still being loaded
+  public static final String TRUNCATED_HEADER = "X-Results-Truncated";
+  // flushing is driven by the export batch size rather than by every single logEntry
+  private static final ObjectMapper EXPORT_MAPPER =
+      new ObjectMapper().disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
 
   @Autowired
   private LoggingService service;
 
+  @Autowired
+  private LoggingMetrics metrics;
+
+  @Autowired
+  private QuotaService quotaService;
+
   @Value("${read.max.limit:100}")
-  private int maxLimit;
+  private int maxLimit = 100;
+
+  @Value("${read.max.buckets:10000}")
+  private int maxBuckets = 10000;
+
+  @Value("${logging.export.batchsize:500}")
+  private int exportBatchSize = 500;
+
+  @Value("${read.timeout:30000}")
+  private long readTimeout = 30000L;
+
+  @Value("${read.timeout.partial:true}")
+  private boolean partialResults = true;
 
   /**
-   * Receive request to create a new logEntry into logging service. ServiceException (HTTP 503) for
-   * unknown or unanticipated issues.
+   * Receive request to create a new logEntry into logging service. HTTP 429 with the reason when
+   * the originService of the logEntry exceeds its rate limit, along with a Retry-After header, or
+   * took its storage quota. HTTP 503 with a Retry-After header when the logEntry is shed because
+   * the ingest lanes are congested. ServiceException (HTTP 503) for unknown or unanticipated
+   * issues.
    * 
    * @param entry - logEntry to be created
    * @return timestamp(in the form of long) being accepted
@@ -70,8 +127,26 @@ public class LoggingControllerImpl implements LoggingController {
     Date currentTime = Calendar.getInstance().getTime();
     entry.setCreated(currentTime.getTime());
     try {
-      service.addLogEntry(entry);
+      quotaService.admit(entry);
+      if (!service.addLogEntry(entry)) {
+        // already counted as shed by the ingest lanes, per level
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        return new ResponseEntity<>("logEntry shed under load", headers,
+            HttpStatus.SERVICE_UNAVAILABLE);
+      }
+      metrics.accepted();
       return new ResponseEntity<>(currentTime.getTime(), HttpStatus.ACCEPTED);
+    } catch (QuotaExceededException e) {
+      logger.debug(e.getMessage());
+      HttpHeaders headers = new HttpHeaders();
+      if (e.getRetryAfter() > 0) {
+        // in whole seconds, rounded up
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString((e.getRetryAfter() + 999) / 1000));
+      }
+      return new ResponseEntity<>(e.getMessage(), headers, HttpStatus.TOO_MANY_REQUESTS);
+    } catch (LimitExceededException e) {
+      throw e;
     } catch (Exception e) {
       logger.error("Error adding logEntry:", e);
       throw new ServiceException(e);
@@ -524,21 +599,296 @@ public class LoggingControllerImpl implements LoggingController {
     return deleteLogEntries(criteria);
   }
 
+  /**
+   * Stream every LogEntry matching the specified criteria, without any limit, as newline delimited
+   * JSON (one LogEntry per line). Entries are written to the response while they are read from the
+   * persistence, so memory usage doesn't depend on the size of the export. ServiceException (HTTP
+   * 503) for unknown or unanticipated issues.
+   * 
+   * @param criteria - the criteria the exported logEntries must match
+   * @param gzip - true to gzip compress the response body
+   * @param response - the response the logEntries are written to
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  @RequestMapping(value = "/export", method = RequestMethod.POST)
+  public void exportLogEntries(@RequestBody MatchCriteria criteria,
+      @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+      HttpServletResponse response) {
+    response.setContentType(NDJSON_CONTENT_TYPE);
+    if (gzip) {
+      response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP_ENCODING);
+    }
+    try (CloseableIterator<LogEntry> entries = service.streamByCriteria(criteria)) {
+      OutputStream out = response.getOutputStream();
+      if (gzip) {
+        out = new GZIPOutputStream(out);
+      }
+      JsonGenerator generator = EXPORT_MAPPER.getFactory().createGenerator(out);
+      int count = 0;
+      while (entries.hasNext()) {
+        EXPORT_MAPPER.writeValue(generator, entries.next());
+        generator.writeRaw('\n');
+        if (++count % exportBatchSize == 0) {
+          generator.flush();
+        }
+      }
+      // also finishes the gzip stream
+      generator.close();
+      logger.debug("Exported " + count + " logEntries");
+    } catch (Exception e) {
+      logger.error(EXPORT_ERROR, e);
+      throw new ServiceException(e);
+    }
+  }
+
+  /**
+   * Count the LogEntries matching the specified criteria for each logLevel. ServiceException (HTTP
+   * 503) for unknown or unanticipated issues.
+   * 
+   * @param criteria - the criteria the counted logEntries must match
+   * @return number of matching logEntries per logLevel
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  @RequestMapping(value = "/stats/logLevels", method = RequestMethod.POST)
+  public Map<String, Long> countLogEntriesByLogLevels(@RequestBody MatchCriteria criteria) {
+    return countEntries(criteria, MDC_ENUM_CONSTANTS.LOGLEVEL, 0);
+  }
+
+  /**
+   * Count the LogEntries matching the specified criteria for each originService. ServiceException
+   * (HTTP 503) for unknown or unanticipated issues.
+   * 
+   * @param criteria - the criteria the counted logEntries must match
+   * @return number of matching logEntries per originService
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  @RequestMapping(value = "/stats/originServices", method = RequestMethod.POST)
+  public Map<String, Long> countLogEntriesByOriginServices(@RequestBody MatchCriteria criteria) {
+    return countEntries(criteria, MDC_ENUM_CONSTANTS.ORIGINSERVICE, 0);
+  }
+
+  /**
+   * Count the LogEntries matching the specified criteria for each label. A logEntry is counted once
+   * for each of its labels. ServiceException (HTTP 503) for unknown or unanticipated issues.
+   * 
+   * @param criteria - the criteria the counted logEntries must match
+   * @return number of matching logEntries per label
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  @RequestMapping(value = "/stats/labels", method = RequestMethod.POST)
+  public Map<String, Long> countLogEntriesByLabels(@RequestBody MatchCriteria criteria) {
+    return countEntries(criteria, MDC_ENUM_CONSTANTS.LABELS, 0);
+  }
+
+  /**
+   * Count the LogEntries matching the specified criteria for each message template, most frequent
+   * first, e.g. to tell which message patterns spiked over a time range. Templates are mined from
+   * the messages as they are saved, with their variable parts as <*>; messages past the maximum
+   * number of templates are counted together as <unmatched>. Counting stops at the read timeout,
+   * returning the counts so far flagged with the X-Results-Truncated header when partial results
+   * are enabled. GatewayTimeoutException (HTTP 504) otherwise. ServiceException (HTTP 503) for
+   * unknown or unanticipated issues.
+   * 
+   * @param criteria - the criteria the counted logEntries must match
+   * @return number of matching logEntries per template
+   * @throws GatewayTimeoutException (HTTP 504) if the read timeout is hit without partial results
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  @RequestMapping(value = "/stats/templates", method = RequestMethod.POST)
+  public Map<String, Long> countLogEntriesByTemplates(@RequestBody MatchCriteria criteria) {
+    QueryContext context = new QueryContext(readTimeout);
+    Map<String, Long> result;
+    try {
+      result = service.countByTemplate(criteria, context);
+    } catch (LimitExceededException e) {
+      throw e;
+    } catch (QueryTimeoutException e) {
+      logger.warn(TIMEOUT_ERROR + ": " + e.getMessage());
+      throw new GatewayTimeoutException(e);
+    } catch (Exception e) {
+      logger.error(COUNT_ERROR, e);
+      throw new ServiceException(e);
+    }
+    return checkTruncated(result, context);
+  }
+
+  /**
+   * Count the LogEntries matching the specified criteria in fixed time buckets of the specified
+   * interval, e.g. per minute with an interval of 60000. DataValidationException (HTTP 409) if the
+   * interval is not positive. LimitExceededException (HTTP 413) if the criteria time range spans
+   * more buckets than the current max, a range without end spanning up to now, or if more non
+   * empty buckets than that are counted, e.g. for a range without start. ServiceException (HTTP
+   * 503) for unknown or unanticipated issues.
+   * 
+   * @param interval - size of the time buckets in milliseconds
+   * @param criteria - the criteria the counted logEntries must match
+   * @return number of matching logEntries keyed by the start (in long form) of each non empty
+   *         bucket
+   * @throws DataValidationException (HTTP 409) if the interval is not positive
+   * @throws LimitExceededException (HTTP 413) if the number of buckets exceeds the current max
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  @RequestMapping(value = "/stats/histogram/{interval}", method = RequestMethod.POST)
+  public Map<String, Long> countLogEntriesByTime(@PathVariable long interval,
+      @RequestBody MatchCriteria criteria) {
+    if (interval <= 0) {
+      throw new DataValidationException("Histogram interval must be positive");
+    }
+    long end = criteria.getEnd() > 0 ? criteria.getEnd() : System.currentTimeMillis();
+    if (criteria.getStart() > 0 && end > criteria.getStart()
+        && (end - criteria.getStart()) / interval > maxBuckets) {
+      throw new LimitExceededException(LOG_ENTRY);
+    }
+    Map<String, Long> counts = countEntries(criteria, MDC_ENUM_CONSTANTS.CREATED, interval);
+    // without a start, how far back the logEntries go is only known once counted
+    if (counts.size() > maxBuckets) {
+      throw new LimitExceededException(LOG_ENTRY);
+    }
+    return counts;
+  }
+
+  /**
+   * Return the hits, misses, evictions and invalidations of the searchByCriteria result cache since
+   * startup, along with the number of queries and logEntries it currently holds. ServiceException
+   * (HTTP 503) for unknown or unanticipated issues.
+   * 
+   * @return cache statistics keyed by name
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  @RequestMapping(value = "/stats/cache", method = RequestMethod.GET)
+  public Map<String, Long> getCacheStats() {
+    try {
+      return service.getCacheStats();
+    } catch (Exception e) {
+      logger.error("Error fetching cache statistics:", e);
+      throw new ServiceException(e);
+    }
+  }
+
+  /**
+   * Return the saturation of the ingest, query and delete thread pools: pool size, active threads,
+   * queued and completed work, queue capacity and the work rejected since startup, per pool.
+   * ServiceException (HTTP 503) for unknown or unanticipated issues.
+   * 
+   * @return thread pool statistics keyed by pool name
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  @RequestMapping(value = "/stats/pools", method = RequestMethod.GET)
+  public Map<String, Map<String, Long>> getPoolStats() {
+    try {
+      return service.getPoolStats();
+    } catch (Exception e) {
+      logger.error("Error fetching thread pool statistics:", e);
+      throw new ServiceException(e);
+    }
+  }
+
+  /**
+   * Return the LogEntries matching a JSON query tree, limited in size by the limit parameter (the
+   * current max limit when absent). The tree combines clauses with AND, OR and NOT and tests fields
+   * with EQ, IN, PREFIX, CONTAINS, REGEX and a created RANGE, e.g. {"op":"AND","clauses":[{"op":
+   * "IN","field":"logLevel","values":["WARN","ERROR"]},{"op":"PREFIX","field":"originService",
+   * "value":"core-"}]}. DataValidationException (HTTP 409) if the query is not valid or the limit
+   * is not positive. LimitExceededException (HTTP 413) if the number of events exceeds the current
+   * max limit. ServiceException (HTTP 503) for unknown or unanticipated issues.
+   * 
+   * @param query - the query tree the logEntries must match
+   * @param limit - maximum number of events to fetch, must be > 0 and <= MAX_LIMIT
+   * @return list of LogEntry matching the query
+   * @throws DataValidationException (HTTP 409) if the query is not valid or the limit not positive
+   * @throws LimitExceededException (HTTP 413) if the number of events exceeds the current max limit
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  @RequestMapping(value = "/search", method = RequestMethod.POST)
+  public List<LogEntry> searchLogEntries(@RequestBody LogQuery query,
+      @RequestParam(value = "limit", required = false) Integer limit) {
+    int max = null == limit ? maxLimit : limit;
+    if (max <= 0) {
+      throw new DataValidationException("Limit must be positive");
+    }
+    if (max > maxLimit) {
+      throw new LimitExceededException(LOG_ENTRY);
+    }
+    CompiledQuery compiled;
+    try {
+      compiled = CompiledQuery.compile(query);
+    } catch (IllegalArgumentException e) {
+      throw new DataValidationException(e.getMessage());
+    }
+    QueryContext context = new QueryContext(readTimeout);
+    List<LogEntry> result;
+    try {
+      result = service.searchByQuery(compiled, max, context);
+    } catch (LimitExceededException e) {
+      throw e;
+    } catch (QueryTimeoutException e) {
+      logger.warn(TIMEOUT_ERROR + ": " + e.getMessage());
+      throw new GatewayTimeoutException(e);
+    } catch (Exception e) {
+      logger.error(FETCH_ERROR, e);
+      throw new ServiceException(e);
+    }
+    return checkTruncated(result, context);
+  }
+
   private List<LogEntry> getEnteries(MatchCriteria criteria, int limit) {
+    QueryContext context = new QueryContext(readTimeout);
+    List<LogEntry> result;
     try {
-      return service.searchByCriteria(criteria, limit);
+      result = service.searchByCriteria(criteria, limit, context);
+    } catch (LimitExceededException e) {
+      throw e;
+    } catch (QueryTimeoutException e) {
+      logger.warn(TIMEOUT_ERROR + ": " + e.getMessage());
+      throw new GatewayTimeoutException(e);
     } catch (Exception e) {
       logger.error(FETCH_ERROR, e);
       throw new ServiceException(e);
     }
+    return checkTruncated(result, context);
+  }
+
+  /**
+   * Return the partial results of a query that hit its deadline flagged with the truncated header,
+   * or fail with a gateway timeout when partial results are disabled
+   */
+  private <T> T checkTruncated(T result, QueryContext context) {
+    if (context.isTruncated()) {
+      logger.warn(TIMEOUT_ERROR + " after " + context.getEntriesScanned() + " entries scanned, "
+          + context.getSegmentsPruned() + " segments pruned");
+      if (!partialResults) {
+        throw new GatewayTimeoutException(TIMEOUT_ERROR);
+      }
+      RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+      if (attributes instanceof ServletRequestAttributes
+          && null != ((ServletRequestAttributes) attributes).getResponse()) {
+        ((ServletRequestAttributes) attributes).getResponse().setHeader(TRUNCATED_HEADER,
+            Boolean.TRUE.toString());
+      }
+    }
+    return result;
   }
 
   private int deleteLogEntries(MatchCriteria criteria) {
     try {
       return service.removeByCriteria(criteria).size();
+    } catch (LimitExceededException e) {
+      throw e;
     } catch (Exception e) {
       logger.error(REMOVE_ERROR, e);
       throw new ServiceException(e);
     }
   }
+
+  private Map<String, Long> countEntries(MatchCriteria criteria, MDC_ENUM_CONSTANTS field,
+      long interval) {
+    try {
+      return service.countByCriteria(criteria, field, interval);
+    } catch (LimitExceededException e) {
+      throw e;
+    } catch (Exception e) {
+      logger.error(COUNT_ERROR, e);
+      throw new ServiceException(e);
+    }
+  }
 }
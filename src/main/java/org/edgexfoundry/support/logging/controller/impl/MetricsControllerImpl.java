@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.controller.impl;
+
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.edgexfoundry.exception.controller.ServiceException;
+import org.edgexfoundry.support.logging.controller.MetricsController;
+import org.edgexfoundry.support.logging.metrics.LoggingMetrics;
+import org.edgexfoundry.support.logging.metrics.StartupTimings;
+import org.edgexfoundry.support.logging.service.LoggingService;
+import org.edgexfoundry.support.logging.service.QuotaService;
+import org.edgexfoundry.support.logging.service.RetentionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/metrics")
+public class MetricsControllerImpl implements MetricsController {
+
+  private static final Logger logger = Logger.getLogger(MetricsControllerImpl.class);
+
+  @Autowired
+  private LoggingMetrics metrics;
+
+  @Autowired
+  private LoggingService service;
+
+  @Autowired
+  private StartupTimings startup;
+
+  @Autowired
+  private RetentionService retention;
+
+  @Autowired
+  private QuotaService quotas;
+
+  /**
+   * Return the performance metrics of the service keyed by dotted name: logEntries accepted and
+   * saved with their rates, saved rate per originService, latency percentiles of the DAO save,
+   * find and remove operations and of the MongoDB round trips, thread pool saturation (including
+   * the async ingest queue depth), the logEntries accepted, delayed and dropped by each ingest
+   * lane, query result cache size, repeats coalesced and logEntries sampled at ingest, startup
+   * phase timings in milliseconds since the JVM started, the progress of loading the persisted
+   * logEntries, what retention dropped and reclaimed and the logEntries throttled by the rate
+   * limits or rejected over the storage quotas since startup, and the logEntries queued, written,
+   * dropped and failed by each backend of a composite store or the queries served by each tier of
+   * a tiered one. Rates are in logEntries per second
+   * and latencies in microseconds, over the last metrics interval. ServiceException (HTTP 503) for
+   * unknown or unanticipated issues.
+   * 
+   * @return metrics keyed by name
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  @RequestMapping(method = RequestMethod.GET)
+  public Map<String, Number> getMetrics() {
+    try {
+      Map<String, Number> result = metrics.getMetrics();
+      for (Map.Entry<String, Map<String, Long>> pool : service.getPoolStats().entrySet()) {
+        for (Map.Entry<String, Long> stat : pool.getValue().entrySet()) {
+          result.put("pool." + pool.getKey() + "." + stat.getKey(), stat.getValue());
+        }
+      }
+      for (Map.Entry<String, Map<String, Long>> lane : service.getIngestStats().entrySet()) {
+        for (Map.Entry<String, Long> stat : lane.getValue().entrySet()) {
+          result.put("ingest." + lane.getKey() + "." + stat.getKey(), stat.getValue());
+        }
+      }
+      for (Map.Entry<String, Long> stat : service.getCacheStats().entrySet()) {
+        result.put("cache." + stat.getKey(), stat.getValue());
+      }
+      for (Map.Entry<String, Long> stat : service.getRepeatStats().entrySet()) {
+        result.put("dedup." + stat.getKey(), stat.getValue());
+      }
+      for (Map.Entry<String, Long> stat : service.getSamplingStats().entrySet()) {
+        result.put("sampling." + stat.getKey(), stat.getValue());
+      }
+      for (Map.Entry<String, Long> phase : startup.getTimings().entrySet()) {
+        result.put("startup." + phase.getKey(), phase.getValue());
+      }
+      for (Map.Entry<String, Long> stat : service.getWarmUpStats().entrySet()) {
+        result.put("startup.warmup." + stat.getKey(), stat.getValue());
+      }
+      for (Map.Entry<String, Long> stat : retention.getStats().entrySet()) {
+        result.put("retention." + stat.getKey(), stat.getValue());
+      }
+      for (Map.Entry<String, Long> stat : quotas.getStats().entrySet()) {
+        result.put("quota." + stat.getKey(), stat.getValue());
+      }
+      for (Map.Entry<String, Map<String, Long>> backend : service.getBackendStats().entrySet()) {
+        for (Map.Entry<String, Long> stat : backend.getValue().entrySet()) {
+          result.put("persistence." + backend.getKey() + "." + stat.getKey(), stat.getValue());
+        }
+      }
+      return result;
+    } catch (Exception e) {
+      logger.error("Error fetching metrics:", e);
+      throw new ServiceException(e);
+    }
+  }
+
+}
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.controller.impl;
+
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.edgexfoundry.exception.controller.LimitExceededException;
+import org.edgexfoundry.exception.controller.NotFoundException;
+import org.edgexfoundry.exception.controller.ServiceException;
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.controller.QueryJobController;
+import org.edgexfoundry.support.logging.service.QueryJob;
+import org.edgexfoundry.support.logging.service.QueryJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/logs/jobs")
+public class QueryJobControllerImpl implements QueryJobController {
+
+  private static final Logger logger = Logger.getLogger(QueryJobControllerImpl.class);
+
+  private static final String QUERY_JOB = "QueryJob";
+  private static final String JOB_ERROR = "Error handling query job:";
+
+  @Autowired
+  private QueryJobService service;
+
+  @Value("${read.max.limit:100}")
+  private int maxLimit;
+
+  /**
+   * Submit an asynchronous search for every LogEntry matching the criteria, without any limit. The
+   * search runs in the background and spills its results to a temp file; poll the returned job for
+   * progress and fetch its results page by page. LimitExceededException (HTTP 413) if too many jobs
+   * are already queued. ServiceException (HTTP 503) for unknown or unanticipated issues.
+   * 
+   * @param criteria - the criteria the logEntries must match
+   * @return the queued job (HTTP 202)
+   * @throws LimitExceededException (HTTP 413) if too many jobs are already queued
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  @RequestMapping(method = RequestMethod.POST)
+  public ResponseEntity<QueryJob> submitJob(@RequestBody MatchCriteria criteria) {
+    try {
+      return new ResponseEntity<>(service.submit(criteria), HttpStatus.ACCEPTED);
+    } catch (LimitExceededException e) {
+      throw e;
+    } catch (Exception e) {
+      logger.error(JOB_ERROR, e);
+      throw new ServiceException(e);
+    }
+  }
+
+  /**
+   * Return the current jobs, running or done but not yet expired. ServiceException (HTTP 503) for
+   * unknown or unanticipated issues.
+   * 
+   * @return list of jobs
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  @RequestMapping(method = RequestMethod.GET)
+  public List<QueryJob> getJobs() {
+    try {
+      return service.getJobs();
+    } catch (Exception e) {
+      logger.error(JOB_ERROR, e);
+      throw new ServiceException(e);
+    }
+  }
+
+  /**
+   * Return the status and progress of a job: logEntries and segments scanned and logEntries
+   * matched so far. NotFoundException (HTTP 404) if the job is unknown or expired.
+   * ServiceException (HTTP 503) for unknown or unanticipated issues.
+   * 
+   * @param id - the job id
+   * @return the job
+   * @throws NotFoundException (HTTP 404) if the job is unknown or expired
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  @RequestMapping(value = "/{id}", method = RequestMethod.GET)
+  public QueryJob getJob(@PathVariable String id) {
+    QueryJob job;
+    try {
+      job = service.getJob(id);
+    } catch (Exception e) {
+      logger.error(JOB_ERROR, e);
+      throw new ServiceException(e);
+    }
+    if (null == job) {
+      throw new NotFoundException(QUERY_JOB, id);
+    }
+    return job;
+  }
+
+  /**
+   * Return a page of the results a job found so far. NotFoundException (HTTP 404) if the job is
+   * unknown or expired. LimitExceededException (HTTP 413) if the page size exceeds the current max
+   * limit. ServiceException (HTTP 503) for unknown or unanticipated issues.
+   * 
+   * @param id - the job id
+   * @param offset - index of the first result to fetch
+   * @param limit - maximum number of results to fetch, must be <= MAX_LIMIT
+   * @return list of LogEntry
+   * @throws NotFoundException (HTTP 404) if the job is unknown or expired
+   * @throws LimitExceededException (HTTP 413) if the page size exceeds the current max limit
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  @RequestMapping(value = "/{id}/results", method = RequestMethod.GET)
+  public List<LogEntry> getJobResults(@PathVariable String id,
+      @RequestParam(value = "offset", defaultValue = "0") long offset,
+      @RequestParam(value = "limit", required = false) Integer limit) {
+    int max = null == limit ? maxLimit : limit;
+    if (max > maxLimit) {
+      throw new LimitExceededException(QUERY_JOB);
+    }
+    List<LogEntry> results;
+    try {
+      results = service.getResults(id, offset, max);
+    } catch (Exception e) {
+      logger.error(JOB_ERROR, e);
+      throw new ServiceException(e);
+    }
+    if (null == results) {
+      throw new NotFoundException(QUERY_JOB, id);
+    }
+    return results;
+  }
+
+  /**
+   * Stop a queued or running job, keeping the results found so far. NotFoundException (HTTP 404) if
+   * the job is unknown or expired. ServiceException (HTTP 503) for unknown or unanticipated issues.
+   * 
+   * @param id - the job id
+   * @return false if the job was already done
+   * @throws NotFoundException (HTTP 404) if the job is unknown or expired
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  @RequestMapping(value = "/{id}/cancel", method = RequestMethod.PUT)
+  public boolean cancelJob(@PathVariable String id) {
+    getJob(id);
+    try {
+      return service.cancel(id);
+    } catch (Exception e) {
+      logger.error(JOB_ERROR, e);
+      throw new ServiceException(e);
+    }
+  }
+
+  /**
+   * Stop a job if needed and discard it along with its results. NotFoundException (HTTP 404) if the
+   * job is unknown or expired. ServiceException (HTTP 503) for unknown or unanticipated issues.
+   * 
+   * @param id - the job id
+   * @return true when the job was removed
+   * @throws NotFoundException (HTTP 404) if the job is unknown or expired
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  @RequestMapping(value = "/{id}", method = RequestMethod.DELETE)
+  public boolean deleteJob(@PathVariable String id) {
+    boolean removed;
+    try {
+      removed = service.remove(id);
+    } catch (Exception e) {
+      logger.error(JOB_ERROR, e);
+      throw new ServiceException(e);
+    }
+    if (!removed) {
+      throw new NotFoundException(QUERY_JOB, id);
+    }
+    return true;
+  }
+
+}
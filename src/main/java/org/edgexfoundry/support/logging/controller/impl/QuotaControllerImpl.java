@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.controller.impl;
+
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.edgexfoundry.exception.controller.NotFoundException;
+import org.edgexfoundry.exception.controller.ServiceException;
+import org.edgexfoundry.support.logging.controller.QuotaController;
+import org.edgexfoundry.support.logging.service.QuotaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/quotas")
+public class QuotaControllerImpl implements QuotaController {
+
+  private static final Logger logger = Logger.getLogger(QuotaControllerImpl.class);
+
+  private static final String ORIGIN_SERVICE = "originService";
+  private static final String USAGE_ERROR = "Error fetching usage:";
+
+  @Autowired
+  private QuotaService service;
+
+  /**
+   * Return the usage of every known originService against its limits: logEntries and bytes held
+   * in the store, storage quota in bytes (0 for no quota), rate limit in logEntries per second (0
+   * for no limit) and the logEntries throttled by the rate limit and rejected over the quota since
+   * startup. ServiceException (HTTP 503) for unknown or unanticipated issues.
+   * 
+   * @return usage keyed by name per originService
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  @RequestMapping(method = RequestMethod.GET)
+  public Map<String, Map<String, Long>> getUsage() {
+    try {
+      return service.getUsage();
+    } catch (Exception e) {
+      logger.error(USAGE_ERROR, e);
+      throw new ServiceException(e);
+    }
+  }
+
+  /**
+   * Return the usage of one originService against its limits, as getUsage does.
+   * NotFoundException (HTTP 404) if the originService has no logEntry stored nor rejected.
+   * ServiceException (HTTP 503) for unknown or unanticipated issues.
+   * 
+   * @param originService
+   * @return usage keyed by name
+   * @throws NotFoundException (HTTP 404) if the originService is unknown
+   * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+   */
+  @RequestMapping(value = "/{originService:.+}", method = RequestMethod.GET)
+  public Map<String, Long> getUsage(@PathVariable String originService) {
+    Map<String, Long> usage;
+    try {
+      usage = service.getUsage().get(originService);
+    } catch (Exception e) {
+      logger.error(USAGE_ERROR, e);
+      throw new ServiceException(e);
+    }
+    if (null == usage) {
+      throw new NotFoundException(ORIGIN_SERVICE, originService);
+    }
+    return usage;
+  }
+
+}
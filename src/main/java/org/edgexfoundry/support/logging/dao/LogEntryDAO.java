@@ -18,17 +18,166 @@
 
 package org.edgexfoundry.support.logging.dao;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.edgexfoundry.support.domain.logging.LogEntry;
 import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.query.CompiledQuery;
+import org.springframework.data.util.CloseableIterator;
 
 public interface LogEntryDAO {
 
   boolean save(LogEntry entry);
 
-  List<LogEntry> findByCriteria(MatchCriteria criteria, int limit);
+  /**
+   * Save a batch of logEntries, in one round trip for stores that support it
+   *
+   * @param entries
+   * @return number of logEntries saved, the others were not loggable
+   */
+  default int saveAll(List<LogEntry> entries) {
+    int saved = 0;
+    for (LogEntry entry : entries) {
+      if (save(entry)) {
+        saved++;
+      }
+    }
+    return saved;
+  }
+
+  default List<LogEntry> findByCriteria(MatchCriteria criteria, int limit) {
+    return findByCriteria(criteria, limit, new QueryContext());
+  }
+
+  /**
+   * Find the logEntries matching the criteria within the deadline of the query context. When the
+   * deadline is hit, either return the logEntries found so far and flag the context as truncated
+   * or throw a QueryTimeoutException.
+   *
+   * @param criteria
+   * @param limit - maximum number of entries to return, negative for no limit
+   * @param context
+   * @return matching logEntries
+   * @throws org.springframework.dao.QueryTimeoutException if the deadline is hit without partial
+   *         results
+   */
+  List<LogEntry> findByCriteria(MatchCriteria criteria, int limit, QueryContext context);
 
   List<LogEntry> removeByCriteria(MatchCriteria criteria);
 
+  default List<LogEntry> findByQuery(CompiledQuery query, int limit) {
+    return findByQuery(query, limit, new QueryContext());
+  }
+
+  /**
+   * Find the logEntries matching a compiled search query within the deadline of the query context,
+   * the same way as findByCriteria
+   *
+   * @param query
+   * @param limit - maximum number of entries to return, negative for no limit
+   * @param context
+   * @return matching logEntries
+   * @throws org.springframework.dao.QueryTimeoutException if the deadline is hit without partial
+   *         results
+   */
+  List<LogEntry> findByQuery(CompiledQuery query, int limit, QueryContext context);
+
+  /**
+   * Lazily iterate every logEntry matching the criteria without any limit. Callers must close the
+   * returned iterator to release the underlying file handle or database cursor.
+   *
+   * @param criteria
+   * @return iterator over the matching logEntries
+   */
+  default CloseableIterator<LogEntry> streamByCriteria(MatchCriteria criteria) {
+    return streamByCriteria(criteria, new QueryContext());
+  }
+
+  /**
+   * Lazily iterate every logEntry matching the criteria without any limit, reporting the scanned
+   * logEntries and segments to the context. Once the context is cancelled, the iterator throws a
+   * CancellationException. Callers must close the returned iterator.
+   *
+   * @param criteria
+   * @param context
+   * @return iterator over the matching logEntries
+   */
+  CloseableIterator<LogEntry> streamByCriteria(MatchCriteria criteria, QueryContext context);
+
+  /**
+   * Count the logEntries matching the criteria grouped by the values of one field, without
+   * fetching the entries themselves. Coalesced repeats count for their repeatCount and a sampled
+   * logEntry for its weight, so the counts reflect what was sent.
+   *
+   * @param criteria
+   * @param field - one of LOGLEVEL, ORIGINSERVICE, LABELS or CREATED
+   * @param interval - size in milliseconds of the fixed time buckets when grouping by CREATED;
+   *        ignored otherwise
+   * @return number of matching logEntries per field value (bucket start when grouping by CREATED)
+   *         in ascending order of the values
+   */
+  Map<String, Long> countByCriteria(MatchCriteria criteria, MDC_ENUM_CONSTANTS field,
+      long interval);
+
+  /**
+   * Drop the logEntries the retention policy no longer keeps, by whole segments, time buckets or
+   * range removals rather than entry by entry. The store may keep some expired logEntries when they
+   * share a segment with entries still kept.
+   *
+   * @param policy
+   * @param now - time the maximum ages are counted back from
+   * @return what was dropped keyed by name, including the bytes reclaimed as reclaimed.bytes
+   */
+  default Map<String, Long> enforceRetention(RetentionPolicy policy, long now) {
+    return Collections.emptyMap();
+  }
+
+  /**
+   * Progress of loading the persisted logEntries at startup, for stores that keep them in memory
+   *
+   * @return warm-up statistics keyed by name, empty when the store needs no warm-up
+   */
+  default Map<String, Long> getWarmUpStats() {
+    return Collections.emptyMap();
+  }
+
+  /**
+   * Set the storage quota the store reports usage against; it is enforced when logEntries are
+   * admitted, see QuotaService.admit
+   *
+   * @param quota
+   */
+  default void setQuota(ServiceQuota quota) {}
+
+  /**
+   * @param originService
+   * @return bytes the logEntries of the originService take in the store, 0 for stores that don't
+   *         track it
+   */
+  default long getUsedBytes(String originService) {
+    return 0L;
+  }
+
+  /**
+   * Storage used per originService, for stores that track it
+   *
+   * @return logEntries and bytes held and quota in bytes per originService, keyed by name
+   */
+  default Map<String, Map<String, Long>> getUsage() {
+    return Collections.emptyMap();
+  }
+
+  /**
+   * Statistics of the backends of a store writing to several ones or keeping tiers
+   *
+   * @return logEntries queued, written, dropped as the queue was full and failed, and the batches
+   *         written since startup per queued backend, and queries served per tier, keyed by name;
+   *         empty for single stores
+   */
+  default Map<String, Map<String, Long>> getBackendStats() {
+    return Collections.emptyMap();
+  }
+
 }
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+
+/**
+ * Evaluates a MatchCriteria against a single LogEntry in memory. Elements within one field are
+ * OR'ed, while the fields themselves are AND'ed.
+ */
+public final class LogEntryMatcher {
+
+  private LogEntryMatcher() {}
+
+  /**
+   * Check if the logEntry satisfies every field of the criteria
+   *
+   * @param entry
+   * @param criteria
+   * @return true if the entry matches the criteria; false otherwise or when criteria is null
+   */
+  public static boolean matches(LogEntry entry, MatchCriteria criteria) {
+    if (null == entry || null == criteria) {
+      return false;
+    }
+    return compareArrays(entry.getLabels(), criteria.getLabels())
+        && containSource(entry.getLogLevel(), criteria.getLogLevels())
+        && containSource(entry.getOriginService(), criteria.getOriginServices())
+        && containStringKeyword(entry.getMessage(), criteria.getMessageKeywords())
+        && matchTimestamp(entry, criteria.getStart(), criteria.getEnd());
+  }
+
+  /**
+   * Check if a logEntry falls within a time range. Coalesced repeats match when the time range
+   * overlaps the span from their first to their last repeat.
+   *
+   * @param entry
+   * @param start - exclusive start of the time range, 0 when unbounded
+   * @param end - exclusive end of the time range, 0 when unbounded
+   * @return true if the logEntry falls within the time range; false otherwise
+   */
+  public static boolean matchTimestamp(LogEntry entry, long start, long end) {
+    if (entry instanceof RepeatedLogEntry) {
+      return matchTimestamp(RepeatedLogEntry.lastCreated(entry), start, 0L)
+          && matchTimestamp(entry.getCreated(), 0L, end);
+    }
+    return matchTimestamp(entry.getCreated(), start, end);
+  }
+
+  /**
+   * Compare two arrays to see if targets array contains one object of sources array
+   *
+   * @param sources
+   * @param targets
+   * @return true if one object of sources is in the targets or targets is null/empty; return false
+   *         otherwise.
+   */
+  public static <A> boolean compareArrays(A[] sources, A[] targets) {
+    // null or empty targets means nothing to match for, so return true
+    if (null == targets || targets.length == 0) {
+      return true;
+    }
+    if (null != sources && sources.length > 0 && targets.length > 0) {
+      List<A> list = new ArrayList<>(Arrays.asList(targets));
+      for (A source : sources) {
+        if (list.contains(source)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Check if targets array contain source object
+   *
+   * @param source
+   * @param targets
+   * @return true if targets array contain source object or targets array is null/empty; return
+   *         false otherwise
+   */
+  public static <A> boolean containSource(A source, A[] targets) {
+    if (null == targets || targets.length == 0) {
+      return true;
+    }
+    if (null != source && targets.length > 0) {
+      List<A> list = new ArrayList<>(Arrays.asList(targets));
+      return list.contains(source);
+    }
+    return false;
+  }
+
+  /**
+   * Check if specific String contains any keyword listed in an array
+   *
+   * @param message
+   * @param keywords
+   * @return true if any string of keywords is contained by message; false otherwise
+   */
+  public static boolean containStringKeyword(String message, String[] keywords) {
+    if (null == keywords || keywords.length == 0) {
+      return true;
+    }
+    for (String keyword : keywords) {
+      if (message.contains(keyword)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Check if date time representing in target long value is within start and end date time interval
+   *
+   * @param target
+   * @param start
+   * @param end
+   * @return true if date time representing in target long value is within start and end date time
+   *         interval; return false otherwise
+   */
+  public static boolean matchTimestamp(long target, long start, long end) {
+    Date entryTime = new Date(target);
+    if (0L != start) {
+      if (0L != end) {
+        return (entryTime.after(new Date(start)) && entryTime.before(new Date(end)));
+      } else {
+        return entryTime.after(new Date(start));
+      }
+    } else {
+      if (0L != end) {
+        return entryTime.before(new Date(end));
+      } else {
+        return true;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+
+/**
+ * Encodes what ingest adds to a logEntry, coalesced repeats or a sampling weight, into the message
+ * for the stores that persist only the fields of a plain LogEntry, and decodes it back. Sampling
+ * never applies to coalesced repeats, so an entry carries at most one of them.
+ *
+ * A client could send a message already ending the way an encoded one does; such a message is
+ * persisted with " [verbatim]" appended, which decoding strips instead of parsing what precedes it,
+ * so repeats or a weight can't be forged.
+ */
+public final class PersistedMessage {
+
+  private static final String VERBATIM = " [verbatim]";
+
+  private PersistedMessage() {}
+
+  /**
+   * @param entry
+   * @return the message to persist for the logEntry
+   */
+  public static String encode(LogEntry entry) {
+    if (entry instanceof SampledLogEntry) {
+      return SampledLogEntry.toPersistedMessage(entry);
+    }
+    if (entry instanceof RepeatedLogEntry) {
+      return RepeatedLogEntry.toPersistedMessage(entry);
+    }
+    String message = entry.getMessage();
+    return isEncoded(message) ? message + VERBATIM : message;
+  }
+
+  /**
+   * @param entry - logEntry read back from a store, its message as persisted
+   * @return a RepeatedLogEntry or SampledLogEntry when the message says so, the entry otherwise,
+   *         its message unescaped
+   */
+  public static LogEntry decode(LogEntry entry) {
+    if (null != entry && null != entry.getMessage() && entry.getMessage().endsWith(VERBATIM)) {
+      String message = entry.getMessage();
+      entry.setMessage(message.substring(0, message.length() - VERBATIM.length()));
+      return entry;
+    }
+    LogEntry result = RepeatedLogEntry.fromPersisted(entry);
+    return result != entry ? result : SampledLogEntry.fromPersisted(entry);
+  }
+
+  /**
+   * @param message
+   * @return true if decoding the message as is would change it
+   */
+  private static boolean isEncoded(String message) {
+    return null != message && message.endsWith("]") && (message.endsWith(VERBATIM)
+        || RepeatedLogEntry.isPersistedMessage(message)
+        || SampledLogEntry.isPersistedMessage(message));
+  }
+
+}
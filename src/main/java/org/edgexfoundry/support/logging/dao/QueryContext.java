@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Progress and control of a single query shared between the caller and the DAO running it. The DAO
+ * reports the logEntries and segments it scans and the segments it prunes, i.e. skips without
+ * scanning because their summary tells none of their entries can match; the caller may read the
+ * progress and cancel the query from another thread at any time.
+ *
+ * A query may also have a deadline. DAOs scanning in memory check it cooperatively and stop with
+ * the results found so far, flagging the query as truncated; DAOs delegating to a database pass the
+ * remaining time on and fail with a QueryTimeoutException when it runs out.
+ */
+public class QueryContext {
+
+  private final LongAdder entriesScanned = new LongAdder();
+  private final LongAdder segmentsScanned = new LongAdder();
+  private final LongAdder segmentsPruned = new LongAdder();
+  private final long deadline;
+  private volatile boolean cancelled;
+  private volatile boolean truncated;
+
+  /**
+   * Create a context without deadline
+   */
+  public QueryContext() {
+    this(0L);
+  }
+
+  /**
+   * @param timeout - time budget of the query in milliseconds from now, 0 or less for none
+   */
+  public QueryContext(long timeout) {
+    this.deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0L;
+  }
+
+  public void entryScanned() {
+    entriesScanned.increment();
+  }
+
+  public void entriesScanned(long count) {
+    entriesScanned.add(count);
+  }
+
+  public void segmentScanned() {
+    segmentsScanned.increment();
+  }
+
+  public void segmentPruned() {
+    segmentsPruned.increment();
+  }
+
+  public long getEntriesScanned() {
+    return entriesScanned.sum();
+  }
+
+  public long getSegmentsScanned() {
+    return segmentsScanned.sum();
+  }
+
+  public long getSegmentsPruned() {
+    return segmentsPruned.sum();
+  }
+
+  public void cancel() {
+    cancelled = true;
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * @return the deadline in milliseconds since the epoch, 0 when the query has none
+   */
+  public long getDeadline() {
+    return deadline;
+  }
+
+  public boolean hasDeadline() {
+    return 0L != deadline;
+  }
+
+  public boolean isExpired() {
+    return 0L != deadline && System.currentTimeMillis() >= deadline;
+  }
+
+  /**
+   * @return milliseconds left before the deadline, at least 1, or 0 when the query has none
+   */
+  public long getRemaining() {
+    return 0L == deadline ? 0L : Math.max(1L, deadline - System.currentTimeMillis());
+  }
+
+  /**
+   * Flag the results as partial because the deadline was hit or the store is still loading
+   */
+  public void truncate() {
+    truncated = true;
+  }
+
+  public boolean isTruncated() {
+    return truncated;
+  }
+
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+
+/**
+ * Stands for the repeats of a logEntry coalesced at ingest: the same originService, logLevel,
+ * labels and message sent repeatCount times between created (the first repeat) and lastCreated
+ * (the last one). A time range matches it when it overlaps [created, lastCreated].
+ *
+ * Stores without a field of their own for the repeats append them to the message as
+ * " [repeated N times until T]" and parse them back when reading, see PersistedMessage.
+ */
+public class RepeatedLogEntry extends LogEntry {
+
+  public static final String LAST_CREATED = "lastCreated";
+  public static final String REPEAT_COUNT = "repeatCount";
+
+  private static final Pattern REPEAT_PATTERN =
+      Pattern.compile("(.*) \\[repeated ([0-9]{1,18}) times until ([0-9]{1,18})\\]$");
+
+  private long repeatCount;
+  private long lastCreated;
+
+  public RepeatedLogEntry() {}
+
+  /**
+   * @param entry - the logEntry repeated
+   * @param repeatCount
+   * @param firstCreated
+   * @param lastCreated
+   */
+  public RepeatedLogEntry(LogEntry entry, long repeatCount, long firstCreated, long lastCreated) {
+    setOriginService(entry.getOriginService());
+    setLogLevel(entry.getLogLevel());
+    setLabels(entry.getLabels());
+    setMessage(entry.getMessage());
+    setCreated(firstCreated);
+    this.repeatCount = repeatCount;
+    this.lastCreated = lastCreated;
+  }
+
+  public long getRepeatCount() {
+    return repeatCount;
+  }
+
+  public void setRepeatCount(long repeatCount) {
+    this.repeatCount = repeatCount;
+  }
+
+  public long getFirstCreated() {
+    return getCreated();
+  }
+
+  public void setFirstCreated(long firstCreated) {
+    setCreated(firstCreated);
+  }
+
+  public long getLastCreated() {
+    return lastCreated;
+  }
+
+  public void setLastCreated(long lastCreated) {
+    this.lastCreated = lastCreated;
+  }
+
+  /**
+   * @param entry
+   * @return time of the last repeat of a coalesced logEntry, created for any other one
+   */
+  public static long lastCreated(LogEntry entry) {
+    return entry instanceof RepeatedLogEntry ? ((RepeatedLogEntry) entry).getLastCreated()
+        : entry.getCreated();
+  }
+
+  /**
+   * @param entry
+   * @return the message of the logEntry with its repeats appended when it was coalesced
+   */
+  public static String toPersistedMessage(LogEntry entry) {
+    if (entry instanceof RepeatedLogEntry) {
+      RepeatedLogEntry repeated = (RepeatedLogEntry) entry;
+      return entry.getMessage() + " [repeated " + repeated.getRepeatCount() + " times until "
+          + repeated.getLastCreated() + "]";
+    }
+    return entry.getMessage();
+  }
+
+  /**
+   * @param message
+   * @return true if the message ends with repeats as toPersistedMessage appends them
+   */
+  static boolean isPersistedMessage(String message) {
+    return REPEAT_PATTERN.matcher(message).matches();
+  }
+
+  /**
+   * Undo toPersistedMessage on a logEntry read back from a store
+   *
+   * @param entry
+   * @return a RepeatedLogEntry when the message carries repeats, the entry itself otherwise
+   */
+  public static LogEntry fromPersisted(LogEntry entry) {
+    if (null == entry || null == entry.getMessage() || !entry.getMessage().endsWith("]")) {
+      return entry;
+    }
+    Matcher matcher = REPEAT_PATTERN.matcher(entry.getMessage());
+    if (!matcher.matches()) {
+      return entry;
+    }
+    LogEntry original = new LogEntry();
+    original.setOriginService(entry.getOriginService());
+    original.setLogLevel(entry.getLogLevel());
+    original.setLabels(entry.getLabels());
+    original.setMessage(matcher.group(1));
+    return new RepeatedLogEntry(original, Long.parseLong(matcher.group(2)), entry.getCreated(),
+        Long.parseLong(matcher.group(3)));
+  }
+
+  @Override
+  public String toString() {
+    return "RepeatedLogEntry [" + super.toString() + ", repeatCount=" + repeatCount
+        + ", lastCreated=" + lastCreated + "]";
+  }
+
+}
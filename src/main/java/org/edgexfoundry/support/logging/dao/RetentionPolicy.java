@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao;
+
+import java.util.Arrays;
+
+import org.slf4j.event.Level;
+
+/**
+ * How long and how much persisted logEntries are kept: a maximum age, optionally overridden per
+ * logLevel so that e.g. ERROR entries outlive DEBUG ones, and a maximum number of bytes across the
+ * whole store. A limit of 0 means no limit.
+ */
+public class RetentionPolicy {
+
+  private long maxAge;
+  // per logLevel override of maxAge, negative when not overridden
+  private final long[] levelMaxAges = new long[Level.values().length];
+  private long maxBytes;
+
+  public RetentionPolicy() {
+    Arrays.fill(levelMaxAges, -1L);
+  }
+
+  /**
+   * @param maxAge - milliseconds logEntries of any logLevel without its own maximum age are kept,
+   *        0 for no limit
+   */
+  public void setMaxAge(long maxAge) {
+    this.maxAge = maxAge;
+  }
+
+  /**
+   * @param level
+   * @param maxAge - milliseconds logEntries of the level are kept, 0 for no limit, negative to use
+   *        the maximum age of every level
+   */
+  public void setMaxAge(Level level, long maxAge) {
+    levelMaxAges[level.ordinal()] = maxAge;
+  }
+
+  /**
+   * @param level - null for logEntries without a logLevel
+   * @return milliseconds logEntries of the level are kept, 0 for no limit
+   */
+  public long getMaxAge(Level level) {
+    if (null == level || levelMaxAges[level.ordinal()] < 0) {
+      return maxAge;
+    }
+    return levelMaxAges[level.ordinal()];
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * @param maxBytes - bytes the whole store may take, 0 for no limit
+   */
+  public void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * @return the shortest maximum age of all levels, 0 when no level has any
+   */
+  public long getShortestMaxAge() {
+    long result = 0L;
+    for (Level level : Level.values()) {
+      long age = getMaxAge(level);
+      if (age > 0 && (0L == result || age < result)) {
+        result = age;
+      }
+    }
+    return result;
+  }
+
+  public boolean isEnabled() {
+    return maxBytes > 0 || getShortestMaxAge() > 0 || maxAge > 0;
+  }
+
+  /**
+   * @param level
+   * @param created
+   * @param now
+   * @return true if a logEntry of the level created at the given time has outlived its maximum age
+   */
+  public boolean isExpired(Level level, long created, long now) {
+    long age = getMaxAge(level);
+    return age > 0 && created < now - age;
+  }
+
+}
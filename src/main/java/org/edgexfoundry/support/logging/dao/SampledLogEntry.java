@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+
+/**
+ * A logEntry kept by sampling at ingest, standing for sampleWeight logEntries of the same
+ * originService and logLevel: counting every stored logEntry by its weight extrapolates the counts
+ * of what was sent. Entries stored without sampling weigh 1.
+ *
+ * Stores without a field of their own for the weight append it to the message as
+ * " [sampled 1 in W]" and parse it back when reading, see PersistedMessage.
+ */
+public class SampledLogEntry extends LogEntry {
+
+  public static final String SAMPLE_WEIGHT = "sampleWeight";
+
+  private static final Pattern SAMPLE_PATTERN =
+      Pattern.compile("(.*) \\[sampled 1 in ([0-9]{1,18}\\.[0-9]{1,18}(E[0-9]{1,3})?)\\]$");
+
+  private double sampleWeight;
+
+  public SampledLogEntry() {}
+
+  /**
+   * @param entry - the logEntry kept
+   * @param sampleWeight - number of logEntries it stands for
+   */
+  public SampledLogEntry(LogEntry entry, double sampleWeight) {
+    setOriginService(entry.getOriginService());
+    setLogLevel(entry.getLogLevel());
+    setLabels(entry.getLabels());
+    setMessage(entry.getMessage());
+    setCreated(entry.getCreated());
+    this.sampleWeight = sampleWeight;
+  }
+
+  public double getSampleWeight() {
+    return sampleWeight;
+  }
+
+  public void setSampleWeight(double sampleWeight) {
+    this.sampleWeight = sampleWeight;
+  }
+
+  /**
+   * @param entry
+   * @return number of logEntries sent that the logEntry stands for, 1 when it was not sampled
+   */
+  public static double weight(LogEntry entry) {
+    return entry instanceof SampledLogEntry ? ((SampledLogEntry) entry).getSampleWeight() : 1.0;
+  }
+
+  /**
+   * @param entry
+   * @return the message of the logEntry with its weight appended when it was sampled
+   */
+  public static String toPersistedMessage(LogEntry entry) {
+    if (entry instanceof SampledLogEntry) {
+      return entry.getMessage() + " [sampled 1 in " + ((SampledLogEntry) entry).getSampleWeight()
+          + "]";
+    }
+    return entry.getMessage();
+  }
+
+  /**
+   * @param message
+   * @return true if the message ends with a weight as toPersistedMessage appends it
+   */
+  static boolean isPersistedMessage(String message) {
+    return SAMPLE_PATTERN.matcher(message).matches();
+  }
+
+  /**
+   * Undo toPersistedMessage on a logEntry read back from a store
+   *
+   * @param entry
+   * @return a SampledLogEntry when the message carries a weight, the entry itself otherwise
+   */
+  public static LogEntry fromPersisted(LogEntry entry) {
+    if (null == entry || null == entry.getMessage() || !entry.getMessage().endsWith("]")) {
+      return entry;
+    }
+    Matcher matcher = SAMPLE_PATTERN.matcher(entry.getMessage());
+    if (!matcher.matches()) {
+      return entry;
+    }
+    SampledLogEntry sampled = new SampledLogEntry(entry, Double.parseDouble(matcher.group(2)));
+    sampled.setMessage(matcher.group(1));
+    return sampled;
+  }
+
+  @Override
+  public String toString() {
+    return "SampledLogEntry [" + super.toString() + ", sampleWeight=" + sampleWeight + "]";
+  }
+
+}
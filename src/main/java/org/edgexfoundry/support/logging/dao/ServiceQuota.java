@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * How many bytes of persisted logEntries each originService may take in the store, so that one
+ * service logging too much can't crowd out the history of the others: a limit shared by every
+ * originService, optionally overridden per originService. A limit of 0 means no limit.
+ */
+public class ServiceQuota {
+
+  private long maxBytes;
+  private final Map<String, Long> serviceMaxBytes = new ConcurrentHashMap<>();
+
+  /**
+   * @param maxBytes - bytes any originService without its own limit may take, 0 for no limit
+   */
+  public void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * @param originService
+   * @param maxBytes - bytes the originService may take, 0 for no limit, negative to use the limit
+   *        of every originService
+   */
+  public void setMaxBytes(String originService, long maxBytes) {
+    if (maxBytes < 0) {
+      serviceMaxBytes.remove(ServiceUsage.keyOf(originService));
+    } else {
+      serviceMaxBytes.put(ServiceUsage.keyOf(originService), maxBytes);
+    }
+  }
+
+  /**
+   * @param originService
+   * @return bytes the originService may take, 0 for no limit
+   */
+  public long getMaxBytes(String originService) {
+    Long result = serviceMaxBytes.get(ServiceUsage.keyOf(originService));
+    return null == result ? maxBytes : result;
+  }
+
+  public boolean isEnabled() {
+    if (maxBytes > 0) {
+      return true;
+    }
+    for (long limit : serviceMaxBytes.values()) {
+      if (limit > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param originService
+   * @param usedBytes - bytes the originService takes
+   * @return true if the originService may not store anything more
+   */
+  public boolean isExceeded(String originService, long usedBytes) {
+    long limit = getMaxBytes(originService);
+    return limit > 0 && usedBytes >= limit;
+  }
+
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+
+/**
+ * Number of logEntries and bytes a store holds per originService. Bytes are the size of the
+ * persisted form of the logEntries: the created time, originService, labels, logLevel and message
+ * along with the separators between them, which stores holding documents rather than lines
+ * approximate.
+ */
+public class ServiceUsage {
+
+  public static final String ENTRIES = "entries";
+  public static final String BYTES = "bytes";
+
+  // created time, logLevel and separators of a persisted logEntry
+  private static final int OVERHEAD = 32;
+
+  private final Map<String, Usage> services = new ConcurrentHashMap<>();
+
+  /**
+   * @param entry
+   * @return approximate size in bytes of the persisted logEntry
+   */
+  public static long sizeOf(LogEntry entry) {
+    long size = OVERHEAD + length(entry.getOriginService()) + length(entry.getMessage());
+    if (null != entry.getLabels()) {
+      for (String label : entry.getLabels()) {
+        size += length(label) + 2;
+      }
+    }
+    return size;
+  }
+
+  private static int length(String value) {
+    return null == value ? 0 : value.length();
+  }
+
+  /**
+   * @param originService - null for logEntries without any
+   * @return key the usage of the originService is tracked by
+   */
+  public static String keyOf(String originService) {
+    return String.valueOf(originService);
+  }
+
+  /**
+   * @param entry
+   * @param delta - 1 when the store takes the logEntry, -1 when it drops it
+   */
+  public void add(LogEntry entry, int delta) {
+    Usage usage = services.computeIfAbsent(keyOf(entry.getOriginService()), k -> new Usage());
+    usage.entries.add(delta);
+    usage.bytes.add(delta * sizeOf(entry));
+  }
+
+  /**
+   * Replace the usage of every originService, e.g. once the store counted what it holds
+   *
+   * @param entries - number of logEntries per originService
+   * @param entrySize - average size in bytes of a logEntry
+   */
+  public void reset(Map<String, Long> entries, long entrySize) {
+    services.keySet().retainAll(entries.keySet());
+    for (Map.Entry<String, Long> count : entries.entrySet()) {
+      Usage usage = new Usage();
+      usage.entries.add(count.getValue());
+      usage.bytes.add(count.getValue() * entrySize);
+      services.put(count.getKey(), usage);
+    }
+  }
+
+  /**
+   * @param originService
+   * @return bytes the logEntries of the originService take
+   */
+  public long getBytes(String originService) {
+    Usage usage = services.get(keyOf(originService));
+    return null == usage ? 0L : usage.bytes.sum();
+  }
+
+  /**
+   * @return logEntries and bytes per originService in ascending order of the originServices,
+   *         omitting those without any logEntry left
+   */
+  public Map<String, Map<String, Long>> getUsage() {
+    Map<String, Map<String, Long>> result = new TreeMap<>();
+    for (Map.Entry<String, Usage> service : services.entrySet()) {
+      long entries = service.getValue().entries.sum();
+      if (entries > 0) {
+        Map<String, Long> usage = new LinkedHashMap<>();
+        usage.put(ENTRIES, entries);
+        usage.put(BYTES, service.getValue().bytes.sum());
+        result.put(service.getKey(), usage);
+      }
+    }
+    return result;
+  }
+
+  private static final class Usage {
+    private final LongAdder entries = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+  }
+
+}
@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.logging.dao.LogEntryDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes to one backend of the composite store from a bounded queue, on a thread of its own and in
+ * batches of what was queued meanwhile. When the backend falls behind or is unavailable its queue
+ * fills up and further logEntries are dropped for that backend only, so it never holds up ingest
+ * nor the other backends. Removals and retention runs are queued as well, so they apply after the
+ * logEntries queued before them; the queue keeps room of its own for them, so a backend behind on
+ * its logEntries still takes them, and offering one waits for room rather than dropping it.
+ */
+class BackendWriter implements Runnable {
+
+  private static final Logger logger = LoggerFactory.getLogger(BackendWriter.class);
+
+  static final String QUEUED = "queued";
+  static final String WRITTEN = "written";
+  static final String DROPPED = "dropped";
+  static final String FAILED = "failed";
+  static final String BATCHES = "batches";
+
+  // how often an idle writer checks whether it was stopped
+  private static final long POLL_MILLIS = 100L;
+  // room of the queue kept for operations, logEntries can't take it
+  static final int OPERATION_SLOTS = 16;
+
+  private final String name;
+  private final LogEntryDAO backend;
+  private final int batchSize;
+  // logEntries, or operations to run against the backend
+  private final BlockingQueue<Object> queue;
+  private final Semaphore entrySlots;
+  private final Semaphore operationSlots = new Semaphore(OPERATION_SLOTS);
+  private final Thread thread;
+  private final LongAdder written = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder batches = new LongAdder();
+  private volatile boolean stopped;
+  // only accessed by the writer thread
+  private boolean failing;
+
+  BackendWriter(String name, LogEntryDAO backend, int capacity, int batchSize) {
+    this.name = name;
+    this.backend = backend;
+    this.batchSize = Math.max(1, batchSize);
+    this.entrySlots = new Semaphore(Math.max(1, capacity));
+    this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity) + OPERATION_SLOTS);
+    this.thread = new Thread(this, "persistence-" + name);
+    thread.setDaemon(true);
+  }
+
+  void start() {
+    thread.start();
+  }
+
+  /**
+   * @param entry
+   * @return false if the queue is full and the logEntry was dropped for this backend
+   */
+  boolean offer(LogEntry entry) {
+    if (entrySlots.tryAcquire()) {
+      // can't fail, the slot holds room in the queue
+      queue.add(entry);
+      return true;
+    }
+    dropped.increment();
+    return false;
+  }
+
+  /**
+   * @param operation - run against the backend once the logEntries queued before are written
+   * @param timeout - milliseconds to wait for room while the operations queued fill theirs
+   * @return false if the operation could not be queued within the timeout
+   */
+  boolean offer(Consumer<LogEntryDAO> operation, long timeout) {
+    try {
+      if (operationSlots.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+        queue.add(operation);
+        return true;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    logger.warn("Could not queue an operation on the {} backend, its queue is full", name);
+    return false;
+  }
+
+  @Override
+  public void run() {
+    List<Object> batch = new ArrayList<>(batchSize);
+    while (!stopped || !queue.isEmpty()) {
+      try {
+        Object first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (null == first) {
+          continue;
+        }
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+        for (Object item : batch) {
+          (item instanceof LogEntry ? entrySlots : operationSlots).release();
+        }
+        write(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void write(List<Object> batch) {
+    List<LogEntry> entries = new ArrayList<>(batch.size());
+    for (Object item : batch) {
+      if (item instanceof LogEntry) {
+        entries.add((LogEntry) item);
+        continue;
+      }
+      flush(entries);
+      try {
+        ((Consumer<LogEntryDAO>) item).accept(backend);
+      } catch (RuntimeException e) {
+        logger.warn("Operation on the {} backend failed", name, e);
+      }
+    }
+    flush(entries);
+  }
+
+  private void flush(List<LogEntry> entries) {
+    if (entries.isEmpty()) {
+      return;
+    }
+    try {
+      written.add(backend.saveAll(entries));
+      batches.increment();
+      if (failing) {
+        failing = false;
+        logger.info("The {} backend recovered", name);
+      }
+    } catch (RuntimeException e) {
+      failed.add(entries.size());
+      // once per outage rather than once per batch
+      if (!failing) {
+        failing = true;
+        logger.warn("Writing to the {} backend failed, dropping its logEntries until it recovers",
+            name, e);
+      }
+    }
+    entries.clear();
+  }
+
+  /**
+   * Write what is queued, then stop
+   *
+   * @param timeout - milliseconds to wait for the queue to drain
+   */
+  void stop(long timeout) {
+    stopped = true;
+    try {
+      thread.join(timeout);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (!queue.isEmpty()) {
+      logger.warn("Dropped {} queued items of the {} backend on shutdown", queue.size(),
+          name);
+    }
+  }
+
+  Map<String, Long> getStats() {
+    Map<String, Long> stats = new LinkedHashMap<>();
+    stats.put(QUEUED, (long) queue.size());
+    stats.put(WRITTEN, written.sum());
+    stats.put(DROPPED, dropped.sum());
+    stats.put(FAILED, failed.sum());
+    stats.put(BATCHES, batches.sum());
+    return stats;
+  }
+
+}
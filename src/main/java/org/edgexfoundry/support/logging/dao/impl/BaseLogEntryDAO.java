@@ -25,6 +25,9 @@ import java.util.Map;
 import org.edgexfoundry.support.domain.logging.LogEntry;
 import org.edgexfoundry.support.logging.dao.LogEntryDAO;
 import org.edgexfoundry.support.logging.dao.MDC_ENUM_CONSTANTS;
+import org.edgexfoundry.support.logging.dao.PersistedMessage;
+import org.edgexfoundry.support.logging.dao.ServiceQuota;
+import org.edgexfoundry.support.logging.dao.ServiceUsage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
@@ -38,11 +41,18 @@ public abstract class BaseLogEntryDAO implements LogEntryDAO {
   private static final String GREEN = "\033[1;32m"; // ANSI foreground green
   private static final String RED = "\033[1;31m"; // ANSI foreground red
   private static final String YELLOW = "\033[1;33m"; // ANSI foreground yellow
+  private static final String QUOTA_BYTES = "quota.bytes";
 
   @Value("${logging.color.enabled}")
   private Boolean addColor = false;
   private Map<String, String> colors = new HashMap<>();
   private int baseColorCount = 33;
+  private volatile ServiceQuota quota = new ServiceQuota();
+
+  /**
+   * @return logEntries and bytes the store holds per originService
+   */
+  protected abstract ServiceUsage getServiceUsage();
 
   /*
    * (non-Javadoc)
@@ -52,6 +62,9 @@ public abstract class BaseLogEntryDAO implements LogEntryDAO {
    */
   @Override
   public boolean save(LogEntry entry) {
+    if (!isEchoed()) {
+      return isLoggable(entry.getLogLevel());
+    }
     MDC.put(MDC_ENUM_CONSTANTS.CREATED.getValue(), Long.toString(entry.getCreated()));
     MDC.put(MDC_ENUM_CONSTANTS.ORIGINSERVICE.getValue(), entry.getOriginService());
     MDC.put(MDC_ENUM_CONSTANTS.LABELS.getValue(),
@@ -88,6 +101,51 @@ public abstract class BaseLogEntryDAO implements LogEntryDAO {
     return loggable;
   }
 
+  /**
+   * @return false if save only tells whether the logEntry is loggable without writing it through
+   *         the logger, as another store writes it there
+   */
+  protected boolean isEchoed() {
+    return true;
+  }
+
+  private static boolean isLoggable(Level level) {
+    switch (level) {
+      case DEBUG:
+        return LOGGER.isDebugEnabled();
+      case INFO:
+        return LOGGER.isInfoEnabled();
+      case WARN:
+        return LOGGER.isWarnEnabled();
+      case ERROR:
+        return LOGGER.isErrorEnabled();
+      default:
+        return LOGGER.isTraceEnabled();
+    }
+  }
+
+  @Override
+  public void setQuota(ServiceQuota quota) {
+    this.quota = quota;
+  }
+
+  @Override
+  public long getUsedBytes(String originService) {
+    return getServiceUsage().getBytes(originService);
+  }
+
+  @Override
+  public Map<String, Map<String, Long>> getUsage() {
+    Map<String, Map<String, Long>> result = getServiceUsage().getUsage();
+    for (Map.Entry<String, Map<String, Long>> service : result.entrySet()) {
+      Map<String, Long> usage = service.getValue();
+      usage.putIfAbsent(ServiceUsage.ENTRIES, 0L);
+      usage.putIfAbsent(ServiceUsage.BYTES, 0L);
+      usage.put(QUOTA_BYTES, quota.getMaxBytes(service.getKey()));
+    }
+    return result;
+  }
+
   private String generateColor() {
     baseColorCount++;
     if (baseColorCount == 38) // end of base 8 foreground colors
@@ -119,9 +177,10 @@ public abstract class BaseLogEntryDAO implements LogEntryDAO {
           System.out.print(RED);
           break;
       }
-      return colors.get(entry.getOriginService()) + entry.getMessage() + NO_COLOR;
+      return colors.get(entry.getOriginService()) + PersistedMessage.encode(entry)
+          + NO_COLOR;
     } else
-      return entry.getMessage();
+      return PersistedMessage.encode(entry);
   }
 
 }
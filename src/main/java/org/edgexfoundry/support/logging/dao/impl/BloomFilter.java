@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+/**
+ * Set membership summary with false positives but no false negatives, over strings or ranges of
+ * characters. The filter is sized up front for the most values it may hold; once every value is
+ * added, compact folds it in halves for as long as the false positive rate stays under the target,
+ * so a filter sized for the worst case ends up only as large as the values actually added need.
+ * Not thread safe while being filled; safe to share once filled and compacted.
+ */
+final class BloomFilter {
+
+  private static final double LN2 = Math.log(2);
+  // 8MB worth of bits
+  private static final int MAX_WORDS = 1 << 20;
+
+  private final int hashes;
+  private long[] bits;
+
+  /**
+   * @param expected - most distinct values the filter may hold
+   * @param falsePositives - target false positive rate at that many values
+   */
+  BloomFilter(int expected, double falsePositives) {
+    double optimal = -Math.max(1, expected) * Math.log(falsePositives) / (LN2 * LN2);
+    int needed = (int) Math.min(MAX_WORDS, Math.max(1L, (long) Math.ceil(optimal / Long.SIZE)));
+    // a power of two number of bits so the filter can be folded in halves
+    int words = Integer.highestOneBit(needed);
+    this.bits = new long[words < needed ? words << 1 : words];
+    this.hashes = Math.max(1, (int) Math.round(-Math.log(falsePositives) / LN2));
+  }
+
+  void add(CharSequence value) {
+    add(value, 0, value.length());
+  }
+
+  /**
+   * Add the characters of value from start inclusive to end exclusive
+   */
+  void add(CharSequence value, int start, int end) {
+    long hash = hash(value, start, end);
+    long mask = ((long) bits.length << 6) - 1;
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 0; i < hashes; i++) {
+      long index = (h1 + i * h2) & mask;
+      bits[(int) (index >>> 6)] |= 1L << index;
+    }
+  }
+
+  boolean mightContain(CharSequence value) {
+    return mightContain(value, 0, value.length());
+  }
+
+  boolean mightContain(CharSequence value, int start, int end) {
+    long hash = hash(value, start, end);
+    long mask = ((long) bits.length << 6) - 1;
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 0; i < hashes; i++) {
+      long index = (h1 + i * h2) & mask;
+      if (0L == (bits[(int) (index >>> 6)] & 1L << index)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Fold the filter in halves while the false positive rate of the folded filter stays under the
+   * target. A bit of the folded filter is set when either bit it stands for was, so every value
+   * added is still found.
+   *
+   * @param falsePositives - target false positive rate
+   */
+  void compact(double falsePositives) {
+    while (bits.length > 1) {
+      int half = bits.length >>> 1;
+      long[] folded = new long[half];
+      long set = 0L;
+      for (int i = 0; i < half; i++) {
+        folded[i] = bits[i] | bits[i + half];
+        set += Long.bitCount(folded[i]);
+      }
+      if (Math.pow((double) set / ((long) half << 6), hashes) > falsePositives) {
+        return;
+      }
+      bits = folded;
+    }
+  }
+
+  /**
+   * @return size of the filter in bytes
+   */
+  int size() {
+    return bits.length * Long.BYTES;
+  }
+
+  /**
+   * 64-bit FNV-1a over the characters, finished with the MurmurHash3 mix so both halves are usable
+   * as independent hashes
+   */
+  private static long hash(CharSequence value, int start, int end) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = start; i < end; i++) {
+      hash ^= value.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+}
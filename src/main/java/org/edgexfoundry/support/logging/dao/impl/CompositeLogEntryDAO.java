@@ -0,0 +1,243 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.dao.LogEntryDAO;
+import org.edgexfoundry.support.logging.dao.MDC_ENUM_CONSTANTS;
+import org.edgexfoundry.support.logging.dao.QueryContext;
+import org.edgexfoundry.support.logging.dao.RetentionPolicy;
+import org.edgexfoundry.support.logging.dao.ServiceQuota;
+import org.edgexfoundry.support.logging.query.CompiledQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Store writing each logEntry to several backends, e.g. the file store for fast local queries and
+ * MongoDB for keeping the logEntries off the device. The primary backend is written synchronously
+ * and answers every query, count and usage request; it is already behind the bounded queues of the
+ * ingest lanes, and the query cache and the tail rely on its result. Every other backend is written
+ * by a BackendWriter of its own from a bounded queue, in batches, so a slow or unavailable backend
+ * drops its own logEntries instead of adding latency to ingest or to the other backends. Removals
+ * and retention apply to the primary first and are then queued for the others, failing when a
+ * backend has no room for them rather than leaving it silently out of step.
+ */
+@Component("serviceDAO")
+@Primary
+@ConditionalOnProperty(name = CompositeLogEntryDAO.PERSISTENCE,
+    havingValue = CompositeLogEntryDAO.COMPOSITE)
+public class CompositeLogEntryDAO implements LogEntryDAO {
+
+  private static final Logger logger = LoggerFactory.getLogger(CompositeLogEntryDAO.class);
+
+  static final String PERSISTENCE = "logging.persistence";
+  static final String COMPOSITE = "composite";
+  static final String BACKENDS = "logging.persistence.backends";
+  static final String DEFAULT_BACKENDS = "file,mongodb";
+
+  // backends are registered as <store>DAO, e.g. fileDAO
+  private static final String BEAN_SUFFIX = "DAO";
+
+  @Autowired
+  private Map<String, BaseLogEntryDAO> stores;
+
+  @Value("${logging.persistence.backends:" + DEFAULT_BACKENDS + "}")
+  private String backends;
+
+  @Value("${logging.persistence.primary:file}")
+  private String primaryName;
+
+  @Value("${logging.persistence.queue:10000}")
+  private int queueCapacity;
+
+  @Value("${logging.persistence.batchsize:500}")
+  private int batchSize;
+
+  @Value("${logging.persistence.drain.timeout:10000}")
+  private long drainTimeout;
+
+  @Value("${logging.persistence.operation.timeout:5000}")
+  private long operationTimeout;
+
+  private LogEntryDAO primary;
+
+  private final Map<String, BackendWriter> writers = new LinkedHashMap<>();
+
+  /**
+   * @param environment
+   * @return the stores the composite store writes to, in the order of logging.persistence.backends
+   */
+  static List<String> backends(Environment environment) {
+    return split(environment.getProperty(BACKENDS, DEFAULT_BACKENDS));
+  }
+
+  private static List<String> split(String value) {
+    List<String> result = new ArrayList<>();
+    for (String backend : value.split(",")) {
+      if (!backend.trim().isEmpty()) {
+        result.add(backend.trim());
+      }
+    }
+    return result;
+  }
+
+  @PostConstruct
+  private void init() {
+    for (String backend : split(backends)) {
+      BaseLogEntryDAO store = stores.get(backend + BEAN_SUFFIX);
+      if (null == store) {
+        throw new IllegalStateException("Unknown persistence backend: " + backend);
+      }
+      if (backend.equals(primaryName)) {
+        primary = store;
+      } else {
+        writers.put(backend, new BackendWriter(backend, store, queueCapacity, batchSize));
+      }
+    }
+    if (null == primary) {
+      throw new IllegalStateException("The primary persistence backend " + primaryName
+          + " is not one of the backends: " + backends);
+    }
+    for (BackendWriter writer : writers.values()) {
+      writer.start();
+    }
+    logger.info("Logging to {} and queueing to {}", primaryName, writers.keySet());
+  }
+
+  @PreDestroy
+  private void destroy() {
+    for (BackendWriter writer : writers.values()) {
+      writer.stop(drainTimeout);
+    }
+  }
+
+  @Override
+  public boolean save(LogEntry entry) {
+    boolean saved = primary.save(entry);
+    for (BackendWriter writer : writers.values()) {
+      writer.offer(entry);
+    }
+    return saved;
+  }
+
+  @Override
+  public List<LogEntry> findByCriteria(MatchCriteria criteria, int limit, QueryContext context) {
+    return primary.findByCriteria(criteria, limit, context);
+  }
+
+  @Override
+  public List<LogEntry> removeByCriteria(MatchCriteria criteria) {
+    List<LogEntry> removed = primary.removeByCriteria(criteria);
+    queue("removal", backend -> backend.removeByCriteria(criteria));
+    return removed;
+  }
+
+  @Override
+  public List<LogEntry> findByQuery(CompiledQuery query, int limit, QueryContext context) {
+    return primary.findByQuery(query, limit, context);
+  }
+
+  @Override
+  public CloseableIterator<LogEntry> streamByCriteria(MatchCriteria criteria,
+      QueryContext context) {
+    return primary.streamByCriteria(criteria, context);
+  }
+
+  @Override
+  public Map<String, Long> countByCriteria(MatchCriteria criteria, MDC_ENUM_CONSTANTS field,
+      long interval) {
+    return primary.countByCriteria(criteria, field, interval);
+  }
+
+  @Override
+  public Map<String, Long> enforceRetention(RetentionPolicy policy, long now) {
+    Map<String, Long> dropped = primary.enforceRetention(policy, now);
+    queue("retention run", backend -> backend.enforceRetention(policy, now));
+    return dropped;
+  }
+
+  /**
+   * Queue an operation already applied to the primary for the other backends
+   *
+   * @throws TransientDataAccessResourceException if the queue of a backend had no room for it
+   *         within logging.persistence.operation.timeout
+   */
+  private void queue(String name, Consumer<LogEntryDAO> operation) {
+    List<String> failed = new ArrayList<>();
+    for (Map.Entry<String, BackendWriter> writer : writers.entrySet()) {
+      if (!writer.getValue().offer(operation, operationTimeout)) {
+        failed.add(writer.getKey());
+      }
+    }
+    if (!failed.isEmpty()) {
+      throw new TransientDataAccessResourceException("The " + name + " applied to " + primaryName
+          + " could not be queued for " + failed + ", their queues are full");
+    }
+  }
+
+  @Override
+  public Map<String, Long> getWarmUpStats() {
+    return primary.getWarmUpStats();
+  }
+
+  @Override
+  public void setQuota(ServiceQuota quota) {
+    for (String backend : split(backends)) {
+      stores.get(backend + BEAN_SUFFIX).setQuota(quota);
+    }
+  }
+
+  @Override
+  public long getUsedBytes(String originService) {
+    return primary.getUsedBytes(originService);
+  }
+
+  @Override
+  public Map<String, Map<String, Long>> getUsage() {
+    return primary.getUsage();
+  }
+
+  @Override
+  public Map<String, Map<String, Long>> getBackendStats() {
+    Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+    for (Map.Entry<String, BackendWriter> writer : writers.entrySet()) {
+      stats.put(writer.getKey(), writer.getValue().getStats());
+    }
+    return stats;
+  }
+
+}
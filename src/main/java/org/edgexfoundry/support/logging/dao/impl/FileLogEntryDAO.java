@@ -22,26 +22,51 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.FileWriter;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Date;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.edgexfoundry.support.domain.logging.LogEntry;
 import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.dao.LogEntryMatcher;
 import org.edgexfoundry.support.logging.dao.MDC_ENUM_CONSTANTS;
+import org.edgexfoundry.support.logging.dao.PersistedMessage;
+import org.edgexfoundry.support.logging.dao.QueryContext;
+import org.edgexfoundry.support.logging.dao.RetentionPolicy;
+import org.edgexfoundry.support.logging.dao.ServiceUsage;
+import org.edgexfoundry.support.logging.jfr.DeleteTrace;
+import org.edgexfoundry.support.logging.jfr.FlightRecorderEvents;
+import org.edgexfoundry.support.logging.jfr.IngestTrace;
+import org.edgexfoundry.support.logging.jfr.QueryTrace;
+import org.edgexfoundry.support.logging.query.CompiledQuery;
 import org.slf4j.LoggerFactory;
 import org.slf4j.event.Level;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import ch.qos.logback.classic.Logger;
@@ -53,20 +78,46 @@ import ch.qos.logback.core.rolling.FixedWindowRollingPolicy;
 import ch.qos.logback.core.rolling.RollingFileAppender;
 import ch.qos.logback.core.rolling.SizeBasedTriggeringPolicy;
 
-@Component("serviceDAO")
-@ConditionalOnProperty(name = {"logging.persistence"}, havingValue = "file")
+@Component("fileDAO")
+@ConditionalOnPersistence(FileLogEntryDAO.STORE)
 public class FileLogEntryDAO extends BaseLogEntryDAO {
 
+  // Logger below is logback's, used to attach the file appender to BaseLogEntryDAO
+  private static final org.slf4j.Logger logger = LoggerFactory.getLogger(FileLogEntryDAO.class);
+
   private static final String LOG_PATTERN_STR =
       "(^[0-9]*) \\[(.*)\\] \\[(.*)\\] (TRACE|DEBUG|INFO |WARN |ERROR) - (.*)";
   private static final Pattern LOG_PATTERN = Pattern.compile(LOG_PATTERN_STR);
   private static final String LOG_FORMAT = "%X{" + MDC_ENUM_CONSTANTS.CREATED.getValue() + "} [%X{"
       + MDC_ENUM_CONSTANTS.ORIGINSERVICE.getValue() + "}] %X{"
       + MDC_ENUM_CONSTANTS.LABELS.getValue() + "} %-5level - %msg%n";
+  // ANSI color codes wrapped around the message when logging.color.enabled is set
+  private static final Pattern COLOR_PATTERN = Pattern.compile("\033\\[[0-9;]*m");
   private static final String MANDATORY_POSITION_VARIABLE = "%i";
   private static final String TMP_LOGGING_FILE_EXT = ".tmp";
-
-  private final List<LogEntry> logEntries = new ArrayList<>();
+  private static final String SNAPSHOT_EXT = ".snapshot";
+  static final String STORE = "file";
+  private static final String INDEX = "time-bucket index";
+
+  private final LogEntryIndex logEntries = new LogEntryIndex();
+  // saves append to the log file concurrently, a rewrite by removeFileLogEntries excludes them as
+  // the file appender is detached meanwhile and anything appended would be lost
+  private final ReadWriteLock fileLock = new ReentrantReadWriteLock();
+  // completed once the logEntries of the active log file are loaded, see loadLoggingCache
+  private volatile CompletableFuture<Void> warmUp = CompletableFuture.completedFuture(null);
+  private final AtomicLong warmUpBytes = new AtomicLong();
+  private final AtomicLong warmUpEntries = new AtomicLong();
+  private volatile long warmUpTotal;
+  private volatile long warmUpMillis;
+  private final AtomicLong snapshotEntries = new AtomicLong();
+  // serializes checkpoints with removals, which invalidate the snapshot
+  private final Object checkpointLock = new Object();
+  // guarded by checkpointLock: log position covered by the current snapshot, -1 when none
+  private long checkpointPosition = -1L;
+  // the cache holds every logEntry of the log files created from then on, see getCacheFloor
+  private volatile long cacheFloor = Long.MIN_VALUE;
+  // zone maps and Bloom filters of the archived segments, by file identity as rolls rename them
+  private final Map<Object, SegmentFooter> segmentFooters = new ConcurrentHashMap<>();
 
   @Value("${logging.persistence.file}")
   private String loggingFilePath = "edgex-support-logging.log";
@@ -74,11 +125,27 @@ public class FileLogEntryDAO extends BaseLogEntryDAO {
   @Value("${logging.persistence.file.maxsize}")
   private String loggingFileMaxSize = "5MB";
 
+  @Value("${logging.persistence.file.snapshot:true}")
+  private boolean snapshotEnabled = true;
+
   @PostConstruct
   private void init() {
     System.out.println("Logging is using Files to persist log messages.");
+    // the logEntries saved from now on are added to the cache as they are saved, so only the
+    // bytes already in the active log file are loaded
+    long length = new File(loggingFilePath).length();
+    cacheFloor = System.currentTimeMillis();
     initFileLogging();
-    loadLoggingCache();
+    warmUp = new CompletableFuture<>();
+    Thread loader = new Thread(() -> loadLoggingCache(length), "log-cache-loader");
+    loader.setDaemon(true);
+    loader.start();
+  }
+
+  @PreDestroy
+  private void destroy() {
+    // the next startup only replays what is logged after this checkpoint
+    checkpoint();
   }
 
   /**
@@ -132,24 +199,214 @@ public class FileLogEntryDAO extends BaseLogEntryDAO {
    * This method would load the log entries existed in the active log at the time when the logging
    * service is launched. For performance consideration, this method wouldn't load those log entries
    * existed in the archived log file.
+   * 
+   * It runs on a background thread so the service accepts logEntries while the file is parsed.
+   * Until it completes, queries are served from the logEntries loaded so far and flagged as
+   * truncated, while counts and removals wait for it. When a snapshot of the active log file was
+   * checkpointed, its logEntries are restored and only the lines logged after it are parsed.
+   * 
+   * @param length - number of bytes of the active log file to load
    */
-  private void loadLoggingCache() {
+  private void loadLoggingCache(long length) {
+    long start = System.nanoTime();
+    warmUpTotal = length;
     String currentLine;
     String trimmedLine;
     LogEntry logEntry;
-    try (FileReader inputFile = new FileReader(loggingFilePath);
-        BufferedReader reader = new BufferedReader(inputFile)) {
-      while ((currentLine = reader.readLine()) != null) {
-        // trim newline when comparing with lineToRemove
-        trimmedLine = currentLine.trim();
-        logEntry = convertString2LogEntry(trimmedLine);
-        if (null != logEntry) {
-          logEntries.add(logEntry);
+    // the warm-up completes whatever happens, counts, removals and retention wait for it
+    try {
+      long position;
+      try {
+        position = restoreSnapshot(length);
+      } catch (RuntimeException e) {
+        // an unreadable snapshot leaves nothing restored, the whole file is parsed instead
+        logger.warn("Ignoring an unreadable snapshot of " + loggingFilePath, e);
+        position = 0L;
+      }
+      warmUpBytes.set(position);
+      try (BufferedReader reader =
+          new BufferedReader(new InputStreamReader(openLoggingFile(position, length)))) {
+        while ((currentLine = reader.readLine()) != null) {
+          // trim newline when comparing with lineToRemove
+          trimmedLine = currentLine.trim();
+          logEntry = convertString2LogEntry(trimmedLine);
+          if (null != logEntry) {
+            logEntries.add(logEntry);
+            warmUpEntries.incrementAndGet();
+          }
         }
       }
+    } catch (IOException | RuntimeException e) {
+      logger.error("Failed to load the log messages of " + loggingFilePath, e);
+    } finally {
+      warmUpMillis = (System.nanoTime() - start) / 1000000L;
+      warmUp.complete(null);
+      logger.info("Loaded {} log messages in {}ms, {} of them from the snapshot",
+          warmUpEntries.get(), warmUpMillis, snapshotEntries.get());
+    }
+  }
+
+  /**
+   * Open the active log file to read the bytes between two positions, reporting the bytes read to
+   * the warm-up progress
+   */
+  private InputStream openLoggingFile(long position, long length) throws IOException {
+    FileInputStream file = new FileInputStream(loggingFilePath);
+    try {
+      file.getChannel().position(position);
     } catch (IOException e) {
-      e.printStackTrace();
+      file.close();
+      throw e;
     }
+    return new BoundedInputStream(file, length - position, warmUpBytes);
+  }
+
+  /**
+   * Restore the logEntries of the snapshot if it was taken from the current active log file, i.e.
+   * the file still holds the bytes the snapshot was taken at. A snapshot taken before the file
+   * rolled over is ignored.
+   * 
+   * @param length - number of bytes of the active log file to load
+   * @return position of the active log file up to which the logEntries were restored
+   * @throws RuntimeException if the snapshot can't be restored, with none of its logEntries left in
+   *         the cache
+   */
+  private long restoreSnapshot(long length) {
+    File file = new File(loggingFilePath + SNAPSHOT_EXT);
+    if (!snapshotEnabled || !file.exists()) {
+      return 0L;
+    }
+    try {
+      LogEntrySnapshot snapshot = LogEntrySnapshot.read(file);
+      if (snapshot.getPosition() > length || snapshot.getFingerprint() != LogEntrySnapshot
+          .fingerprint(new File(loggingFilePath), snapshot.getPosition())) {
+        logger.warn("Ignoring the snapshot of a previous log file {}", file);
+        return 0L;
+      }
+      try {
+        for (LogEntry entry : snapshot.getEntries()) {
+          logEntries.add(entry);
+        }
+      } catch (RuntimeException e) {
+        // the file is parsed from the start instead, which would add them twice
+        logEntries.removeAll(snapshot.getEntries());
+        throw e;
+      }
+      snapshotEntries.set(snapshot.getEntries().size());
+      warmUpEntries.addAndGet(snapshot.getEntries().size());
+      synchronized (checkpointLock) {
+        checkpointPosition = snapshot.getPosition();
+      }
+      return snapshot.getPosition();
+    } catch (IOException e) {
+      logger.warn("Ignoring an unreadable snapshot " + file, e);
+      return 0L;
+    }
+  }
+
+  /**
+   * Checkpoint the cached logEntries into a snapshot file along with the position of the active log
+   * file they cover, so the next startup only parses the lines logged after it. Saves are held off
+   * while the cache is copied, not while the snapshot is written. Skipped while the cache is still
+   * loading or when nothing was logged since the last checkpoint.
+   */
+  @Scheduled(initialDelayString = "${logging.persistence.file.snapshot.interval:300000}",
+      fixedDelayString = "${logging.persistence.file.snapshot.interval:300000}")
+  public void checkpoint() {
+    if (!snapshotEnabled || !warmUp.isDone()) {
+      return;
+    }
+    File log = new File(loggingFilePath);
+    synchronized (checkpointLock) {
+      try {
+        LogEntrySnapshot snapshot;
+        fileLock.writeLock().lock();
+        try {
+          long position = log.length();
+          if (position == checkpointPosition) {
+            return;
+          }
+          snapshot = new LogEntrySnapshot(position, LogEntrySnapshot.fingerprint(log, position),
+              logEntries.entries());
+        } finally {
+          fileLock.writeLock().unlock();
+        }
+        snapshot.write(new File(loggingFilePath + SNAPSHOT_EXT));
+        checkpointPosition = snapshot.getPosition();
+      } catch (IOException e) {
+        logger.error("Failed to checkpoint " + loggingFilePath, e);
+      }
+    }
+  }
+
+  /**
+   * Block until the logEntries of the active log file are loaded
+   */
+  public void awaitWarmUp() {
+    warmUp.join();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.edgexfoundry.support.logging.dao.LogEntryDAO#getWarmUpStats()
+   */
+  @Override
+  public Map<String, Long> getWarmUpStats() {
+    Map<String, Long> stats = new LinkedHashMap<>();
+    boolean done = warmUp.isDone();
+    long total = warmUpTotal;
+    stats.put("done", done ? 1L : 0L);
+    stats.put("entries", warmUpEntries.get());
+    stats.put("snapshot.entries", snapshotEntries.get());
+    stats.put("bytes", warmUpBytes.get());
+    stats.put("total.bytes", total);
+    stats.put("progress", done || total == 0 ? 100L : warmUpBytes.get() * 100 / total);
+    if (done) {
+      stats.put("ms", warmUpMillis);
+    }
+    return stats;
+  }
+
+  /**
+   * Drop the logEntries created before a given time from the cache, leaving them to the log files
+   * where streamByCriteria still finds them. Skipped while the cache is still loading, as the
+   * loader could add them back.
+   *
+   * @param before - logEntries created before this time are dropped
+   * @return number of logEntries dropped
+   */
+  public int evictCache(long before) {
+    if (!warmUp.isDone()) {
+      return 0;
+    }
+    synchronized (checkpointLock) {
+      int evicted = logEntries.removeIf(entry -> entry.getCreated() < before,
+          logEntries.bucketKey(before) + logEntries.getBucketSize());
+      if (evicted > 0) {
+        checkpointPosition = -1L;
+      }
+      cacheFloor = Math.max(cacheFloor, before);
+      return evicted;
+    }
+  }
+
+  /**
+   * @return time from which the cache holds every logEntry of the log files, i.e. the startup time
+   *         or the last time evicted before; older logEntries may only be in the log files
+   */
+  public long getCacheFloor() {
+    return cacheFloor;
+  }
+
+  /**
+   * Usage as kept by the cache, i.e. the logEntries of the active log file and those saved since
+   * startup, less those removed, dropped by retention or evicted since. Archived segments rolled
+   * before startup are not counted.
+   */
+  @Override
+  protected ServiceUsage getServiceUsage() {
+    return logEntries.getUsage();
   }
 
   private void stopAndDetachFileAppdnder(String fileAppenderName) {
@@ -181,10 +438,19 @@ public class FileLogEntryDAO extends BaseLogEntryDAO {
    */
   @Override
   public boolean save(LogEntry entry) {
-    boolean result = super.save(entry);
-    if (result) {// only add logEntry into cache when it's loggable
-      logEntries.add(entry);
+    IngestTrace trace = FlightRecorderEvents.ingest();
+    trace.begin();
+    boolean result;
+    fileLock.readLock().lock();
+    try {
+      result = super.save(entry);
+      if (result) {// only add logEntry into cache when it's loggable
+        logEntries.add(entry);
+      }
+    } finally {
+      fileLock.readLock().unlock();
     }
+    trace.commit(STORE, entry, result);
     return result;
   }
 
@@ -192,30 +458,50 @@ public class FileLogEntryDAO extends BaseLogEntryDAO {
    * (non-Javadoc)
    * 
    * @see org.edgexfoundry.support.logging.dao.LogEntryDAO#findByCriteria(org.edgexfoundry.
-   * support.logging.domain.MatchCriteria, int)
+   * support.logging.domain.MatchCriteria, int,
+   * org.edgexfoundry.support.logging.dao.QueryContext)
    */
   @Override
-  public List<LogEntry> findByCriteria(MatchCriteria criteria, int limit) {
-    List<LogEntry> result = new ArrayList<>();
-    int i = 0;
-    if (!logEntries.isEmpty() && null != criteria) {
-      for (LogEntry entry : logEntries) {
-        if (compareArrays(entry.getLabels(), criteria.getLabels())
-            && containSource(entry.getLogLevel(), criteria.getLogLevels())
-            && containSource(entry.getOriginService(), criteria.getOriginServices())
-            && containStringKeyword(entry.getMessage(), criteria.getMessageKeywords())
-            && matchTimestamp(entry.getCreated(), criteria.getStart(), criteria.getEnd())) {
-
-          if (limit >= 0 && ++i > limit) {// break the iteration as
-                                          // the number of fetched
-                                          // logs has reached the
-                                          // limit
-            break;
-          }
-          result.add(entry);
-        }
-      }
+  public List<LogEntry> findByCriteria(MatchCriteria criteria, int limit, QueryContext context) {
+    if (null == criteria || logEntries.isEmpty() && warmUp.isDone()) {
+      return new ArrayList<>();
+    }
+    QueryTrace trace = FlightRecorderEvents.query();
+    trace.begin();
+    long scanned = context.getEntriesScanned();
+    long pruned = context.getSegmentsPruned();
+    // time buckets whose counters rule the criteria out are pruned without being scanned
+    List<LogEntry> result = logEntries.find(criteria, limit, context);
+    if (!warmUp.isDone()) {
+      context.truncate();
     }
+    trace.commit(STORE, INDEX, criteria, context.getEntriesScanned() - scanned,
+        context.getSegmentsPruned() - pruned, result.size(), context.isTruncated());
+    return result;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.edgexfoundry.support.logging.dao.LogEntryDAO#findByQuery(org.edgexfoundry.support.
+   * logging.query.CompiledQuery, int, org.edgexfoundry.support.logging.dao.QueryContext)
+   */
+  @Override
+  public List<LogEntry> findByQuery(CompiledQuery query, int limit, QueryContext context) {
+    if (null == query || logEntries.isEmpty() && warmUp.isDone()) {
+      return new ArrayList<>();
+    }
+    QueryTrace trace = FlightRecorderEvents.query();
+    trace.begin();
+    long scanned = context.getEntriesScanned();
+    // the compiled predicate is evaluated directly, only over the buckets within its time range
+    List<LogEntry> result =
+        logEntries.find(query, query.getStart(), query.getEnd(), limit, context);
+    if (!warmUp.isDone()) {
+      context.truncate();
+    }
+    trace.commit(STORE, INDEX, query, context.getEntriesScanned() - scanned, result.size(),
+        context.isTruncated());
     return result;
   }
 
@@ -228,52 +514,350 @@ public class FileLogEntryDAO extends BaseLogEntryDAO {
    */
   @Override
   public List<LogEntry> removeByCriteria(MatchCriteria criteria) {
+    // logEntries not loaded yet could not be removed from the cache
+    awaitWarmUp();
+    DeleteTrace trace = FlightRecorderEvents.delete();
+    trace.begin();
     List<LogEntry> targets = this.findByCriteria(criteria, -1);
+    long rewrite = 0L;
+    if (!targets.isEmpty()) {
+      synchronized (checkpointLock) {
+        try {
+          long start = System.nanoTime();
+          boolean removed = removeFileLogEntries(targets, criteria);
+          rewrite = System.nanoTime() - start;
+          if (removed) {
+            logEntries.removeAll(targets);
+          } else {
+            throw new IOException("failed to remove file log entries");
+          }
+        } catch (IOException e) {
+          logger.error("Failed to remove log entries from " + loggingFilePath, e);
+        } finally {
+          // the snapshot holds the removed logEntries and the rewritten file no longer matches it
+          deleteSnapshot();
+        }
+      }
+    }
+    trace.commit(STORE, targets.size(), rewrite);
+    return targets;
+  }
+
+  /**
+   * Remove the logEntries matching the criteria from the log file segments, whether the cache still
+   * holds them or not, e.g. the warm tier of the tiered store that was evicted from the cache. The
+   * matches are streamed from the segments, then every segment that may hold one is rewritten.
+   *
+   * @param criteria
+   * @return the logEntries removed
+   */
+  public List<LogEntry> removeFromSegments(MatchCriteria criteria) {
+    awaitWarmUp();
+    DeleteTrace trace = FlightRecorderEvents.delete();
+    trace.begin();
+    List<LogEntry> targets = new ArrayList<>();
+    try (CloseableIterator<LogEntry> entries = streamByCriteria(criteria, new QueryContext())) {
+      while (entries.hasNext()) {
+        targets.add(entries.next());
+      }
+    }
+    long rewrite = 0L;
     if (!targets.isEmpty()) {
+      synchronized (checkpointLock) {
+        try {
+          long start = System.nanoTime();
+          boolean removed = removeFileLogEntries(targets, criteria);
+          rewrite = System.nanoTime() - start;
+          if (!removed) {
+            throw new IOException("failed to remove file log entries");
+          }
+        } catch (IOException e) {
+          logger.error("Failed to remove log entries from the segments of " + loggingFilePath, e);
+        } finally {
+          deleteSnapshot();
+        }
+      }
+    }
+    trace.commit(STORE, targets.size(), rewrite);
+    return targets;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * org.edgexfoundry.support.logging.dao.LogEntryDAO#streamByCriteria(org.edgexfoundry.support.
+   * logging.domain.MatchCriteria, org.edgexfoundry.support.logging.dao.QueryContext)
+   */
+  @Override
+  public CloseableIterator<LogEntry> streamByCriteria(MatchCriteria criteria,
+      QueryContext context) {
+    if (null == criteria) {
+      return new FileSegmentIterator(Collections.<File>emptyList(), criteria, context);
+    }
+    List<File> segments = listSegments();
+    File active = segments.remove(segments.size() - 1);
+    // archives whose footer rules the criteria out are pruned, those without one get it built
+    // while being scanned; footers of archives rolled out of the window are dropped
+    List<File> scanned = new ArrayList<>();
+    Map<File, SegmentFooter> building = new HashMap<>();
+    Set<Object> keys = new HashSet<>();
+    for (File archive : segments) {
       try {
-        if (removeFileLogEntries(targets)) {
-          logEntries.removeAll(targets);
-        } else {
-          throw new IOException("failed to remove file log entries");
+        SegmentFooter footer = cachedFooter(archive);
+        if (null == footer) {
+          footer = SegmentFooter.of(archive);
+          building.put(archive, footer);
+        } else if (!footer.mayMatch(criteria)) {
+          keys.add(footer.key);
+          context.segmentPruned();
+          continue;
         }
+        keys.add(footer.key);
       } catch (IOException e) {
-        e.printStackTrace();
+        // rolled or deleted meanwhile, the iterator skips it if it is gone
       }
+      scanned.add(archive);
     }
-    return targets;
+    segmentFooters.keySet().retainAll(keys);
+    scanned.add(active);
+    return new FileSegmentIterator(scanned, criteria, context, building,
+        footer -> segmentFooters.put(footer.key, footer));
   }
 
-  private synchronized boolean removeFileLogEntries(List<LogEntry> targets) throws IOException {
+  /**
+   * List the archived log files rolled by the FixedWindowRollingPolicy followed by the active log
+   * file, i.e. from the oldest segment to the newest one. The archive with the highest index is the
+   * oldest one.
+   * 
+   * @return segment files in chronological order
+   */
+  List<File> listSegments() {
+    List<File> segments = new ArrayList<>();
+    File archive;
+    for (int i = 1; (archive = new File(loggingFilePath + i)).exists(); i++) {
+      segments.add(archive);
+    }
+    Collections.reverse(segments);
+    segments.add(new File(loggingFilePath));
+    return segments;
+  }
 
-    // to remove log entries out of log files, need to stop fileAppender to
-    // release file lock
-    stopAndDetachFileAppdnder(this.loggingFilePath);
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * org.edgexfoundry.support.logging.dao.LogEntryDAO#countByCriteria(org.edgexfoundry.support.
+   * logging.domain.MatchCriteria, org.edgexfoundry.support.logging.dao.MDC_ENUM_CONSTANTS, long)
+   */
+  @Override
+  public Map<String, Long> countByCriteria(MatchCriteria criteria, MDC_ENUM_CONSTANTS field,
+      long interval) {
+    if (null == criteria) {
+      return new LinkedHashMap<>();
+    }
+    // counts can't be flagged as partial
+    awaitWarmUp();
+    return logEntries.count(criteria, field, interval);
+  }
 
-    File inputFile = new File(loggingFilePath);
-    File tempFile = new File(loggingFilePath + TMP_LOGGING_FILE_EXT);
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * org.edgexfoundry.support.logging.dao.LogEntryDAO#enforceRetention(org.edgexfoundry.support.
+   * logging.dao.RetentionPolicy, long)
+   */
+  @Override
+  public Map<String, Long> enforceRetention(RetentionPolicy policy, long now) {
+    awaitWarmUp();
+    List<File> archives = listSegments();
+    File active = archives.remove(archives.size() - 1);
+    // archived segments never change until deleted, so they are only scanned once
+    Map<Object, SegmentFooter> summaries = new HashMap<>();
+    for (File archive : archives) {
+      try {
+        SegmentFooter summary = summarize(archive);
+        summaries.put(summary.key, summary);
+      } catch (IOException e) {
+        // rolled or deleted meanwhile
+        break;
+      }
+    }
+    segmentFooters.keySet().retainAll(summaries.keySet());
+
+    long reclaimed = 0L;
+    long segments = 0L;
+    long quotaCutoff = Long.MIN_VALUE;
+    int entries;
+    synchronized (checkpointLock) {
+      // saves are held off so the archives are not rolled while being deleted
+      fileLock.writeLock().lock();
+      try {
+        long total = active.length();
+        for (File archive : archives) {
+          total += archive.length();
+        }
+        // delete from the oldest archive on, so the remaining ones keep their contiguous indexes
+        for (File archive : archives) {
+          SegmentFooter summary = summaries.get(SegmentFooter.fileKey(archive));
+          if (null == summary || !summary.isSame(archive)) {
+            break;
+          }
+          boolean overQuota = policy.getMaxBytes() > 0 && total > policy.getMaxBytes();
+          if (!overQuota && !summary.isExpired(policy, now)) {
+            break;
+          }
+          if (!archive.delete()) {
+            break;
+          }
+          total -= summary.length;
+          reclaimed += summary.length;
+          segments++;
+          if (overQuota) {
+            quotaCutoff = Math.max(quotaCutoff, summary.getNewest());
+          }
+        }
+      } catch (IOException e) {
+        logger.error("Failed to enforce the retention of " + loggingFilePath, e);
+      } finally {
+        fileLock.writeLock().unlock();
+      }
+      // the cache drops what the deleted segments held beyond the maximum ages as well
+      long cutoff = quotaCutoff;
+      long shortest = policy.getShortestMaxAge();
+      long before = Math.max(0L == shortest ? Long.MIN_VALUE : now - shortest,
+          Long.MIN_VALUE == cutoff ? Long.MIN_VALUE : cutoff + 1);
+      entries = Long.MIN_VALUE == before ? 0 : logEntries.removeIf(
+          entry -> entry.getCreated() <= cutoff
+              || policy.isExpired(entry.getLogLevel(), entry.getCreated(), now),
+          logEntries.bucketKey(before) + logEntries.getBucketSize());
+      if (entries > 0) {
+        checkpointPosition = -1L;
+      }
+    }
+    Map<String, Long> stats = new LinkedHashMap<>();
+    stats.put("segments", segments);
+    stats.put("entries", (long) entries);
+    stats.put("reclaimed.bytes", reclaimed);
+    return stats;
+  }
+
+  private SegmentFooter summarize(File archive) throws IOException {
+    SegmentFooter footer = cachedFooter(archive);
+    if (null != footer) {
+      return footer;
+    }
+    footer = SegmentFooter.of(archive);
+    try (BufferedReader reader = new BufferedReader(new FileReader(archive))) {
+      String currentLine;
+      while ((currentLine = reader.readLine()) != null) {
+        LogEntry entry = convertString2LogEntry(currentLine.trim());
+        if (null != entry) {
+          footer.add(entry);
+        }
+      }
+    }
+    footer.seal();
+    segmentFooters.put(footer.key, footer);
+    return footer;
+  }
+
+  /**
+   * @param archive
+   * @return the footer of the archived segment if it was read before, null otherwise
+   * @throws IOException
+   */
+  private SegmentFooter cachedFooter(File archive) throws IOException {
+    SegmentFooter footer = segmentFooters.get(SegmentFooter.fileKey(archive));
+    return null != footer && footer.isSame(archive) ? footer : null;
+  }
+
+
+  private void deleteSnapshot() {
+    File file = new File(loggingFilePath + SNAPSHOT_EXT);
+    if (file.exists() && !file.delete()) {
+      logger.warn("Failed to delete the snapshot {}", file);
+    }
+    checkpointPosition = -1L;
+  }
+
+  /**
+   * Rewrite the active log file and the archived segments that may hold a logEntry matching the
+   * criteria without the lines of the targets
+   */
+  private boolean removeFileLogEntries(List<LogEntry> targets, MatchCriteria criteria)
+      throws IOException {
+    Set<String> linesToRemove = new HashSet<>();
+    for (LogEntry entry : targets) {
+      linesToRemove.add(toLine(entry));
+    }
+
+    fileLock.writeLock().lock();
+    try {
+      // saves are held off, so no archive is rolled while being rewritten
+      List<File> archives = listSegments();
+      archives.remove(archives.size() - 1);
+      for (File archive : archives) {
+        SegmentFooter footer = cachedFooter(archive);
+        if (null == footer || footer.mayMatch(criteria)) {
+          rewriteArchive(archive, linesToRemove);
+        }
+      }
+      return rewriteFile(linesToRemove);
+    } finally {
+      fileLock.writeLock().unlock();
+    }
+  }
 
+  private void rewriteArchive(File archive, Set<String> linesToRemove) throws IOException {
+    File tempFile = new File(archive.getPath() + TMP_LOGGING_FILE_EXT);
+    Object key = SegmentFooter.fileKey(archive);
+    if (0 == filterLines(archive, tempFile, linesToRemove)) {
+      Files.delete(tempFile.toPath());
+      return;
+    }
+    Files.move(tempFile.toPath(), archive.toPath(),
+        java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+    segmentFooters.remove(key);
+  }
+
+  /**
+   * Copy the lines of a log file to another one, but those to remove
+   *
+   * @return number of lines removed
+   */
+  private static int filterLines(File inputFile, File outputFile, Set<String> linesToRemove)
+      throws IOException {
+    int removed = 0;
     try (BufferedReader reader = new BufferedReader(new FileReader(inputFile));
-        BufferedWriter writer = new BufferedWriter(new FileWriter(tempFile))) {
+        BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
       String currentLine;
       String trimmedLine;
-      boolean toRemove;
       while ((currentLine = reader.readLine()) != null) {
         trimmedLine = currentLine.trim();
-        toRemove = false;
-        String lineToRemove;
-        for (LogEntry entry : targets) {
-          lineToRemove = entry.toString();
-          if (trimmedLine.equals(lineToRemove)) {
-            toRemove = true;
-            break;
-          }
+        if (trimmedLine.indexOf('\033') >= 0) {
+          trimmedLine = COLOR_PATTERN.matcher(trimmedLine).replaceAll("");
         }
-        if (toRemove) {
+        if (linesToRemove.contains(trimmedLine)) {
+          removed++;
           continue;
         }
         writer.write(currentLine + System.getProperty("line.separator"));
       }
     }
+    return removed;
+  }
+
+  private boolean rewriteFile(Set<String> linesToRemove) throws IOException {
+
+    // to remove log entries out of log files, need to stop fileAppender to
+    // release file lock
+    stopAndDetachFileAppdnder(this.loggingFilePath);
+
+    File inputFile = new File(loggingFilePath);
+    File tempFile = new File(loggingFilePath + TMP_LOGGING_FILE_EXT);
+    filterLines(inputFile, tempFile, linesToRemove);
 
     try {
       Files.move(tempFile.toPath(), inputFile.toPath(),
@@ -290,108 +874,87 @@ public class FileLogEntryDAO extends BaseLogEntryDAO {
 
   }
 
-  private LogEntry convertString2LogEntry(String target) {
-    LogEntry result = null;
-    if (null != target) {
-      Matcher matcher = LOG_PATTERN.matcher(target);
-      if (matcher.find() && matcher.groupCount() == 5) {
-        result = new LogEntry();
-        result.setCreated(Long.parseLong(matcher.group(1)));
-        result.setOriginService("".equals(matcher.group(2)) ? null : matcher.group(2));
-        result.setLabels("".equals(matcher.group(3)) ? null : matcher.group(3).split(", "));
-        result.setLogLevel(Level.valueOf(matcher.group(4).trim()));
-        result.setMessage(matcher.group(5));
-      }
-    }
-    return result;
+  /**
+   * Format a logEntry the way LOG_FORMAT persists it, without colors and trailing whitespace. Unlike
+   * LogEntry.toString, missing labels are persisted as [] and a missing originService as nothing.
+   */
+  static String toLine(LogEntry entry) {
+    return (entry.getCreated() + " ["
+        + (null == entry.getOriginService() ? "" : entry.getOriginService()) + "] "
+        + (null == entry.getLabels() ? "[]" : Arrays.toString(entry.getLabels())) + " "
+        + String.format("%-5s", entry.getLogLevel()) + " - "
+        + PersistedMessage.encode(entry)).trim();
   }
 
   /**
-   * Compare two arrays to see if targets array contains one object of sources array
-   * 
-   * @param sources
-   * @param targets
-   * @return true if one object of sources is in the targets or targets is null/empty; return false
-   *         otherwise.
+   * Reads at most a given number of bytes of the underlying stream, reporting the bytes read
    */
-  private static <A> boolean compareArrays(A[] sources, A[] targets) {
-    // null or empty targets means nothing to match for, so return true
-    if (null == targets || targets.length == 0) {
-      return true;
+  private static class BoundedInputStream extends FilterInputStream {
+
+    private final AtomicLong read;
+    private long remaining;
+
+    BoundedInputStream(InputStream in, long length, AtomicLong read) {
+      super(in);
+      this.remaining = length;
+      this.read = read;
     }
-    if (null != sources && sources.length > 0 && targets.length > 0) {
-      List<A> list = new ArrayList<>(Arrays.asList(targets));
-      for (A source : sources) {
-        if (list.contains(source)) {
-          return true;
-        }
+
+    @Override
+    public int read() throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      int result = super.read();
+      if (result >= 0) {
+        remaining--;
+        read.incrementAndGet();
       }
+      return result;
     }
-    return false;
-  }
 
-  /**
-   * Check if targets array contain source object
-   * 
-   * @param source
-   * @param targets
-   * @return true if targets array contain source object or targets array is null/empty; return
-   *         false otherwise
-   */
-  private static <A> boolean containSource(A source, A[] targets) {
-    if (null == targets || targets.length == 0) {
-      return true;
-    }
-    if (null != source && targets.length > 0) {
-      List<A> list = new ArrayList<>(Arrays.asList(targets));
-      return list.contains(source);
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      int result = super.read(b, off, (int) Math.min(len, remaining));
+      if (result > 0) {
+        remaining -= result;
+        read.addAndGet(result);
+      }
+      return result;
     }
-    return false;
-  }
 
-  /**
-   * Check if specific String contains any keyword listed in an array
-   * 
-   * @param message
-   * @param keywords
-   * @return true if any string of keywords is contained by message; false otherwise
-   */
-  private static boolean containStringKeyword(String message, String[] keywords) {
-    if (null == keywords || keywords.length == 0) {
-      return true;
+    @Override
+    public long skip(long n) throws IOException {
+      long result = super.skip(Math.min(n, remaining));
+      remaining -= result;
+      read.addAndGet(result);
+      return result;
     }
-    for (String keyword : keywords) {
-      if (message.contains(keyword)) {
-        return true;
-      }
+
+    @Override
+    public int available() throws IOException {
+      return (int) Math.min(super.available(), remaining);
     }
-    return false;
+
   }
 
-  /**
-   * Check if date time representing in target long value is within start and end date time interval
-   * 
-   * @param target
-   * @param start
-   * @param end
-   * @return true if date time representing in target long value is within start and end date time
-   *         interval; return false otherwise
-   */
-  private static boolean matchTimestamp(long target, long start, long end) {
-    Date entryTime = new Date(target);
-    if (0L != start) {
-      if (0L != end) {
-        return (entryTime.after(new Date(start)) && entryTime.before(new Date(end)));
-      } else {
-        return entryTime.after(new Date(start));
-      }
-    } else {
-      if (0L != end) {
-        return entryTime.before(new Date(end));
-      } else {
-        return true;
+  static LogEntry convertString2LogEntry(String target) {
+    LogEntry result = null;
+    if (null != target) {
+      Matcher matcher = LOG_PATTERN.matcher(target);
+      if (matcher.find() && matcher.groupCount() == 5) {
+        result = new LogEntry();
+        result.setCreated(Long.parseLong(matcher.group(1)));
+        result.setOriginService("".equals(matcher.group(2)) ? null : matcher.group(2));
+        result.setLabels("".equals(matcher.group(3)) ? null : matcher.group(3).split(", "));
+        result.setLogLevel(Level.valueOf(matcher.group(4).trim()));
+        result.setMessage(matcher.group(5));
       }
     }
+    return PersistedMessage.decode(result);
   }
 
 }
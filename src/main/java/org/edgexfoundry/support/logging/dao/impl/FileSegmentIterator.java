@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.dao.LogEntryMatcher;
+import org.edgexfoundry.support.logging.dao.QueryContext;
+import org.springframework.data.util.CloseableIterator;
+
+/**
+ * Iterates the log entries of a list of log file segments one line at a time, so only a single
+ * parsed logEntry is held in memory regardless of how many entries the segments contain. Segments
+ * that disappear before being opened (e.g. rolled or removed) are skipped. Every line read and
+ * segment opened is reported to the query context, whose cancellation is checked line by line.
+ * Segments given an empty footer have it filled with every entry read, and handed over sealed once
+ * the segment is read to its end.
+ */
+class FileSegmentIterator implements CloseableIterator<LogEntry> {
+
+  private final Deque<File> segments;
+  private final MatchCriteria criteria;
+  private final QueryContext context;
+  private final Map<File, SegmentFooter> footers;
+  private final Consumer<SegmentFooter> sealed;
+  private BufferedReader reader;
+  private SegmentFooter footer;
+  private LogEntry next;
+
+  FileSegmentIterator(List<File> segments, MatchCriteria criteria, QueryContext context) {
+    this(segments, criteria, context, Collections.<File, SegmentFooter>emptyMap(), footer -> {
+    });
+  }
+
+  /**
+   * @param segments
+   * @param criteria
+   * @param context
+   * @param footers - empty footers to fill, by segment
+   * @param sealed - receives each footer once its segment is read to the end
+   */
+  FileSegmentIterator(List<File> segments, MatchCriteria criteria, QueryContext context,
+      Map<File, SegmentFooter> footers, Consumer<SegmentFooter> sealed) {
+    this.segments = new ArrayDeque<>(segments);
+    this.criteria = criteria;
+    this.context = context;
+    this.footers = footers;
+    this.sealed = sealed;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (null == next) {
+      next = advance();
+    }
+    return null != next;
+  }
+
+  @Override
+  public LogEntry next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    LogEntry result = next;
+    next = null;
+    return result;
+  }
+
+  @Override
+  public void close() {
+    segments.clear();
+    closeReader();
+  }
+
+  private LogEntry advance() {
+    try {
+      while (true) {
+        if (context.isCancelled()) {
+          close();
+          throw new CancellationException();
+        }
+        if (null == reader && !openNextSegment()) {
+          return null;
+        }
+        String currentLine = reader.readLine();
+        if (null == currentLine) {
+          if (null != footer) {
+            footer.seal();
+            sealed.accept(footer);
+          }
+          closeReader();
+          context.segmentScanned();
+          continue;
+        }
+        context.entryScanned();
+        LogEntry entry = FileLogEntryDAO.convertString2LogEntry(currentLine.trim());
+        if (null != footer && null != entry) {
+          footer.add(entry);
+        }
+        if (LogEntryMatcher.matches(entry, criteria)) {
+          return entry;
+        }
+      }
+    } catch (IOException e) {
+      close();
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private boolean openNextSegment() {
+    while (!segments.isEmpty()) {
+      File segment = segments.poll();
+      try {
+        reader = new BufferedReader(new FileReader(segment));
+        footer = footers.get(segment);
+        return true;
+      } catch (FileNotFoundException e) {
+        // the segment was rolled or removed after being listed
+      }
+    }
+    return false;
+  }
+
+  private void closeReader() {
+    if (null != reader) {
+      try {
+        reader.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+      reader = null;
+    }
+    // a footer of a segment not read to the end is incomplete
+    footer = null;
+  }
+
+}
@@ -0,0 +1,576 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.dao.LogEntryMatcher;
+import org.edgexfoundry.support.logging.dao.MDC_ENUM_CONSTANTS;
+import org.edgexfoundry.support.logging.dao.QueryContext;
+import org.edgexfoundry.support.logging.dao.RepeatedLogEntry;
+import org.edgexfoundry.support.logging.dao.SampledLogEntry;
+import org.edgexfoundry.support.logging.dao.ServiceUsage;
+import org.slf4j.event.Level;
+
+/**
+ * In-memory index of cached logEntries partitioned into fixed time buckets. Each bucket keeps its
+ * entries in arrival order along with per logLevel, originService and label counters, so a query
+ * only visits the buckets overlapping its time range and counts over buckets fully covered by the
+ * criteria come straight from the counters. The index also keeps the logEntries and bytes it holds
+ * per originService.
+ *
+ * Readers never lock: a bucket publishes its entries through an immutable-prefix chunk, so a scan
+ * sees a consistent snapshot while new entries are appended or removed concurrently.
+ */
+public class LogEntryIndex {
+
+  public static final long DEFAULT_BUCKET_SIZE = 60000L;
+
+  private static final int INITIAL_BUCKET_CAPACITY = 16;
+  // reading the clock for every entry would cost more than matching most of them
+  private static final int DEADLINE_CHECK_INTERVAL = 256;
+
+  private final long bucketSize;
+  private final ConcurrentSkipListMap<Long, Bucket> buckets = new ConcurrentSkipListMap<>();
+  // longest span between the first and last repeat of a coalesced logEntry, which lives in the
+  // bucket of its first repeat, so queries starting up to that much later must visit that bucket
+  private final AtomicLong maxRepeatSpan = new AtomicLong();
+  private final ServiceUsage usage = new ServiceUsage();
+
+  public LogEntryIndex() {
+    this(DEFAULT_BUCKET_SIZE);
+  }
+
+  public LogEntryIndex(long bucketSize) {
+    this.bucketSize = bucketSize;
+  }
+
+  public long getBucketSize() {
+    return bucketSize;
+  }
+
+  public ServiceUsage getUsage() {
+    return usage;
+  }
+
+  public void add(LogEntry entry) {
+    long key = bucketKey(entry.getCreated());
+    if (entry instanceof RepeatedLogEntry) {
+      maxRepeatSpan.accumulateAndGet(RepeatedLogEntry.lastCreated(entry) - entry.getCreated(),
+          Math::max);
+    }
+    while (true) {
+      Bucket bucket = buckets.computeIfAbsent(key, Bucket::new);
+      if (bucket.add(entry)) {
+        return;
+      }
+      // the bucket was emptied and retired concurrently, retry with a fresh one
+    }
+  }
+
+  /**
+   * Remove the given logEntries (compared by identity) from the index.
+   *
+   * @param targets
+   * @return number of entries removed
+   */
+  public int removeAll(Collection<LogEntry> targets) {
+    Map<Long, Set<LogEntry>> byBucket = new TreeMap<>();
+    for (LogEntry target : targets) {
+      byBucket.computeIfAbsent(bucketKey(target.getCreated()),
+          k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(target);
+    }
+    int removed = 0;
+    for (Map.Entry<Long, Set<LogEntry>> entry : byBucket.entrySet()) {
+      Bucket bucket = buckets.get(entry.getKey());
+      if (null != bucket) {
+        removed += bucket.removeAll(entry.getValue());
+        if (bucket.retireIfEmpty()) {
+          buckets.remove(entry.getKey(), bucket);
+        }
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Remove the logEntries satisfying the filter from the buckets starting before a given time.
+   * Buckets left empty are dropped.
+   *
+   * @param filter
+   * @param before - only buckets starting before this time are visited
+   * @return number of entries removed
+   */
+  public int removeIf(Predicate<LogEntry> filter, long before) {
+    int removed = 0;
+    for (Map.Entry<Long, Bucket> entry : buckets.headMap(before).entrySet()) {
+      Bucket bucket = entry.getValue();
+      removed += bucket.removeIf(filter);
+      if (bucket.retireIfEmpty()) {
+        buckets.remove(entry.getKey(), bucket);
+      }
+    }
+    return removed;
+  }
+
+  public int size() {
+    int size = 0;
+    for (Bucket bucket : buckets.values()) {
+      size += bucket.size();
+    }
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return buckets.isEmpty();
+  }
+
+  /**
+   * Return every indexed logEntry bucket by bucket, in arrival order within a bucket
+   *
+   * @return indexed logEntries
+   */
+  public List<LogEntry> entries() {
+    List<LogEntry> result = new ArrayList<>(size());
+    for (Bucket bucket : buckets.values()) {
+      Chunk chunk = bucket.chunk;
+      for (int i = 0, size = chunk.size; i < size; i++) {
+        result.add(chunk.entries[i]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Return the logEntries matching the criteria in created order, bucket by bucket
+   *
+   * @param criteria
+   * @param limit - maximum number of entries to return, negative for no limit
+   * @return matching logEntries
+   */
+  public List<LogEntry> find(MatchCriteria criteria, int limit) {
+    return find(criteria, limit, new QueryContext());
+  }
+
+  /**
+   * Return the logEntries matching the criteria in created order, bucket by bucket, stopping with
+   * the entries found so far when the deadline of the context is hit
+   *
+   * @param criteria
+   * @param limit - maximum number of entries to return, negative for no limit
+   * @param context
+   * @return matching logEntries
+   */
+  public List<LogEntry> find(MatchCriteria criteria, int limit, QueryContext context) {
+    return find(entry -> LogEntryMatcher.matches(entry, criteria),
+        bucket -> bucket.mayMatch(criteria), criteria.getStart(), criteria.getEnd(), limit,
+        context);
+  }
+
+  /**
+   * Return the logEntries created within the time range that satisfy the filter, in created order
+   * bucket by bucket. Only the buckets overlapping the time range are visited. The scan reports its
+   * progress to the context and checks its deadline every DEADLINE_CHECK_INTERVAL entries; when the
+   * deadline is hit, the context is flagged as truncated and the entries found so far returned.
+   *
+   * @param filter
+   * @param start - exclusive start of the time range, 0 when unbounded
+   * @param end - exclusive end of the time range, 0 when unbounded
+   * @param limit - maximum number of entries to return, negative for no limit
+   * @param context
+   * @return matching logEntries
+   */
+  public List<LogEntry> find(Predicate<LogEntry> filter, long start, long end, int limit,
+      QueryContext context) {
+    return find(filter, bucket -> true, start, end, limit, context);
+  }
+
+  /**
+   * Same as find with a filter, skipping the buckets the zone filter rules out from their counters
+   * alone. Those are reported to the context as pruned rather than scanned.
+   */
+  private List<LogEntry> find(Predicate<LogEntry> filter, Predicate<Bucket> zone, long start,
+      long end, int limit, QueryContext context) {
+    List<LogEntry> result = new ArrayList<>();
+    if (limit == 0) {
+      return result;
+    }
+    long scanned = 0;
+    try {
+      for (Bucket bucket : overlapping(start, end).values()) {
+        if (!zone.test(bucket)) {
+          context.segmentPruned();
+          continue;
+        }
+        Chunk chunk = bucket.chunk;
+        for (int i = 0, size = chunk.size; i < size; i++) {
+          if (++scanned % DEADLINE_CHECK_INTERVAL == 0 && isStopped(context)) {
+            context.truncate();
+            return result;
+          }
+          LogEntry entry = chunk.entries[i];
+          if (filter.test(entry)) {
+            result.add(entry);
+            if (limit > 0 && result.size() >= limit) {
+              return result;
+            }
+          }
+        }
+        context.segmentScanned();
+      }
+      return result;
+    } finally {
+      context.entriesScanned(scanned);
+    }
+  }
+
+  private static boolean isStopped(QueryContext context) {
+    return context.isExpired() || context.isCancelled();
+  }
+
+  /**
+   * Count the logEntries matching the criteria grouped by the given field. Buckets lying entirely
+   * inside the criteria time range are counted from their counters whenever the criteria doesn't
+   * filter on anything but the grouped field; only the remaining buckets that may hold a match are
+   * scanned.
+   *
+   * @param criteria
+   * @param field - one of logLevel, originService, labels or created
+   * @param interval - histogram bucket size in milliseconds when grouping by created
+   * @return counts keyed by field value, in ascending key order
+   */
+  public Map<String, Long> count(MatchCriteria criteria, MDC_ENUM_CONSTANTS field,
+      long interval) {
+    NavigableMap<Object, Long> counts = new TreeMap<>();
+    boolean countable = isCountable(criteria, field);
+    for (Bucket bucket : overlapping(criteria.getStart(), criteria.getEnd()).values()) {
+      if (countable && covers(criteria, bucket)
+          && bucket.countInto(counts, criteria, field, interval)) {
+        continue;
+      }
+      if (!bucket.mayMatch(criteria)) {
+        continue;
+      }
+      Chunk chunk = bucket.chunk;
+      for (int i = 0, size = chunk.size; i < size; i++) {
+        LogEntry entry = chunk.entries[i];
+        if (LogEntryMatcher.matches(entry, criteria)) {
+          countEntry(counts, entry, field, interval);
+        }
+      }
+    }
+    Map<String, Long> result = new LinkedHashMap<>();
+    for (Map.Entry<Object, Long> entry : counts.entrySet()) {
+      result.put(String.valueOf(entry.getKey()), entry.getValue());
+    }
+    return result;
+  }
+
+  /**
+   * Count a logEntry into counts keyed by its value of the field, for as many logEntries sent as
+   * it stands for
+   */
+  static void countEntry(Map<Object, Long> counts, LogEntry entry,
+      MDC_ENUM_CONSTANTS field, long interval) {
+    long occurrences = occurrences(entry);
+    switch (field) {
+      case LOGLEVEL:
+        counts.merge(String.valueOf(entry.getLogLevel()), occurrences, Long::sum);
+        break;
+      case ORIGINSERVICE:
+        counts.merge(String.valueOf(entry.getOriginService()), occurrences, Long::sum);
+        break;
+      case LABELS:
+        if (null != entry.getLabels()) {
+          for (String label : entry.getLabels()) {
+            counts.merge(String.valueOf(label), occurrences, Long::sum);
+          }
+        }
+        break;
+      case CREATED:
+        counts.merge(Math.floorDiv(entry.getCreated(), interval) * interval, occurrences,
+            Long::sum);
+        break;
+      default:
+        throw new IllegalArgumentException("logEntries can't be counted by " + field.getValue());
+    }
+  }
+
+  /**
+   * @param entry
+   * @return number of logEntries sent the stored logEntry stands for: its repeatCount when it
+   *         coalesces repeats, its weight, rounded, when it was sampled
+   */
+  static long occurrences(LogEntry entry) {
+    if (entry instanceof RepeatedLogEntry) {
+      return Math.max(1L, ((RepeatedLogEntry) entry).getRepeatCount());
+    }
+    return Math.max(1L, Math.round(SampledLogEntry.weight(entry)));
+  }
+
+  /**
+   * The counters of a bucket can answer for the criteria only when it filters on nothing else than
+   * time and the grouped field itself (labels excepted, as one entry counts for each of its
+   * labels), the counters of the values left out by that filter then being skipped by countInto.
+   */
+  private static boolean isCountable(MatchCriteria criteria, MDC_ENUM_CONSTANTS field) {
+    boolean levels = isEmpty(criteria.getLogLevels());
+    boolean services = isEmpty(criteria.getOriginServices());
+    boolean others = isEmpty(criteria.getLabels()) && isEmpty(criteria.getMessageKeywords());
+    switch (field) {
+      case LOGLEVEL:
+        return services && others;
+      case ORIGINSERVICE:
+        return levels && others;
+      default:
+        return levels && services && others;
+    }
+  }
+
+  private static boolean isEmpty(Object[] values) {
+    return null == values || values.length == 0;
+  }
+
+  private boolean covers(MatchCriteria criteria, Bucket bucket) {
+    // the time range is exclusive at both ends
+    return (0L == criteria.getStart() || bucket.start > criteria.getStart())
+        && (0L == criteria.getEnd() || bucket.start + bucketSize <= criteria.getEnd());
+  }
+
+  ConcurrentNavigableMap<Long, Bucket> overlapping(long start, long end) {
+    if (0L == start && 0L == end) {
+      return buckets;
+    }
+    long from = bucketKey(start - maxRepeatSpan.get());
+    if (0L == end) {
+      return buckets.tailMap(from, true);
+    }
+    if (0L == start) {
+      return buckets.headMap(bucketKey(end), true);
+    }
+    if (end < start) {
+      return new ConcurrentSkipListMap<>();
+    }
+    return buckets.subMap(from, true, bucketKey(end), true);
+  }
+
+  long bucketKey(long created) {
+    return Math.floorDiv(created, bucketSize) * bucketSize;
+  }
+
+  /**
+   * Immutable-prefix view of a bucket: the first size elements never change once published. Growing
+   * or removing from a bucket publishes a new chunk instead of modifying the elements of this one.
+   */
+  static final class Chunk {
+    final LogEntry[] entries;
+    volatile int size;
+
+    Chunk(LogEntry[] entries, int size) {
+      this.entries = entries;
+      this.size = size;
+    }
+  }
+
+  final class Bucket {
+    final long start;
+    volatile Chunk chunk = new Chunk(new LogEntry[INITIAL_BUCKET_CAPACITY], 0);
+    private final AtomicLongArray levelCounts = new AtomicLongArray(Level.values().length);
+    private final Map<String, LongAdder> serviceCounts = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> labelCounts = new ConcurrentHashMap<>();
+    // the counters above and this total count the logEntries sent, see occurrences
+    private final LongAdder total = new LongAdder();
+    private boolean retired;
+
+    Bucket(long start) {
+      this.start = start;
+    }
+
+    synchronized boolean add(LogEntry entry) {
+      if (retired) {
+        return false;
+      }
+      Chunk current = chunk;
+      if (current.size == current.entries.length) {
+        LogEntry[] grown = new LogEntry[current.entries.length * 2];
+        System.arraycopy(current.entries, 0, grown, 0, current.size);
+        current = new Chunk(grown, current.size);
+        chunk = current;
+      }
+      // counted before being published, so a reader never prunes a bucket holding a visible match
+      updateCounters(entry, 1);
+      current.entries[current.size] = entry;
+      // the volatile write publishes the element to lock-free readers
+      current.size = current.size + 1;
+      return true;
+    }
+
+    synchronized int removeAll(Set<LogEntry> targets) {
+      return removeIf(targets::contains);
+    }
+
+    synchronized int removeIf(Predicate<LogEntry> filter) {
+      Chunk current = chunk;
+      LogEntry[] kept = new LogEntry[Math.max(current.entries.length, INITIAL_BUCKET_CAPACITY)];
+      int size = 0;
+      for (int i = 0; i < current.size; i++) {
+        LogEntry entry = current.entries[i];
+        if (filter.test(entry)) {
+          updateCounters(entry, -1);
+        } else {
+          kept[size++] = entry;
+        }
+      }
+      int removed = current.size - size;
+      if (removed > 0) {
+        chunk = new Chunk(kept, size);
+      }
+      return removed;
+    }
+
+    synchronized boolean retireIfEmpty() {
+      retired = chunk.size == 0;
+      return retired;
+    }
+
+    int size() {
+      return chunk.size;
+    }
+
+    /**
+     * Add this bucket's counters into counts, only for the logLevels or originServices the criteria
+     * filters on when grouping by that same field
+     *
+     * @return false if the counters can't answer for the field, i.e. when the histogram interval
+     *         would split this bucket
+     */
+    boolean countInto(Map<Object, Long> counts, MatchCriteria criteria, MDC_ENUM_CONSTANTS field,
+        long interval) {
+      switch (field) {
+        case LOGLEVEL:
+          for (Level level : Level.values()) {
+            long count = levelCounts.get(level.ordinal());
+            if (count > 0 && LogEntryMatcher.containSource(level, criteria.getLogLevels())) {
+              counts.merge(level.name(), count, Long::sum);
+            }
+          }
+          return true;
+        case ORIGINSERVICE:
+          mergeCounters(counts, serviceCounts, criteria.getOriginServices());
+          return true;
+        case LABELS:
+          // never filtered on labels, see isCountable
+          mergeCounters(counts, labelCounts, null);
+          return true;
+        case CREATED:
+          if (interval % bucketSize != 0) {
+            return false;
+          }
+          long count = total.sum();
+          if (count > 0) {
+            counts.merge(Math.floorDiv(start, interval) * interval, count, Long::sum);
+          }
+          return true;
+        default:
+          return false;
+      }
+    }
+
+    /**
+     * Zone map check: tell from the counters alone whether the bucket may hold an entry matching
+     * the logLevels, originServices and labels of the criteria. The counters are exact, so a false
+     * is definite; message keywords and time are left to the entry by entry scan.
+     */
+    boolean mayMatch(MatchCriteria criteria) {
+      if (!isEmpty(criteria.getLogLevels())) {
+        boolean any = false;
+        for (Level level : criteria.getLogLevels()) {
+          if (null != level && levelCounts.get(level.ordinal()) > 0) {
+            any = true;
+            break;
+          }
+        }
+        if (!any) {
+          return false;
+        }
+      }
+      return isCounted(serviceCounts, criteria.getOriginServices())
+          && isCounted(labelCounts, criteria.getLabels());
+    }
+
+    private boolean isCounted(Map<String, LongAdder> counters, String[] values) {
+      if (isEmpty(values)) {
+        return true;
+      }
+      for (String value : values) {
+        LongAdder counter = counters.get(String.valueOf(value));
+        if (null != counter && counter.sum() > 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private void mergeCounters(Map<Object, Long> counts, Map<String, LongAdder> counters,
+        String[] values) {
+      for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+        long count = counter.getValue().sum();
+        if (count > 0 && LogEntryMatcher.containSource(counter.getKey(), values)) {
+          counts.merge(counter.getKey(), count, Long::sum);
+        }
+      }
+    }
+
+    private void updateCounters(LogEntry entry, int delta) {
+      long count = delta * occurrences(entry);
+      if (null != entry.getLogLevel()) {
+        levelCounts.addAndGet(entry.getLogLevel().ordinal(), count);
+      }
+      serviceCounts.computeIfAbsent(String.valueOf(entry.getOriginService()), k -> new LongAdder())
+          .add(count);
+      total.add(count);
+      // usage accounts for the logEntries stored, not the ones they stand for
+      usage.add(entry, delta);
+      if (null != entry.getLabels()) {
+        for (String label : entry.getLabels()) {
+          labelCounts.computeIfAbsent(String.valueOf(label), k -> new LongAdder()).add(count);
+        }
+      }
+    }
+  }
+
+}
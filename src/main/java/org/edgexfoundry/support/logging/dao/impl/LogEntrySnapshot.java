@@ -0,0 +1,367 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.logging.dao.PersistedMessage;
+import org.edgexfoundry.support.logging.template.LogTemplate;
+import org.edgexfoundry.support.logging.template.TemplateMiner;
+import org.slf4j.event.Level;
+
+/**
+ * Binary checkpoint of the cached logEntries along with the position of the active log file it
+ * covers. Restoring it and replaying only the log lines after that position rebuilds the cache
+ * without parsing the whole file.
+ *
+ * The file holds a header (magic, version, log position, log fingerprint, entry count), the
+ * dictionary of message templates, the entries in index order and a CRC32 of everything before it.
+ * Strings are length-prefixed UTF-8 with -1 for null. OriginServices and labels repeat a lot, so
+ * they are symbols: written once, inline where first used, and referred to by their number
+ * afterwards. Messages are mostly a few format strings filled in, so they are written as the number
+ * of their template followed by the tokens in place of its wildcards, each prefixed by a one byte
+ * length. The templates are mined over all the entries before any is written, so they no longer
+ * change. The file is written to a temporary file then atomically moved into place, and read
+ * memory-mapped.
+ */
+class LogEntrySnapshot {
+
+  private static final int MAGIC = 0x45584C53;
+  private static final int VERSION = 2;
+  private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4;
+  private static final int CRC_SIZE = 8;
+  private static final int NULL_SYMBOL = -1;
+  private static final int NEW_SYMBOL = -2;
+  // one byte length prefix of a template parameter, followed by an int length when longer
+  private static final int LONG_PARAM = 0xFF;
+  private static final byte[] SPACE = {' '};
+  private static final String TMP_EXT = ".tmp";
+  // number of log bytes before the position covered by the fingerprint
+  static final int FINGERPRINT_WINDOW = 4096;
+
+  private final long position;
+  private final long fingerprint;
+  private final List<LogEntry> entries;
+
+  LogEntrySnapshot(long position, long fingerprint, List<LogEntry> entries) {
+    this.position = position;
+    this.fingerprint = fingerprint;
+    this.entries = entries;
+  }
+
+  /**
+   * @return number of bytes of the active log file whose logEntries are in the snapshot
+   */
+  long getPosition() {
+    return position;
+  }
+
+  /**
+   * @return fingerprint of the active log file bytes right before the position, see fingerprint
+   */
+  long getFingerprint() {
+    return fingerprint;
+  }
+
+  List<LogEntry> getEntries() {
+    return entries;
+  }
+
+  /**
+   * Compute the CRC32 of the FINGERPRINT_WINDOW bytes of a log file before a position, to tell
+   * whether the file a snapshot was taken from has since been rolled over or rewritten
+   *
+   * @param log
+   * @param position
+   * @return fingerprint of the file at the position
+   * @throws IOException if the file is shorter than the position or can't be read
+   */
+  static long fingerprint(File log, long position) throws IOException {
+    int length = (int) Math.min(FINGERPRINT_WINDOW, position);
+    byte[] window = new byte[length];
+    try (RandomAccessFile file = new RandomAccessFile(log, "r")) {
+      file.seek(position - length);
+      file.readFully(window);
+    }
+    CRC32 crc = new CRC32();
+    crc.update(window);
+    return crc.getValue();
+  }
+
+  void write(File target) throws IOException {
+    File tmp = new File(target.getPath() + TMP_EXT);
+    try (FileOutputStream file = new FileOutputStream(tmp)) {
+      CheckedOutputStream checked =
+          new CheckedOutputStream(new BufferedOutputStream(file), new CRC32());
+      DataOutputStream out = new DataOutputStream(checked);
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(position);
+      out.writeLong(fingerprint);
+      out.writeInt(entries.size());
+      TemplateMiner miner = new TemplateMiner();
+      LogTemplate[] templates = new LogTemplate[entries.size()];
+      for (int i = 0; i < templates.length; i++) {
+        templates[i] = miner.learn(PersistedMessage.encode(entries.get(i)));
+      }
+      List<LogTemplate> dictionary = miner.getTemplates();
+      out.writeInt(dictionary.size());
+      for (LogTemplate template : dictionary) {
+        writeString(out, template.getTemplate());
+      }
+      Map<String, Integer> symbols = new HashMap<>();
+      for (int i = 0; i < templates.length; i++) {
+        LogEntry entry = entries.get(i);
+        out.writeLong(entry.getCreated());
+        out.writeByte(null == entry.getLogLevel() ? -1 : entry.getLogLevel().ordinal());
+        writeSymbol(out, entry.getOriginService(), symbols);
+        String[] labels = entry.getLabels();
+        out.writeInt(null == labels ? -1 : labels.length);
+        if (null != labels) {
+          for (String label : labels) {
+            writeSymbol(out, label, symbols);
+          }
+        }
+        writeMessage(out, PersistedMessage.encode(entry), templates[i]);
+      }
+      out.flush();
+      out.writeLong(checked.getChecksum().getValue());
+      out.flush();
+      file.getFD().sync();
+    }
+    Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static void writeSymbol(DataOutputStream out, String value, Map<String, Integer> symbols)
+      throws IOException {
+    if (null == value) {
+      out.writeInt(NULL_SYMBOL);
+      return;
+    }
+    Integer symbol = symbols.get(value);
+    if (null == symbol) {
+      symbols.put(value, symbols.size());
+      out.writeInt(NEW_SYMBOL);
+      writeString(out, value);
+    } else {
+      out.writeInt(symbol);
+    }
+  }
+
+  private static void writeMessage(DataOutputStream out, String message, LogTemplate template)
+      throws IOException {
+    if (null == message) {
+      out.writeInt(NULL_SYMBOL);
+    } else if (null == template) {
+      out.writeInt(NEW_SYMBOL);
+      writeString(out, message);
+    } else {
+      out.writeInt(template.getId());
+      for (String param : template.extract(message)) {
+        byte[] bytes = param.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < LONG_PARAM) {
+          out.writeByte(bytes.length);
+        } else {
+          out.writeByte(LONG_PARAM);
+          out.writeInt(bytes.length);
+        }
+        out.write(bytes);
+      }
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (null == value) {
+      out.writeInt(-1);
+    } else {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  /**
+   * Read a snapshot file
+   *
+   * @param source
+   * @return the snapshot
+   * @throws IOException if the file can't be read, is corrupted or of another version
+   */
+  static LogEntrySnapshot read(File source) throws IOException {
+    try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_SIZE + CRC_SIZE || size > Integer.MAX_VALUE) {
+        throw new IOException("Invalid snapshot size " + size + " of " + source);
+      }
+      // typed as ByteBuffer and Buffer so the calls link to methods Java 8 has, whatever JDK
+      // compiles them: later ones override duplicate and limit with covariant return types
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      ByteBuffer content = buffer.duplicate();
+      ((Buffer) content).limit((int) size - CRC_SIZE);
+      CRC32 crc = new CRC32();
+      crc.update(content);
+      if (crc.getValue() != buffer.getLong((int) size - CRC_SIZE)) {
+        throw new IOException("Corrupted snapshot " + source);
+      }
+      ((Buffer) buffer).limit((int) size - CRC_SIZE);
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+        throw new IOException("Unsupported snapshot " + source);
+      }
+      long position = buffer.getLong();
+      long fingerprint = buffer.getLong();
+      int count = buffer.getInt();
+      // the UTF-8 bytes of the template tokens, null for the wildcards
+      byte[][][] dictionary = new byte[buffer.getInt()][][];
+      for (int i = 0; i < dictionary.length; i++) {
+        String[] tokens = TemplateMiner.tokenize(readString(buffer));
+        dictionary[i] = new byte[tokens.length][];
+        for (int j = 0; j < tokens.length; j++) {
+          dictionary[i][j] = LogTemplate.WILDCARD.equals(tokens[j]) ? null
+              : tokens[j].getBytes(StandardCharsets.UTF_8);
+        }
+      }
+      Scratch scratch = new Scratch();
+      List<LogEntry> entries = new ArrayList<>(count);
+      List<String> symbols = new ArrayList<>();
+      Level[] levels = Level.values();
+      for (int i = 0; i < count; i++) {
+        LogEntry entry = new LogEntry();
+        entry.setCreated(buffer.getLong());
+        byte level = buffer.get();
+        entry.setLogLevel(level < 0 ? null : levels[level]);
+        entry.setOriginService(readSymbol(buffer, symbols));
+        int labelCount = buffer.getInt();
+        if (labelCount >= 0) {
+          String[] labels = new String[labelCount];
+          for (int j = 0; j < labelCount; j++) {
+            labels[j] = readSymbol(buffer, symbols);
+          }
+          entry.setLabels(labels);
+        }
+        entry.setMessage(readMessage(buffer, dictionary, scratch));
+        entries.add(PersistedMessage.decode(entry));
+      }
+      return new LogEntrySnapshot(position, fingerprint, entries);
+    } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+      throw new IOException("Truncated snapshot " + source, e);
+    }
+  }
+
+  private static String readSymbol(ByteBuffer buffer, List<String> symbols) {
+    int symbol = buffer.getInt();
+    if (NULL_SYMBOL == symbol) {
+      return null;
+    }
+    if (NEW_SYMBOL == symbol) {
+      String value = readString(buffer);
+      symbols.add(value);
+      return value;
+    }
+    return symbols.get(symbol);
+  }
+
+  private static String readMessage(ByteBuffer buffer, byte[][][] dictionary, Scratch scratch) {
+    int template = buffer.getInt();
+    if (NULL_SYMBOL == template) {
+      return null;
+    }
+    if (NEW_SYMBOL == template) {
+      return readString(buffer);
+    }
+    // rebuild the UTF-8 bytes of the message, then decode them at once
+    scratch.length = 0;
+    byte[][] tokens = dictionary[template];
+    for (int i = 0; i < tokens.length; i++) {
+      if (i > 0) {
+        scratch.append(SPACE);
+      }
+      if (null == tokens[i]) {
+        int length = buffer.get() & LONG_PARAM;
+        if (LONG_PARAM == length) {
+          length = buffer.getInt();
+        }
+        scratch.append(buffer, length);
+      } else {
+        scratch.append(tokens[i]);
+      }
+    }
+    return new String(scratch.bytes, 0, scratch.length, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Growable byte array reused to rebuild the messages
+   */
+  private static final class Scratch {
+
+    private byte[] bytes = new byte[256];
+    private int length;
+
+    void append(byte[] value) {
+      ensure(value.length);
+      System.arraycopy(value, 0, bytes, length, value.length);
+      length += value.length;
+    }
+
+    void append(ByteBuffer buffer, int count) {
+      ensure(count);
+      buffer.get(bytes, length, count);
+      length += count;
+    }
+
+    private void ensure(int count) {
+      if (length + count > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+      }
+    }
+
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+}
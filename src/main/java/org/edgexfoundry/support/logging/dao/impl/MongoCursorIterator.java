@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import java.util.concurrent.CancellationException;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.logging.dao.QueryContext;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.util.CloseableIterator;
+
+import com.mongodb.DBCursor;
+
+/**
+ * Adapts a MongoDB cursor into a CloseableIterator of LogEntry. Documents are fetched from the
+ * server in batches of the cursor's batch size and converted one at a time. The server applies the
+ * criteria, so only the matching documents are reported to the query context as scanned.
+ */
+class MongoCursorIterator implements CloseableIterator<LogEntry> {
+
+  private final DBCursor cursor;
+  private final MongoConverter converter;
+  private final QueryContext context;
+
+  MongoCursorIterator(DBCursor cursor, MongoConverter converter, QueryContext context) {
+    this.cursor = cursor;
+    this.converter = converter;
+    this.context = context;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (context.isCancelled()) {
+      close();
+      throw new CancellationException();
+    }
+    return cursor.hasNext();
+  }
+
+  @Override
+  public LogEntry next() {
+    LogEntry entry = converter.read(LogEntry.class, cursor.next());
+    context.entryScanned();
+    return entry;
+  }
+
+  @Override
+  public void close() {
+    cursor.close();
+  }
+
+}
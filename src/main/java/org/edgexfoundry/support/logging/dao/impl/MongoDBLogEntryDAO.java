@@ -19,28 +19,62 @@
 package org.edgexfoundry.support.logging.dao.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.regex.Pattern;
 
 import org.edgexfoundry.support.domain.logging.LogEntry;
 import org.edgexfoundry.support.domain.logging.MatchCriteria;
 import org.edgexfoundry.support.logging.dao.MDC_ENUM_CONSTANTS;
+import org.edgexfoundry.support.logging.dao.QueryContext;
+import org.edgexfoundry.support.logging.dao.RepeatedLogEntry;
+import org.edgexfoundry.support.logging.dao.RetentionPolicy;
+import org.edgexfoundry.support.logging.dao.SampledLogEntry;
+import org.edgexfoundry.support.logging.dao.ServiceUsage;
+import org.edgexfoundry.support.logging.jfr.DeleteTrace;
+import org.edgexfoundry.support.logging.jfr.FlightRecorderEvents;
+import org.edgexfoundry.support.logging.jfr.IngestTrace;
+import org.edgexfoundry.support.logging.jfr.QueryTrace;
+import org.edgexfoundry.support.logging.query.CompiledQuery;
+import org.edgexfoundry.support.logging.query.LogQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.event.Level;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.SerializationUtils;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.stereotype.Component;
 
-@Component("serviceDAO")
-@ConditionalOnProperty(name = {"logging.persistence"}, havingValue = "mongodb")
+import com.mongodb.BasicDBObject;
+import com.mongodb.CommandResult;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoExecutionTimeoutException;
+
+@Component("mongodbDAO")
+@ConditionalOnPersistence(MongoDBLogEntryDAO.STORE)
 public class MongoDBLogEntryDAO extends BaseLogEntryDAO {
 
   private static final Logger logger = LoggerFactory.getLogger(MongoDBLogEntryDAO.class);
+  private static final String COUNT = "count";
+  private static final String ID = "_id";
+  static final String STORE = "mongodb";
+  private static final String INDEX = "server";
+  private static final String COLL_STATS = "collStats";
+  private static final String SIZE = "size";
   
   public MongoDBLogEntryDAO() {
     logger.info("Logging is using Mongo to persist log messages.");
@@ -49,6 +83,24 @@ public class MongoDBLogEntryDAO extends BaseLogEntryDAO {
   @Autowired
   private MongoTemplate mongoTemplate;
 
+  @Value("${logging.export.batchsize:500}")
+  private int exportBatchSize = 500;
+
+  @Value("${logging.dedup.enabled:false}")
+  private boolean dedupEnabled = false;
+
+  @Value("${logging.dedup.window:1000}")
+  private long dedupWindow = 1000L;
+
+  // set when the file store runs alongside as a backend of the composite store, which then writes
+  // the logEntries through the logger for both
+  @Autowired(required = false)
+  private FileLogEntryDAO fileDAO;
+
+  private final ServiceUsage usage = new ServiceUsage();
+  // false until the usage is counted from the collection, and again after retention ran
+  private volatile boolean usageCounted;
+
   /*
    * (non-Javadoc)
    * 
@@ -57,28 +109,91 @@ public class MongoDBLogEntryDAO extends BaseLogEntryDAO {
    */
   @Override
   public boolean save(LogEntry entry) {
+    IngestTrace trace = FlightRecorderEvents.ingest();
+    trace.begin();
     boolean result = super.save(entry);
     if (result) {// only save the logEntry into MongoDB when it's loggable
-      mongoTemplate.insert(entry);
+      // coalesced repeats share the collection of the logEntries they stand for
+      mongoTemplate.insert(entry, mongoTemplate.getCollectionName(LogEntry.class));
+      usage.add(entry, 1);
     }
+    trace.commit(STORE, entry, result);
     return result;
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.edgexfoundry.support.logging.dao.LogEntryDAO#saveAll(java.util.List)
+   */
+  @Override
+  public int saveAll(List<LogEntry> entries) {
+    List<LogEntry> loggable = new ArrayList<>(entries.size());
+    for (LogEntry entry : entries) {
+      if (super.save(entry)) {
+        loggable.add(entry);
+      }
+    }
+    if (!loggable.isEmpty()) {
+      // one round trip for the whole batch
+      mongoTemplate.insert(loggable, mongoTemplate.getCollectionName(LogEntry.class));
+      for (LogEntry entry : loggable) {
+        usage.add(entry, 1);
+      }
+    }
+    return loggable.size();
+  }
+
+  @Override
+  protected boolean isEchoed() {
+    return null == fileDAO;
+  }
+
   /*
    * (non-Javadoc)
    * 
    * @see org.edgexfoundry.support.logging.dao.LogEntryDAO#findByCriteria(org.
-   * edgexfoundry.support.domain.logging.MatchCriteria, int)
+   * edgexfoundry.support.domain.logging.MatchCriteria, int,
+   * org.edgexfoundry.support.logging.dao.QueryContext)
    */
   @Override
-  public List<LogEntry> findByCriteria(MatchCriteria criteria, int limit) {
+  public List<LogEntry> findByCriteria(MatchCriteria criteria, int limit, QueryContext context) {
     Query query = new Query();
     query.limit(limit);
     Criteria mongoCriteria = toCriteria(criteria);
     if (null != mongoCriteria) {
       query.addCriteria(mongoCriteria);
     }
-    return mongoTemplate.find(query, LogEntry.class);
+    QueryTrace trace = FlightRecorderEvents.query();
+    trace.begin();
+    List<LogEntry> result = find(query, context);
+    trace.commit(STORE, INDEX, criteria, 0L, 0L, result.size(), false);
+    return result;
+  }
+
+  /**
+   * Run a find bounded by the deadline of the query context, which MongoDB enforces through
+   * maxTimeMS. MongoDB returns no partial results when the time runs out, so the query fails.
+   * 
+   * @param query
+   * @param context
+   * @return the logEntries found
+   * @throws QueryTimeoutException if MongoDB ran out of time
+   */
+  private List<LogEntry> find(Query query, QueryContext context) {
+    if (context.hasDeadline()) {
+      query.maxTimeMsec(context.getRemaining());
+    }
+    try {
+      return mongoTemplate.find(query, LogEntry.class);
+    } catch (RuntimeException e) {
+      for (Throwable cause = e; null != cause; cause = cause.getCause()) {
+        if (cause instanceof MongoExecutionTimeoutException) {
+          throw new QueryTimeoutException("MongoDB query exceeded its deadline", e);
+        }
+      }
+      throw e;
+    }
   }
 
   /**
@@ -101,8 +216,7 @@ public class MongoDBLogEntryDAO extends BaseLogEntryDAO {
     // only create Criteria when incoming MatchCriteria is not null and one
     // of start and end must be larger than zero
     if (null != criteria && (criteria.getStart() > 0 || criteria.getEnd() > 0)) {
-      result = new Criteria().andOperator(
-          Criteria.where(MDC_ENUM_CONSTANTS.CREATED.getValue()).gt(criteria.getStart()),
+      result = new Criteria().andOperator(createdAfter(criteria.getStart()),
           Criteria.where(MDC_ENUM_CONSTANTS.CREATED.getValue()).lt(criteria.getEnd()));
       Level[] targetLevels = criteria.getLogLevels();
       if (null != targetLevels && targetLevels.length > 0) {
@@ -129,6 +243,146 @@ public class MongoDBLogEntryDAO extends BaseLogEntryDAO {
     return result;
   }
   
+  /**
+   * Convert MatchCriteria into MongoDB criteria the way the file store matches it: each field set
+   * and each non-zero bound of the time range filters on its own, so criteria without a time range
+   * still filter on the other fields and a range open at one end stays open. Message keywords
+   * match literally, as they do in the file store.
+   *
+   * @param criteria
+   * @return MongoDB criteria, null when the criteria matches every logEntry
+   */
+  private Criteria toFilter(MatchCriteria criteria) {
+    if (null == criteria) {
+      return null;
+    }
+    List<Criteria> filters = new ArrayList<>();
+    if (0L != criteria.getStart()) {
+      filters.add(createdAfter(criteria.getStart()));
+    }
+    if (0L != criteria.getEnd()) {
+      filters.add(Criteria.where(MDC_ENUM_CONSTANTS.CREATED.getValue()).lt(criteria.getEnd()));
+    }
+    if (null != criteria.getLogLevels() && criteria.getLogLevels().length > 0) {
+      filters.add(Criteria.where(MDC_ENUM_CONSTANTS.LOGLEVEL.getValue())
+          .in((Object[]) criteria.getLogLevels()));
+    }
+    if (null != criteria.getOriginServices() && criteria.getOriginServices().length > 0) {
+      filters.add(Criteria.where(MDC_ENUM_CONSTANTS.ORIGINSERVICE.getValue())
+          .in((Object[]) criteria.getOriginServices()));
+    }
+    if (null != criteria.getLabels() && criteria.getLabels().length > 0) {
+      filters.add(Criteria.where(MDC_ENUM_CONSTANTS.LABELS.getValue())
+          .in((Object[]) criteria.getLabels()));
+    }
+    String[] keywords = criteria.getMessageKeywords();
+    if (null != keywords && keywords.length > 0) {
+      Criteria[] any = new Criteria[keywords.length];
+      for (int i = 0; i < keywords.length; i++) {
+        any[i] = Criteria.where(MDC_ENUM_CONSTANTS.MESSAGE.getValue())
+            .regex(escapeRegex(keywords[i]));
+      }
+      filters.add(new Criteria().orOperator(any));
+    }
+    if (filters.isEmpty()) {
+      return null;
+    }
+    return filters.size() == 1 ? filters.get(0)
+        : new Criteria().andOperator(filters.toArray(new Criteria[0]));
+  }
+
+  /**
+   * Translate a compiled search query into native MongoDB criteria, keeping its clause order. AND,
+   * OR and NOT map to \$and, \$or and \$nor; PREFIX and CONTAINS map to escaped regular expressions, so
+   * a prefix stays anchored and can use an index on the field.
+   * 
+   * @param query
+   * @return MongoDB Query Criteria
+   */
+  private Criteria toCriteria(LogQuery query) {
+    switch (query.getOp()) {
+      case AND:
+        return new Criteria().andOperator(toCriteria(query.getClauses()));
+      case OR:
+        return new Criteria().orOperator(toCriteria(query.getClauses()));
+      case NOT:
+        return new Criteria().norOperator(toCriteria(query.getClauses()));
+      case RANGE:
+        Criteria range = Criteria.where(query.getField());
+        if (0L == query.getFrom() && 0L == query.getTo()) {
+          return range.exists(true);
+        }
+        if (0L != query.getFrom()) {
+          if (MDC_ENUM_CONSTANTS.CREATED.getValue().equals(query.getField())
+              && isCoalescing()) {
+            return 0L != query.getTo()
+                ? new Criteria().andOperator(createdAfter(query.getFrom()), range.lt(query.getTo()))
+                : createdAfter(query.getFrom());
+          }
+          range = range.gt(query.getFrom());
+        }
+        return 0L != query.getTo() ? range.lt(query.getTo()) : range;
+      case EQ:
+        return Criteria.where(query.getField()).is(toValue(query.getField(), query.getValue()));
+      case IN:
+        Object[] values = new Object[query.getValues().length];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = toValue(query.getField(), query.getValues()[i]);
+        }
+        return Criteria.where(query.getField()).in(values);
+      case PREFIX:
+        return Criteria.where(query.getField()).regex("^" + escapeRegex(query.getValue()));
+      case CONTAINS:
+        return Criteria.where(query.getField()).regex(escapeRegex(query.getValue()));
+      case REGEX:
+        return Criteria.where(query.getField()).regex(query.getValue());
+      default:
+        throw new IllegalArgumentException("unsupported operator " + query.getOp());
+    }
+  }
+
+  /**
+   * Match the logEntries created after a time, and the coalesced repeats whose last repeat is. A
+   * coalesced entry spans less than the dedup window, so the created index still bounds the scan.
+   */
+  private Criteria createdAfter(long start) {
+    String created = MDC_ENUM_CONSTANTS.CREATED.getValue();
+    if (!isCoalescing() || 0L == start) {
+      return Criteria.where(created).gt(start);
+    }
+    return new Criteria().andOperator(Criteria.where(created).gt(start - dedupWindow),
+        new Criteria().orOperator(Criteria.where(created).gt(start),
+            Criteria.where(RepeatedLogEntry.LAST_CREATED).gt(start)));
+  }
+
+  private boolean isCoalescing() {
+    return dedupEnabled && dedupWindow > 0;
+  }
+
+  private Criteria[] toCriteria(List<LogQuery> clauses) {
+    Criteria[] result = new Criteria[clauses.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = toCriteria(clauses.get(i));
+    }
+    return result;
+  }
+
+  private Object toValue(String field, String value) {
+    // logLevel is mapped from the enum, so compare against the enum rather than its name
+    return MDC_ENUM_CONSTANTS.LOGLEVEL.getValue().equals(field) ? Level.valueOf(value) : value;
+  }
+
+  private static String escapeRegex(String value) {
+    StringBuilder result = new StringBuilder(value.length());
+    for (char c : value.toCharArray()) {
+      if ("\\^$.|?*+()[]{}".indexOf(c) >= 0) {
+        result.append('\\');
+      }
+      result.append(c);
+    }
+    return result.toString();
+  }
+
   private Criteria addStringArrayCriteria(Criteria result, String[] targets, String key) {
     if (null != targets && targets.length > 0) {
       return result.and(key).in((Object[]) targets);
@@ -136,6 +390,27 @@ public class MongoDBLogEntryDAO extends BaseLogEntryDAO {
     return result;
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.edgexfoundry.support.logging.dao.LogEntryDAO#findByQuery(org.edgexfoundry.support.
+   * logging.query.CompiledQuery, int, org.edgexfoundry.support.logging.dao.QueryContext)
+   */
+  @Override
+  public List<LogEntry> findByQuery(CompiledQuery query, int limit, QueryContext context) {
+    Query mongoQuery = new Query(toCriteria(query.getQuery()));
+    if (limit > 0) {
+      mongoQuery.limit(limit);
+    }
+    logger.debug("mongoDB search criteria:{}",
+        SerializationUtils.serializeToJsonSafely(mongoQuery.getQueryObject()));
+    QueryTrace trace = FlightRecorderEvents.query();
+    trace.begin();
+    List<LogEntry> result = find(mongoQuery, context);
+    trace.commit(STORE, INDEX, query, 0L, result.size(), false);
+    return result;
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -149,7 +424,190 @@ public class MongoDBLogEntryDAO extends BaseLogEntryDAO {
     if (null != mongoCriteria) {
       query.addCriteria(mongoCriteria);
     }
-    return mongoTemplate.findAllAndRemove(query, LogEntry.class);
+    DeleteTrace trace = FlightRecorderEvents.delete();
+    trace.begin();
+    List<LogEntry> removed = mongoTemplate.findAllAndRemove(query, LogEntry.class);
+    for (LogEntry entry : removed) {
+      usage.add(entry, -1);
+    }
+    trace.commit(STORE, removed.size(), 0L);
+    return removed;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.edgexfoundry.support.logging.dao.LogEntryDAO#streamByCriteria(org.
+   * edgexfoundry.support.domain.logging.MatchCriteria,
+   * org.edgexfoundry.support.logging.dao.QueryContext)
+   */
+  @Override
+  public CloseableIterator<LogEntry> streamByCriteria(MatchCriteria criteria,
+      QueryContext context) {
+    Query query = new Query();
+    Criteria mongoCriteria = toFilter(criteria);
+    if (null != mongoCriteria) {
+      query.addCriteria(mongoCriteria);
+    }
+    // MongoTemplate.stream() doesn't allow tuning the cursor batch size, so map the query the same
+    // way MongoTemplate does and open the cursor on the collection directly
+    MongoConverter converter = mongoTemplate.getConverter();
+    DBObject mappedQuery = new QueryMapper(converter).getMappedObject(query.getQueryObject(),
+        converter.getMappingContext().getPersistentEntity(LogEntry.class));
+    DBCursor cursor = mongoTemplate.getCollection(mongoTemplate.getCollectionName(LogEntry.class))
+        .find(mappedQuery).batchSize(exportBatchSize);
+    return new MongoCursorIterator(cursor, converter, context);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.edgexfoundry.support.logging.dao.LogEntryDAO#countByCriteria(org.
+   * edgexfoundry.support.domain.logging.MatchCriteria,
+   * org.edgexfoundry.support.logging.dao.MDC_ENUM_CONSTANTS, long)
+   */
+  @Override
+  public Map<String, Long> countByCriteria(MatchCriteria criteria, MDC_ENUM_CONSTANTS field,
+      long interval) {
+    return count(criteria, field, interval, true);
+  }
+
+  /**
+   * Count the matching logEntries in one aggregation: the documents themselves, or the logEntries
+   * sent they stand for, coalesced repeats counting for their repeatCount and a sampled logEntry
+   * for its weight
+   */
+  private Map<String, Long> count(MatchCriteria criteria, MDC_ENUM_CONSTANTS field, long interval,
+      boolean weighted) {
+    List<AggregationOperation> operations = new ArrayList<>();
+    Criteria mongoCriteria = toFilter(criteria);
+    if (null != mongoCriteria) {
+      operations.add(Aggregation.match(mongoCriteria));
+    }
+    String value = "$" + field.getValue();
+    switch (field) {
+      case LOGLEVEL:
+      case ORIGINSERVICE:
+        operations.add(group(value, weighted));
+        break;
+      case LABELS:
+        // one logEntry counts once for each of its labels
+        operations.add(Aggregation.unwind(field.getValue()));
+        operations.add(group(value, weighted));
+        break;
+      case CREATED:
+        operations.add(group(new BasicDBObject("$subtract",
+            Arrays.asList(value, new BasicDBObject("$mod", Arrays.asList(value, interval)))),
+            weighted));
+        break;
+      default:
+        throw new IllegalArgumentException("logEntries can't be counted by " + field.getValue());
+    }
+    // the typed aggregation context can't resolve the _id the groups above output
+    operations.add(context -> new BasicDBObject("$sort", new BasicDBObject(ID, 1)));
+    Map<String, Long> result = new LinkedHashMap<>();
+    for (DBObject group : mongoTemplate
+        .aggregate(Aggregation.newAggregation(operations), LogEntry.class, DBObject.class)) {
+      result.put(String.valueOf(group.get(ID)),
+          Math.round(((Number) group.get(COUNT)).doubleValue()));
+    }
+    return result;
+  }
+
+  /**
+   * Group on a key expression, summing the weight of the logEntries when weighted, where coalesced
+   * repeats weigh their repeatCount, a sampled logEntry its sampleWeight and any other 1, or
+   * counting the documents otherwise
+   */
+  private static AggregationOperation group(Object key, boolean weighted) {
+    Object weight = weighted ? new BasicDBObject("$ifNull",
+        Arrays.asList("$" + RepeatedLogEntry.REPEAT_COUNT, new BasicDBObject("$ifNull",
+            Arrays.asList("$" + SampledLogEntry.SAMPLE_WEIGHT, 1)))) : 1;
+    DBObject group = new BasicDBObject(ID, key).append(COUNT, new BasicDBObject("$sum", weight));
+    return context -> new BasicDBObject("$group", group);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * org.edgexfoundry.support.logging.dao.LogEntryDAO#enforceRetention(org.edgexfoundry.support.
+   * logging.dao.RetentionPolicy, long)
+   */
+  @Override
+  public Map<String, Long> enforceRetention(RetentionPolicy policy, long now) {
+    String created = MDC_ENUM_CONSTANTS.CREATED.getValue();
+    long sizeBefore = getDataSize();
+    long removed = 0L;
+    // one range removal per distinct maximum age, covering every level sharing it
+    Map<Long, List<Level>> tiers = new TreeMap<>();
+    for (Level level : Level.values()) {
+      long maxAge = policy.getMaxAge(level);
+      if (maxAge > 0) {
+        tiers.computeIfAbsent(maxAge, age -> new ArrayList<>()).add(level);
+      }
+    }
+    for (Map.Entry<Long, List<Level>> tier : tiers.entrySet()) {
+      Criteria criteria = Criteria.where(created).lt(now - tier.getKey());
+      if (tier.getValue().size() < Level.values().length) {
+        criteria = criteria.and(MDC_ENUM_CONSTANTS.LOGLEVEL.getValue()).in(tier.getValue());
+      }
+      removed += mongoTemplate.remove(new Query(criteria), LogEntry.class).getN();
+    }
+    long size = getDataSize();
+    if (policy.getMaxBytes() > 0 && size > policy.getMaxBytes()) {
+      // remove the oldest logEntries taking the excess bytes, by their average size
+      long count = mongoTemplate.count(new Query(), LogEntry.class);
+      if (count > 0) {
+        long excess = (long) Math.ceil((size - policy.getMaxBytes()) / ((double) size / count));
+        Query oldest = new Query().with(new Sort(Sort.Direction.ASC, created));
+        oldest.skip((int) Math.min(excess, Integer.MAX_VALUE)).limit(1);
+        LogEntry first = mongoTemplate.findOne(oldest, LogEntry.class);
+        Query quota =
+            null == first ? new Query() : new Query(Criteria.where(created).lt(first.getCreated()));
+        removed += mongoTemplate.remove(quota, LogEntry.class).getN();
+      }
+    }
+    // range removals don't tell which originServices they dropped
+    usageCounted = false;
+    Map<String, Long> stats = new LinkedHashMap<>();
+    stats.put("entries", removed);
+    stats.put("reclaimed.bytes", Math.max(0L, sizeBefore - getDataSize()));
+    return stats;
+  }
+
+  /**
+   * Usage counted from the collection on first use and after every retention run, by the number
+   * of documents of each originService and their average size, then kept up to date by saves and
+   * removals
+   */
+  @Override
+  protected ServiceUsage getServiceUsage() {
+    if (!usageCounted) {
+      synchronized (usage) {
+        if (!usageCounted) {
+          Map<String, Long> counts = count(new MatchCriteria(),
+              MDC_ENUM_CONSTANTS.ORIGINSERVICE, 0L, false);
+          long total = 0L;
+          for (long count : counts.values()) {
+            total += count;
+          }
+          usage.reset(counts, 0L == total ? 0L : getDataSize() / total);
+          usageCounted = true;
+        }
+      }
+    }
+    return usage;
+  }
+
+  /**
+   * @return size in bytes of the logEntry documents, excluding indexes and preallocated storage
+   */
+  private long getDataSize() {
+    CommandResult result = mongoTemplate.executeCommand(
+        new BasicDBObject(COLL_STATS, mongoTemplate.getCollectionName(LogEntry.class)));
+    Object size = null == result ? null : result.get(SIZE);
+    return size instanceof Number ? ((Number) size).longValue() : 0L;
   }
 
 }
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import java.util.Map;
+
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * See ConditionalOnPersistence
+ */
+class OnPersistenceCondition implements Condition {
+
+  @Override
+  public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+    Map<String, Object> attributes =
+        metadata.getAnnotationAttributes(ConditionalOnPersistence.class.getName());
+    String store = (String) attributes.get("value");
+    Environment environment = context.getEnvironment();
+    String persistence = environment.getProperty(CompositeLogEntryDAO.PERSISTENCE);
+    if (store.equals(persistence)) {
+      return true;
+    }
+    if (TieredLogEntryDAO.TIERED.equals(persistence)) {
+      // the file store holds the hot and warm tiers
+      return FileLogEntryDAO.STORE.equals(store)
+          || store.equals(environment.getProperty(TieredLogEntryDAO.COLD));
+    }
+    if (!CompositeLogEntryDAO.COMPOSITE.equals(persistence)) {
+      return false;
+    }
+    for (String backend : CompositeLogEntryDAO.backends(environment)) {
+      if (store.equals(backend)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.dao.RepeatedLogEntry;
+import org.edgexfoundry.support.logging.dao.RetentionPolicy;
+import org.slf4j.event.Level;
+
+/**
+ * Summary of an archived log file segment, to tell without reading it whether any of its entries
+ * may match a criteria and when all of them have outlived the retention policy: the zone map of
+ * created times, a bitmask and the newest created time of the logLevels present, and Bloom filters
+ * over the originServices, the labels and the character trigrams of the messages. Message keywords
+ * match anywhere in a message, so a segment can only hold a match for a keyword if it holds every
+ * trigram of the keyword; keywords shorter than a trigram never rule a segment out.
+ *
+ * A footer is filled entry by entry while the segment is read, then sealed, after which it is
+ * immutable. It identifies the segment by file identity, length and modification time, as rolls
+ * rename archived segments but never change their contents.
+ */
+class SegmentFooter {
+
+  static final int GRAM = 3;
+  private static final double FALSE_POSITIVES = 0.01;
+  // most distinct originServices or labels expected in one segment
+  private static final int MAX_VALUES = 1 << 14;
+  // most distinct trigrams expected in one segment, whatever its size
+  private static final int MAX_GRAMS = 1 << 20;
+
+  final Object key;
+  final long length;
+  final long modified;
+  // Long.MIN_VALUE for levels without any entry
+  private final long[] newest = new long[Level.values().length];
+  private final BloomFilter services;
+  private final BloomFilter labels;
+  private final BloomFilter grams;
+  private long oldestCreated = Long.MAX_VALUE;
+  private long newestCreated = Long.MIN_VALUE;
+  private int levels;
+  private long entries;
+
+  SegmentFooter(Object key, File file) {
+    this.key = key;
+    this.length = file.length();
+    this.modified = file.lastModified();
+    Arrays.fill(newest, Long.MIN_VALUE);
+    services = new BloomFilter(MAX_VALUES, FALSE_POSITIVES);
+    labels = new BloomFilter(MAX_VALUES, FALSE_POSITIVES);
+    grams = new BloomFilter((int) Math.min(MAX_GRAMS, Math.max(1L, length)), FALSE_POSITIVES);
+  }
+
+  /**
+   * Create the footer of a segment to be filled while it is read
+   *
+   * @param file
+   * @return empty footer
+   * @throws IOException if the file identity can't be read
+   */
+  static SegmentFooter of(File file) throws IOException {
+    return new SegmentFooter(fileKey(file), file);
+  }
+
+  /**
+   * @param file
+   * @return identity of the file that survives renames, or its path if the file system has none
+   * @throws IOException
+   */
+  static Object fileKey(File file) throws IOException {
+    Object key = Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+    return null == key ? file.getAbsolutePath() : key;
+  }
+
+  void add(LogEntry entry) {
+    entries++;
+    oldestCreated = Math.min(oldestCreated, entry.getCreated());
+    newestCreated = Math.max(newestCreated, RepeatedLogEntry.lastCreated(entry));
+    if (null != entry.getLogLevel()) {
+      int level = entry.getLogLevel().ordinal();
+      levels |= 1 << level;
+      newest[level] = Math.max(newest[level], entry.getCreated());
+    }
+    if (null != entry.getOriginService()) {
+      services.add(entry.getOriginService());
+    }
+    if (null != entry.getLabels()) {
+      for (String label : entry.getLabels()) {
+        if (null != label) {
+          labels.add(label);
+        }
+      }
+    }
+    String message = entry.getMessage();
+    if (null != message) {
+      for (int i = 0; i + GRAM <= message.length(); i++) {
+        grams.add(message, i, i + GRAM);
+      }
+    }
+  }
+
+  /**
+   * Shrink the Bloom filters to what the entries added need, once all of them are
+   */
+  void seal() {
+    services.compact(FALSE_POSITIVES);
+    labels.compact(FALSE_POSITIVES);
+    grams.compact(FALSE_POSITIVES);
+  }
+
+  /**
+   * @param file
+   * @return true if the footer still describes the file
+   * @throws IOException
+   */
+  boolean isSame(File file) throws IOException {
+    return Objects.equals(key, fileKey(file)) && length == file.length()
+        && modified == file.lastModified();
+  }
+
+  /**
+   * Check the criteria against the footer
+   *
+   * @param criteria
+   * @return false if no entry of the segment can match the criteria; true if some may
+   */
+  boolean mayMatch(MatchCriteria criteria) {
+    if (0L == entries) {
+      return false;
+    }
+    // the time range is exclusive at both ends
+    if (0L != criteria.getStart() && newestCreated <= criteria.getStart()
+        || 0L != criteria.getEnd() && oldestCreated >= criteria.getEnd()) {
+      return false;
+    }
+    return mayContainLevel(criteria.getLogLevels())
+        && mayContainAny(services, criteria.getOriginServices())
+        && mayContainAny(labels, criteria.getLabels())
+        && mayContainKeyword(criteria.getMessageKeywords());
+  }
+
+  private boolean mayContainLevel(Level[] targets) {
+    if (null == targets || targets.length == 0) {
+      return true;
+    }
+    for (Level level : targets) {
+      if (null != level && 0 != (levels & 1 << level.ordinal())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean mayContainAny(BloomFilter filter, String[] targets) {
+    if (null == targets || targets.length == 0) {
+      return true;
+    }
+    for (String target : targets) {
+      if (null != target && filter.mightContain(target)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean mayContainKeyword(String[] keywords) {
+    if (null == keywords || keywords.length == 0) {
+      return true;
+    }
+    for (String keyword : keywords) {
+      if (null == keyword || keyword.length() < GRAM || mayContainGrams(keyword)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean mayContainGrams(String keyword) {
+    for (int i = 0; i + GRAM <= keyword.length(); i++) {
+      if (!grams.mightContain(keyword, i, i + GRAM)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return created time of the newest entry, or the modification time of an empty segment
+   */
+  long getNewest() {
+    long result = Long.MIN_VALUE;
+    for (long created : newest) {
+      result = Math.max(result, created);
+    }
+    return Long.MIN_VALUE == result ? modified : result;
+  }
+
+  /**
+   * @param policy
+   * @param now
+   * @return true if every entry of the segment has outlived the maximum age of its logLevel
+   */
+  boolean isExpired(RetentionPolicy policy, long now) {
+    boolean empty = true;
+    for (Level level : Level.values()) {
+      long created = newest[level.ordinal()];
+      if (Long.MIN_VALUE != created) {
+        empty = false;
+        if (!policy.isExpired(level, created, now)) {
+          return false;
+        }
+      }
+    }
+    return !empty || policy.isExpired(null, modified, now);
+  }
+
+  /**
+   * @return memory held by the Bloom filters in bytes
+   */
+  int size() {
+    return services.size() + labels.size() + grams.size();
+  }
+
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.springframework.data.util.CloseableIterator;
+
+/**
+ * Chains the iterators of the tiers a query spans, from the oldest tier to the newest one. Each
+ * iterator is only opened once the previous one is exhausted and closed, so a caller that stops
+ * early never touches the newer tiers.
+ */
+class TieredIterator implements CloseableIterator<LogEntry> {
+
+  private final Deque<Supplier<CloseableIterator<LogEntry>>> tiers;
+  private CloseableIterator<LogEntry> current;
+
+  TieredIterator(List<Supplier<CloseableIterator<LogEntry>>> tiers) {
+    this.tiers = new ArrayDeque<>(tiers);
+  }
+
+  /**
+   * @param entries
+   * @return an iterator over logEntries already in memory, with nothing to release on close
+   */
+  static CloseableIterator<LogEntry> of(List<LogEntry> entries) {
+    Iterator<LogEntry> iterator = entries.iterator();
+    return new CloseableIterator<LogEntry>() {
+
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public LogEntry next() {
+        return iterator.next();
+      }
+
+      @Override
+      public void close() {}
+
+    };
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (null == current || !current.hasNext()) {
+      closeCurrent();
+      if (tiers.isEmpty()) {
+        return false;
+      }
+      current = tiers.poll().get();
+    }
+    return true;
+  }
+
+  @Override
+  public LogEntry next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return current.next();
+  }
+
+  @Override
+  public void close() {
+    tiers.clear();
+    closeCurrent();
+  }
+
+  private void closeCurrent() {
+    if (null != current) {
+      current.close();
+      current = null;
+    }
+  }
+
+}
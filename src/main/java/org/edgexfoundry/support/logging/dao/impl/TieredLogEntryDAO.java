@@ -0,0 +1,497 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.dao.LogEntryDAO;
+import org.edgexfoundry.support.logging.dao.MDC_ENUM_CONSTANTS;
+import org.edgexfoundry.support.logging.dao.QueryContext;
+import org.edgexfoundry.support.logging.dao.RetentionPolicy;
+import org.edgexfoundry.support.logging.dao.ServiceQuota;
+import org.edgexfoundry.support.logging.query.CompiledQuery;
+import org.edgexfoundry.support.logging.query.LogQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Store keeping the logEntries in tiers by age. The hot tier is the in-memory cache of the file
+ * store, holding the logEntries created within logging.persistence.hot.age; older ones are evicted
+ * from it and only remain in the log file segments, the warm tier. With logging.persistence.cold
+ * set to mongodb, every logEntry is also queued to MongoDB, the cold tier, and the log files only
+ * keep logging.persistence.warm.age worth of logEntries.
+ *
+ * A query is split by time range into one slice per tier it overlaps, queried from the oldest tier
+ * to the newest one until the limit is reached. Slices don't overlap, so the results merge in
+ * created order and a query over the last minutes never leaves memory.
+ */
+@Component("serviceDAO")
+@Primary
+@ConditionalOnProperty(name = CompositeLogEntryDAO.PERSISTENCE,
+    havingValue = TieredLogEntryDAO.TIERED)
+public class TieredLogEntryDAO implements LogEntryDAO {
+
+  private static final Logger logger = LoggerFactory.getLogger(TieredLogEntryDAO.class);
+
+  static final String TIERED = "tiered";
+  static final String COLD = "logging.persistence.cold";
+
+  static final String HOT = "hot";
+  static final String WARM = "warm";
+  static final String COLD_TIER = "cold";
+  static final String QUERIES = "queries";
+
+  // reading the clock for every entry would cost more than matching most of them
+  private static final int DEADLINE_CHECK_INTERVAL = 256;
+
+  @Autowired
+  private FileLogEntryDAO fileDAO;
+
+  // the cold tier, when logging.persistence.cold is mongodb
+  @Autowired(required = false)
+  private MongoDBLogEntryDAO mongodbDAO;
+
+  @Value("${logging.persistence.hot.age:300000}")
+  private long hotAge;
+
+  @Value("${logging.persistence.warm.age:0}")
+  private long warmAge;
+
+  @Value("${logging.persistence.queue:10000}")
+  private int queueCapacity;
+
+  @Value("${logging.persistence.batchsize:500}")
+  private int batchSize;
+
+  @Value("${logging.persistence.drain.timeout:10000}")
+  private long drainTimeout;
+
+  @Value("${logging.persistence.operation.timeout:5000}")
+  private long operationTimeout;
+
+  private BackendWriter coldWriter;
+  // logEntries created before are only queried from the cold tier
+  private volatile long warmFloor = Long.MIN_VALUE;
+  // logEntries the cold writer dropped or failed when the log files were last aged
+  private long coldLost;
+
+  private final Map<String, LongAdder> queries = new LinkedHashMap<>();
+
+  public TieredLogEntryDAO() {
+    queries.put(HOT, new LongAdder());
+    queries.put(WARM, new LongAdder());
+    queries.put(COLD_TIER, new LongAdder());
+  }
+
+  @PostConstruct
+  private void init() {
+    if (hotAge <= 0) {
+      throw new IllegalStateException("logging.persistence.hot.age must be positive");
+    }
+    if (null != mongodbDAO) {
+      if (warmAge > 0 && warmAge < hotAge) {
+        throw new IllegalStateException(
+            "logging.persistence.warm.age can't be shorter than logging.persistence.hot.age");
+      }
+      coldWriter = new BackendWriter(MongoDBLogEntryDAO.STORE, mongodbDAO, queueCapacity,
+          batchSize);
+      coldWriter.start();
+      if (warmAge > 0) {
+        warmFloor = System.currentTimeMillis() - warmAge;
+      }
+    }
+    logger.info("Keeping {}ms of logEntries in memory, then in files{}", hotAge,
+        null == coldWriter ? "" : " and MongoDB");
+  }
+
+  @PreDestroy
+  private void destroy() {
+    if (null != coldWriter) {
+      coldWriter.stop(drainTimeout);
+    }
+  }
+
+  /**
+   * Evict the logEntries older than logging.persistence.hot.age from memory and, with a cold tier,
+   * delete the log file segments older than logging.persistence.warm.age. Segments are kept while
+   * the cold tier drops or fails logEntries, as they might be the only copy.
+   */
+  @Scheduled(initialDelayString = "${logging.persistence.tier.interval:10000}",
+      fixedDelayString = "${logging.persistence.tier.interval:10000}")
+  public void age() {
+    age(System.currentTimeMillis());
+  }
+
+  void age(long now) {
+    fileDAO.evictCache(now - hotAge);
+    if (null == coldWriter || warmAge <= 0) {
+      return;
+    }
+    Map<String, Long> stats = coldWriter.getStats();
+    long lost = stats.get(BackendWriter.DROPPED) + stats.get(BackendWriter.FAILED);
+    if (lost != coldLost) {
+      coldLost = lost;
+      logger.warn("Keeping the log files as {} logEntries never reached MongoDB", lost);
+      return;
+    }
+    RetentionPolicy policy = new RetentionPolicy();
+    policy.setMaxAge(warmAge);
+    fileDAO.enforceRetention(policy, now);
+    warmFloor = now - warmAge;
+  }
+
+  @Override
+  public boolean save(LogEntry entry) {
+    boolean saved = fileDAO.save(entry);
+    if (null != coldWriter) {
+      coldWriter.offer(entry);
+    }
+    return saved;
+  }
+
+  @Override
+  public List<LogEntry> findByCriteria(MatchCriteria criteria, int limit, QueryContext context) {
+    if (null == criteria) {
+      return new ArrayList<>();
+    }
+    return find(criteria.getStart(), criteria.getEnd(), limit, context, (slice, remaining) -> {
+      MatchCriteria sub = slice.restrict(criteria);
+      switch (slice.tier) {
+        case HOT:
+          return fileDAO.findByCriteria(sub, remaining, context);
+        case WARM:
+          return collect(fileDAO.streamByCriteria(sub, context), entry -> true, remaining,
+              context);
+        default:
+          return mongodbDAO.findByCriteria(sub, remaining, context);
+      }
+    });
+  }
+
+  @Override
+  public List<LogEntry> removeByCriteria(MatchCriteria criteria) {
+    List<LogEntry> removed = new ArrayList<>();
+    if (null == criteria) {
+      return removed;
+    }
+    List<Slice> slices = plan(criteria.getStart(), criteria.getEnd());
+    if (null != coldWriter) {
+      // the other tiers hold copies of the newer ones, which their removal returns
+      for (Slice slice : slices) {
+        if (COLD_TIER.equals(slice.tier)) {
+          removed.addAll(mongodbDAO.findByCriteria(slice.restrict(criteria), -1));
+        }
+      }
+      // queued first, so the removal fails as a whole when the cold tier can't take it
+      queueCold("removal", backend -> backend.removeByCriteria(criteria));
+    }
+    for (Slice slice : slices) {
+      switch (slice.tier) {
+        case HOT:
+          removed.addAll(fileDAO.removeByCriteria(slice.restrict(criteria)));
+          break;
+        case WARM:
+          // evicted from the cache, so only found by scanning the log files
+          removed.addAll(fileDAO.removeFromSegments(slice.restrict(criteria)));
+          break;
+        default:
+          break;
+      }
+    }
+    return removed;
+  }
+
+  @Override
+  public List<LogEntry> findByQuery(CompiledQuery query, int limit, QueryContext context) {
+    if (null == query) {
+      return new ArrayList<>();
+    }
+    return find(query.getStart(), query.getEnd(), limit, context, (slice, remaining) -> {
+      switch (slice.tier) {
+        case HOT:
+          return fileDAO.findByQuery(slice.restrict(query), remaining, context);
+        case WARM:
+          return collect(fileDAO.streamByCriteria(slice.restrict(new MatchCriteria()), context),
+              query, remaining, context);
+        default:
+          return mongodbDAO.findByQuery(slice.restrict(query), remaining, context);
+      }
+    });
+  }
+
+  @Override
+  public CloseableIterator<LogEntry> streamByCriteria(MatchCriteria criteria,
+      QueryContext context) {
+    List<Supplier<CloseableIterator<LogEntry>>> tiers = new ArrayList<>();
+    if (null != criteria) {
+      for (Slice slice : plan(criteria.getStart(), criteria.getEnd())) {
+        MatchCriteria sub = slice.restrict(criteria);
+        tiers.add(() -> {
+          queries.get(slice.tier).increment();
+          switch (slice.tier) {
+            case HOT:
+              return TieredIterator.of(fileDAO.findByCriteria(sub, -1, context));
+            case WARM:
+              return fileDAO.streamByCriteria(sub, context);
+            default:
+              return mongodbDAO.streamByCriteria(sub, context);
+          }
+        });
+      }
+    }
+    return new TieredIterator(tiers);
+  }
+
+  @Override
+  public Map<String, Long> countByCriteria(MatchCriteria criteria, MDC_ENUM_CONSTANTS field,
+      long interval) {
+    if (null == criteria) {
+      return new LinkedHashMap<>();
+    }
+    NavigableMap<Object, Long> counts = new TreeMap<>();
+    for (Slice slice : plan(criteria.getStart(), criteria.getEnd())) {
+      MatchCriteria sub = slice.restrict(criteria);
+      queries.get(slice.tier).increment();
+      switch (slice.tier) {
+        case HOT:
+          merge(counts, fileDAO.countByCriteria(sub, field, interval), field);
+          break;
+        case WARM:
+          try (CloseableIterator<LogEntry> entries =
+              fileDAO.streamByCriteria(sub, new QueryContext())) {
+            while (entries.hasNext()) {
+              LogEntryIndex.countEntry(counts, entries.next(), field, interval);
+            }
+          }
+          break;
+        default:
+          merge(counts, mongodbDAO.countByCriteria(sub, field, interval), field);
+      }
+    }
+    Map<String, Long> result = new LinkedHashMap<>();
+    for (Map.Entry<Object, Long> entry : counts.entrySet()) {
+      result.put(String.valueOf(entry.getKey()), entry.getValue());
+    }
+    return result;
+  }
+
+  @Override
+  public Map<String, Long> enforceRetention(RetentionPolicy policy, long now) {
+    Map<String, Long> dropped = fileDAO.enforceRetention(policy, now);
+    if (null != coldWriter) {
+      queueCold("retention run", backend -> backend.enforceRetention(policy, now));
+    }
+    return dropped;
+  }
+
+  /**
+   * @throws TransientDataAccessResourceException if the queue of the cold tier had no room for the
+   *         operation within logging.persistence.operation.timeout
+   */
+  private void queueCold(String name, Consumer<LogEntryDAO> operation) {
+    if (!coldWriter.offer(operation, operationTimeout)) {
+      throw new TransientDataAccessResourceException(
+          "The " + name + " could not be queued for the cold tier, its queue is full");
+    }
+  }
+
+  @Override
+  public Map<String, Long> getWarmUpStats() {
+    return fileDAO.getWarmUpStats();
+  }
+
+  @Override
+  public void setQuota(ServiceQuota quota) {
+    fileDAO.setQuota(quota);
+    if (null != mongodbDAO) {
+      mongodbDAO.setQuota(quota);
+    }
+  }
+
+  /**
+   * Usage of the cold tier when there is one, as it holds every logEntry; the file store only
+   * counts the logEntries still in memory
+   */
+  @Override
+  public long getUsedBytes(String originService) {
+    return null == mongodbDAO ? fileDAO.getUsedBytes(originService)
+        : mongodbDAO.getUsedBytes(originService);
+  }
+
+  @Override
+  public Map<String, Map<String, Long>> getUsage() {
+    return null == mongodbDAO ? fileDAO.getUsage() : mongodbDAO.getUsage();
+  }
+
+  @Override
+  public Map<String, Map<String, Long>> getBackendStats() {
+    Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+    for (Map.Entry<String, LongAdder> tier : queries.entrySet()) {
+      stats.put(tier.getKey(), Collections.singletonMap(QUERIES, tier.getValue().sum()));
+    }
+    if (null != coldWriter) {
+      stats.put(MongoDBLogEntryDAO.STORE, coldWriter.getStats());
+    }
+    return stats;
+  }
+
+  /**
+   * Run a find over each tier the time range spans, oldest first, until the limit is reached or
+   * the deadline of the context is hit
+   */
+  private List<LogEntry> find(long start, long end, int limit, QueryContext context,
+      BiFunction<Slice, Integer, List<LogEntry>> tierFind) {
+    List<LogEntry> result = new ArrayList<>();
+    for (Slice slice : plan(start, end)) {
+      int remaining = limit < 0 ? -1 : limit - result.size();
+      if (0 == remaining || context.isTruncated()) {
+        break;
+      }
+      queries.get(slice.tier).increment();
+      result.addAll(tierFind.apply(slice, remaining));
+    }
+    return result;
+  }
+
+  /**
+   * Split a time range into the slices of the tiers it overlaps, from the oldest tier to the
+   * newest one. The hot tier holds every logEntry created from the floor of the file store cache
+   * on and the warm tier those created from the warm floor on.
+   *
+   * @param start - exclusive start of the time range, 0 when unbounded
+   * @param end - exclusive end of the time range, 0 when unbounded
+   * @return the slices to query
+   */
+  List<Slice> plan(long start, long end) {
+    long hotFloor = fileDAO.getCacheFloor();
+    long coldFloor = Math.min(warmFloor, hotFloor);
+    List<Slice> slices = new ArrayList<>(3);
+    if (null != coldWriter) {
+      Slice.add(slices, COLD_TIER, start, end, Long.MIN_VALUE, coldFloor);
+    }
+    Slice.add(slices, WARM, start, end, coldFloor, hotFloor);
+    Slice.add(slices, HOT, start, end, hotFloor, Long.MAX_VALUE);
+    return slices;
+  }
+
+  private static List<LogEntry> collect(CloseableIterator<LogEntry> iterator,
+      Predicate<LogEntry> filter, int limit, QueryContext context) {
+    List<LogEntry> result = new ArrayList<>();
+    long scanned = 0;
+    try (CloseableIterator<LogEntry> entries = iterator) {
+      while ((limit < 0 || result.size() < limit) && entries.hasNext()) {
+        if (++scanned % DEADLINE_CHECK_INTERVAL == 0 && context.isExpired()) {
+          context.truncate();
+          break;
+        }
+        LogEntry entry = entries.next();
+        if (filter.test(entry)) {
+          result.add(entry);
+        }
+      }
+    }
+    return result;
+  }
+
+  private static void merge(NavigableMap<Object, Long> counts, Map<String, Long> tier,
+      MDC_ENUM_CONSTANTS field) {
+    for (Map.Entry<String, Long> count : tier.entrySet()) {
+      // time buckets sort by their start rather than alphabetically
+      Object key = MDC_ENUM_CONSTANTS.CREATED == field ? Long.valueOf(count.getKey())
+          : count.getKey();
+      counts.merge(key, count.getValue(), Long::sum);
+    }
+  }
+
+  /**
+   * The part of a time range held by one tier, with the same exclusive bounds as MatchCriteria and
+   * 0 when unbounded
+   */
+  static final class Slice {
+
+    final String tier;
+    final long start;
+    final long end;
+
+    private Slice(String tier, long start, long end) {
+      this.tier = tier;
+      this.start = start;
+      this.end = end;
+    }
+
+    /**
+     * Add the slice of a time range the tier holding the logEntries created from its floor up to
+     * its ceiling overlaps, if any
+     */
+    static void add(List<Slice> slices, String tier, long start, long end, long floor,
+        long ceiling) {
+      long lower = 0L == start ? Long.MIN_VALUE : start;
+      if (Long.MIN_VALUE != floor) {
+        lower = Math.max(lower, floor - 1);
+      }
+      long upper = 0L == end ? Long.MAX_VALUE : end;
+      upper = Math.min(upper, ceiling);
+      if (Long.MIN_VALUE != upper && lower < upper - 1) {
+        slices.add(new Slice(tier, Long.MIN_VALUE == lower ? 0L : lower,
+            Long.MAX_VALUE == upper ? 0L : upper));
+      }
+    }
+
+    MatchCriteria restrict(MatchCriteria criteria) {
+      MatchCriteria sub = new MatchCriteria();
+      sub.setLogLevels(criteria.getLogLevels());
+      sub.setOriginServices(criteria.getOriginServices());
+      sub.setLabels(criteria.getLabels());
+      sub.setMessageKeywords(criteria.getMessageKeywords());
+      sub.setStart(start);
+      sub.setEnd(end);
+      return sub;
+    }
+
+    CompiledQuery restrict(CompiledQuery query) {
+      return CompiledQuery.compile(LogQuery.and(query.getQuery(), LogQuery.range(start, end)));
+    }
+
+  }
+
+}
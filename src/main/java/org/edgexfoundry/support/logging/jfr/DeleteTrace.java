@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.jfr;
+
+/**
+ * Times one delete and reports it as a LogDelete flight recorder event
+ */
+public interface DeleteTrace {
+
+  DeleteTrace NOOP = new DeleteTrace() {
+    @Override
+    public void begin() {
+      // not traced
+    }
+
+    @Override
+    public void commit(String store, int removed, long rewriteNanos) {
+      // not traced
+    }
+  };
+
+  void begin();
+
+  /**
+   * End the trace and report it if the recording asks for it
+   *
+   * @param store - the persistence in use
+   * @param removed - number of logEntries removed
+   * @param rewriteNanos - time spent rewriting the log file, 0 if the store has none
+   */
+  void commit(String store, int removed, long rewriteNanos);
+
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.jfr;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out the traces the DAOs report their ingest, query and delete operations with as Java
+ * Flight Recorder events. On a JVM without the jdk.jfr API, or for an event type turned off with
+ * its logging.jfr.*.enabled property, a no-op trace is handed out instead, so nothing is allocated.
+ * When enabled, an event costs next to nothing unless a recording asks for it: its fields are only
+ * filled in once the recording's enablement and threshold settings say it is to be committed.
+ */
+@Component
+public class FlightRecorderEvents {
+
+  private static final Logger logger = LoggerFactory.getLogger(FlightRecorderEvents.class);
+
+  private static final boolean AVAILABLE = isFlightRecorderAvailable();
+
+  private static volatile boolean ingestEnabled = AVAILABLE;
+  private static volatile boolean queryEnabled = AVAILABLE;
+  private static volatile boolean deleteEnabled = AVAILABLE;
+
+  @Value("${logging.jfr.ingest.enabled:true}")
+  private boolean ingest = true;
+
+  @Value("${logging.jfr.query.enabled:true}")
+  private boolean query = true;
+
+  @Value("${logging.jfr.delete.enabled:true}")
+  private boolean delete = true;
+
+  @PostConstruct
+  private void init() {
+    configure(ingest, query, delete);
+    if (AVAILABLE) {
+      logger.info("Flight recorder events enabled: ingest {}, query {}, delete {}", ingest, query,
+          delete);
+    } else {
+      logger.info("Flight recorder is not available, no events will be emitted");
+    }
+  }
+
+  public static void configure(boolean ingest, boolean query, boolean delete) {
+    ingestEnabled = AVAILABLE && ingest;
+    queryEnabled = AVAILABLE && query;
+    deleteEnabled = AVAILABLE && delete;
+  }
+
+  public static boolean isAvailable() {
+    return AVAILABLE;
+  }
+
+  public static IngestTrace ingest() {
+    return ingestEnabled ? new LogIngestEvent() : IngestTrace.NOOP;
+  }
+
+  public static QueryTrace query() {
+    return queryEnabled ? new LogQueryEvent() : QueryTrace.NOOP;
+  }
+
+  public static DeleteTrace delete() {
+    return deleteEnabled ? new LogDeleteEvent() : DeleteTrace.NOOP;
+  }
+
+  private static boolean isFlightRecorderAvailable() {
+    try {
+      Class.forName("jdk.jfr.Event", false, FlightRecorderEvents.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.jfr;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+
+/**
+ * Times the persistence of one logEntry and reports it as a LogIngest flight recorder event
+ */
+public interface IngestTrace {
+
+  IngestTrace NOOP = new IngestTrace() {
+    @Override
+    public void begin() {
+      // not traced
+    }
+
+    @Override
+    public void commit(String store, LogEntry entry, boolean saved) {
+      // not traced
+    }
+  };
+
+  void begin();
+
+  /**
+   * End the trace and report it if the recording asks for it
+   *
+   * @param store - the persistence in use
+   * @param entry - the logEntry, whose created timestamp marks its acceptance by the REST API
+   * @param saved - false if the logEntry wasn't loggable
+   */
+  void commit(String store, LogEntry entry, boolean saved);
+
+}
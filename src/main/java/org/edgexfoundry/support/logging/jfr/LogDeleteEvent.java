@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One removal of the logEntries matching a criteria
+ */
+@Name("org.edgexfoundry.logging.LogDelete")
+@Label("Log Delete")
+@Description("Removal of the logEntries matching a criteria")
+@Category({"EdgeX", "Logging"})
+@StackTrace(false)
+public class LogDeleteEvent extends Event implements DeleteTrace {
+
+  @Label("Store")
+  String store;
+
+  @Label("Entries Removed")
+  int removed;
+
+  @Label("File Rewrite Time")
+  @Description("Time spent rewriting the log file without the removed logEntries")
+  @Timespan
+  long rewriteTime;
+
+  @Override
+  public void commit(String store, int removed, long rewriteNanos) {
+    end();
+    if (shouldCommit()) {
+      this.store = store;
+      this.removed = removed;
+      this.rewriteTime = rewriteNanos;
+      commit();
+    }
+  }
+
+}
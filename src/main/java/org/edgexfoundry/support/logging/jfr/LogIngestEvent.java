@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.jfr;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Persistence of one logEntry. Disabled by default given its volume; enable it in the recording
+ * settings when needed.
+ */
+@Name("org.edgexfoundry.logging.LogIngest")
+@Label("Log Ingest")
+@Description("Persistence of logEntries posted to the REST API")
+@Category({"EdgeX", "Logging"})
+@Enabled(false)
+@StackTrace(false)
+public class LogIngestEvent extends Event implements IngestTrace {
+
+  @Label("Store")
+  String store;
+
+  @Label("Origin Service")
+  String originService;
+
+  @Label("Batch Size")
+  @Description("Number of logEntries persisted at once")
+  int batchSize;
+
+  @Label("Bytes")
+  @Description("Size of the logEntries as written to the store")
+  @DataAmount
+  long bytes;
+
+  @Label("Queue Wait")
+  @Description("Time between the acceptance of the logEntries and the start of their persistence")
+  @Timespan(Timespan.MILLISECONDS)
+  long queueWait;
+
+  @Label("Saved")
+  @Description("False when the logEntries were not loggable")
+  boolean saved;
+
+  @Override
+  public void commit(String store, LogEntry entry, boolean saved) {
+    end();
+    if (shouldCommit()) {
+      this.store = store;
+      this.originService = entry.getOriginService();
+      this.batchSize = 1;
+      this.bytes = entry.toString().length();
+      this.queueWait = Math.max(0L, System.currentTimeMillis() - entry.getCreated());
+      this.saved = saved;
+      commit();
+    }
+  }
+
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.jfr;
+
+import java.util.List;
+
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.query.CompiledQuery;
+import org.edgexfoundry.support.logging.query.LogQuery;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * One query against the store, reported when it takes longer than the threshold of the recording
+ */
+@Name("org.edgexfoundry.logging.LogQuery")
+@Label("Log Query")
+@Description("Lookup of the logEntries matching a criteria or a search query")
+@Category({"EdgeX", "Logging"})
+@Threshold("20 ms")
+@StackTrace(false)
+public class LogQueryEvent extends Event implements QueryTrace {
+
+  @Label("Store")
+  String store;
+
+  @Label("Index")
+  @Description("How the store looked the logEntries up")
+  String index;
+
+  @Label("Shape")
+  @Description("Fields the query constrains, without their values")
+  String shape;
+
+  @Label("Entries Scanned")
+  @Description("0 when the store doesn't report it")
+  long scanned;
+
+  @Label("Segments Pruned")
+  @Description("Segments or time buckets skipped because none of their entries can match")
+  long pruned;
+
+  @Label("Entries Returned")
+  int returned;
+
+  @Label("Truncated")
+  @Description("True when the query ran out of time and returned partial results")
+  boolean truncated;
+
+  @Override
+  public void commit(String store, String index, MatchCriteria criteria, long scanned,
+      long pruned, int returned, boolean truncated) {
+    end();
+    if (shouldCommit()) {
+      set(store, index, shapeOf(criteria), scanned, pruned, returned, truncated);
+    }
+  }
+
+  @Override
+  public void commit(String store, String index, CompiledQuery query, long scanned, int returned,
+      boolean truncated) {
+    end();
+    if (shouldCommit()) {
+      set(store, index, null == query ? "" : shapeOf(query.getQuery()), scanned, 0L, returned,
+          truncated);
+    }
+  }
+
+  private void set(String store, String index, String shape, long scanned, long pruned,
+      int returned, boolean truncated) {
+    this.store = store;
+    this.index = index;
+    this.shape = shape;
+    this.scanned = scanned;
+    this.pruned = pruned;
+    this.returned = returned;
+    this.truncated = truncated;
+    commit();
+  }
+
+  /**
+   * e.g. "logLevels[2] originServices[1] start end" for a criteria constraining two levels, one
+   * service and both ends of the time range
+   */
+  static String shapeOf(MatchCriteria criteria) {
+    if (null == criteria) {
+      return "";
+    }
+    StringBuilder shape = new StringBuilder();
+    appendShape(shape, "logLevels", criteria.getLogLevels());
+    appendShape(shape, "originServices", criteria.getOriginServices());
+    appendShape(shape, "labels", criteria.getLabels());
+    appendShape(shape, "messageKeywords", criteria.getMessageKeywords());
+    if (0L != criteria.getStart()) {
+      shape.append("start ");
+    }
+    if (0L != criteria.getEnd()) {
+      shape.append("end ");
+    }
+    return shape.toString().trim();
+  }
+
+  /**
+   * e.g. "AND(IN(logLevel)[2],NOT(PREFIX(originService)))" for a search query tree
+   */
+  static String shapeOf(LogQuery query) {
+    StringBuilder shape = new StringBuilder(String.valueOf(query.getOp()));
+    List<LogQuery> clauses = query.getClauses();
+    if (null != clauses && !clauses.isEmpty()) {
+      shape.append('(');
+      for (int i = 0; i < clauses.size(); i++) {
+        shape.append(i > 0 ? "," : "").append(shapeOf(clauses.get(i)));
+      }
+      shape.append(')');
+    } else if (null != query.getField()) {
+      shape.append('(').append(query.getField()).append(')');
+      if (null != query.getValues()) {
+        shape.append('[').append(query.getValues().length).append(']');
+      }
+    }
+    return shape.toString();
+  }
+
+  private static void appendShape(StringBuilder shape, String field, Object[] values) {
+    if (null != values && values.length > 0) {
+      shape.append(field).append('[').append(values.length).append("] ");
+    }
+  }
+
+}
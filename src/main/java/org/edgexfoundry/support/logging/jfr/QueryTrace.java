@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.jfr;
+
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.query.CompiledQuery;
+
+/**
+ * Times one query and reports it as a LogQuery flight recorder event
+ */
+public interface QueryTrace {
+
+  QueryTrace NOOP = new QueryTrace() {
+    @Override
+    public void begin() {
+      // not traced
+    }
+
+    @Override
+    public void commit(String store, String index, MatchCriteria criteria, long scanned,
+        long pruned, int returned, boolean truncated) {
+      // not traced
+    }
+
+    @Override
+    public void commit(String store, String index, CompiledQuery query, long scanned,
+        int returned, boolean truncated) {
+      // not traced
+    }
+  };
+
+  void begin();
+
+  /**
+   * End the trace of a criteria query and report it if the recording asks for it. The shape of
+   * the criteria is only computed when the event is reported.
+   *
+   * @param store - the persistence in use
+   * @param index - how the store looked the entries up
+   * @param criteria
+   * @param scanned - number of logEntries scanned, 0 if the store doesn't tell
+   * @param pruned - number of segments skipped without being scanned, 0 if the store doesn't tell
+   * @param returned - number of logEntries returned
+   * @param truncated - true if the query ran out of time
+   */
+  void commit(String store, String index, MatchCriteria criteria, long scanned, long pruned,
+      int returned, boolean truncated);
+
+  /**
+   * End the trace of a search query, the same way as a criteria query. Search queries are only
+   * narrowed down by time, so no segment is pruned.
+   */
+  void commit(String store, String index, CompiledQuery query, long scanned, int returned,
+      boolean truncated);
+
+}
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.metrics;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Records the latencies of one operation into an HdrHistogram with 3 significant digits. Recording
+ * is lock free; the percentiles reported are those of the last completed interval, which roll
+ * closes, while the count covers everything recorded since startup.
+ */
+public class LatencyRecorder {
+
+  private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+  private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+  private final Recorder recorder = new Recorder(3);
+  private final LongAdder count = new LongAdder();
+  private volatile Histogram last = new Histogram(3);
+
+  /**
+   * @param nanos - the latency of one operation in nanoseconds, recorded in microseconds
+   */
+  public void record(long nanos) {
+    recorder.recordValue(Math.max(0L, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    count.increment();
+  }
+
+  /**
+   * Close the current interval, making its percentiles the reported ones
+   */
+  public void roll() {
+    last = recorder.getIntervalHistogram();
+  }
+
+  /**
+   * Add the total count, then the mean, max and percentiles in microseconds of the last interval,
+   * to the metrics under the given prefix
+   *
+   * @param prefix
+   * @param metrics
+   */
+  public void report(String prefix, Map<String, Number> metrics) {
+    Histogram histogram = last;
+    metrics.put(prefix + ".count", count.sum());
+    metrics.put(prefix + ".interval.count", histogram.getTotalCount());
+    metrics.put(prefix + ".mean", Math.round(histogram.getMean()));
+    metrics.put(prefix + ".max", histogram.getMaxValue());
+    for (int i = 0; i < PERCENTILES.length; i++) {
+      metrics.put(prefix + "." + PERCENTILE_NAMES[i], histogram.getValueAtPercentile(PERCENTILES[i]));
+    }
+  }
+
+}
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.metrics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+/**
+ * Counters and latency histograms of the ingest and storage hot paths. Recording only touches
+ * LongAdders and HdrHistogram recorders, so it is cheap enough for every request. Rates and
+ * percentiles are computed over fixed intervals closed by roll, every logging.metrics.interval
+ * milliseconds.
+ *
+ * Also listens to the commands the MongoDB driver sends when persisting to MongoDB, to time their
+ * round trips.
+ */
+@Component
+public class LoggingMetrics implements CommandListener {
+
+  // bucket of the originServices seen after the max number of tracked ones is reached
+  public static final String OTHER_SERVICES = "other";
+
+  @Value("${logging.metrics.max.services:256}")
+  private int maxServices = 256;
+
+  private final LongAdder accepted = new LongAdder();
+  private final LongAdder saved = new LongAdder();
+  private final LongAdder mongoFailures = new LongAdder();
+  private final Map<String, LongAdder> savedByService = new ConcurrentHashMap<>();
+
+  private final LatencyRecorder save = new LatencyRecorder();
+  private final LatencyRecorder find = new LatencyRecorder();
+  private final LatencyRecorder remove = new LatencyRecorder();
+  private final LatencyRecorder mongo = new LatencyRecorder();
+
+  // guarded by this: totals at the start of the current interval and rates of the last one
+  private long intervalStart = System.nanoTime();
+  private long lastAccepted;
+  private long lastSaved;
+  private Map<String, Long> lastSavedByService = new HashMap<>();
+  private double acceptedRate;
+  private double savedRate;
+  private Map<String, Double> serviceRates = Collections.emptyMap();
+
+  /**
+   * A logEntry was accepted by the REST API
+   */
+  public void accepted() {
+    accepted.increment();
+  }
+
+  /**
+   * A logEntry was persisted
+   *
+   * @param originService
+   */
+  public void saved(String originService) {
+    saved.increment();
+    String service = null == originService ? OTHER_SERVICES : originService;
+    LongAdder counter = savedByService.get(service);
+    if (null == counter) {
+      counter = savedByService.size() < maxServices
+          ? savedByService.computeIfAbsent(service, key -> new LongAdder())
+          : savedByService.computeIfAbsent(OTHER_SERVICES, key -> new LongAdder());
+    }
+    counter.increment();
+  }
+
+  public void recordSave(long nanos) {
+    save.record(nanos);
+  }
+
+  public void recordFind(long nanos) {
+    find.record(nanos);
+  }
+
+  public void recordRemove(long nanos) {
+    remove.record(nanos);
+  }
+
+  @Override
+  public void commandStarted(CommandStartedEvent event) {
+    // only completions are timed
+  }
+
+  @Override
+  public void commandSucceeded(CommandSucceededEvent event) {
+    mongo.record(event.getElapsedTime(TimeUnit.NANOSECONDS));
+  }
+
+  @Override
+  public void commandFailed(CommandFailedEvent event) {
+    mongo.record(event.getElapsedTime(TimeUnit.NANOSECONDS));
+    mongoFailures.increment();
+  }
+
+  /**
+   * Close the current interval: compute the rates over it and make the percentiles of its latency
+   * histograms the reported ones
+   */
+  @Scheduled(fixedRateString = "${logging.metrics.interval:10000}")
+  public synchronized void roll() {
+    long now = System.nanoTime();
+    double seconds = Math.max(1L, now - intervalStart) / 1e9;
+    intervalStart = now;
+    long acceptedNow = accepted.sum();
+    long savedNow = saved.sum();
+    acceptedRate = (acceptedNow - lastAccepted) / seconds;
+    savedRate = (savedNow - lastSaved) / seconds;
+    lastAccepted = acceptedNow;
+    lastSaved = savedNow;
+    Map<String, Long> byService = new HashMap<>();
+    Map<String, Double> rates = new HashMap<>();
+    for (Map.Entry<String, LongAdder> entry : savedByService.entrySet()) {
+      long count = entry.getValue().sum();
+      byService.put(entry.getKey(), count);
+      rates.put(entry.getKey(),
+          (count - lastSavedByService.getOrDefault(entry.getKey(), 0L)) / seconds);
+    }
+    lastSavedByService = byService;
+    serviceRates = rates;
+    save.roll();
+    find.roll();
+    remove.roll();
+    mongo.roll();
+  }
+
+  /**
+   * @return the metrics keyed by dotted name, sorted by name; rates in logEntries per second over
+   *         the last interval, latencies in microseconds
+   */
+  public Map<String, Number> getMetrics() {
+    Map<String, Number> metrics = new TreeMap<>();
+    metrics.put("ingest.accepted", accepted.sum());
+    metrics.put("ingest.saved", saved.sum());
+    synchronized (this) {
+      metrics.put("ingest.accepted.rate", round(acceptedRate));
+      metrics.put("ingest.saved.rate", round(savedRate));
+      for (Map.Entry<String, Double> rate : serviceRates.entrySet()) {
+        metrics.put("ingest.service." + rate.getKey() + ".rate", round(rate.getValue()));
+      }
+    }
+    save.report("dao.save", metrics);
+    find.report("dao.find", metrics);
+    remove.report("dao.remove", metrics);
+    mongo.report("mongo.roundtrip", metrics);
+    metrics.put("mongo.failures", mongoFailures.sum());
+    return metrics;
+  }
+
+  private static double round(double rate) {
+    return Math.round(rate * 100.0) / 100.0;
+  }
+
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.embedded.EmbeddedServletContainerInitializedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Time of the startup phases in milliseconds since the JVM started: the application context is
+ * refreshed, the embedded servlet container listens and the application is ready to serve
+ * requests. The persisted logEntries may still be loading in the background when it is ready.
+ */
+@Component
+public class StartupTimings implements ApplicationListener<ApplicationEvent> {
+
+  private static final Logger logger = LoggerFactory.getLogger(StartupTimings.class);
+
+  public static final String CONTEXT = "context";
+  public static final String HTTP = "http";
+  public static final String READY = "ready";
+
+  // guarded by this: phases in the order they completed
+  private final Map<String, Long> phases = new LinkedHashMap<>();
+
+  @Override
+  public void onApplicationEvent(ApplicationEvent event) {
+    if (event instanceof ContextRefreshedEvent) {
+      phase(CONTEXT);
+    } else if (event instanceof EmbeddedServletContainerInitializedEvent) {
+      phase(HTTP);
+    } else if (event instanceof ApplicationReadyEvent) {
+      logger.info("Startup phases in ms since JVM start: {}", phase(READY));
+    }
+  }
+
+  /**
+   * Record the completion of a phase, only the first time it completes
+   *
+   * @param name
+   * @return the timings of the phases completed so far
+   */
+  public synchronized Map<String, Long> phase(String name) {
+    phases.putIfAbsent(name, ManagementFactory.getRuntimeMXBean().getUptime());
+    return getTimings();
+  }
+
+  /**
+   * @return the time of the completed phases in milliseconds since the JVM started
+   */
+  public synchronized Map<String, Long> getTimings() {
+    return new LinkedHashMap<>(phases);
+  }
+
+}
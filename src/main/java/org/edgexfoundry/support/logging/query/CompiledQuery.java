@@ -0,0 +1,362 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.logging.dao.LogEntryMatcher;
+import org.edgexfoundry.support.logging.dao.MDC_ENUM_CONSTANTS;
+import org.slf4j.event.Level;
+
+/**
+ * A LogQuery validated and compiled once into an in-memory predicate. The clauses of every AND and
+ * OR are reordered by estimated cost and selectivity, so an AND tries first the cheap clauses most
+ * likely to reject a logEntry and an OR the cheap clauses most likely to accept it. Regular
+ * expressions are compiled once, and the time range the query is bounded by is extracted so a
+ * store can skip the logEntries outside of it without evaluating the predicate.
+ *
+ * The estimates are static: comparing a long or an enum is cheaper than comparing strings, which
+ * is cheaper than scanning a message or running a regular expression; an equality on one value is
+ * assumed more selective than a prefix or keyword.
+ */
+public final class CompiledQuery implements Predicate<LogEntry> {
+
+  private static final double RANGE_COST = 1;
+  private static final double LEVEL_COST = 1;
+  private static final double EQUALS_COST = 2;
+  private static final double PREFIX_COST = 3;
+  private static final double CONTAINS_COST = 10;
+  private static final double REGEX_COST = 50;
+  // labels are an array, so a test may run once per label
+  private static final double LABELS_FACTOR = 3;
+
+  private static final double EQUALS_SELECTIVITY = 0.1;
+  private static final double MESSAGE_EQUALS_SELECTIVITY = 0.01;
+  private static final double PATTERN_SELECTIVITY = 0.3;
+  private static final double HALF_RANGE_SELECTIVITY = 0.5;
+  private static final double RANGE_SELECTIVITY = 0.25;
+
+  private final LogQuery query;
+  private final Predicate<LogEntry> predicate;
+  private final double cost;
+  private final double selectivity;
+  private final long start;
+  private final long end;
+
+  private CompiledQuery(LogQuery query, Predicate<LogEntry> predicate, double cost,
+      double selectivity, long start, long end) {
+    this.query = query;
+    this.predicate = predicate;
+    this.cost = cost;
+    this.selectivity = selectivity;
+    this.start = start;
+    this.end = end;
+  }
+
+  /**
+   * Validate and compile a query tree
+   *
+   * @param query
+   * @return the compiled query
+   * @throws IllegalArgumentException if the query tree is not valid
+   */
+  public static CompiledQuery compile(LogQuery query) {
+    if (null == query || null == query.getOp()) {
+      throw new IllegalArgumentException("query operator is required");
+    }
+    switch (query.getOp()) {
+      case AND:
+        return compileAnd(query, compileClauses(query));
+      case OR:
+        return compileOr(query, compileClauses(query));
+      case NOT:
+        return compileNot(query, compileClauses(query));
+      case RANGE:
+        return compileRange(query);
+      default:
+        return compileField(query);
+    }
+  }
+
+  @Override
+  public boolean test(LogEntry entry) {
+    return null != entry && predicate.test(entry);
+  }
+
+  /**
+   * @return the query tree with the clauses of AND and OR in evaluation order
+   */
+  public LogQuery getQuery() {
+    return query;
+  }
+
+  public double getCost() {
+    return cost;
+  }
+
+  public double getSelectivity() {
+    return selectivity;
+  }
+
+  /**
+   * @return created of the matching logEntries is after start, 0 when unbounded
+   */
+  public long getStart() {
+    return start;
+  }
+
+  /**
+   * @return created of the matching logEntries is before end, 0 when unbounded
+   */
+  public long getEnd() {
+    return end;
+  }
+
+  private static List<CompiledQuery> compileClauses(LogQuery query) {
+    List<LogQuery> clauses = query.getClauses();
+    if (null == clauses || clauses.isEmpty()) {
+      throw new IllegalArgumentException(query.getOp() + " requires at least one clause");
+    }
+    if (QueryOperator.NOT == query.getOp() && clauses.size() != 1) {
+      throw new IllegalArgumentException("NOT requires exactly one clause");
+    }
+    List<CompiledQuery> compiled = new ArrayList<>(clauses.size());
+    for (LogQuery clause : clauses) {
+      compiled.add(compile(clause));
+    }
+    return compiled;
+  }
+
+  private static CompiledQuery compileAnd(LogQuery query, List<CompiledQuery> clauses) {
+    // a clause rejecting most logEntries at a low cost saves evaluating the following ones
+    clauses.sort(Comparator.comparingDouble(c -> (c.selectivity - 1) / c.cost));
+    double cost = 0;
+    double selectivity = 1;
+    long start = 0L;
+    long end = 0L;
+    for (CompiledQuery clause : clauses) {
+      cost += selectivity * clause.cost;
+      selectivity *= clause.selectivity;
+      start = Math.max(start, clause.start);
+      end = 0L == end ? clause.end : 0L == clause.end ? end : Math.min(end, clause.end);
+    }
+    Predicate<LogEntry>[] predicates = predicates(clauses);
+    Predicate<LogEntry> predicate = entry -> {
+      for (Predicate<LogEntry> clause : predicates) {
+        if (!clause.test(entry)) {
+          return false;
+        }
+      }
+      return true;
+    };
+    return new CompiledQuery(rebuild(query, clauses), predicate, cost, selectivity, start, end);
+  }
+
+  private static CompiledQuery compileOr(LogQuery query, List<CompiledQuery> clauses) {
+    // a clause accepting most logEntries at a low cost saves evaluating the following ones
+    clauses.sort(Comparator.comparingDouble(c -> -c.selectivity / c.cost));
+    double cost = 0;
+    double rejected = 1;
+    long start = clauses.get(0).start;
+    long end = clauses.get(0).end;
+    for (CompiledQuery clause : clauses) {
+      cost += rejected * clause.cost;
+      rejected *= 1 - clause.selectivity;
+      start = 0L == clause.start ? 0L : Math.min(start, clause.start);
+      end = 0L == clause.end || 0L == end ? 0L : Math.max(end, clause.end);
+    }
+    Predicate<LogEntry>[] predicates = predicates(clauses);
+    Predicate<LogEntry> predicate = entry -> {
+      for (Predicate<LogEntry> clause : predicates) {
+        if (clause.test(entry)) {
+          return true;
+        }
+      }
+      return false;
+    };
+    return new CompiledQuery(rebuild(query, clauses), predicate, cost, 1 - rejected, start, end);
+  }
+
+  private static CompiledQuery compileNot(LogQuery query, List<CompiledQuery> clauses) {
+    CompiledQuery clause = clauses.get(0);
+    // the complement of a time range isn't a range, so NOT is never bounded
+    return new CompiledQuery(rebuild(query, clauses), clause.predicate.negate(), clause.cost,
+        1 - clause.selectivity, 0L, 0L);
+  }
+
+  private static CompiledQuery compileRange(LogQuery query) {
+    if (MDC_ENUM_CONSTANTS.CREATED != resolveField(query)) {
+      throw new IllegalArgumentException("RANGE only applies to created");
+    }
+    long from = query.getFrom();
+    long to = query.getTo();
+    double selectivity = 0L != from && 0L != to ? RANGE_SELECTIVITY
+        : 0L != from || 0L != to ? HALF_RANGE_SELECTIVITY : 1;
+    return new CompiledQuery(query,
+        entry -> LogEntryMatcher.matchTimestamp(entry, from, to), RANGE_COST,
+        selectivity, from, to);
+  }
+
+  private static CompiledQuery compileField(LogQuery query) {
+    MDC_ENUM_CONSTANTS field = resolveField(query);
+    if (MDC_ENUM_CONSTANTS.CREATED == field) {
+      throw new IllegalArgumentException("created only supports RANGE");
+    }
+    String[] values = operands(query);
+    Predicate<String> test;
+    double cost;
+    double selectivity;
+    switch (query.getOp()) {
+      case EQ:
+      case IN:
+        if (MDC_ENUM_CONSTANTS.LOGLEVEL == field) {
+          return compileLevels(query, values);
+        }
+        Set<String> accepted = new HashSet<>(Arrays.asList(values));
+        test = accepted::contains;
+        cost = EQUALS_COST;
+        selectivity = Math.min(1, values.length
+            * (MDC_ENUM_CONSTANTS.MESSAGE == field ? MESSAGE_EQUALS_SELECTIVITY
+                : EQUALS_SELECTIVITY));
+        break;
+      case PREFIX:
+        test = s -> s.startsWith(values[0]);
+        cost = PREFIX_COST;
+        selectivity = PATTERN_SELECTIVITY;
+        break;
+      case CONTAINS:
+        test = s -> s.contains(values[0]);
+        cost = CONTAINS_COST;
+        selectivity = PATTERN_SELECTIVITY;
+        break;
+      case REGEX:
+        Pattern pattern = compilePattern(values[0]);
+        test = s -> pattern.matcher(s).find();
+        cost = REGEX_COST;
+        selectivity = PATTERN_SELECTIVITY;
+        break;
+      default:
+        throw new IllegalArgumentException("unsupported operator " + query.getOp());
+    }
+    return new CompiledQuery(query, fieldPredicate(field, test),
+        MDC_ENUM_CONSTANTS.LABELS == field ? cost * LABELS_FACTOR : cost, selectivity, 0L, 0L);
+  }
+
+  private static CompiledQuery compileLevels(LogQuery query, String[] values) {
+    Set<Level> levels = EnumSet.noneOf(Level.class);
+    for (String value : values) {
+      try {
+        levels.add(Level.valueOf(value));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("unknown logLevel " + value, e);
+      }
+    }
+    return new CompiledQuery(query, entry -> levels.contains(entry.getLogLevel()), LEVEL_COST,
+        (double) levels.size() / Level.values().length, 0L, 0L);
+  }
+
+  private static Predicate<LogEntry> fieldPredicate(MDC_ENUM_CONSTANTS field,
+      Predicate<String> test) {
+    switch (field) {
+      case ORIGINSERVICE:
+        return entry -> null != entry.getOriginService() && test.test(entry.getOriginService());
+      case MESSAGE:
+        return entry -> null != entry.getMessage() && test.test(entry.getMessage());
+      case LOGLEVEL:
+        return entry -> null != entry.getLogLevel() && test.test(entry.getLogLevel().name());
+      case LABELS:
+        return entry -> {
+          if (null != entry.getLabels()) {
+            for (String label : entry.getLabels()) {
+              if (null != label && test.test(label)) {
+                return true;
+              }
+            }
+          }
+          return false;
+        };
+      default:
+        throw new IllegalArgumentException("unsupported field " + field.getValue());
+    }
+  }
+
+  private static MDC_ENUM_CONSTANTS resolveField(LogQuery query) {
+    for (MDC_ENUM_CONSTANTS field : MDC_ENUM_CONSTANTS.values()) {
+      if (field.getValue().equals(query.getField())) {
+        return field;
+      }
+    }
+    throw new IllegalArgumentException(
+        "unknown field " + query.getField() + " for " + query.getOp());
+  }
+
+  private static String[] operands(LogQuery query) {
+    String[] values = QueryOperator.IN == query.getOp() ? query.getValues()
+        : null == query.getValue() ? null : new String[] {query.getValue()};
+    if (null == values || values.length == 0) {
+      throw new IllegalArgumentException(query.getOp() + " on " + query.getField()
+          + (QueryOperator.IN == query.getOp() ? " requires values" : " requires a value"));
+    }
+    for (String value : values) {
+      if (null == value) {
+        throw new IllegalArgumentException(query.getOp() + " doesn't accept null values");
+      }
+    }
+    return values;
+  }
+
+  private static Pattern compilePattern(String regex) {
+    try {
+      return Pattern.compile(regex);
+    } catch (PatternSyntaxException e) {
+      throw new IllegalArgumentException("invalid regular expression " + regex, e);
+    }
+  }
+
+  // no generic array creation in Java, hence the raw array
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Predicate<LogEntry>[] predicates(List<CompiledQuery> clauses) {
+    Predicate<LogEntry>[] predicates = new Predicate[clauses.size()];
+    for (int i = 0; i < predicates.length; i++) {
+      predicates[i] = clauses.get(i).predicate;
+    }
+    return predicates;
+  }
+
+  private static LogQuery rebuild(LogQuery query, List<CompiledQuery> clauses) {
+    LogQuery result = new LogQuery();
+    result.setOp(query.getOp());
+    List<LogQuery> ordered = new ArrayList<>(clauses.size());
+    for (CompiledQuery clause : clauses) {
+      ordered.add(clause.query);
+    }
+    result.setClauses(ordered);
+    return result;
+  }
+
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One node of a logEntry search query tree, e.g.
+ * 
+ * { "op" : "AND", "clauses" : [ { "op" : "IN", "field" : "logLevel", "values" : [ "WARN", "ERROR"
+ * ] }, { "op" : "NOT", "clauses" : [ { "op" : "PREFIX", "field" : "originService", "value" :
+ * "device-" } ] }, { "op" : "RANGE", "field" : "created", "from" : 1476952483377 } ] }
+ * 
+ * AND, OR and NOT combine the clauses; every other operator tests the field of the logEntry, one of
+ * created, originService, logLevel, labels or message.
+ */
+@JsonInclude(JsonInclude.Include.NON_DEFAULT)
+public class LogQuery {
+
+  private QueryOperator op;
+  private String field;
+  private String value;
+  private String[] values;
+  private long from;
+  private long to;
+  private List<LogQuery> clauses;
+
+  public LogQuery() {}
+
+  public LogQuery(QueryOperator op, String field, String value) {
+    this.op = op;
+    this.field = field;
+    this.value = value;
+  }
+
+  public static LogQuery and(LogQuery... clauses) {
+    return combine(QueryOperator.AND, clauses);
+  }
+
+  public static LogQuery or(LogQuery... clauses) {
+    return combine(QueryOperator.OR, clauses);
+  }
+
+  public static LogQuery not(LogQuery clause) {
+    return combine(QueryOperator.NOT, clause);
+  }
+
+  public static LogQuery in(String field, String... values) {
+    LogQuery query = new LogQuery(QueryOperator.IN, field, null);
+    query.setValues(values);
+    return query;
+  }
+
+  public static LogQuery range(long from, long to) {
+    LogQuery query = new LogQuery(QueryOperator.RANGE, "created", null);
+    query.setFrom(from);
+    query.setTo(to);
+    return query;
+  }
+
+  private static LogQuery combine(QueryOperator op, LogQuery... clauses) {
+    LogQuery query = new LogQuery();
+    query.setOp(op);
+    query.setClauses(new ArrayList<>(Arrays.asList(clauses)));
+    return query;
+  }
+
+  public QueryOperator getOp() {
+    return op;
+  }
+
+  public void setOp(QueryOperator op) {
+    this.op = op;
+  }
+
+  public String getField() {
+    return field;
+  }
+
+  public void setField(String field) {
+    this.field = field;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  public void setValue(String value) {
+    this.value = value;
+  }
+
+  public String[] getValues() {
+    return values;
+  }
+
+  public void setValues(String[] values) {
+    this.values = values;
+  }
+
+  public long getFrom() {
+    return from;
+  }
+
+  public void setFrom(long from) {
+    this.from = from;
+  }
+
+  public long getTo() {
+    return to;
+  }
+
+  public void setTo(long to) {
+    this.to = to;
+  }
+
+  public List<LogQuery> getClauses() {
+    return clauses;
+  }
+
+  public void setClauses(List<LogQuery> clauses) {
+    this.clauses = clauses;
+  }
+
+  @Override
+  public String toString() {
+    return "LogQuery [op=" + op + ", field=" + field + ", value=" + value + ", values="
+        + Arrays.toString(values) + ", from=" + from + ", to=" + to + ", clauses=" + clauses + "]";
+  }
+
+}
@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.query;
+
+public enum QueryOperator {
+
+  /** every clause must match */
+  AND,
+  /** at least one clause must match */
+  OR,
+  /** the single clause must not match */
+  NOT,
+  /** the field equals the value; for labels, one of the labels equals the value */
+  EQ,
+  /** the field equals one of the values */
+  IN,
+  /** the field starts with the value */
+  PREFIX,
+  /** the field contains the value */
+  CONTAINS,
+  /** the regular expression in value is found in the field */
+  REGEX,
+  /** created is after from and before to, 0 leaving that end unbounded */
+  RANGE;
+
+}
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.edgexfoundry.exception.controller.LimitExceededException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * A fixed size thread pool with a bounded queue dedicated to one kind of work (ingest, query or
+ * delete), so a burst of one kind can only exhaust its own pool and never starve the others. Once
+ * every thread is busy and the queue is full, new work is handled according to the pool's
+ * rejection policy, and the rejections are counted alongside the pool's saturation.
+ */
+public class Bulkhead implements Executor {
+
+  public enum RejectionPolicy {
+    // fail the submitter with a LimitExceededException
+    ABORT,
+    // run the work on the submitter's thread, slowing it down instead of losing the work
+    CALLER_RUNS,
+    // silently drop the work
+    DISCARD
+  }
+
+  private final String name;
+  private final int queueCapacity;
+  private final RejectionPolicy policy;
+  private final ThreadPoolExecutor executor;
+  private final LongAdder rejected = new LongAdder();
+
+  public Bulkhead(String name, int threads, int queueCapacity, RejectionPolicy policy) {
+    this.name = name;
+    this.queueCapacity = queueCapacity;
+    this.policy = policy;
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(name + "-");
+    threadFactory.setDaemon(true);
+    executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), threadFactory, new CountingHandler());
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public RejectionPolicy getPolicy() {
+    return policy;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  /**
+   * @return work waiting in the queue for a thread
+   */
+  public int getQueued() {
+    return executor.getQueue().size();
+  }
+
+  /**
+   * @return work rejected by the saturated pool since startup, whatever the policy did with it
+   */
+  public long getRejected() {
+    return rejected.sum();
+  }
+
+  /**
+   * Run the work on the pool
+   *
+   * @param command
+   * @throws LimitExceededException if the pool is saturated and its policy is ABORT
+   */
+  @Override
+  public void execute(Runnable command) {
+    try {
+      executor.execute(command);
+    } catch (RejectedExecutionException e) {
+      throw new LimitExceededException(name);
+    }
+  }
+
+  /**
+   * Run the work on the pool and wait for its result. Exceptions thrown by the work are rethrown
+   * as is, so callers see the same exceptions as if they had run it themselves.
+   *
+   * @param task
+   * @return the result of the task
+   * @throws LimitExceededException if the pool is saturated and its policy is ABORT or DISCARD
+   */
+  public <T> T call(Callable<T> task) {
+    FutureTask<T> future = new FutureTask<>(task);
+    execute(future);
+    try {
+      return future.get();
+    } catch (CancellationException e) {
+      // discarded by a saturated pool
+      throw new LimitExceededException(name);
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted waiting for " + name, e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * @return pool size, active threads, queued work, queue capacity, completed work and rejected
+   *         work since startup, keyed by name
+   */
+  public Map<String, Long> getStats() {
+    Map<String, Long> stats = new LinkedHashMap<>();
+    stats.put("threads", (long) executor.getPoolSize());
+    stats.put("active", (long) executor.getActiveCount());
+    stats.put("largest", (long) executor.getLargestPoolSize());
+    stats.put("queued", (long) executor.getQueue().size());
+    stats.put("queueCapacity", (long) queueCapacity);
+    stats.put("completed", executor.getCompletedTaskCount());
+    stats.put("rejected", rejected.sum());
+    return stats;
+  }
+
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private class CountingHandler implements RejectedExecutionHandler {
+
+    @Override
+    public void rejectedExecution(Runnable r, ThreadPoolExecutor pool) {
+      if (pool.isShutdown()) {
+        throw new RejectedExecutionException(name + " is shut down");
+      }
+      rejected.increment();
+      switch (policy) {
+        case CALLER_RUNS:
+          r.run();
+          break;
+        case DISCARD:
+          // let anyone waiting on the work know it will never run
+          if (r instanceof Future) {
+            ((Future<?>) r).cancel(false);
+          }
+          break;
+        default:
+          throw new RejectedExecutionException(name + " is saturated");
+      }
+    }
+  }
+
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.edgexfoundry.exception.controller.LimitExceededException;
+import org.edgexfoundry.support.logging.service.Bulkhead.RejectionPolicy;
+import org.slf4j.event.Level;
+
+/**
+ * Level-aware scheduling of ingest work over two lanes, each its own Bulkhead. WARN and ERROR
+ * logEntries take the priority lane, whose threads and queue the other levels can never use, so a
+ * flood of DEBUG or INFO entries can't hold them up. Every other level takes the standard lane.
+ * Once the standard lane's queue is filled past the shedding threshold, TRACE and DEBUG entries
+ * are dropped rather than queued, keeping the room left for INFO ones; when the queue of a lane is
+ * full, the lane's rejection policy applies.
+ */
+public class IngestLanes {
+
+  public static final String PRIORITY = "priority";
+  public static final String STANDARD = "standard";
+
+  private final Bulkhead priority;
+  private final Bulkhead standard;
+  private final int shedDepth;
+  private final LongAdder priorityAccepted = new LongAdder();
+  private final LongAdder standardAccepted = new LongAdder();
+  private final AtomicLongArray shed = new AtomicLongArray(Level.values().length);
+
+  /**
+   * @param priority - lane of the WARN and ERROR logEntries
+   * @param standard - lane of the other logEntries
+   * @param shedThreshold - fraction of the standard lane's queue filled from which TRACE and DEBUG
+   *        logEntries are dropped; 1 or more to never drop them before the queue is full
+   */
+  public IngestLanes(Bulkhead priority, Bulkhead standard, double shedThreshold) {
+    this.priority = priority;
+    this.standard = standard;
+    this.shedDepth = shedThreshold >= 1 ? Integer.MAX_VALUE
+        : (int) Math.ceil(Math.max(0, shedThreshold) * standard.getQueueCapacity());
+  }
+
+  /**
+   * Run the ingest work of a logEntry on the lane of its level, or drop it if the standard lane is
+   * over its shedding threshold and the level is sheddable
+   *
+   * @param level - logLevel of the logEntry
+   * @param work
+   * @return false if the work was dropped for load shedding
+   * @throws LimitExceededException if the lane is saturated and its policy is ABORT
+   */
+  public boolean execute(Level level, Runnable work) {
+    if (isPriority(level)) {
+      priorityAccepted.increment();
+      priority.execute(work);
+      return true;
+    }
+    if (isSheddable(level) && standard.getQueued() >= shedDepth) {
+      shed.incrementAndGet(level.ordinal());
+      return false;
+    }
+    standardAccepted.increment();
+    standard.execute(work);
+    return true;
+  }
+
+  /**
+   * Run work already accepted for a logEntry, such as the save of a coalesced or sampled entry
+   * flushed later, on the lane of its level; it is neither counted again nor shed
+   *
+   * @param level - logLevel of the logEntry
+   * @param work
+   * @throws LimitExceededException if the lane is saturated and its policy is ABORT
+   */
+  public void dispatch(Level level, Runnable work) {
+    (isPriority(level) ? priority : standard).execute(work);
+  }
+
+  public static boolean isPriority(Level level) {
+    return Level.ERROR == level || Level.WARN == level;
+  }
+
+  public static boolean isSheddable(Level level) {
+    return Level.TRACE == level || Level.DEBUG == level;
+  }
+
+  /**
+   * @return the pools of the priority and standard lanes
+   */
+  public List<Bulkhead> getPools() {
+    return Arrays.asList(priority, standard);
+  }
+
+  /**
+   * Counters of each lane since startup: the logEntries accepted, those delayed because the lane
+   * was full and its rejection policy ran them on the caller's thread, and those dropped, either
+   * by the rejection policy or, for the standard lane, shed by level
+   *
+   * @return counters keyed by name, by lane
+   */
+  public Map<String, Map<String, Long>> getStats() {
+    Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+    stats.put(PRIORITY, laneStats(priority, priorityAccepted.sum(), 0L));
+    long dropped = 0L;
+    for (Level level : Level.values()) {
+      dropped += shed.get(level.ordinal());
+    }
+    Map<String, Long> lane = laneStats(standard, standardAccepted.sum(), dropped);
+    for (Level level : Level.values()) {
+      if (isSheddable(level)) {
+        lane.put("shed." + level.name(), shed.get(level.ordinal()));
+      }
+    }
+    stats.put(STANDARD, lane);
+    return stats;
+  }
+
+  private static Map<String, Long> laneStats(Bulkhead pool, long accepted, long shed) {
+    long rejected = pool.getRejected();
+    Map<String, Long> stats = new LinkedHashMap<>();
+    stats.put("accepted", accepted);
+    stats.put("queued", (long) pool.getQueued());
+    stats.put("delayed", RejectionPolicy.CALLER_RUNS == pool.getPolicy() ? rejected : 0L);
+    stats.put("dropped", shed + (RejectionPolicy.DISCARD == pool.getPolicy() ? rejected : 0L));
+    return stats;
+  }
+
+}
@@ -0,0 +1,262 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.logging.dao.RepeatedLogEntry;
+import org.edgexfoundry.support.logging.dao.SampledLogEntry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Samples the TRACE, DEBUG and INFO logEntries of each originService down to a target rate while
+ * ingest runs above a threshold rate. WARN and ERROR logEntries and coalesced repeats are always
+ * stored as they come, as is everything while ingest stays under the threshold.
+ *
+ * Ingest is measured over fixed windows. While sampling, the logEntries of an originService sent
+ * within a window go into a reservoir, a uniform random sample of them all however many come; the
+ * window's flush stores the reservoir, each kept entry as a SampledLogEntry weighing the number of
+ * entries seen over the number kept. The reservoir of each originService holds as many entries as
+ * its token bucket has tokens, refilled at the target rate up to a second's worth, so quiet
+ * services may keep a burst. At most maxServices originServices are sampled, further ones are
+ * stored without sampling.
+ */
+@Component
+public class LogSampler {
+
+  public static final String SAMPLING = "sampling";
+  public static final String RATE = "rate";
+  public static final String SERVICES = "services";
+  public static final String SAMPLED = "sampled";
+  public static final String KEPT = "kept";
+  public static final String DROPPED = "dropped";
+  public static final String UNTRACKED = "untracked";
+
+  @Value("${logging.sampling.enabled:false}")
+  private boolean enabled = false;
+
+  @Value("${logging.sampling.threshold:1000}")
+  private double threshold = 1000;
+
+  @Value("${logging.sampling.rate:50}")
+  private double rate = 50;
+
+  @Value("${logging.sampling.window:250}")
+  private long window = 250L;
+
+  @Value("${logging.sampling.max.services:1000}")
+  private int maxServices = 1000;
+
+  private final ConcurrentHashMap<String, Reservoir> reservoirs = new ConcurrentHashMap<>();
+  private final LongAdder windowCount = new LongAdder();
+  private final LongAdder sampled = new LongAdder();
+  private final LongAdder kept = new LongAdder();
+  private final LongAdder untracked = new LongAdder();
+  private volatile long windowStart = System.currentTimeMillis();
+  private volatile double ingestRate;
+  private volatile boolean sampling;
+
+  public boolean isEnabled() {
+    return enabled && rate > 0 && window > 0 && maxServices > 0;
+  }
+
+  /**
+   * @return true while ingest runs over the threshold, from the last window or the current one
+   */
+  public boolean isSampling() {
+    return sampling || windowCount.sum() > threshold * window / 1000;
+  }
+
+  /**
+   * Offer a logEntry about to be stored to the sampler
+   *
+   * @param entry
+   * @return the logEntry to store now, or nothing when it went into its originService's reservoir
+   */
+  public List<LogEntry> offer(LogEntry entry) {
+    if (!isEnabled()) {
+      return Collections.singletonList(entry);
+    }
+    windowCount.increment();
+    if (!isSampleable(entry) || !isSampling()) {
+      return Collections.singletonList(entry);
+    }
+    String key = String.valueOf(entry.getOriginService());
+    while (true) {
+      Reservoir reservoir = reservoirs.get(key);
+      if (null == reservoir) {
+        if (reservoirs.size() >= maxServices) {
+          untracked.increment();
+          return Collections.singletonList(entry);
+        }
+        Reservoir created = new Reservoir(tokensPerSecond());
+        reservoir = reservoirs.putIfAbsent(key, created);
+        if (null == reservoir) {
+          reservoir = created;
+        }
+      }
+      synchronized (reservoir) {
+        if (!reservoir.retired) {
+          reservoir.offer(entry);
+          sampled.increment();
+          return Collections.emptyList();
+        }
+      }
+      // the reservoir was retired concurrently, retry with a new one
+      reservoirs.remove(key, reservoir);
+    }
+  }
+
+  private static boolean isSampleable(LogEntry entry) {
+    return null != entry.getLogLevel() && !IngestLanes.isPriority(entry.getLogLevel())
+        && !(entry instanceof RepeatedLogEntry);
+  }
+
+  /**
+   * Close the current window: store the reservoirs, refill their token buckets and tell from the
+   * ingest rate of the window whether the next one samples
+   *
+   * @param now
+   * @return the logEntries kept by the reservoirs
+   */
+  public List<LogEntry> flush(long now) {
+    long elapsed = Math.max(1L, now - windowStart);
+    windowStart = now;
+    ingestRate = windowCount.sumThenReset() * 1000.0 / elapsed;
+    sampling = ingestRate > threshold;
+    return drain(elapsed, false);
+  }
+
+  /**
+   * Store every reservoir, e.g. on shutdown
+   *
+   * @return the logEntries kept by the reservoirs
+   */
+  public List<LogEntry> flushAll() {
+    return drain(0L, true);
+  }
+
+  private List<LogEntry> drain(long elapsed, boolean retire) {
+    List<LogEntry> result = new ArrayList<>();
+    double refill = rate * elapsed / 1000;
+    Iterator<Reservoir> iterator = reservoirs.values().iterator();
+    while (iterator.hasNext()) {
+      Reservoir reservoir = iterator.next();
+      synchronized (reservoir) {
+        boolean idle = 0L == reservoir.seen;
+        reservoir.drain(result, kept);
+        reservoir.refill(refill, tokensPerSecond());
+        // a reservoir idle through a window is dropped, its next entry starts a full bucket
+        if (!retire && !idle) {
+          continue;
+        }
+        reservoir.retired = true;
+      }
+      iterator.remove();
+    }
+    return result;
+  }
+
+  private double tokensPerSecond() {
+    return Math.max(1, rate);
+  }
+
+  /**
+   * @return whether the sampler samples now, the ingest rate of the last window in logEntries per
+   *         second and the originServices sampled, with the logEntries that went into reservoirs,
+   *         those kept and dropped out of them and those stored without sampling as the sampled
+   *         originServices hit maxServices, since startup
+   */
+  public Map<String, Long> getStats() {
+    Map<String, Long> stats = new LinkedHashMap<>();
+    stats.put(SAMPLING, isEnabled() && isSampling() ? 1L : 0L);
+    stats.put(RATE, Math.round(ingestRate));
+    stats.put(SERVICES, (long) reservoirs.size());
+    long offered = sampled.sum();
+    long stored = kept.sum();
+    stats.put(SAMPLED, offered);
+    stats.put(KEPT, stored);
+    stats.put(DROPPED, Math.max(0L, offered - stored));
+    stats.put(UNTRACKED, untracked.sum());
+    return stats;
+  }
+
+  // guarded by its own monitor
+  private static final class Reservoir {
+
+    private LogEntry[] entries;
+    private int size;
+    private long seen;
+    private double tokens;
+    private boolean retired;
+
+    Reservoir(double tokens) {
+      this.tokens = tokens;
+      this.entries = new LogEntry[(int) Math.max(1, tokens)];
+    }
+
+    /**
+     * Reservoir sampling: the n-th entry seen replaces a random kept one with probability
+     * capacity / n, so every entry seen is equally likely to be kept
+     */
+    void offer(LogEntry entry) {
+      seen++;
+      if (size < entries.length) {
+        entries[size++] = entry;
+        return;
+      }
+      long slot = ThreadLocalRandom.current().nextLong(seen);
+      if (slot < entries.length) {
+        entries[(int) slot] = entry;
+      }
+    }
+
+    void drain(List<LogEntry> result, LongAdder kept) {
+      double weight = 0 == size ? 1.0 : (double) seen / size;
+      for (int i = 0; i < size; i++) {
+        result.add(seen > size ? new SampledLogEntry(entries[i], weight) : entries[i]);
+        entries[i] = null;
+      }
+      kept.add(size);
+      tokens -= size;
+      size = 0;
+      seen = 0L;
+    }
+
+    void refill(double refill, double max) {
+      tokens = Math.min(max, tokens + refill);
+      int capacity = (int) Math.max(1, tokens);
+      if (capacity != entries.length) {
+        entries = new LogEntry[capacity];
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.service;
+
+import java.util.List;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface LogTailService {
+
+  /**
+   * Subscribe to the logEntries saved from now on that match the criteria
+   *
+   * @param criteria
+   * @return emitter the matching logEntries are pushed to as Server-Sent Events
+   */
+  SseEmitter subscribe(MatchCriteria criteria);
+
+  /**
+   * Hand a newly saved logEntry to every subscription it matches. Never blocks: a subscription
+   * whose buffer is full drops the entry and is notified of the drop later on.
+   *
+   * @param entry
+   */
+  void publish(LogEntry entry);
+
+  List<TailSubscription> getSubscriptions();
+
+}
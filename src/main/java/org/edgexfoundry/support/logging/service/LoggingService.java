@@ -19,18 +19,154 @@
 package org.edgexfoundry.support.logging.service;
 
 import java.util.List;
+import java.util.Map;
 
 import org.edgexfoundry.support.domain.logging.LogEntry;
 import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.dao.MDC_ENUM_CONSTANTS;
+import org.edgexfoundry.support.logging.dao.RetentionPolicy;
+import org.edgexfoundry.support.logging.dao.ServiceQuota;
+import org.edgexfoundry.support.logging.dao.QueryContext;
+import org.edgexfoundry.support.logging.query.CompiledQuery;
+import org.springframework.data.util.CloseableIterator;
 
 public interface LoggingService {
 
-  void addLogEntry(LogEntry entry);
+  /**
+   * Queue the ingest of a logEntry on the lane of its level
+   *
+   * @param entry
+   * @return false if the logEntry was shed because the ingest lanes are congested
+   */
+  boolean addLogEntry(LogEntry entry);
 
   List<LogEntry> searchByCriteria(MatchCriteria criteria);
 
   List<LogEntry> searchByCriteria(MatchCriteria criteria, int limit);
 
+  /**
+   * Search within the deadline of the query context. When the deadline is hit, the logEntries found
+   * so far are returned and the context is flagged as truncated, unless the persistence can't
+   * return partial results.
+   *
+   * @param criteria
+   * @param limit
+   * @param context
+   * @return matching logEntries
+   * @throws org.springframework.dao.QueryTimeoutException if the deadline is hit without partial
+   *         results
+   */
+  List<LogEntry> searchByCriteria(MatchCriteria criteria, int limit, QueryContext context);
+
+  List<LogEntry> searchByQuery(CompiledQuery query, int limit);
+
+  List<LogEntry> searchByQuery(CompiledQuery query, int limit, QueryContext context);
+
   List<LogEntry> removeByCriteria(MatchCriteria criteria);
 
+  CloseableIterator<LogEntry> streamByCriteria(MatchCriteria criteria);
+
+  CloseableIterator<LogEntry> streamByCriteria(MatchCriteria criteria, QueryContext context);
+
+  Map<String, Long> countByCriteria(MatchCriteria criteria, MDC_ENUM_CONSTANTS field,
+      long interval);
+
+  /**
+   * Count the logEntries matching the criteria by the template of their message, as mined at
+   * ingest. Messages without a template yet, e.g. stored before a restart, are learnt as they are
+   * counted; those left over once the miner holds its maximum of templates are counted together
+   * under LogTemplate.UNMATCHED.
+   *
+   * @param criteria
+   * @return number of matching logEntries per template, most frequent first
+   */
+  Map<String, Long> countByTemplate(MatchCriteria criteria);
+
+  /**
+   * Count by template within the deadline of the query context. When the deadline is hit, the
+   * counts so far are returned and the context is flagged as truncated.
+   *
+   * @param criteria
+   * @param context
+   * @return number of matching logEntries per template, most frequent first
+   * @throws org.springframework.dao.QueryTimeoutException if the deadline is hit without partial
+   *         results
+   */
+  Map<String, Long> countByTemplate(MatchCriteria criteria, QueryContext context);
+
+  /**
+   * Drop the logEntries the retention policy no longer keeps, see LogEntryDAO.enforceRetention
+   *
+   * @param policy
+   * @param now
+   * @return what was dropped keyed by name
+   */
+  Map<String, Long> enforceRetention(RetentionPolicy policy, long now);
+
+  /**
+   * Set the storage quota the store enforces, see LogEntryDAO.setQuota
+   *
+   * @param quota
+   */
+  void setQuota(ServiceQuota quota);
+
+  /**
+   * @param originService
+   * @return bytes the logEntries of the originService take in the store
+   */
+  long getUsedBytes(String originService);
+
+  /**
+   * @return storage used per originService, see LogEntryDAO.getUsage
+   */
+  Map<String, Map<String, Long>> getUsage();
+
+  /**
+   * @return the statistics of each backend or tier when the store writes to several ones, see
+   *         LogEntryDAO.getBackendStats
+   */
+  Map<String, Map<String, Long>> getBackendStats();
+
+  /**
+   * Store the repeats coalesced in the ingest windows that have expired, see RepeatCoalescer
+   */
+  void flushRepeats();
+
+  /**
+   * Store the logEntries sampled in the ingest window that has ended, see LogSampler
+   */
+  void flushSamples();
+
+  Map<String, Long> getCacheStats();
+
+  /**
+   * @return the tuples tracked by the ingest coalescer and the repeats it coalesced, see
+   *         RepeatCoalescer.getStats
+   */
+  Map<String, Long> getRepeatStats();
+
+  /**
+   * @return whether ingest is sampled now and what the sampler kept and dropped, see
+   *         LogSampler.getStats
+   */
+  Map<String, Long> getSamplingStats();
+
+  /**
+   * @return the progress of loading the persisted logEntries at startup, see
+   *         LogEntryDAO.getWarmUpStats
+   */
+  Map<String, Long> getWarmUpStats();
+
+  /**
+   * @return the saturation statistics of the ingest, query and delete thread pools, keyed by pool
+   *         name
+   */
+  Map<String, Map<String, Long>> getPoolStats();
+
+  /**
+   * @return the logEntries accepted, delayed and dropped by each ingest lane, see
+   *         IngestLanes.getStats
+   */
+  Map<String, Map<String, Long>> getIngestStats();
+
 }
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.dao.QueryContext;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * State and progress of an asynchronous search: the criteria, the current status, the logEntries
+ * and segments scanned so far, the segments pruned without being scanned and the number of
+ * matching logEntries spilled to its result file.
+ */
+public class QueryJob {
+
+  public enum Status {
+    QUEUED, RUNNING, COMPLETED, CANCELLED, FAILED
+  }
+
+  private final String id = UUID.randomUUID().toString();
+  private final MatchCriteria criteria;
+  private final QueryContext context = new QueryContext();
+  private final AtomicLong matched = new AtomicLong();
+  private final long submitted = System.currentTimeMillis();
+  private volatile Status status = Status.QUEUED;
+  private volatile long started;
+  private volatile long finished;
+  private volatile boolean truncated;
+  private volatile String error;
+
+  public QueryJob(MatchCriteria criteria) {
+    this.criteria = criteria;
+  }
+
+  public void start() {
+    started = System.currentTimeMillis();
+    status = Status.RUNNING;
+  }
+
+  public void finish(Status status) {
+    finished = System.currentTimeMillis();
+    this.status = status;
+  }
+
+  public void fail(String error) {
+    this.error = error;
+    finish(Status.FAILED);
+  }
+
+  public long matched() {
+    return matched.incrementAndGet();
+  }
+
+  public void truncate() {
+    truncated = true;
+  }
+
+  public boolean isDone() {
+    return 0L != finished;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public MatchCriteria getCriteria() {
+    return criteria;
+  }
+
+  @JsonIgnore
+  public QueryContext getContext() {
+    return context;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public long getSubmitted() {
+    return submitted;
+  }
+
+  public long getStarted() {
+    return started;
+  }
+
+  public long getFinished() {
+    return finished;
+  }
+
+  public long getEntriesScanned() {
+    return context.getEntriesScanned();
+  }
+
+  public long getSegmentsScanned() {
+    return context.getSegmentsScanned();
+  }
+
+  public long getSegmentsPruned() {
+    return context.getSegmentsPruned();
+  }
+
+  public long getMatched() {
+    return matched.get();
+  }
+
+  /**
+   * @return true if the job stopped at the max number of results
+   */
+  public boolean isTruncated() {
+    return truncated;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+}
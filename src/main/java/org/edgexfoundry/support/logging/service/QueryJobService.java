@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import java.util.List;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+
+public interface QueryJobService {
+
+  /**
+   * Queue a search for every logEntry matching the criteria
+   *
+   * @param criteria
+   * @return the queued job
+   */
+  QueryJob submit(MatchCriteria criteria);
+
+  /**
+   * @param id
+   * @return the job or null if unknown or expired
+   */
+  QueryJob getJob(String id);
+
+  List<QueryJob> getJobs();
+
+  /**
+   * Read a page of the results found so far
+   *
+   * @param id
+   * @param offset - index of the first result to read
+   * @param limit - maximum number of results to read
+   * @return the results or null if the job is unknown or expired
+   */
+  List<LogEntry> getResults(String id, long offset, int limit);
+
+  /**
+   * Stop a queued or running job, keeping the results found so far
+   *
+   * @param id
+   * @return false if the job is unknown or already done
+   */
+  boolean cancel(String id);
+
+  /**
+   * Stop the job if needed and discard it along with its results
+   *
+   * @param id
+   * @return false if the job is unknown
+   */
+  boolean remove(String id);
+
+}
@@ -0,0 +1,458 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.dao.LogEntryMatcher;
+import org.edgexfoundry.support.logging.dao.RepeatedLogEntry;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * LRU cache of searchByCriteria results keyed by the normalized criteria and limit. Entries expire
+ * after a TTL and the cache is bounded by the total number of cached logEntries.
+ *
+ * Invalidation is precise rather than wholesale: a saved logEntry only evicts the cached queries
+ * it matches, and removed logEntries only evict the cached queries they matched. The cached
+ * queries are indexed by logLevel, so a save only checks those filtering on its level or on none.
+ * Every invalidation bumps a generation and is kept in a short ring of recent ones, so a result
+ * computed meanwhile is only dropped when one of the invalidations since it started matches its
+ * query, or when more of them happened than the ring keeps.
+ */
+@Component
+public class QueryResultCache {
+
+  public static final String HITS = "hits";
+  public static final String MISSES = "misses";
+  public static final String EVICTIONS = "evictions";
+  public static final String INVALIDATIONS = "invalidations";
+  public static final String QUERIES = "queries";
+  public static final String ENTRIES = "entries";
+  public static final String BYTES = "bytes";
+
+  // rough heap footprint of a logEntry besides its strings: object headers, fields and references
+  private static final long ENTRY_OVERHEAD = 96L;
+  private static final long STRING_OVERHEAD = 40L;
+  // invalidations kept for put to check an in-flight result against
+  static final int RECENT_INVALIDATIONS = 1024;
+
+  @Value("${logging.cache.max.queries:1000}")
+  private int maxQueries = 1000;
+
+  @Value("${logging.cache.max.entries:100000}")
+  private long maxEntries = 100000L;
+
+  @Value("${logging.cache.ttl:10000}")
+  private long ttl = 10000L;
+
+  // guarded by this
+  private final LinkedHashMap<Key, Cached> cache = new LinkedHashMap<>(16, 0.75f, true);
+  // guarded by this
+  private long weight;
+  // guarded by this
+  private long bytes;
+  // guarded by this: cached queries filtering on each logLevel, and those filtering on none
+  private final Map<Level, Set<Cached>> byLevel = new EnumMap<>(Level.class);
+  private final Set<Cached> anyLevel = new HashSet<>();
+  // guarded by this: invalidation of generation g at g % RECENT_INVALIDATIONS
+  private final Invalidation[] recent = new Invalidation[RECENT_INVALIDATIONS];
+
+  private final AtomicLong generation = new AtomicLong();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder invalidations = new LongAdder();
+
+  /**
+   * @return the current generation, to be passed to put once the result is computed
+   */
+  public long generation() {
+    return generation.get();
+  }
+
+  /**
+   * Return the cached result of a query
+   *
+   * @param criteria
+   * @param limit
+   * @return the cached logEntries or null if the query isn't cached
+   */
+  public List<LogEntry> get(MatchCriteria criteria, int limit) {
+    if (!isEnabled() || null == criteria) {
+      return null;
+    }
+    Key key = new Key(criteria, limit);
+    synchronized (this) {
+      Cached cached = cache.get(key);
+      if (null != cached && cached.expires > System.currentTimeMillis()) {
+        hits.increment();
+        return cached.result;
+      }
+      if (null != cached) {
+        remove(key);
+        evictions.increment();
+      }
+    }
+    misses.increment();
+    return null;
+  }
+
+  /**
+   * Cache the result of a query unless an invalidation matching it happened since the given
+   * generation
+   *
+   * @param criteria
+   * @param limit
+   * @param result
+   * @param since - generation read before the result was computed
+   */
+  public void put(MatchCriteria criteria, int limit, List<LogEntry> result, long since) {
+    if (!isEnabled() || null == criteria || null == result || result.size() + 1L > maxEntries) {
+      return;
+    }
+    Key key = new Key(criteria, limit);
+    Cached cached = new Cached(key, Collections.unmodifiableList(new ArrayList<>(result)),
+        System.currentTimeMillis() + ttl);
+    synchronized (this) {
+      if (isStale(key, since)) {
+        return;
+      }
+      remove(key);
+      cache.put(key, cached);
+      weight += cached.weight();
+      bytes += cached.bytes;
+      index(cached);
+      Iterator<Cached> eldest = cache.values().iterator();
+      while (cache.size() > maxQueries || weight > maxEntries) {
+        Cached evicted = eldest.next();
+        eldest.remove();
+        unlink(evicted);
+        evictions.increment();
+      }
+    }
+  }
+
+  /**
+   * Call while holding the lock, which every invalidation records its entry in the ring under
+   *
+   * @return true if an invalidation since the generation may have changed the result of the query
+   */
+  private boolean isStale(Key key, long since) {
+    long current = generation.get();
+    if (current - since >= RECENT_INVALIDATIONS) {
+      // the ring no longer holds all of them
+      return true;
+    }
+    for (long g = since + 1; g <= current; g++) {
+      Invalidation invalidation = recent[(int) (g % RECENT_INVALIDATIONS)];
+      if (null == invalidation || invalidation.generation != g || invalidation.mayMatch(key)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Evict the cached queries a newly saved logEntry matches
+   *
+   * @param entry
+   */
+  public void invalidate(LogEntry entry) {
+    invalidate(Collections.singletonList(entry), entry.getCreated(),
+        RepeatedLogEntry.lastCreated(entry));
+  }
+
+  /**
+   * Evict the cached queries any of the removed logEntries matched
+   *
+   * @param removed
+   */
+  public void invalidate(Collection<LogEntry> removed) {
+    if (null == removed || removed.isEmpty()) {
+      return;
+    }
+    long min = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+    for (LogEntry entry : removed) {
+      min = Math.min(min, entry.getCreated());
+      max = Math.max(max, RepeatedLogEntry.lastCreated(entry));
+    }
+    invalidate(removed, min, max);
+  }
+
+  public void clear() {
+    synchronized (this) {
+      record(null, Long.MIN_VALUE, Long.MAX_VALUE);
+      invalidations.add(cache.size());
+      cache.clear();
+      byLevel.clear();
+      anyLevel.clear();
+      weight = 0;
+      bytes = 0;
+    }
+  }
+
+  /**
+   * @return hits, misses, evictions and invalidations since startup, with the number of cached
+   *         queries and logEntries and an estimate of the bytes they hold
+   */
+  public Map<String, Long> getStats() {
+    Map<String, Long> stats = new LinkedHashMap<>();
+    stats.put(HITS, hits.sum());
+    stats.put(MISSES, misses.sum());
+    stats.put(EVICTIONS, evictions.sum());
+    stats.put(INVALIDATIONS, invalidations.sum());
+    synchronized (this) {
+      stats.put(QUERIES, (long) cache.size());
+      stats.put(ENTRIES, weight);
+      stats.put(BYTES, bytes);
+    }
+    return stats;
+  }
+
+  private boolean isEnabled() {
+    return maxQueries > 0 && maxEntries > 0 && ttl > 0;
+  }
+
+  private void invalidate(Collection<LogEntry> entries, long min, long max) {
+    if (!isEnabled()) {
+      return;
+    }
+    synchronized (this) {
+      // recorded even when nothing is cached, so in-flight results it matches are dropped
+      record(entries, min, max);
+      if (cache.isEmpty()) {
+        return;
+      }
+      // only the cached queries filtering on the level of an entry or on none may match it
+      Set<Cached> candidates = new HashSet<>(anyLevel);
+      for (LogEntry entry : entries) {
+        Set<Cached> level = null == entry.getLogLevel() ? null : byLevel.get(entry.getLogLevel());
+        if (null != level) {
+          candidates.addAll(level);
+        }
+      }
+      for (Cached cached : candidates) {
+        if (mayMatch(cached.key.criteria, entries, min, max)) {
+          cache.remove(cached.key);
+          unlink(cached);
+          invalidations.increment();
+        }
+      }
+    }
+  }
+
+  // call while holding the lock; null entries invalidate every query
+  private void record(Collection<LogEntry> entries, long min, long max) {
+    long current = generation.incrementAndGet();
+    recent[(int) (current % RECENT_INVALIDATIONS)] = new Invalidation(current, entries, min, max);
+  }
+
+  // call while holding the lock
+  private void remove(Key key) {
+    Cached previous = cache.remove(key);
+    if (null != previous) {
+      unlink(previous);
+    }
+  }
+
+  // call while holding the lock, once the query is out of the cache
+  private void unlink(Cached cached) {
+    weight -= cached.weight();
+    bytes -= cached.bytes;
+    Level[] levels = cached.key.criteria.getLogLevels();
+    if (null == levels || 0 == levels.length) {
+      anyLevel.remove(cached);
+      return;
+    }
+    for (Level level : levels) {
+      Set<Cached> indexed = null == level ? null : byLevel.get(level);
+      if (null != indexed) {
+        indexed.remove(cached);
+        if (indexed.isEmpty()) {
+          byLevel.remove(level);
+        }
+      }
+    }
+  }
+
+  // call while holding the lock
+  private void index(Cached cached) {
+    Level[] levels = cached.key.criteria.getLogLevels();
+    if (null == levels || 0 == levels.length) {
+      anyLevel.add(cached);
+      return;
+    }
+    for (Level level : levels) {
+      if (null != level) {
+        byLevel.computeIfAbsent(level, k -> new HashSet<>()).add(cached);
+      }
+    }
+  }
+
+  private static boolean mayMatch(MatchCriteria criteria, Collection<LogEntry> entries, long min,
+      long max) {
+    // cheap time range check before matching every entry
+    if ((0L != criteria.getStart() && max <= criteria.getStart())
+        || (0L != criteria.getEnd() && min >= criteria.getEnd())) {
+      return false;
+    }
+    for (LogEntry entry : entries) {
+      if (LogEntryMatcher.matches(entry, criteria)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Estimate the heap held by a cached result: the list itself plus every logEntry with its
+   * strings. Entries shared with other results or with the file store index are counted again, so
+   * this is an upper bound of what evicting the result would free.
+   */
+  static long estimateBytes(List<LogEntry> result) {
+    long total = ENTRY_OVERHEAD + 8L * result.size();
+    for (LogEntry entry : result) {
+      total += ENTRY_OVERHEAD + estimateBytes(entry.getMessage())
+          + estimateBytes(entry.getOriginService());
+      if (null != entry.getLabels()) {
+        for (String label : entry.getLabels()) {
+          total += 8L + estimateBytes(label);
+        }
+      }
+    }
+    return total;
+  }
+
+  private static long estimateBytes(String value) {
+    return null == value ? 0L : STRING_OVERHEAD + 2L * value.length();
+  }
+
+  private static final class Cached {
+    private final Key key;
+    private final List<LogEntry> result;
+    private final long expires;
+    private final long bytes;
+
+    Cached(Key key, List<LogEntry> result, long expires) {
+      this.key = key;
+      this.result = result;
+      this.expires = expires;
+      this.bytes = estimateBytes(result);
+    }
+
+    long weight() {
+      return result.size() + 1L;
+    }
+  }
+
+  private static final class Invalidation {
+    private final long generation;
+    // null when the whole cache was cleared
+    private final Collection<LogEntry> entries;
+    private final long min;
+    private final long max;
+
+    Invalidation(long generation, Collection<LogEntry> entries, long min, long max) {
+      this.generation = generation;
+      this.entries = entries;
+      this.min = min;
+      this.max = max;
+    }
+
+    boolean mayMatch(Key key) {
+      return null == entries || QueryResultCache.mayMatch(key.criteria, entries, min, max);
+    }
+  }
+
+  /**
+   * Criteria and limit with the values of every field sorted and deduplicated, so equivalent
+   * queries share one cache entry whatever the order of their values. Holds a copy of the criteria,
+   * since the caller's one may be modified later on.
+   */
+  private static final class Key {
+    private final MatchCriteria criteria = new MatchCriteria();
+    private final List<Object> values;
+    private final int limit;
+    private final int hash;
+
+    Key(MatchCriteria criteria, int limit) {
+      this.criteria.setLogLevels(copy(criteria.getLogLevels()));
+      this.criteria.setOriginServices(copy(criteria.getOriginServices()));
+      this.criteria.setLabels(copy(criteria.getLabels()));
+      this.criteria.setMessageKeywords(copy(criteria.getMessageKeywords()));
+      this.criteria.setStart(criteria.getStart());
+      this.criteria.setEnd(criteria.getEnd());
+      this.limit = limit;
+      this.values = Arrays.asList(normalize(criteria.getLogLevels()),
+          normalize(criteria.getOriginServices()), normalize(criteria.getLabels()),
+          normalize(criteria.getMessageKeywords()), criteria.getStart(), criteria.getEnd());
+      this.hash = Objects.hash(values, limit);
+    }
+
+    private static <A> A[] copy(A[] values) {
+      return null == values ? null : values.clone();
+    }
+
+    private static List<String> normalize(Object[] values) {
+      TreeSet<String> result = new TreeSet<>();
+      if (null != values) {
+        for (Object value : values) {
+          result.add(String.valueOf(value));
+        }
+      }
+      return new ArrayList<>(result);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return limit == other.limit && values.equals(other.values);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+}
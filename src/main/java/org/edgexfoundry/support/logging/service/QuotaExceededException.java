@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.service;
+
+/**
+ * An originService sent more logEntries than its rate limit or storage quota allows
+ */
+public class QuotaExceededException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final long retryAfter;
+
+  /**
+   * @param message
+   * @param retryAfter - milliseconds until the originService may send again, 0 if unknown
+   */
+  public QuotaExceededException(String message, long retryAfter) {
+    super(message);
+    this.retryAfter = retryAfter;
+  }
+
+  public long getRetryAfter() {
+    return retryAfter;
+  }
+
+}
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.service;
+
+import java.util.Map;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.logging.dao.ServiceQuota;
+
+public interface QuotaService {
+
+  ServiceQuota getQuota();
+
+  /**
+   * Admit a logEntry about to be ingested against the rate limit and storage quota of its
+   * originService, the only place either is enforced
+   *
+   * @param entry
+   * @throws QuotaExceededException if the originService exceeds its rate limit or took its storage
+   *         quota
+   */
+  void admit(LogEntry entry);
+
+  /**
+   * @return logEntries and bytes held against the quota in bytes, rate limit in logEntries per
+   *         second and logEntries throttled by the rate limit and rejected over the quota since
+   *         startup, per originService keyed by name
+   */
+  Map<String, Map<String, Long>> getUsage();
+
+  /**
+   * @return logEntries throttled by the rate limits and rejected over the quotas since startup
+   */
+  Map<String, Long> getStats();
+
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket holding up to burst tokens, refilled at rate tokens per second. Rather
+ * than a token count refilled over time, it keeps the time the bucket is full again (the generic
+ * cell rate algorithm): taking a token pushes that time one refill interval later, and is refused
+ * when it would get more than burst intervals ahead of now. A single compare-and-set per token
+ * keeps it exact under contention.
+ */
+public class RateLimiter {
+
+  private final double rate;
+  // nanoseconds to refill one token
+  private final long interval;
+  // how far ahead of now the full time may get, i.e. the burst
+  private final long tolerance;
+  private final AtomicLong full;
+
+  /**
+   * @param rate - tokens per second, must be positive
+   * @param burst - most tokens taken at once, at least 1
+   */
+  public RateLimiter(double rate, int burst) {
+    this(rate, burst, System.nanoTime());
+  }
+
+  RateLimiter(double rate, int burst, long now) {
+    this.rate = rate;
+    this.interval = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+    this.tolerance = interval * Math.max(1, burst);
+    this.full = new AtomicLong(now);
+  }
+
+  public double getRate() {
+    return rate;
+  }
+
+  /**
+   * Take a token if one is available
+   *
+   * @param now - System.nanoTime()
+   * @return 0 if a token was taken, otherwise nanoseconds until one is available
+   */
+  public long tryAcquire(long now) {
+    while (true) {
+      long current = full.get();
+      // an idle bucket is full from now on rather than from when it last was
+      long next = (current - now > 0 ? current : now) + interval;
+      long wait = next - now - tolerance;
+      if (wait > 0) {
+        return wait;
+      }
+      if (full.compareAndSet(current, next)) {
+        return 0L;
+      }
+    }
+  }
+
+}
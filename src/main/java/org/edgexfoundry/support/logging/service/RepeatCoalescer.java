@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.logging.dao.RepeatedLogEntry;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Coalesces the repeats of a logEntry at ingest. The first occurrence of an (originService,
+ * logLevel, labels, message) tuple opens a window and is stored right away; the same tuple sent
+ * again while the window lasts is only counted. Once the window closes, the repeats are stored as
+ * one RepeatedLogEntry carrying their count and the times of the first and last of them.
+ *
+ * A window lasts until its repeats would span more than the window size from its first occurrence
+ * on, or until flush finds it expired. At most maxKeys tuples are tracked, further ones are stored
+ * without coalescing.
+ */
+@Component
+public class RepeatCoalescer {
+
+  public static final String TRACKED = "tracked";
+  public static final String COALESCED = "coalesced";
+  public static final String SUMMARIES = "summaries";
+  public static final String UNTRACKED = "untracked";
+
+  @Value("${logging.dedup.enabled:false}")
+  private boolean enabled = false;
+
+  @Value("${logging.dedup.window:1000}")
+  private long window = 1000L;
+
+  @Value("${logging.dedup.max.keys:10000}")
+  private int maxKeys = 10000;
+
+  private final ConcurrentHashMap<Key, Group> groups = new ConcurrentHashMap<>();
+  private final LongAdder coalesced = new LongAdder();
+  private final LongAdder summaries = new LongAdder();
+  private final LongAdder untracked = new LongAdder();
+
+  public boolean isEnabled() {
+    return enabled && window > 0 && maxKeys > 0;
+  }
+
+  /**
+   * Offer a logEntry received to the coalescer
+   *
+   * @param entry
+   * @return the logEntries to store now, in order: the coalesced repeats of a window the entry
+   *         closed, then the entry itself unless it was coalesced
+   */
+  public List<LogEntry> offer(LogEntry entry) {
+    if (!isEnabled()) {
+      return Collections.singletonList(entry);
+    }
+    Key key = new Key(entry);
+    List<LogEntry> result = new ArrayList<>(2);
+    while (true) {
+      Group group = groups.get(key);
+      if (null != group) {
+        RepeatedLogEntry closed = null;
+        synchronized (group) {
+          if (!group.closed && group.absorb(entry.getCreated(), window)) {
+            coalesced.increment();
+            return result;
+          }
+          if (!group.closed) {
+            closed = group.close();
+          }
+        }
+        groups.remove(key, group);
+        if (null != closed) {
+          summaries.increment();
+          result.add(closed);
+        }
+      }
+      if (groups.size() >= maxKeys) {
+        untracked.increment();
+        result.add(entry);
+        return result;
+      }
+      if (null == groups.putIfAbsent(key, new Group(entry))) {
+        result.add(entry);
+        return result;
+      }
+      // another occurrence opened a window concurrently, retry to be counted in it
+    }
+  }
+
+  /**
+   * Close the windows opened at least a window size before a given time
+   *
+   * @param now
+   * @return the coalesced repeats of the closed windows that had any
+   */
+  public List<LogEntry> flush(long now) {
+    return close(group -> now - group.opened >= window);
+  }
+
+  /**
+   * Close every window, e.g. on shutdown
+   *
+   * @return the coalesced repeats of the windows that had any
+   */
+  public List<LogEntry> flushAll() {
+    return close(group -> true);
+  }
+
+  private List<LogEntry> close(Predicate<Group> expired) {
+    List<LogEntry> result = new ArrayList<>();
+    Iterator<Map.Entry<Key, Group>> iterator = groups.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Group group = iterator.next().getValue();
+      RepeatedLogEntry closed = null;
+      synchronized (group) {
+        if (group.closed || !expired.test(group)) {
+          continue;
+        }
+        closed = group.close();
+      }
+      iterator.remove();
+      if (null != closed) {
+        summaries.increment();
+        result.add(closed);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return tuples tracked now, with the repeats coalesced, the RepeatedLogEntry stored and the
+   *         logEntries stored without tracking as the tracked tuples hit maxKeys, since startup
+   */
+  public Map<String, Long> getStats() {
+    Map<String, Long> stats = new LinkedHashMap<>();
+    stats.put(TRACKED, (long) groups.size());
+    stats.put(COALESCED, coalesced.sum());
+    stats.put(SUMMARIES, summaries.sum());
+    stats.put(UNTRACKED, untracked.sum());
+    return stats;
+  }
+
+  private static final class Key {
+
+    private final String originService;
+    private final Level logLevel;
+    private final String[] labels;
+    private final String message;
+    private final int hash;
+
+    Key(LogEntry entry) {
+      this.originService = entry.getOriginService();
+      this.logLevel = entry.getLogLevel();
+      this.labels = entry.getLabels();
+      this.message = entry.getMessage();
+      this.hash = Objects.hash(originService, logLevel, Arrays.hashCode(labels), message);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return hash == other.hash && logLevel == other.logLevel
+          && Objects.equals(originService, other.originService)
+          && Objects.equals(message, other.message) && Arrays.equals(labels, other.labels);
+    }
+
+  }
+
+  // guarded by its own monitor
+  private static final class Group {
+
+    private final LogEntry first;
+    private final long opened;
+    private long repeats;
+    private long firstRepeat;
+    private long lastRepeat;
+    private boolean closed;
+
+    Group(LogEntry first) {
+      this.first = first;
+      this.opened = first.getCreated();
+    }
+
+    /**
+     * Count one more repeat unless the window would span a window size or more
+     */
+    boolean absorb(long created, long window) {
+      long from = Math.min(opened, 0L == repeats ? created : Math.min(firstRepeat, created));
+      long to = Math.max(opened, 0L == repeats ? created : Math.max(lastRepeat, created));
+      if (to - from >= window) {
+        return false;
+      }
+      firstRepeat = 0L == repeats ? created : Math.min(firstRepeat, created);
+      lastRepeat = 0L == repeats ? created : Math.max(lastRepeat, created);
+      repeats++;
+      return true;
+    }
+
+    RepeatedLogEntry close() {
+      closed = true;
+      return 0L == repeats ? null : new RepeatedLogEntry(first, repeats, firstRepeat, lastRepeat);
+    }
+
+  }
+
+}
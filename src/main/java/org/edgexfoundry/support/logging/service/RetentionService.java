@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.service;
+
+import java.util.Map;
+
+import org.edgexfoundry.support.logging.dao.RetentionPolicy;
+
+public interface RetentionService {
+
+  RetentionPolicy getPolicy();
+
+  /**
+   * Drop the persisted logEntries the retention policy no longer keeps
+   *
+   * @return what was dropped keyed by name, empty if the policy sets no limit
+   */
+  Map<String, Long> enforce();
+
+  /**
+   * @return number of runs, segments and logEntries dropped and bytes reclaimed since startup, and
+   *         duration of the last run in milliseconds
+   */
+  Map<String, Long> getStats();
+
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.service;
+
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.dao.LogEntryMatcher;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A live tail subscriber: the criteria it filters on, the emitter its logEntries are pushed to and
+ * the bounded buffer of logEntries waiting to be pushed.
+ */
+public class TailSubscription {
+
+  private final String id = UUID.randomUUID().toString();
+  private final MatchCriteria criteria;
+  private final SseEmitter emitter;
+  private final BlockingQueue<LogEntry> buffer;
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+  // drops not yet notified to the subscriber
+  private final AtomicLong pendingDrops = new AtomicLong();
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder delivered = new LongAdder();
+
+  public TailSubscription(MatchCriteria criteria, SseEmitter emitter, int bufferSize) {
+    this.criteria = criteria;
+    this.emitter = emitter;
+    this.buffer = new ArrayBlockingQueue<>(bufferSize);
+  }
+
+  public boolean matches(LogEntry entry) {
+    return LogEntryMatcher.matches(entry, criteria);
+  }
+
+  /**
+   * Buffer a logEntry without blocking
+   *
+   * @param entry
+   * @return false if the buffer is full and the logEntry was dropped
+   */
+  public boolean offer(LogEntry entry) {
+    if (buffer.offer(entry)) {
+      return true;
+    }
+    pendingDrops.incrementAndGet();
+    dropped.increment();
+    return false;
+  }
+
+  public LogEntry poll() {
+    return buffer.poll();
+  }
+
+  /**
+   * @return number of logEntries dropped since the last call
+   */
+  public long takePendingDrops() {
+    return pendingDrops.getAndSet(0);
+  }
+
+  public boolean hasPending() {
+    return !buffer.isEmpty() || pendingDrops.get() > 0;
+  }
+
+  /**
+   * Claim the right to drain this subscription, so only one dispatcher thread drains it at a time
+   */
+  public boolean schedule() {
+    return scheduled.compareAndSet(false, true);
+  }
+
+  public void unschedule() {
+    scheduled.set(false);
+  }
+
+  public void delivered() {
+    delivered.increment();
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public MatchCriteria getCriteria() {
+    return criteria;
+  }
+
+  @JsonIgnore
+  public SseEmitter getEmitter() {
+    return emitter;
+  }
+
+  public int getBuffered() {
+    return buffer.size();
+  }
+
+  public long getDelivered() {
+    return delivered.sum();
+  }
+
+  public long getDropped() {
+    return dropped.sum();
+  }
+
+}
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.service.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.edgexfoundry.exception.controller.LimitExceededException;
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.service.LogTailService;
+import org.edgexfoundry.support.logging.service.TailSubscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@Service
+public class LogTailServiceImpl implements LogTailService {
+
+  private static final Logger logger = LoggerFactory.getLogger(LogTailServiceImpl.class);
+
+  private static final String ENTRY_EVENT = "logEntry";
+  private static final String DROPPED_EVENT = "dropped";
+  private static final String TAIL_SUBSCRIPTION = "TailSubscription";
+  // max number of logEntries sent per drain, so one busy subscriber can't hog a dispatcher
+  private static final int DRAIN_BATCH = 100;
+
+  private final List<TailSubscription> subscriptions = new CopyOnWriteArrayList<>();
+  // slots reserved up to maxSubscribers, each released once its subscription is removed
+  private final AtomicInteger reserved = new AtomicInteger();
+
+  @Value("${logging.tail.buffer:1000}")
+  private int bufferSize = 1000;
+
+  @Value("${logging.tail.max.subscribers:16}")
+  private int maxSubscribers = 16;
+
+  @Value("${logging.tail.timeout:1800000}")
+  private long timeout = 1800000L;
+
+  @Value("${logging.tail.dispatchers:2}")
+  private int dispatchers = 2;
+
+  private ExecutorService dispatcher;
+
+  @PostConstruct
+  private void init() {
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("log-tail-");
+    threadFactory.setDaemon(true);
+    dispatcher = Executors.newFixedThreadPool(dispatchers, threadFactory);
+  }
+
+  @PreDestroy
+  private void destroy() {
+    dispatcher.shutdownNow();
+    for (TailSubscription subscription : subscriptions) {
+      remove(subscription);
+      subscription.getEmitter().complete();
+    }
+  }
+
+  @Override
+  public SseEmitter subscribe(MatchCriteria criteria) {
+    reserve();
+    SseEmitter emitter = new SseEmitter(timeout);
+    TailSubscription subscription = new TailSubscription(criteria, emitter, bufferSize);
+    emitter.onCompletion(() -> remove(subscription));
+    emitter.onTimeout(() -> remove(subscription));
+    subscriptions.add(subscription);
+    logger.debug("Tail subscription {} added", subscription.getId());
+    return emitter;
+  }
+
+  /**
+   * Take a subscriber slot, so concurrent subscribers can't together exceed maxSubscribers
+   *
+   * @throws LimitExceededException if all the slots are taken
+   */
+  private void reserve() {
+    int current;
+    do {
+      current = reserved.get();
+      if (current >= maxSubscribers) {
+        throw new LimitExceededException(TAIL_SUBSCRIPTION);
+      }
+    } while (!reserved.compareAndSet(current, current + 1));
+  }
+
+  /**
+   * Remove a subscription and release its slot, once whichever of completion, timeout, send
+   * failure or shutdown comes first
+   */
+  private void remove(TailSubscription subscription) {
+    if (subscriptions.remove(subscription)) {
+      reserved.decrementAndGet();
+    }
+  }
+
+  @Override
+  public void publish(LogEntry entry) {
+    for (TailSubscription subscription : subscriptions) {
+      if (subscription.matches(entry)) {
+        subscription.offer(entry);
+        schedule(subscription);
+      }
+    }
+  }
+
+  @Override
+  public List<TailSubscription> getSubscriptions() {
+    return new ArrayList<>(subscriptions);
+  }
+
+  private void schedule(TailSubscription subscription) {
+    if (subscription.schedule()) {
+      try {
+        dispatcher.execute(() -> drain(subscription));
+      } catch (RejectedExecutionException e) {
+        // shutting down
+        subscription.unschedule();
+      }
+    }
+  }
+
+  /**
+   * Push the buffered logEntries of a subscription, preceded by a drop notice if any entry was
+   * dropped because the buffer was full. Runs on a dispatcher thread, so a slow client only delays
+   * its own subscription.
+   */
+  private void drain(TailSubscription subscription) {
+    try {
+      long dropped = subscription.takePendingDrops();
+      if (dropped > 0) {
+        subscription.getEmitter().send(SseEmitter.event().name(DROPPED_EVENT).data(dropped));
+      }
+      LogEntry entry;
+      for (int i = 0; i < DRAIN_BATCH && (entry = subscription.poll()) != null; i++) {
+        subscription.getEmitter()
+            .send(SseEmitter.event().name(ENTRY_EVENT).data(entry, MediaType.APPLICATION_JSON));
+        subscription.delivered();
+      }
+    } catch (IOException | IllegalStateException e) {
+      // the client went away or the emitter already completed
+      logger.debug("Tail subscription {} removed: {}", subscription.getId(), e.getMessage());
+      remove(subscription);
+      subscription.getEmitter().completeWithError(e);
+      return;
+    } finally {
+      subscription.unschedule();
+    }
+    if (subscription.hasPending()) {
+      schedule(subscription);
+    }
+  }
+
+}
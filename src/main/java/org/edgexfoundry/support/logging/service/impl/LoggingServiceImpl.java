@@ -18,28 +18,124 @@
 
 package org.edgexfoundry.support.logging.service.impl;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import javax.annotation.PreDestroy;
+
+import org.edgexfoundry.ExecutorConfig;
 import org.edgexfoundry.support.domain.logging.LogEntry;
 import org.edgexfoundry.support.domain.logging.MatchCriteria;
 import org.edgexfoundry.support.logging.dao.LogEntryDAO;
+import org.edgexfoundry.support.logging.dao.MDC_ENUM_CONSTANTS;
+import org.edgexfoundry.support.logging.dao.RetentionPolicy;
+import org.edgexfoundry.support.logging.dao.ServiceQuota;
+import org.edgexfoundry.support.logging.dao.QueryContext;
+import org.edgexfoundry.support.logging.metrics.LoggingMetrics;
+import org.edgexfoundry.support.logging.query.CompiledQuery;
+import org.edgexfoundry.support.logging.service.Bulkhead;
+import org.edgexfoundry.support.logging.service.IngestLanes;
+import org.edgexfoundry.support.logging.service.LogSampler;
+import org.edgexfoundry.support.logging.service.LogTailService;
 import org.edgexfoundry.support.logging.service.LoggingService;
+import org.edgexfoundry.support.logging.service.QueryResultCache;
+import org.edgexfoundry.support.logging.service.RepeatCoalescer;
+import org.edgexfoundry.support.logging.template.LogTemplate;
+import org.edgexfoundry.support.logging.template.TemplateMiner;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 @Service
 public class LoggingServiceImpl implements LoggingService {
 
+  // the composite store when logging.persistence writes to several ones
   @Autowired
-  @Qualifier("serviceDAO")
   private LogEntryDAO logEntryDAO;
 
+  @Autowired
+  private LogTailService tailService;
+
+  @Autowired
+  private QueryResultCache queryCache;
+
+  @Autowired
+  @Qualifier(ExecutorConfig.QUERY_EXECUTOR)
+  private Bulkhead queryExecutor;
+
+  @Autowired
+  @Qualifier(ExecutorConfig.DELETE_EXECUTOR)
+  private Bulkhead deleteExecutor;
+
+  @Autowired
+  private IngestLanes ingestLanes;
+
+  @Autowired
+  private LoggingMetrics metrics;
+
+  @Autowired
+  private RepeatCoalescer coalescer;
+
+  @Autowired
+  private TemplateMiner templates;
+
+  @Autowired
+  private LogSampler sampler;
+
+  @Override
+  public boolean addLogEntry(LogEntry entry) {
+    // WARN and ERROR entries never queue behind the other levels, which may be shed when congested
+    return ingestLanes.execute(entry.getLogLevel(), () -> {
+      for (LogEntry target : coalescer.offer(entry)) {
+        for (LogEntry sample : sampler.offer(target)) {
+          save(sample);
+        }
+      }
+    });
+  }
+
   @Override
-  @Async
-  public void addLogEntry(LogEntry entry) {
-    logEntryDAO.save(entry);
+  @Scheduled(fixedDelayString = "${logging.dedup.window:1000}")
+  public void flushRepeats() {
+    // saved on the ingest lanes, not on the scheduler thread shared with the other scheduled tasks
+    for (LogEntry repeated : coalescer.flush(System.currentTimeMillis())) {
+      ingestLanes.dispatch(repeated.getLogLevel(), () -> save(repeated));
+    }
+  }
+
+  @Override
+  @Scheduled(fixedDelayString = "${logging.sampling.window:250}")
+  public void flushSamples() {
+    for (LogEntry sample : sampler.flush(System.currentTimeMillis())) {
+      ingestLanes.dispatch(sample.getLogLevel(), () -> save(sample));
+    }
+  }
+
+  @PreDestroy
+  public void destroy() {
+    for (LogEntry repeated : coalescer.flushAll()) {
+      save(repeated);
+    }
+    for (LogEntry sample : sampler.flushAll()) {
+      save(sample);
+    }
+  }
+
+  private void save(LogEntry entry) {
+    long start = System.nanoTime();
+    boolean saved = logEntryDAO.save(entry);
+    metrics.recordSave(System.nanoTime() - start);
+    if (saved) {
+      templates.learn(entry.getMessage());
+      metrics.saved(entry.getOriginService());
+      queryCache.invalidate(entry);
+      tailService.publish(entry);
+    }
   }
 
   @Override
@@ -49,12 +145,188 @@ public class LoggingServiceImpl implements LoggingService {
 
   @Override
   public List<LogEntry> searchByCriteria(MatchCriteria criteria, int limit) {
-    return logEntryDAO.findByCriteria(criteria, limit);
+    return searchByCriteria(criteria, limit, new QueryContext());
+  }
+
+  @Override
+  public List<LogEntry> searchByCriteria(MatchCriteria criteria, int limit,
+      QueryContext context) {
+    List<LogEntry> result = queryCache.get(criteria, limit);
+    if (null == result) {
+      long generation = queryCache.generation();
+      result = queryExecutor.call(() -> {
+        long start = System.nanoTime();
+        try {
+          return logEntryDAO.findByCriteria(criteria, limit, context);
+        } finally {
+          metrics.recordFind(System.nanoTime() - start);
+        }
+      });
+      // partial results are never cached
+      if (!context.isTruncated()) {
+        queryCache.put(criteria, limit, result, generation);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public List<LogEntry> searchByQuery(CompiledQuery query, int limit) {
+    return searchByQuery(query, limit, new QueryContext());
+  }
+
+  @Override
+  public List<LogEntry> searchByQuery(CompiledQuery query, int limit, QueryContext context) {
+    return queryExecutor.call(() -> {
+      long start = System.nanoTime();
+      try {
+        return logEntryDAO.findByQuery(query, limit, context);
+      } finally {
+        metrics.recordFind(System.nanoTime() - start);
+      }
+    });
   }
 
   @Override
   public List<LogEntry> removeByCriteria(MatchCriteria criteria) {
-    return logEntryDAO.removeByCriteria(criteria);
+    List<LogEntry> removed = deleteExecutor.call(() -> {
+      long start = System.nanoTime();
+      try {
+        return logEntryDAO.removeByCriteria(criteria);
+      } finally {
+        metrics.recordRemove(System.nanoTime() - start);
+      }
+    });
+    queryCache.invalidate(removed);
+    return removed;
+  }
+
+  @Override
+  public CloseableIterator<LogEntry> streamByCriteria(MatchCriteria criteria) {
+    return logEntryDAO.streamByCriteria(criteria);
+  }
+
+  @Override
+  public CloseableIterator<LogEntry> streamByCriteria(MatchCriteria criteria,
+      QueryContext context) {
+    return logEntryDAO.streamByCriteria(criteria, context);
+  }
+
+  @Override
+  public Map<String, Long> countByCriteria(MatchCriteria criteria, MDC_ENUM_CONSTANTS field,
+      long interval) {
+    return queryExecutor.call(() -> logEntryDAO.countByCriteria(criteria, field, interval));
+  }
+
+  @Override
+  public Map<String, Long> countByTemplate(MatchCriteria criteria) {
+    return countByTemplate(criteria, new QueryContext());
+  }
+
+  @Override
+  public Map<String, Long> countByTemplate(MatchCriteria criteria, QueryContext context) {
+    return queryExecutor.call(() -> {
+      // keyed by the template itself, as learning may generalize its text while counting
+      Map<LogTemplate, Long> byTemplate = new HashMap<>();
+      long unmatched = 0L;
+      try (CloseableIterator<LogEntry> entries = logEntryDAO.streamByCriteria(criteria, context)) {
+        while (entries.hasNext()) {
+          if (context.isExpired() || context.isCancelled()) {
+            context.truncate();
+            break;
+          }
+          // messages stored before a restart were never learnt: they seed the miner as counted
+          LogTemplate template = templates.seed(entries.next().getMessage());
+          if (null == template) {
+            unmatched++;
+          } else {
+            byTemplate.merge(template, 1L, Long::sum);
+          }
+        }
+      }
+      Map<String, Long> counts = new HashMap<>();
+      for (Map.Entry<LogTemplate, Long> count : byTemplate.entrySet()) {
+        counts.merge(count.getKey().getTemplate(), count.getValue(), Long::sum);
+      }
+      if (unmatched > 0) {
+        counts.merge(LogTemplate.UNMATCHED, unmatched, Long::sum);
+      }
+      List<Map.Entry<String, Long>> sorted = new ArrayList<>(counts.entrySet());
+      sorted.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+      Map<String, Long> result = new LinkedHashMap<>();
+      for (Map.Entry<String, Long> count : sorted) {
+        result.put(count.getKey(), count.getValue());
+      }
+      return result;
+    });
+  }
+
+  @Override
+  public Map<String, Long> enforceRetention(RetentionPolicy policy, long now) {
+    // queued behind the removals, so both never compete for the store
+    Map<String, Long> dropped =
+        deleteExecutor.call(() -> logEntryDAO.enforceRetention(policy, now));
+    if (dropped.getOrDefault("entries", 0L) > 0 || dropped.getOrDefault("segments", 0L) > 0) {
+      queryCache.clear();
+    }
+    return dropped;
+  }
+
+  @Override
+  public Map<String, Long> getCacheStats() {
+    return queryCache.getStats();
+  }
+
+  @Override
+  public Map<String, Long> getRepeatStats() {
+    return coalescer.getStats();
+  }
+
+  @Override
+  public Map<String, Long> getSamplingStats() {
+    return sampler.getStats();
+  }
+
+  @Override
+  public Map<String, Long> getWarmUpStats() {
+    return logEntryDAO.getWarmUpStats();
+  }
+
+  @Override
+  public void setQuota(ServiceQuota quota) {
+    logEntryDAO.setQuota(quota);
+  }
+
+  @Override
+  public long getUsedBytes(String originService) {
+    return logEntryDAO.getUsedBytes(originService);
+  }
+
+  @Override
+  public Map<String, Map<String, Long>> getUsage() {
+    return logEntryDAO.getUsage();
+  }
+
+  @Override
+  public Map<String, Map<String, Long>> getBackendStats() {
+    return logEntryDAO.getBackendStats();
+  }
+
+  @Override
+  public Map<String, Map<String, Long>> getPoolStats() {
+    Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+    List<Bulkhead> pools = new ArrayList<>(ingestLanes.getPools());
+    pools.add(queryExecutor);
+    pools.add(deleteExecutor);
+    for (Bulkhead pool : pools) {
+      stats.put(pool.getName(), pool.getStats());
+    }
+    return stats;
+  }
+
+  @Override
+  public Map<String, Map<String, Long>> getIngestStats() {
+    return ingestLanes.getStats();
   }
 
 }
@@ -0,0 +1,259 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.edgexfoundry.exception.controller.LimitExceededException;
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.service.LoggingService;
+import org.edgexfoundry.support.logging.service.QueryJob;
+import org.edgexfoundry.support.logging.service.QueryJobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+@Service
+public class QueryJobServiceImpl implements QueryJobService {
+
+  private static final Logger logger = LoggerFactory.getLogger(QueryJobServiceImpl.class);
+
+  private static final String QUERY_JOB = "QueryJob";
+  // number of results spilled between flushes, i.e. made visible to readers
+  private static final int FLUSH_BATCH = 500;
+
+  @Autowired
+  private LoggingService loggingService;
+
+  @Value("${logging.jobs.threads:2}")
+  private int threads = 2;
+
+  @Value("${logging.jobs.queue:8}")
+  private int queueSize = 8;
+
+  @Value("${logging.jobs.max.results:1000000}")
+  private long maxResults = 1000000L;
+
+  // bounds the disk used by the results kept until the TTL expires or the jobs are removed
+  @Value("${logging.jobs.max.retained:32}")
+  private int maxRetained = 32;
+
+  @Value("${logging.jobs.ttl:3600000}")
+  private long ttl = 3600000L;
+
+  @Value("${logging.jobs.dir:}")
+  private String directory = "";
+
+  private final Map<String, JobHandle> jobs = new ConcurrentHashMap<>();
+
+  private ThreadPoolExecutor executor;
+
+  @PostConstruct
+  private void init() {
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("query-job-");
+    threadFactory.setDaemon(true);
+    // a full queue rejects the job instead of running it on the caller's thread
+    executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueSize), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  @PreDestroy
+  private void destroy() {
+    executor.shutdownNow();
+    for (String id : new ArrayList<>(jobs.keySet())) {
+      remove(id);
+    }
+  }
+
+  @Override
+  public QueryJob submit(MatchCriteria criteria) {
+    QueryJob job = new QueryJob(criteria);
+    JobHandle handle;
+    try {
+      handle = new JobHandle(job, new ResultSpillFile(directory.isEmpty() ? null
+          : new File(directory)));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    synchronized (jobs) {
+      if (jobs.size() >= maxRetained) {
+        handle.discard();
+        throw new LimitExceededException(QUERY_JOB);
+      }
+      jobs.put(job.getId(), handle);
+    }
+    try {
+      executor.execute(() -> run(handle));
+    } catch (RejectedExecutionException e) {
+      jobs.remove(job.getId());
+      handle.discard();
+      throw new LimitExceededException(QUERY_JOB);
+    }
+    logger.debug("Query job {} submitted", job.getId());
+    return job;
+  }
+
+  @Override
+  public QueryJob getJob(String id) {
+    JobHandle handle = jobs.get(id);
+    return null == handle ? null : handle.job;
+  }
+
+  @Override
+  public List<QueryJob> getJobs() {
+    List<QueryJob> result = new ArrayList<>();
+    for (JobHandle handle : jobs.values()) {
+      result.add(handle.job);
+    }
+    return result;
+  }
+
+  @Override
+  public List<LogEntry> getResults(String id, long offset, int limit) {
+    JobHandle handle = jobs.get(id);
+    if (null == handle) {
+      return null;
+    }
+    try {
+      return handle.results.read(offset, limit);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public boolean cancel(String id) {
+    JobHandle handle = jobs.get(id);
+    if (null == handle || handle.job.isDone()) {
+      return false;
+    }
+    handle.job.getContext().cancel();
+    return true;
+  }
+
+  @Override
+  public boolean remove(String id) {
+    JobHandle handle = jobs.remove(id);
+    if (null == handle) {
+      return false;
+    }
+    handle.job.getContext().cancel();
+    handle.discard();
+    return true;
+  }
+
+  /**
+   * Discard the jobs done for longer than the TTL along with their results
+   */
+  @Scheduled(fixedRateString = "${logging.jobs.purge.interval:60000}")
+  public void purgeExpired() {
+    long expired = System.currentTimeMillis() - ttl;
+    for (JobHandle handle : jobs.values()) {
+      if (handle.job.isDone() && handle.job.getFinished() < expired) {
+        remove(handle.job.getId());
+      }
+    }
+  }
+
+  private void run(JobHandle handle) {
+    QueryJob job = handle.job;
+    if (job.getContext().isCancelled()) {
+      job.finish(QueryJob.Status.CANCELLED);
+      handle.close();
+      return;
+    }
+    job.start();
+    try (CloseableIterator<LogEntry> entries =
+        loggingService.streamByCriteria(job.getCriteria(), job.getContext())) {
+      while (entries.hasNext()) {
+        if (job.getContext().isCancelled()) {
+          throw new CancellationException();
+        }
+        handle.results.append(entries.next());
+        long matched = job.matched();
+        if (matched % FLUSH_BATCH == 0) {
+          handle.results.flush();
+        }
+        if (matched >= maxResults) {
+          job.truncate();
+          break;
+        }
+      }
+      handle.results.flush();
+      job.finish(QueryJob.Status.COMPLETED);
+    } catch (CancellationException e) {
+      job.finish(QueryJob.Status.CANCELLED);
+    } catch (Exception e) {
+      logger.error("Query job " + job.getId() + " failed", e);
+      job.fail(e.getMessage());
+    } finally {
+      handle.close();
+    }
+    logger.debug("Query job {} {} with {} results", job.getId(), job.getStatus(),
+        job.getMatched());
+  }
+
+  private static final class JobHandle {
+    private final QueryJob job;
+    private final ResultSpillFile results;
+
+    JobHandle(QueryJob job, ResultSpillFile results) {
+      this.job = job;
+      this.results = results;
+    }
+
+    // keeps the results flushed so far readable
+    void close() {
+      try {
+        results.flush();
+        results.close();
+      } catch (IOException e) {
+        logger.debug("Query job {} results not closed: {}", job.getId(), e.getMessage());
+      }
+    }
+
+    void discard() {
+      try {
+        results.delete();
+      } catch (IOException e) {
+        logger.error("Query job " + job.getId() + " results not deleted", e);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.service.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.logging.dao.ServiceQuota;
+import org.edgexfoundry.support.logging.dao.ServiceUsage;
+import org.edgexfoundry.support.logging.service.LoggingService;
+import org.edgexfoundry.support.logging.service.QuotaExceededException;
+import org.edgexfoundry.support.logging.service.QuotaService;
+import org.edgexfoundry.support.logging.service.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+@Service
+public class QuotaServiceImpl implements QuotaService {
+
+  private static final Logger logger = LoggerFactory.getLogger(QuotaServiceImpl.class);
+
+  public static final String RATE = "rate";
+  public static final String THROTTLED = "throttled";
+  public static final String REJECTED = "rejected";
+  // originServices beyond logging.ratelimit.max.services share the rate limit and counters kept
+  // under this key
+  private static final String OVERFLOW = "";
+
+  @Autowired
+  private LoggingService loggingService;
+
+  // logEntries per second each originService may send, 0 for no limit
+  @Value("${logging.ratelimit.rate:0}")
+  private double rate = 0;
+
+  @Value("${logging.ratelimit.burst:100}")
+  private int burst = 100;
+
+  // per originService override of logging.ratelimit.rate, as originService:rate pairs
+  @Value("${logging.ratelimit.services:}")
+  private String serviceRates = "";
+
+  @Value("${logging.ratelimit.max.services:1000}")
+  private int maxServices = 1000;
+
+  @Value("${logging.quota.max.bytes:0}")
+  private long maxBytes = 0L;
+
+  // per originService override of logging.quota.max.bytes, as originService:bytes pairs
+  @Value("${logging.quota.services:}")
+  private String serviceMaxBytes = "";
+
+  private final ServiceQuota quota = new ServiceQuota();
+  private final Map<String, Double> rates = new ConcurrentHashMap<>();
+  private final Map<String, RateLimiter> limiters = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> throttled = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> rejected = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  private void init() {
+    for (Map.Entry<String, String> override : parse(serviceRates).entrySet()) {
+      rates.put(override.getKey(), Double.valueOf(override.getValue()));
+    }
+    quota.setMaxBytes(maxBytes);
+    for (Map.Entry<String, String> override : parse(serviceMaxBytes).entrySet()) {
+      quota.setMaxBytes(override.getKey(), Long.parseLong(override.getValue()));
+    }
+    loggingService.setQuota(quota);
+  }
+
+  /**
+   * @param pairs - comma separated originService:value pairs
+   * @return values by originService
+   */
+  private static Map<String, String> parse(String pairs) {
+    Map<String, String> result = new LinkedHashMap<>();
+    if (null == pairs) {
+      return result;
+    }
+    for (String pair : pairs.split(",")) {
+      int separator = pair.lastIndexOf(':');
+      if (separator > 0) {
+        result.put(pair.substring(0, separator).trim(), pair.substring(separator + 1).trim());
+      } else if (!pair.trim().isEmpty()) {
+        logger.warn("Ignoring malformed originService:value pair {}", pair);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public ServiceQuota getQuota() {
+    return quota;
+  }
+
+  @Override
+  public void admit(LogEntry entry) {
+    String service = ServiceUsage.keyOf(entry.getOriginService());
+    String key = keyOf(service, limiters);
+    RateLimiter limiter = limiter(service, key);
+    if (null != limiter) {
+      long wait = limiter.tryAcquire(System.nanoTime());
+      if (wait > 0) {
+        throttled.computeIfAbsent(key, k -> new LongAdder()).increment();
+        throw new QuotaExceededException("originService " + service
+            + " exceeds its rate limit of " + limiter.getRate() + " logEntries per second",
+            TimeUnit.NANOSECONDS.toMillis(wait) + 1);
+      }
+    }
+    if (quota.isEnabled()) {
+      long used = loggingService.getUsedBytes(entry.getOriginService());
+      if (quota.isExceeded(service, used)) {
+        rejected.computeIfAbsent(keyOf(service, rejected), k -> new LongAdder()).increment();
+        throw new QuotaExceededException("originService " + service
+            + " took its storage quota of " + quota.getMaxBytes(service) + " bytes", 0L);
+      }
+    }
+  }
+
+  /**
+   * @param service
+   * @param state - rate limiters or counters per originService
+   * @return the originService itself, or OVERFLOW once the state holds
+   *         logging.ratelimit.max.services others and the originService has no rate of its own, so
+   *         clients can't grow it without bound by making up originServices
+   */
+  private String keyOf(String service, Map<String, ?> state) {
+    if (state.containsKey(service) || rates.containsKey(service) || state.size() < maxServices) {
+      return service;
+    }
+    return OVERFLOW;
+  }
+
+  /**
+   * @param service
+   * @param key - key of the originService in the rate limiters
+   * @return the rate limiter of the originService, null if it has no limit
+   */
+  private RateLimiter limiter(String service, String key) {
+    double limit = rateOf(service);
+    if (limit <= 0) {
+      return null;
+    }
+    return limiters.computeIfAbsent(key, k -> new RateLimiter(rateOf(k), burst));
+  }
+
+  private double rateOf(String service) {
+    Double result = rates.get(service);
+    return null == result ? rate : result;
+  }
+
+  @Override
+  public Map<String, Map<String, Long>> getUsage() {
+    Map<String, Map<String, Long>> result = new TreeMap<>(loggingService.getUsage());
+    for (String service : limiters.keySet()) {
+      if (!OVERFLOW.equals(service)) {
+        result.computeIfAbsent(service, k -> new LinkedHashMap<>());
+      }
+    }
+    for (String service : throttled.keySet()) {
+      if (!OVERFLOW.equals(service)) {
+        result.computeIfAbsent(service, k -> new LinkedHashMap<>());
+      }
+    }
+    for (String service : rejected.keySet()) {
+      if (!OVERFLOW.equals(service)) {
+        result.computeIfAbsent(service, k -> new LinkedHashMap<>());
+      }
+    }
+    for (Map.Entry<String, Map<String, Long>> service : result.entrySet()) {
+      Map<String, Long> usage = new LinkedHashMap<>(service.getValue());
+      usage.putIfAbsent(ServiceUsage.ENTRIES, 0L);
+      usage.putIfAbsent(ServiceUsage.BYTES, 0L);
+      usage.put(RATE, Math.round(rateOf(service.getKey())));
+      usage.put(THROTTLED, sum(throttled, service.getKey()));
+      usage.put(REJECTED, sum(rejected, service.getKey()));
+      service.setValue(usage);
+    }
+    return result;
+  }
+
+  @Override
+  public Map<String, Long> getStats() {
+    Map<String, Long> stats = new LinkedHashMap<>();
+    stats.put(THROTTLED, sum(throttled));
+    stats.put(REJECTED, sum(rejected));
+    return stats;
+  }
+
+  private static long sum(Map<String, LongAdder> counters, String service) {
+    LongAdder counter = counters.get(service);
+    return null == counter ? 0L : counter.sum();
+  }
+
+  private static long sum(Map<String, LongAdder> counters) {
+    long result = 0L;
+    for (LongAdder counter : counters.values()) {
+      result += counter.sum();
+    }
+    return result;
+  }
+
+}
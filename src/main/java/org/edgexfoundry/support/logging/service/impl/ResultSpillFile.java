@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.logging.dao.RepeatedLogEntry;
+import org.edgexfoundry.support.logging.dao.SampledLogEntry;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Append-only temp file holding the results of a query job as newline delimited JSON, so the heap
+ * used by a job doesn't grow with its result size. The byte offset of every CHECKPOINT-th entry is
+ * kept in memory, so a page is read by seeking to the closest checkpoint and skipping at most
+ * CHECKPOINT - 1 lines.
+ *
+ * A single thread appends while others read pages concurrently; readers only see the entries
+ * written up to the last flush, and don't hold the lock while reading the file.
+ */
+class ResultSpillFile implements Closeable {
+
+  static final int CHECKPOINT = 1000;
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final String REPEAT_COUNT = "repeatCount";
+
+  private final File file;
+  private final OutputStream out;
+  // all guarded by this except flushed
+  private final List<Long> checkpoints = new ArrayList<>();
+  private long position;
+  private long written;
+  private volatile long flushed;
+
+  ResultSpillFile(File directory) throws IOException {
+    // deleted by delete, when the job is removed or the service shuts down, not deleteOnExit
+    // which keeps the path of every job ever run until the JVM exits
+    file = File.createTempFile("edgex-logging-job-", ".ndjson", directory);
+    try {
+      out = new BufferedOutputStream(new FileOutputStream(file));
+    } catch (IOException e) {
+      Files.deleteIfExists(file.toPath());
+      throw e;
+    }
+  }
+
+  synchronized void append(LogEntry entry) throws IOException {
+    byte[] bytes = MAPPER.writeValueAsBytes(entry);
+    if (written % CHECKPOINT == 0) {
+      checkpoints.add(position);
+    }
+    out.write(bytes);
+    out.write('\n');
+    position += bytes.length + 1;
+    written++;
+  }
+
+  synchronized void flush() throws IOException {
+    out.flush();
+    flushed = written;
+  }
+
+  /**
+   * @return number of entries readable
+   */
+  long size() {
+    return flushed;
+  }
+
+  /**
+   * Read a page of the flushed entries
+   *
+   * @param offset - index of the first entry to read
+   * @param limit - maximum number of entries to read
+   * @return the entries read, empty when offset is past the flushed entries
+   */
+  List<LogEntry> read(long offset, int limit) throws IOException {
+    List<LogEntry> result = new ArrayList<>();
+    long available = Math.min((long) limit, flushed - offset);
+    if (offset < 0 || available <= 0) {
+      return result;
+    }
+    long checkpoint;
+    synchronized (this) {
+      checkpoint = checkpoints.get((int) (offset / CHECKPOINT));
+    }
+    try (FileInputStream in = new FileInputStream(file)) {
+      in.getChannel().position(checkpoint);
+      BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+      for (long skip = offset % CHECKPOINT; skip > 0; skip--) {
+        reader.readLine();
+      }
+      for (long i = 0; i < available; i++) {
+        JsonNode node = MAPPER.readTree(reader.readLine());
+        Class<? extends LogEntry> type = node.has(REPEAT_COUNT) ? RepeatedLogEntry.class
+            : node.has(SampledLogEntry.SAMPLE_WEIGHT) ? SampledLogEntry.class : LogEntry.class;
+        result.add(MAPPER.treeToValue(node, type));
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    out.close();
+  }
+
+  synchronized void delete() throws IOException {
+    close();
+    Files.deleteIfExists(file.toPath());
+  }
+
+}
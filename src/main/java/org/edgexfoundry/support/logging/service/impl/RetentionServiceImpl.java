@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.service.impl;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+
+import org.edgexfoundry.exception.controller.LimitExceededException;
+import org.edgexfoundry.support.logging.dao.RetentionPolicy;
+import org.edgexfoundry.support.logging.service.LoggingService;
+import org.edgexfoundry.support.logging.service.RetentionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+public class RetentionServiceImpl implements RetentionService {
+
+  private static final Logger logger = LoggerFactory.getLogger(RetentionServiceImpl.class);
+
+  private static final String RUNS = "runs";
+  private static final String LAST_MS = "last.ms";
+
+  @Autowired
+  private LoggingService loggingService;
+
+  @Value("${logging.retention.max.age:0}")
+  private long maxAge = 0L;
+
+  // negative to keep the levels as long as logging.retention.max.age
+  @Value("${logging.retention.max.age.trace:-1}")
+  private long traceMaxAge = -1L;
+
+  @Value("${logging.retention.max.age.debug:-1}")
+  private long debugMaxAge = -1L;
+
+  @Value("${logging.retention.max.age.info:-1}")
+  private long infoMaxAge = -1L;
+
+  @Value("${logging.retention.max.age.warn:-1}")
+  private long warnMaxAge = -1L;
+
+  @Value("${logging.retention.max.age.error:-1}")
+  private long errorMaxAge = -1L;
+
+  @Value("${logging.retention.max.bytes:0}")
+  private long maxBytes = 0L;
+
+  private final RetentionPolicy policy = new RetentionPolicy();
+  // totals of what the runs dropped, keyed by the names the store reports them under
+  private final Map<String, LongAdder> totals = new ConcurrentHashMap<>();
+  private volatile long lastMillis;
+
+  @PostConstruct
+  private void init() {
+    policy.setMaxAge(maxAge);
+    policy.setMaxAge(Level.TRACE, traceMaxAge);
+    policy.setMaxAge(Level.DEBUG, debugMaxAge);
+    policy.setMaxAge(Level.INFO, infoMaxAge);
+    policy.setMaxAge(Level.WARN, warnMaxAge);
+    policy.setMaxAge(Level.ERROR, errorMaxAge);
+    policy.setMaxBytes(maxBytes);
+  }
+
+  @Override
+  public RetentionPolicy getPolicy() {
+    return policy;
+  }
+
+  @Override
+  @Scheduled(initialDelayString = "${logging.retention.interval:3600000}",
+      fixedDelayString = "${logging.retention.interval:3600000}")
+  public Map<String, Long> enforce() {
+    if (!policy.isEnabled()) {
+      return Collections.emptyMap();
+    }
+    long start = System.nanoTime();
+    Map<String, Long> dropped;
+    try {
+      dropped = loggingService.enforceRetention(policy, System.currentTimeMillis());
+    } catch (LimitExceededException e) {
+      logger.warn("Retention skipped, the delete pool is saturated");
+      return Collections.emptyMap();
+    }
+    lastMillis = (System.nanoTime() - start) / 1000000L;
+    totals.computeIfAbsent(RUNS, key -> new LongAdder()).increment();
+    for (Map.Entry<String, Long> stat : dropped.entrySet()) {
+      totals.computeIfAbsent(stat.getKey(), key -> new LongAdder()).add(stat.getValue());
+    }
+    logger.info("Retention dropped {} in {}ms", dropped, lastMillis);
+    return dropped;
+  }
+
+  @Override
+  public Map<String, Long> getStats() {
+    Map<String, Long> stats = new LinkedHashMap<>();
+    for (Map.Entry<String, LongAdder> total : totals.entrySet()) {
+      stats.put(total.getKey(), total.getValue().sum());
+    }
+    stats.put(LAST_MS, lastMillis);
+    return stats;
+  }
+
+}
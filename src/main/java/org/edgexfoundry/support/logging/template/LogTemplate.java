@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.template;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A message pattern mined by TemplateMiner: the tokens of the messages it stands for, with
+ * WILDCARD where they differ. Its text and size can be read at any time, but extract and format
+ * read its tokens unguarded, so they are meant for a miner done learning, e.g. once a batch of
+ * messages was learnt.
+ */
+public class LogTemplate {
+
+  public static final String WILDCARD = "<*>";
+  // stands for the messages no template could be learnt for
+  public static final String UNMATCHED = "<unmatched>";
+
+  private final int id;
+  private final String[] tokens;
+  private final LongAdder size = new LongAdder();
+  private volatile String template;
+
+  LogTemplate(int id, String[] tokens) {
+    this.id = id;
+    this.tokens = tokens.clone();
+    this.template = String.join(TemplateMiner.SEPARATOR, this.tokens);
+    size.increment();
+  }
+
+  /**
+   * @return number of the template in the order the miner found them, from 0
+   */
+  public int getId() {
+    return id;
+  }
+
+  /**
+   * @return tokens joined by a space, WILDCARD standing for the parameters
+   */
+  public String getTemplate() {
+    return template;
+  }
+
+  /**
+   * @return number of messages learnt with this template
+   */
+  public long getSize() {
+    return size.sum();
+  }
+
+  /**
+   * @return number of parameters of the messages, i.e. of WILDCARD tokens
+   */
+  public int getParameterCount() {
+    int count = 0;
+    for (String token : tokens) {
+      if (WILDCARD.equals(token)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Extract the parameters of a message this template covers
+   *
+   * @param message
+   * @return the tokens of the message in place of the WILDCARD ones, in order
+   * @throws IllegalArgumentException if the template doesn't cover the message
+   */
+  public String[] extract(String message) {
+    String[] values = TemplateMiner.tokenize(message);
+    if (!covers(values)) {
+      throw new IllegalArgumentException("Template " + template + " doesn't cover " + message);
+    }
+    String[] params = new String[getParameterCount()];
+    for (int i = 0, param = 0; i < tokens.length; i++) {
+      if (WILDCARD.equals(tokens[i])) {
+        params[param++] = values[i];
+      }
+    }
+    return params;
+  }
+
+  /**
+   * Rebuild a message from its parameters, the reverse of extract
+   *
+   * @param params
+   * @return the message
+   */
+  public String format(String[] params) {
+    StringBuilder message = new StringBuilder();
+    for (int i = 0, param = 0; i < tokens.length; i++) {
+      if (i > 0) {
+        message.append(TemplateMiner.SEPARATOR);
+      }
+      message.append(WILDCARD.equals(tokens[i]) ? params[param++] : tokens[i]);
+    }
+    return message.toString();
+  }
+
+  /**
+   * @return true if every token of the template is either WILDCARD or the token of the message
+   */
+  boolean covers(String[] values) {
+    if (values.length != tokens.length) {
+      return false;
+    }
+    for (int i = 0; i < tokens.length; i++) {
+      if (!WILDCARD.equals(tokens[i]) && !tokens[i].equals(values[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return share of the tokens of the message equal to those of the template, WILDCARD excluded
+   */
+  double similarity(String[] values) {
+    int same = 0;
+    for (int i = 0; i < tokens.length; i++) {
+      if (tokens[i].equals(values[i]) && !WILDCARD.equals(tokens[i])) {
+        same++;
+      }
+    }
+    return (double) same / tokens.length;
+  }
+
+  // call under the write lock of the miner
+  void merge(String[] values) {
+    boolean changed = false;
+    for (int i = 0; i < tokens.length; i++) {
+      if (!WILDCARD.equals(tokens[i]) && !tokens[i].equals(values[i])) {
+        tokens[i] = WILDCARD;
+        changed = true;
+      }
+    }
+    if (changed) {
+      template = String.join(TemplateMiner.SEPARATOR, tokens);
+    }
+    size.increment();
+  }
+
+  void seen() {
+    size.increment();
+  }
+
+  @Override
+  public String toString() {
+    return "LogTemplate [id=" + id + ", template=" + template + ", size=" + getSize() + "]";
+  }
+
+}
@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.template;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Online extraction of message templates, after the Drain algorithm: messages are split into
+ * tokens on spaces, then routed down a fixed depth tree by their number of tokens and their first
+ * tokens (tokens holding digits take the WILDCARD branch, as do tokens past maxChildren branches).
+ * Among the templates of the leaf reached, the message joins the most similar one if at least
+ * similarity of their tokens are equal, turning the tokens that differ into WILDCARD; otherwise it
+ * starts a new template.
+ *
+ * Most messages fit a template as it is, so learning first looks up the tree under a shared lock
+ * and only takes the exclusive lock to create or generalize a template. At most maxTemplates are
+ * kept; past that, new patterns are not learnt.
+ */
+@Component
+public class TemplateMiner {
+
+  static final String SEPARATOR = " ";
+
+  @Value("${logging.templates.depth:4}")
+  private int depth = 4;
+
+  @Value("${logging.templates.similarity:0.4}")
+  private double similarity = 0.4;
+
+  @Value("${logging.templates.max.children:100}")
+  private int maxChildren = 100;
+
+  @Value("${logging.templates.max:5000}")
+  private int maxTemplates = 5000;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  // guarded by lock
+  private final Map<Integer, Node> byLength = new HashMap<>();
+  // guarded by lock
+  private final List<LogTemplate> templates = new ArrayList<>();
+
+  /**
+   * Split a message into its tokens. Splitting on every single space keeps empty tokens, so
+   * joining the tokens with a space gives the message back.
+   *
+   * @param message
+   * @return tokens of the message
+   */
+  public static String[] tokenize(String message) {
+    return message.split(SEPARATOR, -1);
+  }
+
+  /**
+   * Learn a message: count it in the template it fits, generalizing the template if needed, or
+   * start a new template
+   *
+   * @param message
+   * @return the template of the message, null if the message is null or would start a template
+   *         past maxTemplates
+   */
+  public LogTemplate learn(String message) {
+    return learn(message, true);
+  }
+
+  /**
+   * Learn a message that may have been learnt before, such as one read back from the store after a
+   * restart: same as learn, except that a message the template fits as it is isn't counted again
+   *
+   * @param message
+   * @return the template of the message, null if the message is null or would start a template
+   *         past maxTemplates
+   */
+  public LogTemplate seed(String message) {
+    return learn(message, false);
+  }
+
+  private LogTemplate learn(String message, boolean count) {
+    if (null == message || maxTemplates <= 0) {
+      return null;
+    }
+    String[] tokens = tokenize(message);
+    lock.readLock().lock();
+    try {
+      LogTemplate template = search(tokens);
+      if (null != template && template.covers(tokens)) {
+        if (count) {
+          template.seen();
+        }
+        return template;
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    lock.writeLock().lock();
+    try {
+      LogTemplate template = search(tokens);
+      if (null != template) {
+        template.merge(tokens);
+        return template;
+      }
+      if (templates.size() >= maxTemplates) {
+        return null;
+      }
+      template = new LogTemplate(templates.size(), tokens);
+      templates.add(template);
+      leaf(tokens).templates.add(template);
+      return template;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Find the template of a message without learning it
+   *
+   * @param message
+   * @return the template the message would join, null if none
+   */
+  public LogTemplate match(String message) {
+    if (null == message) {
+      return null;
+    }
+    lock.readLock().lock();
+    try {
+      return search(tokenize(message));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return the templates learnt so far, in the order they were found
+   */
+  public List<LogTemplate> getTemplates() {
+    lock.readLock().lock();
+    try {
+      return Collections.unmodifiableList(new ArrayList<>(templates));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  // call under the lock
+  private LogTemplate search(String[] tokens) {
+    Node node = byLength.get(tokens.length);
+    for (int level = 0; null != node && level < prefixDepth(tokens); level++) {
+      Node child = node.children.get(tokens[level]);
+      node = null != child ? child : node.children.get(LogTemplate.WILDCARD);
+    }
+    if (null == node) {
+      return null;
+    }
+    LogTemplate best = null;
+    double bestSimilarity = -1;
+    for (LogTemplate template : node.templates) {
+      double current = template.similarity(tokens);
+      if (current > bestSimilarity) {
+        best = template;
+        bestSimilarity = current;
+      }
+    }
+    return bestSimilarity >= similarity ? best : null;
+  }
+
+  // call under the write lock
+  private Node leaf(String[] tokens) {
+    Node node = byLength.computeIfAbsent(tokens.length, length -> new Node());
+    for (int level = 0; level < prefixDepth(tokens); level++) {
+      String token = hasDigit(tokens[level]) ? LogTemplate.WILDCARD : tokens[level];
+      Node child = node.children.get(token);
+      if (null == child) {
+        if (!LogTemplate.WILDCARD.equals(token) && node.children.size() >= maxChildren) {
+          token = LogTemplate.WILDCARD;
+          child = node.children.get(token);
+        }
+        if (null == child) {
+          child = new Node();
+          node.children.put(token, child);
+        }
+      }
+      node = child;
+    }
+    return node;
+  }
+
+  /**
+   * The first layer of the tree is the number of tokens and the last one the templates, so the
+   * tokens route the messages through depth - 2 layers at most
+   */
+  private int prefixDepth(String[] tokens) {
+    return Math.min(Math.max(depth - 2, 0), tokens.length);
+  }
+
+  private static boolean hasDigit(String token) {
+    for (int i = 0; i < token.length(); i++) {
+      if (Character.isDigit(token.charAt(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static final class Node {
+
+    private final Map<String, Node> children = new HashMap<>();
+    private final List<LogTemplate> templates = new ArrayList<>();
+
+  }
+
+}
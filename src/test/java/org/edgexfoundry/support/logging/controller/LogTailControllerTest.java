@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+
+import org.edgexfoundry.exception.controller.LimitExceededException;
+import org.edgexfoundry.exception.controller.ServiceException;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.controller.impl.LogTailControllerImpl;
+import org.edgexfoundry.support.logging.service.LogTailService;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@Category(RequiresNone.class)
+public class LogTailControllerTest {
+
+  @InjectMocks
+  private LogTailControllerImpl controller;
+
+  @Mock
+  private LogTailService service;
+
+  @Before
+  public void setup() {
+    MockitoAnnotations.initMocks(this);
+  }
+
+  @Test
+  public void testTail() {
+    MatchCriteria criteria = new MatchCriteria();
+    SseEmitter emitter = new SseEmitter();
+    when(service.subscribe(criteria)).thenReturn(emitter);
+    assertEquals("Emitter not returned", emitter, controller.tail(criteria));
+  }
+
+  @Test(expected = LimitExceededException.class)
+  public void testTailTooManySubscribers() {
+    MatchCriteria criteria = new MatchCriteria();
+    when(service.subscribe(criteria)).thenThrow(new LimitExceededException("TailSubscription"));
+    controller.tail(criteria);
+  }
+
+  @Test(expected = ServiceException.class)
+  public void testTailException() {
+    MatchCriteria criteria = new MatchCriteria();
+    when(service.subscribe(criteria)).thenThrow(new RuntimeException());
+    controller.tail(criteria);
+  }
+
+  @Test
+  public void testGetSubscriptions() {
+    when(service.getSubscriptions()).thenReturn(new ArrayList<>());
+    assertTrue("Subscriptions returned", controller.getSubscriptions().isEmpty());
+  }
+
+  @Test(expected = ServiceException.class)
+  public void testGetSubscriptionsException() {
+    when(service.getSubscriptions()).thenThrow(new RuntimeException());
+    controller.getSubscriptions();
+  }
+
+}
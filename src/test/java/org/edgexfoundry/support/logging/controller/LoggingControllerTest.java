@@ -19,16 +19,43 @@
 package org.edgexfoundry.support.logging.controller;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
-
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
+import org.edgexfoundry.exception.controller.DataValidationException;
 import org.edgexfoundry.exception.controller.LimitExceededException;
 import org.edgexfoundry.exception.controller.ServiceException;
 import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
 import org.edgexfoundry.support.logging.controller.impl.LoggingControllerImpl;
+import org.edgexfoundry.support.logging.dao.MDC_ENUM_CONSTANTS;
+import org.edgexfoundry.support.logging.dao.QueryContext;
+import org.edgexfoundry.support.logging.metrics.LoggingMetrics;
+import org.edgexfoundry.support.logging.query.CompiledQuery;
+import org.edgexfoundry.support.logging.query.LogQuery;
+import org.edgexfoundry.support.logging.query.QueryOperator;
 import org.edgexfoundry.support.logging.service.LoggingService;
+import org.edgexfoundry.support.logging.service.QuotaExceededException;
+import org.edgexfoundry.support.logging.service.QuotaService;
 import org.edgexfoundry.test.category.RequiresNone;
 import org.junit.Before;
 import org.junit.Test;
@@ -38,8 +65,15 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.slf4j.event.Level;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 @Category(RequiresNone.class)
 public class LoggingControllerTest {
@@ -58,8 +92,14 @@ public class LoggingControllerTest {
   @Mock
   private LoggingService s;
 
+  @Mock
+  private LoggingMetrics metrics;
+
+  @Mock
+  private QuotaService quotas;
+
   @Value("${read.max.limit:100}")
-  private int maxLimit;
+  private int maxLimit = 100;
 
   @Before
   public void setup() {
@@ -69,12 +109,47 @@ public class LoggingControllerTest {
   @Test
   public void testAddLogEntry() {
     LogEntry entry = buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    when(s.addLogEntry(entry)).thenReturn(true);
     ResponseEntity<?> entity = l.addLogEntry(entry);
     HttpStatus status = entity.getStatusCode();
     assertNotNull("HttpStatus is null.", status);
     assertTrue("HttpStatus is not 2xx.", status.is2xxSuccessful());
     Long accepted = (Long) entity.getBody();
     assertTrue("accepted timestamp is zero or less.", accepted > 0);
+    verify(metrics).accepted();
+  }
+
+  @Test
+  public void testAddLogEntryShed() {
+    LogEntry entry = buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    when(s.addLogEntry(entry)).thenReturn(false);
+    ResponseEntity<?> entity = l.addLogEntry(entry);
+    assertEquals("Wrong status", HttpStatus.SERVICE_UNAVAILABLE, entity.getStatusCode());
+    assertEquals("Wrong retry delay", "1", entity.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    verify(metrics, never()).accepted();
+  }
+
+  @Test
+  public void testAddLogEntryRateLimited() {
+    LogEntry entry = buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    doThrow(new QuotaExceededException("rate limit", 1500L)).when(quotas).admit(entry);
+    ResponseEntity<?> entity = l.addLogEntry(entry);
+    assertEquals("Wrong status", HttpStatus.TOO_MANY_REQUESTS, entity.getStatusCode());
+    assertEquals("Wrong retry delay", "2", entity.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    verify(s, never()).addLogEntry(entry);
+    verify(metrics, never()).accepted();
+  }
+
+  @Test
+  public void testAddLogEntryOverQuota() {
+    LogEntry entry = buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    doThrow(new QuotaExceededException("storage quota", 0L)).when(quotas).admit(entry);
+    ResponseEntity<?> entity = l.addLogEntry(entry);
+    assertEquals("Wrong status", HttpStatus.TOO_MANY_REQUESTS, entity.getStatusCode());
+    assertEquals("Wrong reason", "storage quota", entity.getBody());
+    assertFalse("Retry delay over the quota",
+        entity.getHeaders().containsKey(HttpHeaders.RETRY_AFTER));
+    verify(s, never()).addLogEntry(entry);
   }
 
   @Test(expected = ServiceException.class)
@@ -369,6 +444,276 @@ public class LoggingControllerTest {
         TEST_LABELS, TEST_KEYWORDS, 0, Long.MAX_VALUE);
   }
 
+  @Test
+  public void testExportLogEntries() throws Exception {
+    LogEntry entry = buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    when(s.streamByCriteria(any(MatchCriteria.class)))
+        .thenReturn(toCloseableIterator(Arrays.asList(entry, entry, entry)));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    l.exportLogEntries(new MatchCriteria(), false, response);
+    assertEquals("Export did not write one line per logEntry", 3,
+        countLines(response.getContentAsByteArray(), false));
+    String content = response.getContentAsString();
+    assertTrue("Exported line is not a logEntry",
+        content.startsWith("{") && content.contains(TEST_MSG));
+  }
+
+  @Test
+  public void testExportLogEntriesGzip() throws Exception {
+    LogEntry entry = buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    when(s.streamByCriteria(any(MatchCriteria.class)))
+        .thenReturn(toCloseableIterator(Arrays.asList(entry, entry)));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    l.exportLogEntries(new MatchCriteria(), true, response);
+    assertEquals("Expected gzip content encoding", "gzip",
+        response.getHeader("Content-Encoding"));
+    assertEquals("Export did not write one line per logEntry", 2,
+        countLines(response.getContentAsByteArray(), true));
+  }
+
+  @Test(expected = ServiceException.class)
+  public void testExportLogEntriesNoService() {
+    // create logging controller with out injected service
+    l = new LoggingControllerImpl();
+    l.exportLogEntries(new MatchCriteria(), false, new MockHttpServletResponse());
+  }
+
+  @Test
+  public void testCountLogEntriesByLogLevels() {
+    assertTrue("Expected no counts",
+        l.countLogEntriesByLogLevels(new MatchCriteria()).isEmpty());
+  }
+
+  @Test(expected = ServiceException.class)
+  public void testCountLogEntriesByLogLevelsNoService() {
+    // create logging controller with out injected service
+    l = new LoggingControllerImpl();
+    l.countLogEntriesByLogLevels(new MatchCriteria());
+  }
+
+  @Test
+  public void testCountLogEntriesByOriginServices() {
+    assertTrue("Expected no counts",
+        l.countLogEntriesByOriginServices(new MatchCriteria()).isEmpty());
+  }
+
+  @Test
+  public void testCountLogEntriesByLabels() {
+    assertTrue("Expected no counts", l.countLogEntriesByLabels(new MatchCriteria()).isEmpty());
+  }
+
+  @Test
+  public void testCountLogEntriesByTemplates() {
+    Map<String, Long> counts = new LinkedHashMap<>();
+    counts.put("Reading <*> out of range", 3L);
+    MatchCriteria criteria = new MatchCriteria();
+    when(s.countByTemplate(eq(criteria), any(QueryContext.class))).thenReturn(counts);
+    assertEquals("Template counts not returned", counts, l.countLogEntriesByTemplates(criteria));
+  }
+
+  @Test(expected = GatewayTimeoutException.class)
+  public void testCountLogEntriesByTemplatesTruncatedWithoutPartialResults() throws Exception {
+    Field field = LoggingControllerImpl.class.getDeclaredField("partialResults");
+    field.setAccessible(true);
+    field.set(l, false);
+    when(s.countByTemplate(any(MatchCriteria.class), any(QueryContext.class)))
+        .thenAnswer(invocation -> {
+          ((QueryContext) invocation.getArguments()[1]).truncate();
+          return new LinkedHashMap<>();
+        });
+    l.countLogEntriesByTemplates(new MatchCriteria());
+  }
+
+  @Test(expected = ServiceException.class)
+  public void testCountLogEntriesByTemplatesNoService() {
+    l = new LoggingControllerImpl();
+    l.countLogEntriesByTemplates(new MatchCriteria());
+  }
+
+  @Test
+  public void testCountLogEntriesByTime() {
+    MatchCriteria criteria = new MatchCriteria();
+    criteria.setStart(1);
+    criteria.setEnd(86400000L);
+    assertTrue("Expected no counts", l.countLogEntriesByTime(60000L, criteria).isEmpty());
+  }
+
+  @Test(expected = DataValidationException.class)
+  public void testCountLogEntriesByTimeBadInterval() {
+    l.countLogEntriesByTime(0, new MatchCriteria());
+  }
+
+  @Test(expected = LimitExceededException.class)
+  public void testCountLogEntriesByTimeTooManyBuckets() {
+    // default max of 10000 buckets
+    l = new LoggingControllerImpl();
+    MatchCriteria criteria = new MatchCriteria();
+    criteria.setStart(1);
+    criteria.setEnd(86400000L);
+    l.countLogEntriesByTime(1000L, criteria);
+  }
+
+  @Test(expected = LimitExceededException.class)
+  public void testCountLogEntriesByTimeWithoutEndTooManyBuckets() {
+    l = new LoggingControllerImpl();
+    MatchCriteria criteria = new MatchCriteria();
+    // up to now, a day spans more than 10000 buckets of a second
+    criteria.setStart(System.currentTimeMillis() - 86400000L);
+    l.countLogEntriesByTime(1000L, criteria);
+  }
+
+  @Test(expected = LimitExceededException.class)
+  public void testCountLogEntriesByTimeWithoutStartTooManyBuckets() {
+    Map<String, Long> counts = new HashMap<>();
+    for (long i = 0; i <= 10000; i++) {
+      counts.put(String.valueOf(i * 1000L), 1L);
+    }
+    when(s.countByCriteria(any(MatchCriteria.class), eq(MDC_ENUM_CONSTANTS.CREATED), eq(1000L)))
+        .thenReturn(counts);
+    l.countLogEntriesByTime(1000L, new MatchCriteria());
+  }
+
+  @Test
+  public void testGetCacheStats() {
+    Map<String, Long> stats = new HashMap<>();
+    stats.put("hits", 1L);
+    when(s.getCacheStats()).thenReturn(stats);
+    assertEquals("Cache statistics not returned", stats, l.getCacheStats());
+  }
+
+  @Test(expected = ServiceException.class)
+  public void testGetCacheStatsNoService() {
+    l = new LoggingControllerImpl();
+    l.getCacheStats();
+  }
+
+  @Test
+  public void testGetPoolStats() {
+    l.getPoolStats();
+  }
+
+  @Test(expected = ServiceException.class)
+  public void testGetPoolStatsNoService() {
+    l = new LoggingControllerImpl();
+    l.getPoolStats();
+  }
+
+  @Test(expected = LimitExceededException.class)
+  public void testSearchLogEntriesPoolSaturated() {
+    when(s.searchByQuery(any(CompiledQuery.class), any(Integer.class), any(QueryContext.class)))
+        .thenThrow(new LimitExceededException("query"));
+    l.searchLogEntries(new LogQuery(QueryOperator.CONTAINS, "message", "time"), maxLimit);
+  }
+
+  @Test
+  public void testSearchLogEntries() {
+    LogQuery query = LogQuery.and(LogQuery.in("logLevel", "WARN", "ERROR"),
+        new LogQuery(QueryOperator.PREFIX, "originService", "core-"));
+    List<LogEntry> entries = l.searchLogEntries(query, maxLimit);
+    assertEquals("Expect 0 but got " + entries.size() + " logEntries.", entries.size(), 0);
+  }
+
+  @Test
+  public void testSearchLogEntriesDefaultLimit() {
+    List<LogEntry> entries =
+        l.searchLogEntries(new LogQuery(QueryOperator.CONTAINS, "message", "time"), null);
+    assertEquals("Expect 0 but got " + entries.size() + " logEntries.", entries.size(), 0);
+  }
+
+  @Test(expected = LimitExceededException.class)
+  public void testSearchLogEntriesOverMax() {
+    l.searchLogEntries(new LogQuery(QueryOperator.CONTAINS, "message", "time"), maxLimit + 1);
+  }
+
+  @Test(expected = DataValidationException.class)
+  public void testSearchLogEntriesZeroLimit() {
+    l.searchLogEntries(new LogQuery(QueryOperator.CONTAINS, "message", "time"), 0);
+  }
+
+  @Test(expected = DataValidationException.class)
+  public void testSearchLogEntriesNegativeLimit() {
+    l.searchLogEntries(new LogQuery(QueryOperator.CONTAINS, "message", "time"), -1);
+  }
+
+  @Test(expected = DataValidationException.class)
+  public void testSearchLogEntriesInvalidQuery() {
+    l.searchLogEntries(new LogQuery(QueryOperator.REGEX, "message", "(time"), maxLimit);
+  }
+
+  @Test(expected = ServiceException.class)
+  public void testSearchLogEntriesNoService() {
+    l = new LoggingControllerImpl();
+    l.searchLogEntries(new LogQuery(QueryOperator.CONTAINS, "message", "time"), maxLimit);
+  }
+
+  @Test(expected = GatewayTimeoutException.class)
+  public void testGetLogEntriesTimeout() {
+    when(s.searchByCriteria(any(MatchCriteria.class), any(Integer.class), any(QueryContext.class)))
+        .thenThrow(new QueryTimeoutException("MongoDB query exceeded its deadline"));
+    l.getLogEntries(maxLimit);
+  }
+
+  @Test
+  public void testSearchLogEntriesTruncated() {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest(), response));
+    try {
+      truncateQueries();
+      l.searchLogEntries(new LogQuery(QueryOperator.CONTAINS, "message", "time"), maxLimit);
+      assertEquals("Truncated results not flagged", "true",
+          response.getHeader(LoggingControllerImpl.TRUNCATED_HEADER));
+    } finally {
+      RequestContextHolder.resetRequestAttributes();
+    }
+  }
+
+  @Test(expected = GatewayTimeoutException.class)
+  public void testSearchLogEntriesTruncatedWithoutPartialResults() throws Exception {
+    Field field = LoggingControllerImpl.class.getDeclaredField("partialResults");
+    field.setAccessible(true);
+    field.set(l, false);
+    truncateQueries();
+    l.searchLogEntries(new LogQuery(QueryOperator.CONTAINS, "message", "time"), maxLimit);
+  }
+
+  private void truncateQueries() {
+    when(s.searchByQuery(any(CompiledQuery.class), any(Integer.class), any(QueryContext.class)))
+        .thenAnswer(invocation -> {
+          ((QueryContext) invocation.getArguments()[2]).truncate();
+          return Arrays.asList(buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG));
+        });
+  }
+
+  private int countLines(byte[] content, boolean gzip) throws Exception {
+    ByteArrayInputStream in = new ByteArrayInputStream(content);
+    try (LineNumberReader reader =
+        new LineNumberReader(new InputStreamReader(gzip ? new GZIPInputStream(in) : in))) {
+      while (reader.readLine() != null) {
+        // just count
+      }
+      return reader.getLineNumber();
+    }
+  }
+
+  private CloseableIterator<LogEntry> toCloseableIterator(List<LogEntry> entries) {
+    final Iterator<LogEntry> iterator = entries.iterator();
+    return new CloseableIterator<LogEntry>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public LogEntry next() {
+        return iterator.next();
+      }
+
+      @Override
+      public void close() {}
+    };
+  }
+
   private LogEntry buildLogEntry(String originService, Level LogLevel, String[] labels,
       String message) {
     LogEntry entry = new LogEntry();
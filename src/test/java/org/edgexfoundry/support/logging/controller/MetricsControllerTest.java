@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.edgexfoundry.exception.controller.ServiceException;
+import org.edgexfoundry.support.logging.controller.impl.MetricsControllerImpl;
+import org.edgexfoundry.support.logging.metrics.LoggingMetrics;
+import org.edgexfoundry.support.logging.metrics.StartupTimings;
+import org.edgexfoundry.support.logging.service.LoggingService;
+import org.edgexfoundry.support.logging.service.QuotaService;
+import org.edgexfoundry.support.logging.service.RetentionService;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+@Category(RequiresNone.class)
+public class MetricsControllerTest {
+
+  @InjectMocks
+  private MetricsControllerImpl controller;
+
+  @Mock
+  private LoggingMetrics metrics;
+
+  @Mock
+  private LoggingService service;
+
+  @Mock
+  private StartupTimings startup;
+
+  @Mock
+  private RetentionService retention;
+
+  @Mock
+  private QuotaService quotas;
+
+  @Before
+  public void setup() {
+    MockitoAnnotations.initMocks(this);
+  }
+
+  @Test
+  public void testGetMetrics() {
+    when(metrics.getMetrics()).thenReturn(new TreeMap<>());
+    when(service.getPoolStats()).thenReturn(
+        Collections.singletonMap("ingest", Collections.singletonMap("queued", 3L)));
+    when(service.getIngestStats()).thenReturn(
+        Collections.singletonMap("standard", Collections.singletonMap("dropped", 7L)));
+    when(service.getCacheStats()).thenReturn(Collections.singletonMap("bytes", 1024L));
+    when(startup.getTimings()).thenReturn(Collections.singletonMap(StartupTimings.READY, 4200L));
+    when(service.getWarmUpStats()).thenReturn(Collections.singletonMap("progress", 42L));
+    when(retention.getStats()).thenReturn(Collections.singletonMap("reclaimed.bytes", 512L));
+    when(quotas.getStats()).thenReturn(Collections.singletonMap("throttled", 9L));
+    when(service.getBackendStats()).thenReturn(
+        Collections.singletonMap("mongodb", Collections.singletonMap("dropped", 11L)));
+    Map<String, Number> result = controller.getMetrics();
+    assertEquals("Ingest queue depth not reported", 3L,
+        result.get("pool.ingest.queued").longValue());
+    assertEquals("Shed ingest not reported", 7L,
+        result.get("ingest.standard.dropped").longValue());
+    assertEquals("Cache size not reported", 1024L, result.get("cache.bytes").longValue());
+    assertEquals("Startup phase not reported", 4200L, result.get("startup.ready").longValue());
+    assertEquals("Warm-up progress not reported", 42L,
+        result.get("startup.warmup.progress").longValue());
+    assertEquals("Reclaimed bytes not reported", 512L,
+        result.get("retention.reclaimed.bytes").longValue());
+    assertEquals("Throttled log entries not reported", 9L,
+        result.get("quota.throttled").longValue());
+    assertEquals("Backend drops not reported", 11L,
+        result.get("persistence.mongodb.dropped").longValue());
+  }
+
+  @Test(expected = ServiceException.class)
+  public void testGetMetricsNoService() {
+    controller = new MetricsControllerImpl();
+    controller.getMetrics();
+  }
+
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+
+import org.edgexfoundry.exception.controller.LimitExceededException;
+import org.edgexfoundry.exception.controller.NotFoundException;
+import org.edgexfoundry.exception.controller.ServiceException;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.controller.impl.QueryJobControllerImpl;
+import org.edgexfoundry.support.logging.service.QueryJob;
+import org.edgexfoundry.support.logging.service.QueryJobService;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+@Category(RequiresNone.class)
+public class QueryJobControllerTest {
+
+  private static final String TEST_ID = "job-id";
+  private static final int MAX_LIMIT = 100;
+
+  @InjectMocks
+  private QueryJobControllerImpl controller;
+
+  @Mock
+  private QueryJobService service;
+
+  @Before
+  public void setup() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    Field field = QueryJobControllerImpl.class.getDeclaredField("maxLimit");
+    field.setAccessible(true);
+    field.set(controller, MAX_LIMIT);
+  }
+
+  @Test
+  public void testSubmitJob() {
+    MatchCriteria criteria = new MatchCriteria();
+    QueryJob job = new QueryJob(criteria);
+    when(service.submit(criteria)).thenReturn(job);
+    ResponseEntity<QueryJob> response = controller.submitJob(criteria);
+    assertEquals("Job not accepted", HttpStatus.ACCEPTED, response.getStatusCode());
+    assertEquals("Job not returned", job, response.getBody());
+  }
+
+  @Test(expected = LimitExceededException.class)
+  public void testSubmitJobQueueFull() {
+    MatchCriteria criteria = new MatchCriteria();
+    when(service.submit(criteria)).thenThrow(new LimitExceededException("QueryJob"));
+    controller.submitJob(criteria);
+  }
+
+  @Test(expected = ServiceException.class)
+  public void testSubmitJobException() {
+    MatchCriteria criteria = new MatchCriteria();
+    when(service.submit(criteria)).thenThrow(new RuntimeException());
+    controller.submitJob(criteria);
+  }
+
+  @Test
+  public void testGetJobs() {
+    when(service.getJobs()).thenReturn(new ArrayList<>());
+    assertTrue("Jobs returned", controller.getJobs().isEmpty());
+  }
+
+  @Test
+  public void testGetJob() {
+    QueryJob job = new QueryJob(new MatchCriteria());
+    when(service.getJob(TEST_ID)).thenReturn(job);
+    assertEquals("Job not returned", job, controller.getJob(TEST_ID));
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void testGetJobUnknown() {
+    controller.getJob(TEST_ID);
+  }
+
+  @Test
+  public void testGetJobResults() {
+    when(service.getResults(TEST_ID, 10, MAX_LIMIT)).thenReturn(new ArrayList<>());
+    assertTrue("Results returned", controller.getJobResults(TEST_ID, 10, null).isEmpty());
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void testGetJobResultsUnknown() {
+    when(service.getResults(TEST_ID, 0, MAX_LIMIT)).thenReturn(null);
+    controller.getJobResults(TEST_ID, 0, MAX_LIMIT);
+  }
+
+  @Test(expected = LimitExceededException.class)
+  public void testGetJobResultsOverMax() {
+    controller.getJobResults(TEST_ID, 0, MAX_LIMIT + 1);
+  }
+
+  @Test
+  public void testCancelJob() {
+    when(service.getJob(TEST_ID)).thenReturn(new QueryJob(new MatchCriteria()));
+    when(service.cancel(TEST_ID)).thenReturn(true);
+    assertTrue("Job not cancelled", controller.cancelJob(TEST_ID));
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void testCancelJobUnknown() {
+    controller.cancelJob(TEST_ID);
+  }
+
+  @Test
+  public void testDeleteJob() {
+    when(service.remove(TEST_ID)).thenReturn(true);
+    assertTrue("Job not deleted", controller.deleteJob(TEST_ID));
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void testDeleteJobUnknown() {
+    controller.deleteJob(TEST_ID);
+  }
+
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.edgexfoundry.exception.controller.NotFoundException;
+import org.edgexfoundry.exception.controller.ServiceException;
+import org.edgexfoundry.support.logging.controller.impl.QuotaControllerImpl;
+import org.edgexfoundry.support.logging.service.QuotaService;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+@Category(RequiresNone.class)
+public class QuotaControllerTest {
+
+  private static final String TEST_ORIGIN_SERVICE = "core-data";
+
+  @InjectMocks
+  private QuotaControllerImpl controller;
+
+  @Mock
+  private QuotaService service;
+
+  @Before
+  public void setup() {
+    MockitoAnnotations.initMocks(this);
+    when(service.getUsage()).thenReturn(Collections.singletonMap(TEST_ORIGIN_SERVICE,
+        Collections.singletonMap("bytes", 2048L)));
+  }
+
+  @Test
+  public void testGetUsage() {
+    Map<String, Map<String, Long>> usage = controller.getUsage();
+    assertEquals("Wrong usage", Long.valueOf(2048), usage.get(TEST_ORIGIN_SERVICE).get("bytes"));
+  }
+
+  @Test
+  public void testGetServiceUsage() {
+    assertEquals("Wrong usage", Long.valueOf(2048),
+        controller.getUsage(TEST_ORIGIN_SERVICE).get("bytes"));
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void testGetUnknownServiceUsage() {
+    controller.getUsage("unknown");
+  }
+
+  @Test(expected = ServiceException.class)
+  public void testGetUsageNoService() {
+    controller = new QuotaControllerImpl();
+    controller.getUsage();
+  }
+
+}
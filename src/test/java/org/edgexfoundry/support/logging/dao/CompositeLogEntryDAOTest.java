@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.dao.impl.BaseLogEntryDAO;
+import org.edgexfoundry.support.logging.dao.impl.CompositeLogEntryDAO;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+@Category(RequiresNone.class)
+public class CompositeLogEntryDAOTest {
+
+  private static final String TEST_ORIGIN_SERVICE = "TEST_SERVICE";
+  private static final String TEST_MSG = "TEST_MESSAGE";
+  private static final long VERIFY_TIMEOUT = 5000L;
+
+  private CompositeLogEntryDAO dao;
+  private BaseLogEntryDAO file;
+  private BaseLogEntryDAO mongodb;
+
+  @Before
+  public void setup() throws Exception {
+    file = mock(BaseLogEntryDAO.class);
+    mongodb = mock(BaseLogEntryDAO.class);
+    when(file.save(any(LogEntry.class))).thenReturn(true);
+    when(mongodb.saveAll(anyListOf(LogEntry.class)))
+        .thenAnswer(invocation -> ((List<?>) invocation.getArguments()[0]).size());
+    Map<String, BaseLogEntryDAO> stores = new HashMap<>();
+    stores.put("fileDAO", file);
+    stores.put("mongodbDAO", mongodb);
+    dao = new CompositeLogEntryDAO();
+    setField("stores", stores);
+    setField("backends", "file, mongodb");
+    setField("primaryName", "file");
+    setField("queueCapacity", 2);
+    setField("batchSize", 1);
+    setField("drainTimeout", VERIFY_TIMEOUT);
+  }
+
+  @After
+  public void cleanup() throws Exception {
+    invoke("destroy");
+  }
+
+  @Test
+  public void testSave() throws Exception {
+    invoke("init");
+    LogEntry entry = buildLogEntry();
+    assertTrue("Log entry not saved", dao.save(entry));
+    verify(file).save(entry);
+    verify(mongodb, timeout(VERIFY_TIMEOUT)).saveAll(anyListOf(LogEntry.class));
+    invoke("destroy");
+    assertEquals("Log entry not written to the secondary backend", 1L,
+        dao.getBackendStats().get("mongodb").get("written").longValue());
+  }
+
+  @Test
+  public void testSlowBackend() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    when(mongodb.saveAll(anyListOf(LogEntry.class))).thenAnswer(invocation -> {
+      release.await(VERIFY_TIMEOUT, TimeUnit.MILLISECONDS);
+      return ((List<?>) invocation.getArguments()[0]).size();
+    });
+    invoke("init");
+    for (int i = 0; i < 10; i++) {
+      assertTrue("Log entry not saved", dao.save(buildLogEntry()));
+    }
+    // the primary was written while the secondary backend was stuck
+    verify(file, times(10)).save(any(LogEntry.class));
+    Map<String, Long> stats = dao.getBackendStats().get("mongodb");
+    assertTrue("Full queue didn't drop", stats.get("dropped") >= 7L);
+    release.countDown();
+    invoke("destroy");
+    stats = dao.getBackendStats().get("mongodb");
+    assertEquals("Log entries neither written nor dropped", 10L,
+        stats.get("written") + stats.get("dropped"));
+  }
+
+  @Test
+  public void testFailingBackend() throws Exception {
+    when(mongodb.saveAll(anyListOf(LogEntry.class)))
+        .thenThrow(new IllegalStateException("unavailable"));
+    invoke("init");
+    assertTrue("Log entry not saved", dao.save(buildLogEntry()));
+    invoke("destroy");
+    assertEquals("Failure not counted", 1L,
+        dao.getBackendStats().get("mongodb").get("failed").longValue());
+  }
+
+  @Test
+  public void testRemoveByCriteria() throws Exception {
+    invoke("init");
+    MatchCriteria criteria = new MatchCriteria();
+    dao.removeByCriteria(criteria);
+    verify(file).removeByCriteria(criteria);
+    verify(mongodb, timeout(VERIFY_TIMEOUT)).removeByCriteria(criteria);
+  }
+
+  @Test
+  public void testRemoveQueuedBehindFullQueue() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    when(mongodb.saveAll(anyListOf(LogEntry.class))).thenAnswer(invocation -> {
+      release.await(VERIFY_TIMEOUT, TimeUnit.MILLISECONDS);
+      return ((List<?>) invocation.getArguments()[0]).size();
+    });
+    invoke("init");
+    try {
+      for (int i = 0; i < 10; i++) {
+        dao.save(buildLogEntry());
+      }
+      MatchCriteria criteria = new MatchCriteria();
+      // the queue is full of log entries, but keeps room for the removal
+      dao.removeByCriteria(criteria);
+      release.countDown();
+      verify(mongodb, timeout(VERIFY_TIMEOUT)).removeByCriteria(criteria);
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test(expected = TransientDataAccessResourceException.class)
+  public void testRemoveFailsWhenNotQueued() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    when(mongodb.removeByCriteria(any(MatchCriteria.class))).thenAnswer(invocation -> {
+      release.await(VERIFY_TIMEOUT, TimeUnit.MILLISECONDS);
+      return new ArrayList<LogEntry>();
+    });
+    setField("operationTimeout", 10L);
+    invoke("init");
+    try {
+      // the first removal holds the backend up while the next ones fill the room kept for them
+      for (int i = 0; i < 100; i++) {
+        dao.removeByCriteria(new MatchCriteria());
+      }
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  public void testQueriesGoToPrimary() throws Exception {
+    invoke("init");
+    MatchCriteria criteria = new MatchCriteria();
+    dao.findByCriteria(criteria, 10);
+    verify(file).findByCriteria(any(MatchCriteria.class), any(Integer.class),
+        any(QueryContext.class));
+    dao.setQuota(new ServiceQuota());
+    verify(mongodb).setQuota(any(ServiceQuota.class));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testUnknownPrimary() throws Exception {
+    setField("primaryName", "elasticsearch");
+    invoke("init");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testUnknownBackend() throws Exception {
+    setField("backends", "file,elasticsearch");
+    invoke("init");
+  }
+
+  private void setField(String name, Object value) throws Exception {
+    Field field = CompositeLogEntryDAO.class.getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(dao, value);
+  }
+
+  private void invoke(String name) throws Exception {
+    Method method = CompositeLogEntryDAO.class.getDeclaredMethod(name);
+    method.setAccessible(true);
+    try {
+      method.invoke(dao);
+    } catch (InvocationTargetException e) {
+      throw (Exception) e.getCause();
+    }
+  }
+
+  private LogEntry buildLogEntry() {
+    LogEntry entry = new LogEntry();
+    entry.setOriginService(TEST_ORIGIN_SERVICE);
+    entry.setLogLevel(Level.INFO);
+    entry.setMessage(TEST_MSG);
+    entry.setCreated(System.currentTimeMillis());
+    return entry;
+  }
+
+}
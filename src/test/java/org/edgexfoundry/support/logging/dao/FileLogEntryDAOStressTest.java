@@ -0,0 +1,310 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.dao.impl.BaseLogEntryDAO;
+import org.edgexfoundry.support.logging.dao.impl.FileLogEntryDAO;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+/**
+ * Hammers a file backed FileLogEntryDAO with concurrent saves, finds and removes and checks that:
+ * no acknowledged logEntry is lost, in memory or in the log file; removed logEntries are gone for
+ * every later find and from the file; and each find returns a consistent snapshot, holding every
+ * logEntry acknowledged before it started. Runs for 5 seconds by default, set stress.duration (in
+ * seconds) to run it for minutes. The throughput of each operation is logged at the end.
+ */
+@Category(RequiresNone.class)
+public class FileLogEntryDAOStressTest {
+
+  private static final Logger logger = LoggerFactory.getLogger(FileLogEntryDAOStressTest.class);
+
+  // savers whose logEntries are only removed by the retention, and savers whose logEntries are
+  // removed while they are being saved
+  private static final int KEEP_SAVERS = 2;
+  private static final int DROP_SAVERS = 2;
+  private static final int FINDERS = 2;
+  private static final Level[] LEVELS = {Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR};
+  private static final String[] LABELS = {"stress", "test"};
+  // span of the recent logEntries a finder checks, and age of the logEntries the retention removes
+  private static final long WINDOW = 1000L;
+  private static final long RETENTION = 5000L;
+
+  private final long duration = TimeUnit.SECONDS.toMillis(Long.getLong("stress.duration", 5L));
+  private final String[] keepServices = services("keep", KEEP_SAVERS);
+  private final String[] dropServices = services("drop", DROP_SAVERS);
+  // last logEntry acknowledged by each keep saver
+  private final AtomicReferenceArray<LogEntry> lastKept = new AtomicReferenceArray<>(KEEP_SAVERS);
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+  private final LongAdder saved = new LongAdder();
+  private final LongAdder found = new LongAdder();
+  private final LongAdder removes = new LongAdder();
+  private final LongAdder removed = new LongAdder();
+  private volatile boolean running = true;
+
+  private File file;
+  private FileLogEntryDAO dao;
+
+  @Before
+  public void setup() throws Exception {
+    // keep the persisted logEntries off the console
+    ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(BaseLogEntryDAO.class))
+        .setAdditive(false);
+    file = File.createTempFile("edgex-logging-stress", ".log");
+    dao = open(file);
+  }
+
+  @After
+  public void cleanup() throws Exception {
+    close(dao, file);
+    file.delete();
+    ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(BaseLogEntryDAO.class))
+        .setAdditive(true);
+  }
+
+  @Test
+  public void testConcurrentSaveFindRemove() throws Exception {
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < KEEP_SAVERS; i++) {
+      final int saver = i;
+      threads.add(worker(() -> save(keepServices[saver], saver)));
+    }
+    for (int i = 0; i < DROP_SAVERS; i++) {
+      final int saver = i;
+      threads.add(worker(() -> save(dropServices[saver], -1)));
+    }
+    for (int i = 0; i < FINDERS; i++) {
+      threads.add(worker(this::find));
+    }
+    threads.add(worker(this::remove));
+
+    long start = System.nanoTime();
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    Thread.sleep(duration);
+    running = false;
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    if (null != failure.get()) {
+      throw new AssertionError("Stress worker failed", failure.get());
+    }
+    logger.info(String.format(
+        "%.0f saves/s, %.0f finds/s, %.1f removes/s removing %.0f logEntries/s over %.0f s",
+        saved.sum() / seconds, found.sum() / seconds, removes.sum() / seconds,
+        removed.sum() / seconds, seconds));
+
+    List<LogEntry> live = dao.findByCriteria(new MatchCriteria(), -1);
+    assertEquals("Acknowledged logEntries were lost or removed twice",
+        saved.sum() - removed.sum(), live.size());
+    close(dao, file);
+    dao = open(file);
+    List<LogEntry> reloaded = dao.findByCriteria(new MatchCriteria(), -1);
+    Set<String> lost = messages(live);
+    lost.removeAll(messages(reloaded));
+    Set<String> kept = messages(reloaded);
+    kept.removeAll(messages(live));
+    assertTrue("Log file lost " + lost.size() + " acknowledged logEntries", lost.isEmpty());
+    assertTrue("Log file still holds " + kept.size() + " removed logEntries", kept.isEmpty());
+    assertEquals("Log file holds duplicate logEntries", live.size(), reloaded.size());
+  }
+
+  private void save(String service, int keeper) {
+    for (long seq = 0; running; seq++) {
+      LogEntry entry = new LogEntry();
+      entry.setCreated(System.currentTimeMillis());
+      entry.setOriginService(service);
+      entry.setLogLevel(LEVELS[(int) (seq % LEVELS.length)]);
+      // logEntries without labels are persisted differently
+      entry.setLabels(seq % 2 == 0 ? null : LABELS);
+      entry.setMessage(service + " #" + seq);
+      assertTrue("logEntry not acknowledged", dao.save(entry));
+      saved.increment();
+      if (keeper >= 0) {
+        lastKept.set(keeper, entry);
+      }
+    }
+  }
+
+  /**
+   * Find the recent logEntries of the keep savers. A keep saver's logEntries within the window are
+   * consecutive, so the snapshot must hold an unbroken run of them ending no earlier than the last
+   * one acknowledged before the find started.
+   */
+  private void find() {
+    while (running) {
+      LogEntry[] expected = new LogEntry[KEEP_SAVERS];
+      for (int i = 0; i < KEEP_SAVERS; i++) {
+        expected[i] = lastKept.get(i);
+      }
+      MatchCriteria criteria = new MatchCriteria();
+      criteria.setOriginServices(keepServices);
+      criteria.setStart(System.currentTimeMillis() - WINDOW);
+      List<LogEntry> result = dao.findByCriteria(criteria, -1);
+      found.increment();
+
+      Set<LogEntry> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+      List<List<Long>> sequences = new ArrayList<>();
+      for (int i = 0; i < KEEP_SAVERS; i++) {
+        sequences.add(new ArrayList<>());
+      }
+      for (LogEntry entry : result) {
+        assertTrue("Find returned a logEntry twice", distinct.add(entry));
+        assertTrue("Find returned a mismatching logEntry", LogEntryMatcher.matches(entry, criteria));
+        sequences.get(keeper(entry)).add(sequence(entry));
+      }
+      for (int i = 0; i < KEEP_SAVERS; i++) {
+        List<Long> sequence = sequences.get(i);
+        Collections.sort(sequence);
+        if (!sequence.isEmpty()) {
+          assertEquals("Find skipped logEntries of " + keepServices[i],
+              sequence.get(sequence.size() - 1) - sequence.get(0) + 1, sequence.size());
+        }
+        if (null != expected[i] && expected[i].getCreated() > criteria.getStart()) {
+          assertTrue("Find missed a logEntry acknowledged before it started",
+              !sequence.isEmpty() && sequence.get(sequence.size() - 1) >= sequence(expected[i]));
+        }
+      }
+    }
+  }
+
+  /**
+   * Alternately remove the recent logEntries of the drop savers, racing with their saves, and the
+   * logEntries of every saver older than the retention
+   */
+  private void remove() throws InterruptedException {
+    for (boolean drop = true; running; drop = !drop) {
+      MatchCriteria criteria = new MatchCriteria();
+      long now = System.currentTimeMillis();
+      if (drop) {
+        criteria.setOriginServices(dropServices);
+        criteria.setStart(now - 2 * WINDOW);
+        criteria.setEnd(now);
+      } else {
+        criteria.setEnd(now - RETENTION);
+      }
+      List<LogEntry> targets = dao.removeByCriteria(criteria);
+      removes.increment();
+      removed.add(targets.size());
+      Set<LogEntry> gone = Collections.newSetFromMap(new IdentityHashMap<>());
+      gone.addAll(targets);
+      for (LogEntry entry : dao.findByCriteria(criteria, -1)) {
+        assertTrue("Removed logEntry found again", !gone.contains(entry));
+      }
+      // leave the savers some time between two rewrites of the file
+      Thread.sleep(20);
+    }
+  }
+
+  private Thread worker(Task task) {
+    return new Thread(() -> {
+      try {
+        task.run();
+      } catch (Throwable e) {
+        failure.compareAndSet(null, e);
+        running = false;
+      }
+    });
+  }
+
+  private int keeper(LogEntry entry) {
+    return Integer.parseInt(entry.getOriginService().substring("keep-".length()));
+  }
+
+  private static long sequence(LogEntry entry) {
+    String message = entry.getMessage();
+    return Long.parseLong(message.substring(message.lastIndexOf('#') + 1));
+  }
+
+  private static Set<String> messages(List<LogEntry> entries) {
+    Set<String> messages = new HashSet<>();
+    for (LogEntry entry : entries) {
+      messages.add(entry.getMessage());
+    }
+    return messages;
+  }
+
+  private static String[] services(String prefix, int count) {
+    String[] services = new String[count];
+    for (int i = 0; i < count; i++) {
+      services[i] = prefix + "-" + i;
+    }
+    return services;
+  }
+
+  private static FileLogEntryDAO open(File file) throws Exception {
+    FileLogEntryDAO dao = new FileLogEntryDAO();
+    setField(dao, FileLogEntryDAO.class, "loggingFilePath", file.getPath());
+    // large enough for the file never to roll during the test
+    setField(dao, FileLogEntryDAO.class, "loggingFileMaxSize", "10GB");
+    setField(dao, BaseLogEntryDAO.class, "addColor", false);
+    Method init = FileLogEntryDAO.class.getDeclaredMethod("init");
+    init.setAccessible(true);
+    init.invoke(dao);
+    dao.awaitWarmUp();
+    return dao;
+  }
+
+  private static void close(FileLogEntryDAO dao, File file) throws Exception {
+    Method method =
+        FileLogEntryDAO.class.getDeclaredMethod("stopAndDetachFileAppdnder", String.class);
+    method.setAccessible(true);
+    method.invoke(dao, file.getPath());
+  }
+
+  private static void setField(Object target, Class<?> type, String name, Object value)
+      throws Exception {
+    Field field = type.getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(target, value);
+  }
+
+  private interface Task {
+    void run() throws IOException, InterruptedException;
+  }
+
+}
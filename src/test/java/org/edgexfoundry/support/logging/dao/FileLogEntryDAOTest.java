@@ -18,19 +18,34 @@
 
 package org.edgexfoundry.support.logging.dao;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.zip.CRC32;
 
 import org.edgexfoundry.support.domain.logging.LogEntry;
 import org.edgexfoundry.support.domain.logging.MatchCriteria;
 import org.edgexfoundry.support.logging.dao.impl.FileLogEntryDAO;
+import org.edgexfoundry.support.logging.query.CompiledQuery;
+import org.edgexfoundry.support.logging.query.LogQuery;
+import org.edgexfoundry.support.logging.query.QueryOperator;
 import org.edgexfoundry.test.category.RequiresNone;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.slf4j.event.Level;
+import org.springframework.data.util.CloseableIterator;
 
 @Category(RequiresNone.class)
 public class FileLogEntryDAOTest {
@@ -39,6 +54,8 @@ public class FileLogEntryDAOTest {
   private static final Level TEST_LEVEL = Level.DEBUG;
   private static final String TEST_MSG = "now is the time for all good men";
   private static final String TEST_ORIGIN_SERVICE = "core-data";
+  private static final String LOG_FILE = "edgex-support-logging.log";
+  private static final File SNAPSHOT = new File(LOG_FILE + ".snapshot");
 
   private FileLogEntryDAO dao;
 
@@ -74,6 +91,20 @@ public class FileLogEntryDAOTest {
         .size() == 1);
   }
 
+  @Test
+  public void testFindByQuery() {
+    LogEntry entry = buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    assertTrue("Log entry save did not save correctly", dao.save(entry));
+    LogQuery query = LogQuery.and(new LogQuery(QueryOperator.PREFIX, "originService", "core-"),
+        LogQuery.not(new LogQuery(QueryOperator.EQ, "logLevel", "ERROR")));
+    assertEquals("Find with query returned no log entries", 1,
+        dao.findByQuery(CompiledQuery.compile(query), 100).size());
+    query = LogQuery.or(new LogQuery(QueryOperator.REGEX, "message", "^bad"),
+        LogQuery.in("labels", "testlabel"));
+    assertTrue("Find with mismatching query returned log entries",
+        dao.findByQuery(CompiledQuery.compile(query), 100).isEmpty());
+  }
+
   @Test
   public void testFindByCriteriaMismatchLogLevel() {
     LogEntry entry = buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
@@ -161,6 +192,377 @@ public class FileLogEntryDAOTest {
         .removeByCriteria(buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG)).isEmpty());
   }
 
+  @Test
+  public void testCountByCriteria() {
+    LogEntry entry = buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    assertTrue("Log entry save did not save correctly", dao.save(entry));
+    assertTrue("Log entry save did not save correctly", dao.save(entry));
+    Map<String, Long> counts = dao.countByCriteria(
+        buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG),
+        MDC_ENUM_CONSTANTS.LOGLEVEL, 0);
+    assertEquals("Count by log level returned the wrong count", Long.valueOf(2),
+        counts.get(TEST_LEVEL.name()));
+  }
+
+  @Test
+  public void testCountByCriteriaWithNullCriteria() {
+    LogEntry entry = buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    assertTrue("Log entry save did not save correctly", dao.save(entry));
+    assertTrue("Count with no criteria counted log entries",
+        dao.countByCriteria(null, MDC_ENUM_CONSTANTS.LOGLEVEL, 0).isEmpty());
+  }
+
+  @Test
+  public void testStreamByCriteria() throws Exception {
+    initDao();
+    String message = TEST_MSG + UUID.randomUUID();
+    LogEntry entry = buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, message);
+    assertTrue("Log entry save did not save correctly", dao.save(entry));
+    try (CloseableIterator<LogEntry> entries =
+        dao.streamByCriteria(buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, message))) {
+      assertTrue("Stream by criteria did not find the saved log entry", entries.hasNext());
+      assertTrue("Stream by criteria returned the wrong log entry",
+          message.equals(entries.next().getMessage()));
+      assertFalse("Stream by criteria returned unexpected log entries", entries.hasNext());
+    }
+  }
+
+  @Test
+  public void testStreamByCriteriaProgress() throws Exception {
+    initDao();
+    String message = TEST_MSG + UUID.randomUUID();
+    assertTrue("Log entry save did not save correctly",
+        dao.save(buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, message)));
+    QueryContext context = new QueryContext();
+    try (CloseableIterator<LogEntry> entries = dao.streamByCriteria(
+        buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, message), context)) {
+      while (entries.hasNext()) {
+        entries.next();
+      }
+    }
+    assertTrue("Scanned entries not reported", context.getEntriesScanned() > 0);
+    assertTrue("Scanned segments not reported", context.getSegmentsScanned() > 0);
+  }
+
+  @Test(expected = CancellationException.class)
+  public void testStreamByCriteriaCancelled() throws Exception {
+    initDao();
+    assertTrue("Log entry save did not save correctly",
+        dao.save(buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG)));
+    QueryContext context = new QueryContext();
+    context.cancel();
+    try (CloseableIterator<LogEntry> entries = dao.streamByCriteria(
+        buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG), context)) {
+      entries.hasNext();
+    }
+  }
+
+  @Test
+  public void testStreamByCriteriaWithNullCriteria() throws Exception {
+    try (CloseableIterator<LogEntry> entries = dao.streamByCriteria(null)) {
+      assertFalse("Stream with null criteria returned log entries", entries.hasNext());
+    }
+  }
+
+  @Test
+  public void testWarmUp() throws Exception {
+    initDao();
+    String message = TEST_MSG + UUID.randomUUID();
+    assertTrue("Log entry save did not save correctly",
+        dao.save(buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, message)));
+    dao = new FileLogEntryDAO();
+    initDao();
+    dao.awaitWarmUp();
+    Map<String, Long> stats = dao.getWarmUpStats();
+    assertEquals("Warm-up not reported as done", Long.valueOf(1), stats.get("done"));
+    assertEquals("Warm-up progress not complete", Long.valueOf(100), stats.get("progress"));
+    assertEquals("Warm-up did not read the whole file", stats.get("total.bytes"),
+        stats.get("bytes"));
+    assertTrue("Warm-up entries not reported", stats.get("entries") > 0);
+    QueryContext context = new QueryContext();
+    assertEquals("Log entry persisted before startup not loaded", 1, dao
+        .findByCriteria(buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, message), 100,
+            context)
+        .size());
+    assertFalse("Results flagged as partial after warm-up", context.isTruncated());
+  }
+
+  @Test
+  public void testCheckpointRestore() throws Exception {
+    initDao();
+    dao.awaitWarmUp();
+    String before = TEST_MSG + UUID.randomUUID();
+    assertTrue("Log entry save did not save correctly",
+        dao.save(buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, before)));
+    dao.checkpoint();
+    assertTrue("Snapshot not written", SNAPSHOT.exists());
+    String after = TEST_MSG + UUID.randomUUID();
+    assertTrue("Log entry save did not save correctly",
+        dao.save(buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, after)));
+    dao = new FileLogEntryDAO();
+    initDao();
+    dao.awaitWarmUp();
+    assertTrue("Log entries not restored from the snapshot",
+        dao.getWarmUpStats().get("snapshot.entries") > 0);
+    assertEquals("Log entry checkpointed not restored", 1, dao
+        .findByCriteria(buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, before), 100)
+        .size());
+    assertEquals("Log entry saved after the checkpoint not replayed", 1, dao
+        .findByCriteria(buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, after), 100)
+        .size());
+  }
+
+  @Test
+  public void testUnreadableSnapshot() throws Exception {
+    String message = TEST_MSG + UUID.randomUUID();
+    initDao();
+    dao.awaitWarmUp();
+    assertTrue("Log entry save did not save correctly",
+        dao.save(buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, message)));
+    // intact as far as its checksum goes, but with a negative dictionary size
+    ByteBuffer content = ByteBuffer.allocate(32);
+    content.putInt(0x45584C53).putInt(2).putLong(0L).putLong(0L).putInt(0).putInt(-1);
+    CRC32 crc = new CRC32();
+    crc.update(content.array());
+    content = ByteBuffer.allocate(40).put(content.array()).putLong(crc.getValue());
+    Files.write(SNAPSHOT.toPath(), content.array());
+    dao = new FileLogEntryDAO();
+    initDao();
+    dao.awaitWarmUp();
+    assertEquals("Log file not parsed after the snapshot failed", 1, dao
+        .findByCriteria(buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, message), 100)
+        .size());
+  }
+
+  @Test
+  public void testQuotaReportedNotEnforced() {
+    LogEntry entry = buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    ServiceQuota quota = new ServiceQuota();
+    quota.setMaxBytes(TEST_ORIGIN_SERVICE, ServiceUsage.sizeOf(entry));
+    dao.setQuota(quota);
+    assertTrue("Log entry within the quota not saved", dao.save(entry));
+    assertEquals("Wrong usage", ServiceUsage.sizeOf(entry), dao.getUsedBytes(TEST_ORIGIN_SERVICE));
+    // admitted past the quota by QuotaService, so the store takes it
+    assertTrue("Log entry over the quota refused by the store",
+        dao.save(buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG)));
+    assertTrue("Log entry of another service refused",
+        dao.save(buildLogEntry("core-metadata", TEST_LEVEL, TEST_LABELS, TEST_MSG)));
+    Map<String, Long> usage = dao.getUsage().get(TEST_ORIGIN_SERVICE);
+    assertEquals(Long.valueOf(2), usage.get(ServiceUsage.ENTRIES));
+    assertEquals(Long.valueOf(ServiceUsage.sizeOf(entry)), usage.get("quota.bytes"));
+    assertFalse("Store still counts refused entries", usage.containsKey("refused"));
+    assertEquals(Long.valueOf(0), dao.getUsage().get("core-metadata").get("quota.bytes"));
+  }
+
+  @Test
+  public void testRepeatsPersisted() throws Exception {
+    initDao();
+    dao.awaitWarmUp();
+    String message = TEST_MSG + UUID.randomUUID();
+    long now = System.currentTimeMillis();
+    assertTrue("Log entry save did not save correctly", dao.save(new RepeatedLogEntry(
+        buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, message), 7L, now, now + 900)));
+    dao = new FileLogEntryDAO();
+    initDao();
+    dao.awaitWarmUp();
+    List<LogEntry> found = dao.findByCriteria(
+        buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, message, now + 500, 0), 100);
+    assertEquals("Repeats overlapping the time range not reloaded", 1, found.size());
+    RepeatedLogEntry repeated = (RepeatedLogEntry) found.get(0);
+    assertEquals("Wrong message", message, repeated.getMessage());
+    assertEquals("Wrong repeat count", 7L, repeated.getRepeatCount());
+    assertEquals("Wrong last repeat", now + 900, repeated.getLastCreated());
+    assertEquals("Repeats not removed", 1, dao
+        .removeByCriteria(buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, message))
+        .size());
+  }
+
+  @Test
+  public void testRemoveDeletesSnapshot() throws Exception {
+    initDao();
+    dao.awaitWarmUp();
+    String message = TEST_MSG + UUID.randomUUID();
+    assertTrue("Log entry save did not save correctly",
+        dao.save(buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, message)));
+    dao.checkpoint();
+    assertFalse("Nothing removed", dao
+        .removeByCriteria(buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, message))
+        .isEmpty());
+    assertFalse("Snapshot holding removed log entries kept", SNAPSHOT.exists());
+  }
+
+  @Test
+  public void testCorruptedSnapshotIgnored() throws Exception {
+    initDao();
+    dao.awaitWarmUp();
+    String message = TEST_MSG + UUID.randomUUID();
+    assertTrue("Log entry save did not save correctly",
+        dao.save(buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, message)));
+    Files.write(SNAPSHOT.toPath(), "not a snapshot".getBytes(StandardCharsets.UTF_8));
+    dao = new FileLogEntryDAO();
+    initDao();
+    dao.awaitWarmUp();
+    assertEquals("Log entries restored from a corrupted snapshot", Long.valueOf(0),
+        dao.getWarmUpStats().get("snapshot.entries"));
+    assertEquals("Log file not loaded without snapshot", 1, dao
+        .findByCriteria(buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, message), 100)
+        .size());
+  }
+
+  @Test
+  public void testEnforceRetentionDropsExpiredArchive() throws Exception {
+    initDao();
+    dao.awaitWarmUp();
+    long now = System.currentTimeMillis();
+    File archive = writeArchive(now - 7200000L, Level.DEBUG, Level.ERROR);
+    RetentionPolicy policy = new RetentionPolicy();
+    policy.setMaxAge(3600000L);
+    Map<String, Long> dropped = dao.enforceRetention(policy, now);
+    assertFalse("Expired archive kept", archive.exists());
+    assertTrue("Archive not reported as dropped", dropped.get("segments") >= 1);
+    assertTrue("Reclaimed bytes not reported", dropped.get("reclaimed.bytes") > 0);
+  }
+
+  @Test
+  public void testEnforceRetentionKeepsLongerTier() throws Exception {
+    initDao();
+    dao.awaitWarmUp();
+    long now = System.currentTimeMillis();
+    File archive = writeArchive(now - 7200000L, Level.DEBUG, Level.ERROR);
+    String message = TEST_MSG + UUID.randomUUID();
+    LogEntry debug = buildLogEntry(TEST_ORIGIN_SERVICE, Level.DEBUG, TEST_LABELS, message);
+    debug.setCreated(now - 7200000L);
+    LogEntry error = buildLogEntry(TEST_ORIGIN_SERVICE, Level.ERROR, TEST_LABELS, message);
+    error.setCreated(now - 7200000L);
+    assertTrue("Log entry save did not save correctly", dao.save(debug));
+    assertTrue("Log entry save did not save correctly", dao.save(error));
+    RetentionPolicy policy = new RetentionPolicy();
+    policy.setMaxAge(3600000L);
+    policy.setMaxAge(Level.ERROR, 0L);
+    Map<String, Long> dropped = dao.enforceRetention(policy, now);
+    try {
+      assertTrue("Archive holding ERROR entries kept forever dropped", archive.exists());
+      assertTrue("Expired DEBUG entries not dropped from the cache", dropped.get("entries") > 0);
+      MatchCriteria criteria = buildCriteria(TEST_ORIGIN_SERVICE, Level.ERROR, TEST_LABELS,
+          message, now - 7300000L, now);
+      criteria.setLogLevels(new Level[] {Level.DEBUG, Level.ERROR});
+      List<LogEntry> kept = dao.findByCriteria(criteria, 100);
+      assertEquals("Wrong entries kept", 1, kept.size());
+      assertEquals("Wrong level kept", Level.ERROR, kept.get(0).getLogLevel());
+    } finally {
+      archive.delete();
+    }
+  }
+
+  @Test
+  public void testEvictCache() throws Exception {
+    initDao();
+    dao.awaitWarmUp();
+    long now = System.currentTimeMillis();
+    String message = TEST_MSG + UUID.randomUUID();
+    LogEntry old = buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, message);
+    old.setCreated(now - 600000L);
+    LogEntry recent = buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, message);
+    recent.setCreated(now);
+    assertTrue("Log entry save did not save correctly", dao.save(old));
+    assertTrue("Log entry save did not save correctly", dao.save(recent));
+    assertTrue("Old log entry not evicted", dao.evictCache(now - 300000L) >= 1);
+    assertTrue("Cache floor before the eviction", dao.getCacheFloor() >= now - 300000L);
+    MatchCriteria criteria =
+        buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, message, 0, 0);
+    assertEquals("Evicted log entry still cached", 1, dao.findByCriteria(criteria, 100).size());
+    List<LogEntry> streamed = new ArrayList<>();
+    try (CloseableIterator<LogEntry> entries =
+        dao.streamByCriteria(criteria, new QueryContext())) {
+      entries.forEachRemaining(streamed::add);
+    }
+    assertEquals("Evicted log entry not kept in the log file", 2, streamed.size());
+  }
+
+  @Test
+  public void testRemoveFromSegments() throws Exception {
+    initDao();
+    dao.awaitWarmUp();
+    long now = System.currentTimeMillis();
+    String message = TEST_MSG + UUID.randomUUID();
+    LogEntry evicted = buildLogEntry(TEST_ORIGIN_SERVICE, Level.ERROR, TEST_LABELS, message);
+    evicted.setCreated(now - 600000L);
+    assertTrue("Log entry save did not save correctly", dao.save(evicted));
+    dao.evictCache(now - 300000L);
+    File archive = writeArchive(now - 700000L, Level.INFO, Level.ERROR);
+    try {
+      MatchCriteria criteria = new MatchCriteria();
+      criteria.setLogLevels(new Level[] {Level.ERROR});
+      criteria.setStart(now - 800000L);
+      criteria.setEnd(now - 300000L);
+      List<LogEntry> removed = dao.removeFromSegments(criteria);
+      assertEquals("Evicted and archived log entries not both removed", 2, removed.size());
+      List<String> lines = Files.readAllLines(archive.toPath(), StandardCharsets.UTF_8);
+      assertEquals("Archive not rewritten", 1, lines.size());
+      assertTrue("Wrong log entry left in the archive", lines.get(0).contains("INFO"));
+      List<LogEntry> streamed = new ArrayList<>();
+      try (CloseableIterator<LogEntry> entries =
+          dao.streamByCriteria(criteria, new QueryContext())) {
+        entries.forEachRemaining(streamed::add);
+      }
+      assertTrue("Removed log entries still in the log files", streamed.isEmpty());
+    } finally {
+      Files.deleteIfExists(archive.toPath());
+    }
+  }
+
+  @Test
+  public void testEnforceRetentionQuota() throws Exception {
+    initDao();
+    dao.awaitWarmUp();
+    File archive = writeArchive(System.currentTimeMillis(), Level.INFO);
+    RetentionPolicy policy = new RetentionPolicy();
+    policy.setMaxBytes(1L);
+    Map<String, Long> dropped = dao.enforceRetention(policy, System.currentTimeMillis());
+    assertFalse("Archive over the quota kept", archive.exists());
+    assertTrue("Reclaimed bytes not reported", dropped.get("reclaimed.bytes") >= 1);
+  }
+
+  @Test
+  public void testStreamByCriteriaPrunesArchives() throws Exception {
+    initDao();
+    dao.awaitWarmUp();
+    File archive = writeArchive(System.currentTimeMillis(), Level.DEBUG, Level.INFO);
+    try {
+      MatchCriteria criteria = new MatchCriteria();
+      criteria.setOriginServices(new String[] {"device-virtual"});
+      QueryContext first = new QueryContext();
+      drain(dao.streamByCriteria(criteria, first));
+      assertEquals("Archive without footer pruned", 0, first.getSegmentsPruned());
+
+      QueryContext second = new QueryContext();
+      drain(dao.streamByCriteria(criteria, second));
+      assertTrue("Archive without the originService not pruned", second.getSegmentsPruned() >= 1);
+
+      criteria = new MatchCriteria();
+      criteria.setOriginServices(new String[] {TEST_ORIGIN_SERVICE});
+      criteria.setMessageKeywords(new String[] {"the time"});
+      QueryContext third = new QueryContext();
+      int found = 0;
+      try (CloseableIterator<LogEntry> entries = dao.streamByCriteria(criteria, third)) {
+        while (entries.hasNext()) {
+          entries.next();
+          found++;
+        }
+      }
+      assertEquals("Archive holding matches pruned", 0, third.getSegmentsPruned());
+      assertTrue("Entries of the archive not found", found >= 2);
+    } finally {
+      archive.delete();
+    }
+  }
+
+  @Test
+  public void testWarmUpStatsWithoutInit() {
+    assertEquals("Uninitialized DAO reported as warming up", Long.valueOf(1),
+        dao.getWarmUpStats().get("done"));
+  }
+
   private LogEntry buildLogEntry(String originService, Level LogLevel, String[] labels,
       String message) {
     LogEntry entry = new LogEntry();
@@ -191,6 +593,34 @@ public class FileLogEntryDAOTest {
     return c;
   }
 
+  /**
+   * Write the oldest archived segment of the log file, holding one logEntry of each level
+   */
+  private File writeArchive(long created, Level... levels) throws Exception {
+    int index = 1;
+    while (new File(LOG_FILE + index).exists()) {
+      index++;
+    }
+    File archive = new File(LOG_FILE + index);
+    StringBuilder lines = new StringBuilder();
+    for (Level level : levels) {
+      lines.append(created).append(" [").append(TEST_ORIGIN_SERVICE).append("] [test] ")
+          .append(String.format("%-5s", level)).append(" - ").append(TEST_MSG).append('\n');
+    }
+    Files.write(archive.toPath(), lines.toString().getBytes(StandardCharsets.UTF_8));
+    return archive;
+  }
+
+  private static void drain(CloseableIterator<LogEntry> entries) {
+    try {
+      while (entries.hasNext()) {
+        entries.next();
+      }
+    } finally {
+      entries.close();
+    }
+  }
+
   private void initDao() throws Exception {
     Class<?> daoClass = FileLogEntryDAO.class;
     Method temp = daoClass.getDeclaredMethod("init");
@@ -0,0 +1,304 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.dao.impl.LogEntryIndex;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class LogEntryIndexTest {
+
+  private static final String[] TEST_LABELS = {"test", "entry2"};
+  private static final String TEST_MSG = "now is the time for all good men";
+  private static final String TEST_ORIGIN_SERVICE = "core-data";
+  private static final long BUCKET = LogEntryIndex.DEFAULT_BUCKET_SIZE;
+
+  private LogEntryIndex index;
+
+  @Before
+  public void setup() {
+    index = new LogEntryIndex();
+    // 3 entries per minute over 10 minutes: DEBUG, INFO and ERROR
+    for (int minute = 0; minute < 10; minute++) {
+      long created = BUCKET * (100 + minute) + 10;
+      index.add(buildLogEntry(TEST_ORIGIN_SERVICE, Level.DEBUG, TEST_LABELS, TEST_MSG, created));
+      index.add(buildLogEntry("core-metadata", Level.INFO, null, TEST_MSG, created + 1));
+      index.add(buildLogEntry(TEST_ORIGIN_SERVICE, Level.ERROR, TEST_LABELS, "failed", created + 2));
+    }
+  }
+
+  @Test
+  public void testFindByTimeRange() {
+    List<LogEntry> entries = index.find(buildCriteria(BUCKET * 102, BUCKET * 104), -1);
+    assertEquals("Find by time range returned the wrong number of log entries", 6, entries.size());
+    for (int i = 1; i < entries.size(); i++) {
+      assertTrue("Find returned log entries out of created order",
+          entries.get(i - 1).getCreated() <= entries.get(i).getCreated());
+    }
+  }
+
+  @Test
+  public void testFindWithLimit() {
+    assertEquals("Find did not honour the limit", 5, index.find(buildCriteria(0, 0), 5).size());
+    assertTrue("Find with limit zero returned log entries",
+        index.find(buildCriteria(0, 0), 0).isEmpty());
+  }
+
+  @Test
+  public void testCountByLogLevel() {
+    Map<String, Long> counts =
+        index.count(buildCriteria(0, 0), MDC_ENUM_CONSTANTS.LOGLEVEL, 0);
+    assertEquals("Wrong DEBUG count", Long.valueOf(10), counts.get("DEBUG"));
+    assertEquals("Wrong ERROR count", Long.valueOf(10), counts.get("ERROR"));
+    assertEquals("Wrong INFO count", Long.valueOf(10), counts.get("INFO"));
+  }
+
+  @Test
+  public void testCountByLogLevelPartialBuckets() {
+    // start and end fall inside buckets, which then have to be scanned instead of counted
+    Map<String, Long> counts = index.count(buildCriteria(BUCKET * 102 + 10, BUCKET * 104 + 12),
+        MDC_ENUM_CONSTANTS.LOGLEVEL, 0);
+    assertEquals("Wrong DEBUG count", Long.valueOf(2), counts.get("DEBUG"));
+    assertEquals("Wrong INFO count", Long.valueOf(3), counts.get("INFO"));
+    assertEquals("Wrong ERROR count", Long.valueOf(2), counts.get("ERROR"));
+  }
+
+  @Test
+  public void testCountByOriginServiceWithFilter() {
+    MatchCriteria criteria = buildCriteria(0, 0);
+    criteria.setLogLevels(new Level[] {Level.ERROR});
+    Map<String, Long> counts = index.count(criteria, MDC_ENUM_CONSTANTS.ORIGINSERVICE, 0);
+    assertEquals("Count by origin service returned unexpected services", 1, counts.size());
+    assertEquals("Wrong core-data ERROR count", Long.valueOf(10), counts.get(TEST_ORIGIN_SERVICE));
+  }
+
+  @Test
+  public void testCountByLogLevelFilteredOnLogLevel() {
+    Map<String, Long> counts =
+        index.count(buildCriteria(0, 0, Level.ERROR), MDC_ENUM_CONSTANTS.LOGLEVEL, 0);
+    assertEquals("Count by log level returned unexpected levels", 1, counts.size());
+    assertEquals("Wrong ERROR count", Long.valueOf(10), counts.get("ERROR"));
+  }
+
+  @Test
+  public void testCountByOriginServiceFilteredOnOriginService() {
+    MatchCriteria criteria = buildCriteria(0, 0);
+    criteria.setOriginServices(new String[] {"core-metadata"});
+    Map<String, Long> counts = index.count(criteria, MDC_ENUM_CONSTANTS.ORIGINSERVICE, 0);
+    assertEquals("Count by origin service returned unexpected services", 1, counts.size());
+    assertEquals("Wrong core-metadata count", Long.valueOf(10), counts.get("core-metadata"));
+  }
+
+  @Test
+  public void testCountByLabelsFilteredOnLabels() {
+    MatchCriteria criteria = buildCriteria(0, 0);
+    criteria.setLabels(new String[] {"test"});
+    Map<String, Long> counts = index.count(criteria, MDC_ENUM_CONSTANTS.LABELS, 0);
+    // an entry matching on one label still counts for each of its labels
+    assertEquals("Wrong test label count", Long.valueOf(20), counts.get("test"));
+    assertEquals("Wrong entry2 label count", Long.valueOf(20), counts.get("entry2"));
+  }
+
+  @Test
+  public void testCountByLabels() {
+    Map<String, Long> counts = index.count(buildCriteria(0, 0), MDC_ENUM_CONSTANTS.LABELS, 0);
+    assertEquals("Wrong test label count", Long.valueOf(20), counts.get("test"));
+    assertEquals("Wrong entry2 label count", Long.valueOf(20), counts.get("entry2"));
+  }
+
+  @Test
+  public void testCountByTime() {
+    // the 5 minute interval lines up with the index buckets, the 90 second one doesn't
+    Map<String, Long> counts =
+        index.count(buildCriteria(0, 0), MDC_ENUM_CONSTANTS.CREATED, BUCKET * 5);
+    assertEquals("Wrong number of 5 minute buckets", 2, counts.size());
+    assertEquals("Wrong 5 minute bucket count", Long.valueOf(15),
+        counts.get(String.valueOf(BUCKET * 100)));
+    counts = index.count(buildCriteria(0, 0), MDC_ENUM_CONSTANTS.CREATED, 90000L);
+    long total = 0;
+    for (Long count : counts.values()) {
+      total += count;
+    }
+    assertEquals("90 second buckets lost log entries", 30, total);
+  }
+
+  @Test
+  public void testCountSampledByWeight() {
+    LogEntry sampled = new SampledLogEntry(
+        buildLogEntry(TEST_ORIGIN_SERVICE, Level.TRACE, TEST_LABELS, TEST_MSG, BUCKET * 101 + 5),
+        4.0);
+    index.add(sampled);
+    // counted from the bucket counters, then by scanning the partially covered buckets
+    assertEquals("Sampled entry not counted by its weight", Long.valueOf(4),
+        index.count(buildCriteria(0, 0), MDC_ENUM_CONSTANTS.LOGLEVEL, 0).get("TRACE"));
+    assertEquals("Sampled entry not counted by its weight", Long.valueOf(4), index
+        .count(buildCriteria(BUCKET * 101, BUCKET * 101 + 6), MDC_ENUM_CONSTANTS.LOGLEVEL, 0)
+        .get("TRACE"));
+    assertEquals("Sampled entry not counted by its weight", Long.valueOf(7), index
+        .count(buildCriteria(0, 0), MDC_ENUM_CONSTANTS.CREATED, BUCKET).get(
+            String.valueOf(BUCKET * 101)));
+    index.removeAll(Collections.singletonList(sampled));
+    assertFalse("Removed sampled entry still counted", index
+        .count(buildCriteria(0, 0), MDC_ENUM_CONSTANTS.LOGLEVEL, 0).containsKey("TRACE"));
+  }
+
+  @Test
+  public void testCountRepeatsByRepeatCount() {
+    index.add(new RepeatedLogEntry(
+        buildLogEntry("core-command", Level.WARN, TEST_LABELS, TEST_MSG, 0L), 5L,
+        BUCKET * 103 + 20, BUCKET * 103 + 40));
+    assertEquals("Repeats not counted by their repeat count", Long.valueOf(5), index
+        .count(buildCriteria(0, 0), MDC_ENUM_CONSTANTS.ORIGINSERVICE, 0).get("core-command"));
+    assertEquals("Repeats not counted by their repeat count", Long.valueOf(17), index
+        .count(buildCriteria(BUCKET * 103 + 15, 0), MDC_ENUM_CONSTANTS.LABELS, 0).get("test"));
+  }
+
+  @Test
+  public void testRemoveAll() {
+    List<LogEntry> errors = index.find(buildCriteria(0, 0, Level.ERROR), -1);
+    assertEquals("Remove did not remove all targets", 10, index.removeAll(errors));
+    assertEquals("Index size is wrong after remove", 20, index.size());
+    assertTrue("Removed log entries are still found",
+        index.find(buildCriteria(0, 0, Level.ERROR), -1).isEmpty());
+    assertTrue("Removed log entries are still counted", !index
+        .count(buildCriteria(0, 0), MDC_ENUM_CONSTANTS.LOGLEVEL, 0).containsKey("ERROR"));
+  }
+
+  @Test
+  public void testRemoveAllThenAdd() {
+    index.removeAll(index.find(buildCriteria(0, 0), -1));
+    assertTrue("Index is not empty after removing everything", index.isEmpty());
+    index.add(buildLogEntry(TEST_ORIGIN_SERVICE, Level.INFO, null, TEST_MSG, BUCKET * 100));
+    assertEquals("Add after emptying a bucket was lost", 1,
+        index.find(buildCriteria(0, 0), -1).size());
+  }
+
+  @Test
+  public void testFindRepeatsSpanningBuckets() {
+    // repeats starting in the last minute of the setup and ending in the next one
+    LogEntry first = buildLogEntry(TEST_ORIGIN_SERVICE, Level.WARN, null, "disk full", 0L);
+    index.add(new RepeatedLogEntry(first, 20L, BUCKET * 110 - 500, BUCKET * 110 + 500));
+    List<LogEntry> entries = index.find(buildCriteria(BUCKET * 110, 0, Level.WARN), -1);
+    assertEquals("Repeats overlapping the time range not found", 1, entries.size());
+    assertEquals("Repeats ending before the time range found", 0,
+        index.find(buildCriteria(BUCKET * 110 + 500, 0, Level.WARN), -1).size());
+  }
+
+  @Test
+  public void testFindPastDeadlineTruncated() throws InterruptedException {
+    for (int i = 0; i < 1000; i++) {
+      index.add(buildLogEntry(TEST_ORIGIN_SERVICE, Level.INFO, null, TEST_MSG, BUCKET * 200 + i));
+    }
+    QueryContext context = new QueryContext(1);
+    Thread.sleep(5);
+    List<LogEntry> entries = index.find(buildCriteria(0, 0), -1, context);
+    assertTrue("Query past its deadline not flagged as truncated", context.isTruncated());
+    assertTrue("Query past its deadline scanned every log entry", entries.size() < 1030);
+  }
+
+  @Test
+  public void testFindWithinDeadline() {
+    QueryContext context = new QueryContext(60000);
+    assertEquals("Find within the deadline returned the wrong number of log entries", 30,
+        index.find(buildCriteria(0, 0), -1, context).size());
+    assertTrue("Query within its deadline flagged as truncated", !context.isTruncated());
+  }
+
+  @Test
+  public void testFindPrunesBuckets() {
+    index.add(buildLogEntry("device-virtual", Level.WARN, new String[] {"rare"}, TEST_MSG,
+        BUCKET * 105 + 20));
+    MatchCriteria criteria = buildCriteria(0, 0);
+    criteria.setLabels(new String[] {"rare"});
+    QueryContext context = new QueryContext();
+    assertEquals("Find by rare label returned the wrong number of log entries", 1,
+        index.find(criteria, -1, context).size());
+    assertEquals("Buckets without the label not pruned", 9, context.getSegmentsPruned());
+    assertEquals("Bucket holding the label not scanned", 1, context.getSegmentsScanned());
+
+    criteria = buildCriteria(0, 0, Level.WARN);
+    criteria.setOriginServices(new String[] {TEST_ORIGIN_SERVICE});
+    context = new QueryContext();
+    assertTrue("Find by level and service of different entries returned log entries",
+        index.find(criteria, -1, context).isEmpty());
+    // the bucket holding both the WARN entry and the service can't be ruled out by its counters
+    assertEquals("Buckets without the level or service not pruned", 9,
+        context.getSegmentsPruned());
+  }
+
+  @Test
+  public void testFindAfterRemoveAllPrunesBucket() {
+    index.removeAll(index.find(buildCriteria(0, 0, Level.ERROR), -1));
+    QueryContext context = new QueryContext();
+    assertTrue("Removed log entries found",
+        index.find(buildCriteria(0, 0, Level.ERROR), -1, context).isEmpty());
+    assertEquals("Buckets emptied of the level not pruned", 10, context.getSegmentsPruned());
+  }
+
+  @Test
+  public void testUsageByService() {
+    LogEntry entry = buildLogEntry("core-metadata", Level.INFO, null, TEST_MSG, 0L);
+    Map<String, Map<String, Long>> usage = index.getUsage().getUsage();
+    assertEquals("Wrong entries", Long.valueOf(10),
+        usage.get("core-metadata").get(ServiceUsage.ENTRIES));
+    assertEquals("Wrong bytes", 10 * ServiceUsage.sizeOf(entry),
+        index.getUsage().getBytes("core-metadata"));
+    index.removeIf(candidate -> "core-metadata".equals(candidate.getOriginService()),
+        Long.MAX_VALUE);
+    assertEquals("Usage not released", 0L, index.getUsage().getBytes("core-metadata"));
+    assertFalse("Service without entries reported",
+        index.getUsage().getUsage().containsKey("core-metadata"));
+    assertEquals(Long.valueOf(20),
+        index.getUsage().getUsage().get(TEST_ORIGIN_SERVICE).get(ServiceUsage.ENTRIES));
+  }
+
+  private MatchCriteria buildCriteria(long start, long end, Level... levels) {
+    MatchCriteria criteria = new MatchCriteria();
+    criteria.setStart(start);
+    criteria.setEnd(end);
+    criteria.setLogLevels(levels);
+    return criteria;
+  }
+
+  private LogEntry buildLogEntry(String originService, Level logLevel, String[] labels,
+      String message, long created) {
+    LogEntry entry = new LogEntry();
+    entry.setOriginService(originService);
+    entry.setLabels(labels);
+    entry.setLogLevel(logLevel);
+    entry.setMessage(message);
+    entry.setCreated(created);
+    return entry;
+  }
+
+}
@@ -18,27 +18,57 @@
 
 package org.edgexfoundry.support.logging.dao;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.edgexfoundry.support.domain.logging.LogEntry;
 import org.edgexfoundry.support.domain.logging.MatchCriteria;
 import org.edgexfoundry.support.logging.dao.impl.MongoDBLogEntryDAO;
+import org.edgexfoundry.support.logging.query.CompiledQuery;
+import org.edgexfoundry.support.logging.query.LogQuery;
+import org.edgexfoundry.support.logging.query.QueryOperator;
 import org.edgexfoundry.test.category.RequiresNone;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.slf4j.event.Level;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.convert.DbRefResolver;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.SerializationUtils;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.CommandResult;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.WriteResult;
 
 @Category(RequiresNone.class)
 public class MongoDBLogEntryDAOTest {
@@ -97,12 +127,235 @@ public class MongoDBLogEntryDAOTest {
         .size() == 1);
   }
   
+  @Test
+  public void testFindByQuery() {
+    LogEntry entry = buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    List<LogEntry> entries = new ArrayList<>();
+    entries.add(entry);
+    ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+    when(template.find(captor.capture(), eq(LogEntry.class))).thenReturn(entries);
+    LogQuery query = LogQuery.and(new LogQuery(QueryOperator.CONTAINS, "message", "a.b"),
+        LogQuery.not(new LogQuery(QueryOperator.PREFIX, "originService", "core-")),
+        LogQuery.in("logLevel", "WARN", "ERROR"), LogQuery.range(1000L, 0L));
+
+    assertEquals("Find with query returned no log entries", 1,
+        dao.findByQuery(CompiledQuery.compile(query), 10).size());
+    assertEquals("Unexpected limit", 10, captor.getValue().getLimit());
+    String mongoQuery =
+        SerializationUtils.serializeToJsonSafely(captor.getValue().getQueryObject());
+    assertTrue("Missing and", mongoQuery.contains("$and"));
+    assertTrue("Missing nor", mongoQuery.contains("$nor"));
+    assertTrue("Prefix not anchored", mongoQuery.contains("^core-"));
+    assertTrue("Keyword not escaped", mongoQuery.contains("a\\\\.b"));
+    assertTrue("Missing range", mongoQuery.contains("$gt"));
+  }
+
+  @Test
+  public void testFindByCriteriaWithRepeats() throws Exception {
+    Field enabled = MongoDBLogEntryDAO.class.getDeclaredField("dedupEnabled");
+    enabled.setAccessible(true);
+    enabled.set(dao, true);
+    ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+    when(template.find(captor.capture(), eq(LogEntry.class))).thenReturn(new ArrayList<>());
+    dao.findByCriteria(
+        buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG, 5000L, 9000L), 100);
+    String mongoQuery =
+        SerializationUtils.serializeToJsonSafely(captor.getValue().getQueryObject());
+    assertTrue("Repeats ending within the time range not matched",
+        mongoQuery.contains(RepeatedLogEntry.LAST_CREATED));
+    assertTrue("Scan of the created index not bounded by the window", mongoQuery.contains("4000"));
+  }
+
+  @Test
+  public void testFindByCriteriaWithDeadline() {
+    ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+    when(template.find(captor.capture(), eq(LogEntry.class))).thenReturn(new ArrayList<>());
+    dao.findByCriteria(buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG), 100,
+        new QueryContext(60000));
+    Long maxTime = captor.getValue().getMeta().getMaxTimeMsec();
+    assertTrue("Query deadline not passed on to MongoDB", maxTime != null && maxTime > 0);
+  }
+
+  @Test
+  public void testFindByCriteriaWithoutDeadline() {
+    ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+    when(template.find(captor.capture(), eq(LogEntry.class))).thenReturn(new ArrayList<>());
+    dao.findByCriteria(buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG), 100);
+    assertNull("Query without deadline limited on MongoDB",
+        captor.getValue().getMeta().getMaxTimeMsec());
+  }
+
+  @Test(expected = QueryTimeoutException.class)
+  public void testFindByCriteriaPastDeadline() {
+    when(template.find(anyObject(), eq(LogEntry.class)))
+        .thenThrow(new UncategorizedMongoDbException("operation exceeded time limit",
+            new MongoExecutionTimeoutException(50, "operation exceeded time limit")));
+    dao.findByCriteria(buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG), 100,
+        new QueryContext(1));
+  }
+
+  @Test
+  public void testCountByCriteria() {
+    List<DBObject> groups = new ArrayList<>();
+    groups.add(new BasicDBObject("_id", "DEBUG").append("count", 3));
+    groups.add(new BasicDBObject("_id", "ERROR").append("count", 1));
+    when(template.aggregate(any(Aggregation.class), eq(LogEntry.class), eq(DBObject.class)))
+        .thenReturn(new AggregationResults<>(groups, new BasicDBObject()));
+
+    Map<String, Long> counts = dao.countByCriteria(
+        buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG),
+        MDC_ENUM_CONSTANTS.LOGLEVEL, 0);
+    assertEquals("Count by criteria returned the wrong groups", 2, counts.size());
+    assertEquals("Count by criteria returned the wrong count", Long.valueOf(3),
+        counts.get("DEBUG"));
+  }
+
+  @Test
+  public void testCountByCriteriaByTime() {
+    List<DBObject> groups = new ArrayList<>();
+    groups.add(new BasicDBObject("_id", 60000L).append("count", 2L));
+    when(template.aggregate(any(Aggregation.class), eq(LogEntry.class), eq(DBObject.class)))
+        .thenReturn(new AggregationResults<>(groups, new BasicDBObject()));
+
+    Map<String, Long> counts = dao.countByCriteria(
+        buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG),
+        MDC_ENUM_CONSTANTS.CREATED, 60000L);
+    assertEquals("Count by time returned the wrong count", Long.valueOf(2),
+        counts.get("60000"));
+  }
+
+  @Test
+  public void testCountByCriteriaWeighted() {
+    List<DBObject> groups = new ArrayList<>();
+    groups.add(new BasicDBObject("_id", "DEBUG").append("count", 12.0));
+    when(template.aggregate(any(Aggregation.class), eq(LogEntry.class), eq(DBObject.class)))
+        .thenReturn(new AggregationResults<>(groups, new BasicDBObject()));
+
+    assertEquals("Weighted count not returned", Long.valueOf(12), dao
+        .countByCriteria(new MatchCriteria(), MDC_ENUM_CONSTANTS.LOGLEVEL, 0).get("DEBUG"));
+    ArgumentCaptor<Aggregation> captor = ArgumentCaptor.forClass(Aggregation.class);
+    verify(template).aggregate(captor.capture(), eq(LogEntry.class), eq(DBObject.class));
+    assertTrue("Count does not sum the sampling weights",
+        captor.getValue().toString().contains("$" + SampledLogEntry.SAMPLE_WEIGHT));
+    assertTrue("Count does not sum the repeat counts",
+        captor.getValue().toString().contains("$" + RepeatedLogEntry.REPEAT_COUNT));
+  }
+
+  @Test
+  public void testCountByCriteriaWithoutTimeRange() {
+    MatchCriteria criteria = new MatchCriteria();
+    criteria.setLogLevels(new Level[] {Level.ERROR});
+    String match = countMatch(criteria);
+    assertTrue("Count without a time range ignores the logLevels",
+        match.contains("\"logLevel\" : { \"$in\""));
+    assertFalse("Count without a time range bounded", match.contains("created"));
+  }
+
+  @Test
+  public void testCountByCriteriaOpenEnded() {
+    MatchCriteria criteria = new MatchCriteria();
+    criteria.setStart(1000L);
+    criteria.setOriginServices(new String[] {TEST_ORIGIN_SERVICE});
+    String match = countMatch(criteria);
+    assertTrue("Count from a start ignores it", match.contains("\"$gt\" : 1000"));
+    assertFalse("Count from a start bounded by an end of 0", match.contains("$lt"));
+    assertTrue("Count from a start ignores the originServices",
+        match.contains(TEST_ORIGIN_SERVICE));
+  }
+
+  @Test
+  public void testCountByCriteriaMatchesEverything() {
+    assertFalse("Count without criteria filtered",
+        countMatch(new MatchCriteria()).contains("$match"));
+  }
+
+  @Test
+  public void testStreamByCriteriaWithoutTimeRange() {
+    MongoMappingContext context = new MongoMappingContext();
+    when(template.getConverter())
+        .thenReturn(new MappingMongoConverter(mock(DbRefResolver.class), context));
+    when(template.getCollectionName(LogEntry.class)).thenReturn("logEntry");
+    DBCollection collection = mock(DBCollection.class);
+    DBCursor cursor = mock(DBCursor.class);
+    when(template.getCollection("logEntry")).thenReturn(collection);
+    when(collection.find(any(DBObject.class))).thenReturn(cursor);
+    when(cursor.batchSize(anyInt())).thenReturn(cursor);
+    MatchCriteria criteria = new MatchCriteria();
+    criteria.setEnd(5000L);
+    criteria.setLabels(TEST_LABELS);
+    dao.streamByCriteria(criteria, new QueryContext()).close();
+    ArgumentCaptor<DBObject> captor = ArgumentCaptor.forClass(DBObject.class);
+    verify(collection).find(captor.capture());
+    String query = SerializationUtils.serializeToJsonSafely(captor.getValue());
+    assertTrue("Export up to an end ignores it", query.contains("\"$lt\" : 5000"));
+    assertFalse("Export up to an end bounded by a start of 0", query.contains("$gt"));
+    assertTrue("Export without a start ignores the labels", query.contains("entry2"));
+  }
+
+  private String countMatch(MatchCriteria criteria) {
+    when(template.aggregate(any(Aggregation.class), eq(LogEntry.class), eq(DBObject.class)))
+        .thenReturn(new AggregationResults<>(new ArrayList<>(), new BasicDBObject()));
+    dao.countByCriteria(criteria, MDC_ENUM_CONSTANTS.LOGLEVEL, 0);
+    ArgumentCaptor<Aggregation> captor = ArgumentCaptor.forClass(Aggregation.class);
+    verify(template).aggregate(captor.capture(), eq(LogEntry.class), eq(DBObject.class));
+    return captor.getValue().toString();
+  }
+
   @Test
   public void testRemoveByCriteria() throws Exception {
     assertTrue("Remove with no entries to removed returned removed log entries", dao
         .removeByCriteria(buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG)).isEmpty());
   }
   
+  @Test
+  public void testEnforceRetentionByLevelTier() {
+    CommandResult stats = mock(CommandResult.class);
+    when(stats.get("size")).thenReturn(5000L, 3000L);
+    when(template.executeCommand(any(DBObject.class))).thenReturn(stats);
+    when(template.remove(any(Query.class), eq(LogEntry.class)))
+        .thenReturn(new WriteResult(4, false, null), new WriteResult(1, false, null));
+    RetentionPolicy policy = new RetentionPolicy();
+    policy.setMaxAge(3600000L);
+    policy.setMaxAge(Level.ERROR, 7200000L);
+    Map<String, Long> dropped = dao.enforceRetention(policy, 10000000L);
+    ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+    verify(template, times(2)).remove(queries.capture(), eq(LogEntry.class));
+    String shortTier = SerializationUtils
+        .serializeToJsonSafely(queries.getAllValues().get(0).getQueryObject());
+    assertTrue("Short tier not a range removal: " + shortTier,
+        shortTier.contains("\"$lt\" : 6400000"));
+    assertFalse("ERROR entries removed with the short tier", shortTier.contains("ERROR"));
+    String longTier = SerializationUtils
+        .serializeToJsonSafely(queries.getAllValues().get(1).getQueryObject());
+    assertTrue("Long tier not limited to ERROR: " + longTier,
+        longTier.contains("2800000") && longTier.contains("ERROR"));
+    assertEquals("Wrong number of removed entries", Long.valueOf(5), dropped.get("entries"));
+    assertEquals("Wrong reclaimed bytes", Long.valueOf(2000), dropped.get("reclaimed.bytes"));
+  }
+
+  @Test
+  public void testEnforceRetentionByQuota() {
+    CommandResult stats = mock(CommandResult.class);
+    when(stats.get("size")).thenReturn(10000L);
+    when(template.executeCommand(any(DBObject.class))).thenReturn(stats);
+    when(template.count(any(Query.class), eq(LogEntry.class))).thenReturn(100L);
+    LogEntry first = buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    first.setCreated(1234L);
+    ArgumentCaptor<Query> oldest = ArgumentCaptor.forClass(Query.class);
+    when(template.findOne(oldest.capture(), eq(LogEntry.class))).thenReturn(first);
+    when(template.remove(any(Query.class), eq(LogEntry.class)))
+        .thenReturn(new WriteResult(30, false, null));
+    RetentionPolicy policy = new RetentionPolicy();
+    policy.setMaxBytes(7000L);
+    assertEquals("Wrong number of removed entries", Long.valueOf(30),
+        dao.enforceRetention(policy, 10000000L).get("entries"));
+    assertEquals("Wrong number of oldest entries skipped", 30, oldest.getValue().getSkip());
+    ArgumentCaptor<Query> removal = ArgumentCaptor.forClass(Query.class);
+    verify(template).remove(removal.capture(), eq(LogEntry.class));
+    assertTrue("Quota not removed up to the oldest kept entry", SerializationUtils
+        .serializeToJsonSafely(removal.getValue().getQueryObject()).contains("1234"));
+  }
+
   private LogEntry buildLogEntry(String originService, Level LogLevel, String[] labels,
       String message) {
     LogEntry entry = new LogEntry();
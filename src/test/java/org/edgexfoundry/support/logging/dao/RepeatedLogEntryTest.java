@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class RepeatedLogEntryTest {
+
+  private static final String[] TEST_LABELS = {"test", "entry2"};
+  private static final String TEST_MSG = "now is the time for all good men";
+  private static final String TEST_ORIGIN_SERVICE = "core-data";
+
+  @Test
+  public void testPersistedMessageRoundTrip() {
+    RepeatedLogEntry repeated = new RepeatedLogEntry(buildLogEntry(TEST_MSG), 41L, 1000L, 1900L);
+    LogEntry persisted = buildLogEntry(RepeatedLogEntry.toPersistedMessage(repeated));
+    persisted.setCreated(1000L);
+    assertEquals("Wrong persisted message", TEST_MSG + " [repeated 41 times until 1900]",
+        persisted.getMessage());
+
+    LogEntry restored = RepeatedLogEntry.fromPersisted(persisted);
+    assertTrue("Repeats not parsed back", restored instanceof RepeatedLogEntry);
+    assertEquals("Wrong message", TEST_MSG, restored.getMessage());
+    assertEquals("Wrong repeat count", 41L, ((RepeatedLogEntry) restored).getRepeatCount());
+    assertEquals("Wrong first repeat", 1000L, ((RepeatedLogEntry) restored).getFirstCreated());
+    assertEquals("Wrong last repeat", 1900L, RepeatedLogEntry.lastCreated(restored));
+    assertEquals("Wrong origin service", TEST_ORIGIN_SERVICE, restored.getOriginService());
+    assertArrayEquals("Wrong labels", TEST_LABELS, restored.getLabels());
+  }
+
+  @Test
+  public void testPlainMessageUnchanged() {
+    LogEntry entry = buildLogEntry("disk [repeated] twice");
+    assertEquals("Plain message changed", entry.getMessage(),
+        RepeatedLogEntry.toPersistedMessage(entry));
+    assertSame("Plain message parsed as repeats", entry, RepeatedLogEntry.fromPersisted(entry));
+    assertEquals("Plain entry has a last repeat", entry.getCreated(),
+        RepeatedLogEntry.lastCreated(entry));
+  }
+
+  @Test
+  public void testForgedRepeatsEscaped() {
+    String forged = TEST_MSG + " [repeated 1000000 times until 1900]";
+    String persisted = PersistedMessage.encode(buildLogEntry(forged));
+    assertEquals("Forged repeats not escaped", forged + " [verbatim]", persisted);
+    LogEntry decoded = PersistedMessage.decode(buildLogEntry(persisted));
+    assertFalse("Forged repeats parsed back", decoded instanceof RepeatedLogEntry);
+    assertEquals("Forged message not read back as sent", forged, decoded.getMessage());
+
+    // a genuine repeat of that message keeps it as sent
+    decoded = PersistedMessage.decode(buildLogEntry(
+        PersistedMessage.encode(new RepeatedLogEntry(buildLogEntry(forged), 3L, 1000L, 1200L))));
+    assertEquals("Wrong repeat count", 3L, ((RepeatedLogEntry) decoded).getRepeatCount());
+    assertEquals("Repeated message not read back as sent", forged, decoded.getMessage());
+  }
+
+  @Test
+  public void testMatchTimestampOverlap() {
+    RepeatedLogEntry repeated = new RepeatedLogEntry(buildLogEntry(TEST_MSG), 5L, 1000L, 1900L);
+    assertTrue("Range within the repeats not matched",
+        LogEntryMatcher.matchTimestamp(repeated, 1200L, 1300L));
+    assertTrue("Range starting after the first repeat not matched",
+        LogEntryMatcher.matchTimestamp(repeated, 1500L, 0L));
+    assertTrue("Range ending before the last repeat not matched",
+        LogEntryMatcher.matchTimestamp(repeated, 0L, 1500L));
+    assertFalse("Range after the last repeat matched",
+        LogEntryMatcher.matchTimestamp(repeated, 1900L, 5000L));
+    assertFalse("Range before the first repeat matched",
+        LogEntryMatcher.matchTimestamp(repeated, 100L, 1000L));
+  }
+
+  private LogEntry buildLogEntry(String message) {
+    LogEntry entry = new LogEntry();
+    entry.setOriginService(TEST_ORIGIN_SERVICE);
+    entry.setLabels(TEST_LABELS);
+    entry.setLogLevel(Level.WARN);
+    entry.setMessage(message);
+    entry.setCreated(500L);
+    return entry;
+  }
+
+}
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class RetentionPolicyTest {
+
+  @Test
+  public void testNoLimit() {
+    RetentionPolicy policy = new RetentionPolicy();
+    assertFalse("Policy without limits enabled", policy.isEnabled());
+    assertFalse("Entry expired without limits", policy.isExpired(Level.DEBUG, 0L, Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testLevelTier() {
+    RetentionPolicy policy = new RetentionPolicy();
+    policy.setMaxAge(1000L);
+    policy.setMaxAge(Level.ERROR, 5000L);
+    assertTrue("Policy with a max age not enabled", policy.isEnabled());
+    assertEquals("Level without tier doesn't use the max age", 1000L,
+        policy.getMaxAge(Level.DEBUG));
+    assertEquals("Entries without level don't use the max age", 1000L, policy.getMaxAge(null));
+    assertEquals("Wrong shortest max age", 1000L, policy.getShortestMaxAge());
+    assertTrue("DEBUG entry not expired", policy.isExpired(Level.DEBUG, 8000L, 10000L));
+    assertFalse("ERROR entry expired", policy.isExpired(Level.ERROR, 8000L, 10000L));
+    assertTrue("Old ERROR entry not expired", policy.isExpired(Level.ERROR, 4000L, 10000L));
+  }
+
+  @Test
+  public void testLevelKeptForever() {
+    RetentionPolicy policy = new RetentionPolicy();
+    policy.setMaxAge(Level.DEBUG, 1000L);
+    policy.setMaxAge(Level.ERROR, 0L);
+    assertEquals("Wrong shortest max age", 1000L, policy.getShortestMaxAge());
+    assertFalse("INFO entry expired without max age", policy.isExpired(Level.INFO, 0L, 10000L));
+    assertFalse("ERROR entry kept forever expired", policy.isExpired(Level.ERROR, 0L, 10000L));
+  }
+
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class SampledLogEntryTest {
+
+  private static final String[] TEST_LABELS = {"test", "entry2"};
+  private static final String TEST_MSG = "now is the time for all good men";
+  private static final String TEST_ORIGIN_SERVICE = "core-data";
+
+  @Test
+  public void testPersistedMessageRoundTrip() {
+    SampledLogEntry sampled = new SampledLogEntry(buildLogEntry(TEST_MSG), 3.7);
+    String persisted = PersistedMessage.encode(sampled);
+    assertEquals("Wrong persisted message", TEST_MSG + " [sampled 1 in 3.7]", persisted);
+
+    LogEntry read = buildLogEntry(persisted);
+    LogEntry decoded = PersistedMessage.decode(read);
+    assertTrue("Sampled entry not decoded", decoded instanceof SampledLogEntry);
+    assertEquals("Wrong message", TEST_MSG, decoded.getMessage());
+    assertEquals("Wrong weight", 3.7, SampledLogEntry.weight(decoded), 0.0);
+    assertEquals("Wrong created", 100L, decoded.getCreated());
+    assertEquals("Wrong level", Level.INFO, decoded.getLogLevel());
+  }
+
+  @Test
+  public void testRepeatsDecoded() {
+    LogEntry repeated = new RepeatedLogEntry(buildLogEntry(TEST_MSG), 4L, 100L, 900L);
+    LogEntry decoded = PersistedMessage.decode(buildLogEntry(PersistedMessage.encode(repeated)));
+    assertTrue("Repeats not decoded", decoded instanceof RepeatedLogEntry);
+    assertEquals("Repeats weigh as sampled", 1.0, SampledLogEntry.weight(decoded), 0.0);
+  }
+
+  @Test
+  public void testPlainEntryUnchanged() {
+    LogEntry entry = buildLogEntry(TEST_MSG + " [sampled 1 in many]");
+    assertSame("Plain entry decoded", entry, PersistedMessage.decode(entry));
+    assertEquals("Plain entry encoded", entry.getMessage(), PersistedMessage.encode(entry));
+    assertEquals("Plain entry weighs more than 1", 1.0, SampledLogEntry.weight(entry), 0.0);
+  }
+
+  @Test
+  public void testForgedWeightEscaped() {
+    for (String forged : new String[] {TEST_MSG + " [sampled 1 in 1000.0]",
+        TEST_MSG + " [verbatim]"}) {
+      String persisted = PersistedMessage.encode(buildLogEntry(forged));
+      assertEquals("Forged suffix not escaped", forged + " [verbatim]", persisted);
+      LogEntry decoded = PersistedMessage.decode(buildLogEntry(persisted));
+      assertEquals("Forged weight counted", 1.0, SampledLogEntry.weight(decoded), 0.0);
+      assertEquals("Forged message not read back as sent", forged, decoded.getMessage());
+    }
+  }
+
+  private LogEntry buildLogEntry(String message) {
+    LogEntry entry = new LogEntry();
+    entry.setOriginService(TEST_ORIGIN_SERVICE);
+    entry.setLabels(TEST_LABELS);
+    entry.setLogLevel(Level.INFO);
+    entry.setMessage(message);
+    entry.setCreated(100L);
+    return entry;
+  }
+
+}
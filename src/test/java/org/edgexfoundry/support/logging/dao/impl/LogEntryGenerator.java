@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.slf4j.event.Level;
+
+/**
+ * Reproducible generator of logEntries resembling the traffic of an EdgeX gateway: a few services
+ * (core-data, export-distro) log most of the entries, INFO dominates the levels, most entries
+ * carry zero to two labels and messages are filled in templates. The same seed always yields the
+ * same entries, whose created timestamps are strictly increasing.
+ */
+public class LogEntryGenerator {
+
+  public static final long DEFAULT_SEED = 20170101L;
+  // 2017-07-14, so the generated entries are neither at the epoch nor in the future
+  public static final long START = 1500000000000L;
+  // average gap between two consecutive logEntries in milliseconds
+  public static final int AVERAGE_GAP = 20;
+
+  private static final String[] SERVICES = {"core-data", "export-distro", "core-metadata",
+      "core-command", "device-virtual", "support-notifications", "support-scheduler",
+      "export-client", "device-modbus", "device-mqtt"};
+  private static final int[] SERVICE_WEIGHTS = {30, 12, 12, 10, 9, 7, 6, 6, 5, 3};
+
+  private static final Level[] LEVELS = {Level.INFO, Level.DEBUG, Level.WARN, Level.ERROR,
+      Level.TRACE};
+  private static final int[] LEVEL_WEIGHTS = {60, 20, 12, 6, 2};
+
+  private static final String[] LABELS = {"rest", "mongo", "device", "event", "reading",
+      "schedule", "config", "health"};
+
+  private static final String[] DEVICES = {"thermostat-1", "thermostat-2", "pump-a", "pump-b",
+      "gateway", "camera-east", "camera-west", "meter-07"};
+
+  // arguments: 1 an event or reading number, 2 a device name, 3 a small count or duration
+  private static final String[] TEMPLATES =
+      {"Received event %1$d from device %2$s with %3$d readings",
+          "Reading %1$d of device %2$s out of range",
+          "Connection to device %2$s lost, retrying in %3$d ms",
+          "Schedule event %1$d fired for device %2$s",
+          "Notification %1$d sent to %3$d subscribers",
+          "Command %1$d executed on device %2$s in %3$d ms", "Heartbeat of device %2$s",
+          "Failed to persist event %1$d of device %2$s: timeout after %3$d ms",
+          "Configuration of device %2$s reloaded in %3$d ms"};
+
+  private final Random random;
+  private long created = START;
+
+  public LogEntryGenerator() {
+    this(DEFAULT_SEED);
+  }
+
+  public LogEntryGenerator(long seed) {
+    random = new Random(seed);
+  }
+
+  public LogEntry next() {
+    LogEntry entry = new LogEntry();
+    created += 1 + random.nextInt(2 * AVERAGE_GAP - 1);
+    entry.setCreated(created);
+    entry.setOriginService(SERVICES[pick(SERVICE_WEIGHTS)]);
+    entry.setLogLevel(LEVELS[pick(LEVEL_WEIGHTS)]);
+    int labelCount = random.nextInt(10) < 4 ? 0 : 1 + random.nextInt(2);
+    if (labelCount > 0) {
+      String[] labels = new String[labelCount];
+      for (int i = 0; i < labelCount; i++) {
+        labels[i] = LABELS[random.nextInt(LABELS.length)];
+      }
+      entry.setLabels(labels);
+    }
+    entry.setMessage(message());
+    return entry;
+  }
+
+  /**
+   * Generate logEntries, leaving out the TRACE ones, which a store never keeps
+   *
+   * @param count
+   * @return loggable logEntries in chronological order
+   */
+  public List<LogEntry> loggable(int count) {
+    List<LogEntry> entries = new ArrayList<>(count);
+    while (entries.size() < count) {
+      LogEntry entry = next();
+      if (Level.TRACE != entry.getLogLevel()) {
+        entries.add(entry);
+      }
+    }
+    return entries;
+  }
+
+  private String message() {
+    return String.format(TEMPLATES[random.nextInt(TEMPLATES.length)], random.nextInt(100000),
+        DEVICES[random.nextInt(DEVICES.length)], random.nextInt(5000));
+  }
+
+  private int pick(int[] weights) {
+    int total = 0;
+    for (int weight : weights) {
+      total += weight;
+    }
+    int value = random.nextInt(total);
+    for (int i = 0; i < weights.length; i++) {
+      value -= weights[i];
+      if (value < 0) {
+        return i;
+      }
+    }
+    return weights.length - 1;
+  }
+
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class SegmentFooterTest {
+
+  private static final double FALSE_POSITIVES = 0.01;
+
+  private File segment;
+  private SegmentFooter footer;
+  private List<LogEntry> entries;
+
+  @Before
+  public void setup() throws Exception {
+    segment = File.createTempFile("segment", ".log");
+    entries = new LogEntryGenerator().loggable(5000);
+    List<String> lines = new ArrayList<>();
+    for (LogEntry entry : entries) {
+      lines.add(FileLogEntryDAO.toLine(entry));
+    }
+    Files.write(segment.toPath(), lines, StandardCharsets.UTF_8);
+    // the footer is sized after the segment, so it is created once the segment is written
+    footer = SegmentFooter.of(segment);
+    for (String line : lines) {
+      footer.add(FileLogEntryDAO.convertString2LogEntry(line));
+    }
+    footer.seal();
+  }
+
+  @After
+  public void cleanup() {
+    segment.delete();
+  }
+
+  @Test
+  public void testMayMatchPresentValues() {
+    LogEntry entry = entries.get(entries.size() / 2);
+    MatchCriteria criteria = new MatchCriteria();
+    criteria.setOriginServices(new String[] {entry.getOriginService()});
+    criteria.setLogLevels(new Level[] {entry.getLogLevel()});
+    criteria.setMessageKeywords(new String[] {entry.getMessage().substring(5, 20)});
+    criteria.setStart(entry.getCreated() - 1);
+    criteria.setEnd(entry.getCreated() + 1);
+    assertTrue("Footer ruled out an entry of its segment", footer.mayMatch(criteria));
+    criteria.setLabels(new String[] {"nonexistent", "rest"});
+    assertTrue("Footer ruled out a label of its segment", footer.mayMatch(criteria));
+  }
+
+  @Test
+  public void testMayMatchAbsentValues() {
+    MatchCriteria criteria = new MatchCriteria();
+    criteria.setOriginServices(new String[] {"support-rulesengine"});
+    assertFalse("Footer did not rule out an absent originService", footer.mayMatch(criteria));
+
+    criteria = new MatchCriteria();
+    criteria.setLabels(new String[] {"nonexistent"});
+    assertFalse("Footer did not rule out an absent label", footer.mayMatch(criteria));
+
+    criteria = new MatchCriteria();
+    criteria.setMessageKeywords(new String[] {"segfault", "quota"});
+    assertFalse("Footer did not rule out absent keywords", footer.mayMatch(criteria));
+
+    criteria = new MatchCriteria();
+    criteria.setLogLevels(new Level[] {Level.TRACE});
+    assertFalse("Footer did not rule out an absent logLevel", footer.mayMatch(criteria));
+  }
+
+  @Test
+  public void testMayMatchOutsideTimeRange() {
+    MatchCriteria criteria = new MatchCriteria();
+    criteria.setStart(entries.get(entries.size() - 1).getCreated());
+    assertFalse("Footer did not rule out a range after its entries", footer.mayMatch(criteria));
+    criteria = new MatchCriteria();
+    criteria.setEnd(entries.get(0).getCreated());
+    assertFalse("Footer did not rule out a range before its entries", footer.mayMatch(criteria));
+  }
+
+  @Test
+  public void testMayMatchShortKeyword() {
+    MatchCriteria criteria = new MatchCriteria();
+    criteria.setMessageKeywords(new String[] {"qz"});
+    assertTrue("Keyword shorter than a trigram ruled out", footer.mayMatch(criteria));
+  }
+
+  @Test
+  public void testEmptySegmentNeverMatches() throws Exception {
+    SegmentFooter empty = SegmentFooter.of(segment);
+    empty.seal();
+    assertFalse("Empty segment may match", empty.mayMatch(new MatchCriteria()));
+    assertTrue("Footer of an unchanged segment not the same", empty.isSame(segment));
+  }
+
+  @Test
+  public void testFooterCompacted() {
+    assertTrue("Footer Bloom filters not compacted", footer.size() < segment.length() / 10);
+  }
+
+  @Test
+  public void testBloomFilterCompact() {
+    BloomFilter filter = new BloomFilter(1 << 20, FALSE_POSITIVES);
+    int initial = filter.size();
+    for (int i = 0; i < 1000; i++) {
+      filter.add("value-" + i);
+    }
+    filter.compact(FALSE_POSITIVES);
+    assertTrue("Filter not compacted", filter.size() * 100 < initial);
+    int falsePositives = 0;
+    for (int i = 0; i < 1000; i++) {
+      assertTrue("Added value not found", filter.mightContain("value-" + i));
+      if (filter.mightContain("other-" + i)) {
+        falsePositives++;
+      }
+    }
+    assertTrue("Too many false positives after compacting", falsePositives < 30);
+  }
+
+}
@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.dao.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.dao.MDC_ENUM_CONSTANTS;
+import org.edgexfoundry.support.logging.dao.QueryContext;
+import org.edgexfoundry.support.logging.dao.RetentionPolicy;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class TieredLogEntryDAOTest {
+
+  private static final long HOT_FLOOR = 10000L;
+  private static final long HOT_AGE = 300000L;
+  private static final long WARM_AGE = 3600000L;
+  private static final long VERIFY_TIMEOUT = 5000L;
+
+  private TieredLogEntryDAO dao;
+  private FileLogEntryDAO file;
+  private MongoDBLogEntryDAO mongodb;
+
+  @Before
+  public void setup() throws Exception {
+    file = mock(FileLogEntryDAO.class);
+    mongodb = mock(MongoDBLogEntryDAO.class);
+    when(file.getCacheFloor()).thenReturn(HOT_FLOOR);
+    when(mongodb.saveAll(anyListOf(LogEntry.class)))
+        .thenAnswer(invocation -> ((List<?>) invocation.getArguments()[0]).size());
+    dao = new TieredLogEntryDAO();
+    setField("fileDAO", file);
+    setField("hotAge", HOT_AGE);
+    setField("warmAge", WARM_AGE);
+    setField("queueCapacity", 10);
+    setField("batchSize", 10);
+    setField("drainTimeout", VERIFY_TIMEOUT);
+  }
+
+  @After
+  public void cleanup() throws Exception {
+    invoke("destroy");
+  }
+
+  @Test
+  public void testPlanRecent() throws Exception {
+    invoke("init");
+    List<TieredLogEntryDAO.Slice> slices = dao.plan(HOT_FLOOR + 5, 0L);
+    assertEquals("Recent range not served by the hot tier alone", 1, slices.size());
+    assertSlice(slices.get(0), TieredLogEntryDAO.HOT, HOT_FLOOR + 5, 0L);
+  }
+
+  @Test
+  public void testPlanAcrossTiers() throws Exception {
+    setField("mongodbDAO", mongodb);
+    invoke("init");
+    setField("warmFloor", 5000L);
+    List<TieredLogEntryDAO.Slice> slices = dao.plan(0L, 0L);
+    assertEquals("Full range not split across the tiers", 3, slices.size());
+    assertSlice(slices.get(0), TieredLogEntryDAO.COLD_TIER, 0L, 5000L);
+    assertSlice(slices.get(1), TieredLogEntryDAO.WARM, 4999L, HOT_FLOOR);
+    assertSlice(slices.get(2), TieredLogEntryDAO.HOT, HOT_FLOOR - 1, 0L);
+    slices = dao.plan(6000L, 7000L);
+    assertEquals("Range within the warm tier split", 1, slices.size());
+    assertSlice(slices.get(0), TieredLogEntryDAO.WARM, 6000L, 7000L);
+  }
+
+  @Test
+  public void testRecentQueryStaysInMemory() throws Exception {
+    invoke("init");
+    when(file.findByCriteria(any(MatchCriteria.class), anyInt(), any(QueryContext.class)))
+        .thenReturn(Arrays.asList(buildLogEntry(HOT_FLOOR + 10)));
+    MatchCriteria criteria = new MatchCriteria();
+    criteria.setStart(HOT_FLOOR + 1);
+    assertEquals("Hot logEntry not found", 1, dao.findByCriteria(criteria, 10).size());
+    verify(file, never()).streamByCriteria(any(MatchCriteria.class), any(QueryContext.class));
+    assertEquals("Hot tier query not counted", 1L, dao.getBackendStats()
+        .get(TieredLogEntryDAO.HOT).get(TieredLogEntryDAO.QUERIES).longValue());
+  }
+
+  @Test
+  public void testMergeInCreatedOrder() throws Exception {
+    invoke("init");
+    when(file.streamByCriteria(any(MatchCriteria.class), any(QueryContext.class)))
+        .thenAnswer(invocation -> TieredIterator
+            .of(Arrays.asList(buildLogEntry(1000L), buildLogEntry(2000L))));
+    when(file.findByCriteria(any(MatchCriteria.class), anyInt(), any(QueryContext.class)))
+        .thenReturn(Arrays.asList(buildLogEntry(HOT_FLOOR + 10)));
+    List<LogEntry> result = dao.findByCriteria(new MatchCriteria(), 3);
+    assertEquals("Wrong number of logEntries", 3, result.size());
+    assertEquals("Warm logEntries not first", 1000L, result.get(0).getCreated());
+    assertEquals("Warm logEntries out of order", 2000L, result.get(1).getCreated());
+    assertEquals("Hot logEntry not last", HOT_FLOOR + 10, result.get(2).getCreated());
+  }
+
+  @Test
+  public void testLimitReachedInOlderTier() throws Exception {
+    invoke("init");
+    when(file.streamByCriteria(any(MatchCriteria.class), any(QueryContext.class)))
+        .thenAnswer(invocation -> TieredIterator
+            .of(Arrays.asList(buildLogEntry(1000L), buildLogEntry(2000L))));
+    assertEquals("Limit not applied", 2, dao.findByCriteria(new MatchCriteria(), 2).size());
+    verify(file, never()).findByCriteria(any(MatchCriteria.class), anyInt(),
+        any(QueryContext.class));
+  }
+
+  @Test
+  public void testCountAcrossTiers() throws Exception {
+    invoke("init");
+    when(file.streamByCriteria(any(MatchCriteria.class), any(QueryContext.class)))
+        .thenAnswer(invocation -> TieredIterator
+            .of(Arrays.asList(buildLogEntry(1000L), buildLogEntry(2000L))));
+    Map<String, Long> hot = new LinkedHashMap<>();
+    hot.put(Level.ERROR.name(), 1L);
+    hot.put(Level.INFO.name(), 3L);
+    when(file.countByCriteria(any(MatchCriteria.class), eq(MDC_ENUM_CONSTANTS.LOGLEVEL),
+        anyLong())).thenReturn(hot);
+    Map<String, Long> counts =
+        dao.countByCriteria(new MatchCriteria(), MDC_ENUM_CONSTANTS.LOGLEVEL, 0L);
+    assertEquals("Hot count not merged", 1L, counts.get(Level.ERROR.name()).longValue());
+    assertEquals("Warm count not merged", 5L, counts.get(Level.INFO.name()).longValue());
+  }
+
+  @Test
+  public void testCountTimeBucketsInOrder() throws Exception {
+    invoke("init");
+    when(file.streamByCriteria(any(MatchCriteria.class), any(QueryContext.class)))
+        .thenAnswer(invocation -> TieredIterator.of(Arrays.asList(buildLogEntry(9000L))));
+    when(file.countByCriteria(any(MatchCriteria.class), eq(MDC_ENUM_CONSTANTS.CREATED),
+        anyLong())).thenReturn(Collections.singletonMap("10000", 2L));
+    Map<String, Long> counts =
+        dao.countByCriteria(new MatchCriteria(), MDC_ENUM_CONSTANTS.CREATED, 1000L);
+    assertEquals("Time buckets not in order", Arrays.asList("9000", "10000"),
+        Arrays.asList(counts.keySet().toArray()));
+  }
+
+  @Test
+  public void testRemoveFromEveryTier() throws Exception {
+    setField("mongodbDAO", mongodb);
+    invoke("init");
+    setField("warmFloor", 5000L);
+    when(mongodb.findByCriteria(any(MatchCriteria.class), eq(-1)))
+        .thenReturn(Arrays.asList(buildLogEntry(1000L)));
+    when(file.removeFromSegments(any(MatchCriteria.class)))
+        .thenReturn(Arrays.asList(buildLogEntry(6000L)));
+    when(file.removeByCriteria(any(MatchCriteria.class)))
+        .thenReturn(Arrays.asList(buildLogEntry(HOT_FLOOR + 10)));
+    MatchCriteria criteria = new MatchCriteria();
+    assertEquals("Removal not returned from every tier", 3,
+        dao.removeByCriteria(criteria).size());
+    ArgumentCaptor<MatchCriteria> warm = ArgumentCaptor.forClass(MatchCriteria.class);
+    verify(file).removeFromSegments(warm.capture());
+    assertEquals("Wrong warm slice", HOT_FLOOR, warm.getValue().getEnd());
+    ArgumentCaptor<MatchCriteria> hot = ArgumentCaptor.forClass(MatchCriteria.class);
+    verify(file).removeByCriteria(hot.capture());
+    assertEquals("Wrong hot slice", HOT_FLOOR - 1, hot.getValue().getStart());
+    verify(mongodb, timeout(VERIFY_TIMEOUT)).removeByCriteria(criteria);
+  }
+
+  @Test
+  public void testSaveQueuedToColdTier() throws Exception {
+    setField("mongodbDAO", mongodb);
+    invoke("init");
+    LogEntry entry = buildLogEntry(HOT_FLOOR + 10);
+    dao.save(entry);
+    verify(file).save(entry);
+    verify(mongodb, timeout(VERIFY_TIMEOUT)).saveAll(anyListOf(LogEntry.class));
+  }
+
+  @Test
+  public void testAge() throws Exception {
+    setField("mongodbDAO", mongodb);
+    invoke("init");
+    long now = System.currentTimeMillis();
+    when(file.getCacheFloor()).thenReturn(now - HOT_AGE);
+    dao.age(now);
+    verify(file).evictCache(now - HOT_AGE);
+    verify(file).enforceRetention(any(RetentionPolicy.class), eq(now));
+    List<TieredLogEntryDAO.Slice> slices = dao.plan(0L, 0L);
+    assertSlice(slices.get(0), TieredLogEntryDAO.COLD_TIER, 0L, now - WARM_AGE);
+  }
+
+  @Test
+  public void testAgeWithoutColdTier() throws Exception {
+    invoke("init");
+    dao.age(HOT_AGE * 2);
+    verify(file).evictCache(HOT_AGE);
+    verify(file, never()).enforceRetention(any(RetentionPolicy.class), anyLong());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testWarmAgeShorterThanHotAge() throws Exception {
+    setField("mongodbDAO", mongodb);
+    setField("warmAge", HOT_AGE - 1);
+    invoke("init");
+  }
+
+  private static void assertSlice(TieredLogEntryDAO.Slice slice, String tier, long start,
+      long end) {
+    assertEquals("Wrong tier", tier, slice.tier);
+    assertEquals("Wrong start", start, slice.start);
+    assertEquals("Wrong end", end, slice.end);
+  }
+
+  private void setField(String name, Object value) throws Exception {
+    Field field = TieredLogEntryDAO.class.getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(dao, value);
+  }
+
+  private void invoke(String name) throws Exception {
+    Method method = TieredLogEntryDAO.class.getDeclaredMethod(name);
+    method.setAccessible(true);
+    try {
+      method.invoke(dao);
+    } catch (InvocationTargetException e) {
+      throw (Exception) e.getCause();
+    }
+  }
+
+  private LogEntry buildLogEntry(long created) {
+    LogEntry entry = new LogEntry();
+    entry.setOriginService("TEST_SERVICE");
+    entry.setLogLevel(Level.INFO);
+    entry.setMessage("TEST_MESSAGE");
+    entry.setCreated(created);
+    return entry;
+  }
+
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.jfr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.query.LogQuery;
+import org.edgexfoundry.support.logging.query.QueryOperator;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+@Category(RequiresNone.class)
+public class FlightRecorderEventsTest {
+
+  @After
+  public void cleanup() {
+    FlightRecorderEvents.configure(true, true, true);
+  }
+
+  @Test
+  public void testDisabledTracesAreNoop() {
+    FlightRecorderEvents.configure(false, false, false);
+    assertSame("Disabled ingest trace not a no-op", IngestTrace.NOOP, FlightRecorderEvents.ingest());
+    assertSame("Disabled query trace not a no-op", QueryTrace.NOOP, FlightRecorderEvents.query());
+    assertSame("Disabled delete trace not a no-op", DeleteTrace.NOOP,
+        FlightRecorderEvents.delete());
+  }
+
+  @Test
+  public void testCriteriaShape() {
+    MatchCriteria criteria = new MatchCriteria();
+    criteria.setLogLevels(new Level[] {Level.WARN, Level.ERROR});
+    criteria.setOriginServices(new String[] {"core-data"});
+    criteria.setStart(1000L);
+    assertEquals("Wrong criteria shape", "logLevels[2] originServices[1] start",
+        LogQueryEvent.shapeOf(criteria));
+  }
+
+  @Test
+  public void testQueryShape() {
+    LogQuery query = LogQuery.and(LogQuery.in("logLevel", "WARN", "ERROR"),
+        LogQuery.not(new LogQuery(QueryOperator.PREFIX, "originService", "core-")));
+    assertEquals("Wrong query shape", "AND(IN(logLevel)[2],NOT(PREFIX(originService)))",
+        LogQueryEvent.shapeOf(query));
+  }
+
+  @Test
+  public void testEventsRecorded() throws Exception {
+    assumeTrue(FlightRecorderEvents.isAvailable() && FlightRecorder.isAvailable());
+    File dump = File.createTempFile("edgex-logging", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(LogIngestEvent.class);
+      recording.enable(LogQueryEvent.class).withThreshold(java.time.Duration.ZERO);
+      recording.enable(LogDeleteEvent.class);
+      recording.start();
+
+      LogEntry entry = new LogEntry();
+      entry.setOriginService("core-data");
+      entry.setLogLevel(Level.INFO);
+      entry.setMessage("now is the time for all good men");
+      entry.setCreated(System.currentTimeMillis());
+      IngestTrace ingest = FlightRecorderEvents.ingest();
+      ingest.begin();
+      ingest.commit("file", entry, true);
+      QueryTrace query = FlightRecorderEvents.query();
+      query.begin();
+      query.commit("file", "time-bucket index", new MatchCriteria(), 30L, 2L, 3, false);
+      DeleteTrace delete = FlightRecorderEvents.delete();
+      delete.begin();
+      delete.commit("file", 3, 1000L);
+
+      recording.stop();
+      Path path = dump.toPath();
+      recording.dump(path);
+      List<RecordedEvent> events = RecordingFile.readAllEvents(path);
+      assertEquals("Ingest event not recorded", 1, count(events, "LogIngest"));
+      assertEquals("Query event not recorded", 1, count(events, "LogQuery"));
+      assertEquals("Delete event not recorded", 1, count(events, "LogDelete"));
+      for (RecordedEvent event : events) {
+        if (event.getEventType().getName().endsWith("LogQuery")) {
+          assertEquals("Wrong scanned count", 30L, event.getLong("scanned"));
+          assertEquals("Wrong pruned count", 2L, event.getLong("pruned"));
+          assertEquals("Wrong returned count", 3, event.getInt("returned"));
+        }
+      }
+    } finally {
+      assertTrue("Recording dump not deleted", dump.delete());
+    }
+  }
+
+  private int count(List<RecordedEvent> events, String name) {
+    int count = 0;
+    for (RecordedEvent event : events) {
+      if (event.getEventType().getName().equals("org.edgexfoundry.logging." + name)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+}
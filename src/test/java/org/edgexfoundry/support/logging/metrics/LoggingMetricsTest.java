@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(RequiresNone.class)
+public class LoggingMetricsTest {
+
+  private LoggingMetrics metrics;
+
+  @Before
+  public void setup() {
+    metrics = new LoggingMetrics();
+  }
+
+  @Test
+  public void testIngestCounts() {
+    metrics.accepted();
+    metrics.accepted();
+    metrics.saved("core-data");
+    Map<String, Number> result = metrics.getMetrics();
+    assertEquals("Wrong accepted count", 2L, result.get("ingest.accepted").longValue());
+    assertEquals("Wrong saved count", 1L, result.get("ingest.saved").longValue());
+  }
+
+  @Test
+  public void testRatesAfterRoll() {
+    metrics.saved("core-data");
+    metrics.saved("core-data");
+    metrics.saved("core-metadata");
+    assertNull("Service rate reported before the interval closed",
+        metrics.getMetrics().get("ingest.service.core-data.rate"));
+    metrics.roll();
+    Map<String, Number> result = metrics.getMetrics();
+    assertTrue("No saved rate after roll", result.get("ingest.saved.rate").doubleValue() > 0);
+    assertTrue("Service rates out of proportion",
+        result.get("ingest.service.core-data.rate").doubleValue() > result
+            .get("ingest.service.core-metadata.rate").doubleValue());
+    metrics.roll();
+    assertEquals("Rate of an idle interval not zero", 0.0,
+        metrics.getMetrics().get("ingest.service.core-data.rate").doubleValue(), 0.0);
+  }
+
+  @Test
+  public void testServicesBounded() throws Exception {
+    Field field = LoggingMetrics.class.getDeclaredField("maxServices");
+    field.setAccessible(true);
+    field.set(metrics, 2);
+    metrics.saved("a");
+    metrics.saved("b");
+    metrics.saved("c");
+    metrics.saved("d");
+    metrics.roll();
+    Map<String, Number> result = metrics.getMetrics();
+    assertNull("Service tracked past the max", result.get("ingest.service.c.rate"));
+    assertTrue("Untracked services not counted as other",
+        result.containsKey("ingest.service." + LoggingMetrics.OTHER_SERVICES + ".rate"));
+  }
+
+  @Test
+  public void testLatencyPercentiles() {
+    for (int i = 1; i <= 100; i++) {
+      metrics.recordSave(TimeUnit.MILLISECONDS.toNanos(i));
+    }
+    assertEquals("Latencies reported before the interval closed", 0L,
+        metrics.getMetrics().get("dao.save.interval.count").longValue());
+    metrics.roll();
+    Map<String, Number> result = metrics.getMetrics();
+    assertEquals("Wrong save count", 100L, result.get("dao.save.count").longValue());
+    long p50 = result.get("dao.save.p50").longValue();
+    assertTrue("Median off by more than the histogram precision: " + p50,
+        Math.abs(p50 - 50000L) <= 50L);
+    assertTrue("Max lower than p99",
+        result.get("dao.save.max").longValue() >= result.get("dao.save.p99").longValue());
+  }
+
+}
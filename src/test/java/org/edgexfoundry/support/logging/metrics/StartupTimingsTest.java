@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+@Category(RequiresNone.class)
+public class StartupTimingsTest {
+
+  private StartupTimings timings;
+
+  @Before
+  public void setup() {
+    timings = new StartupTimings();
+  }
+
+  @Test
+  public void testPhasesInOrder() {
+    timings.onApplicationEvent(new ContextRefreshedEvent(mock(ApplicationContext.class)));
+    timings.onApplicationEvent(new ApplicationReadyEvent(new SpringApplication(), new String[0],
+        mock(ConfigurableApplicationContext.class)));
+    Map<String, Long> result = timings.getTimings();
+    assertEquals("Wrong phases recorded",
+        Arrays.asList(StartupTimings.CONTEXT, StartupTimings.READY),
+        Arrays.asList(result.keySet().toArray()));
+    assertTrue("Phases out of order",
+        result.get(StartupTimings.CONTEXT) <= result.get(StartupTimings.READY));
+  }
+
+  @Test
+  public void testPhaseRecordedOnce() throws Exception {
+    long first = timings.phase(StartupTimings.CONTEXT).get(StartupTimings.CONTEXT);
+    Thread.sleep(5);
+    // child contexts publish their refresh to the parent's listeners too
+    assertEquals("Phase recorded again", Long.valueOf(first),
+        timings.phase(StartupTimings.CONTEXT).get(StartupTimings.CONTEXT));
+  }
+
+}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class CompiledQueryTest {
+
+  private static final String[] TEST_LABELS = {"test", "entry2"};
+  private static final String TEST_MSG = "now is the time for all good men";
+  private static final String TEST_ORIGIN_SERVICE = "core-data";
+
+  @Test
+  public void testEquals() {
+    LogEntry entry = buildLogEntry(Level.ERROR, 1000L);
+    assertTrue("EQ on originService not matched", CompiledQuery
+        .compile(new LogQuery(QueryOperator.EQ, "originService", TEST_ORIGIN_SERVICE)).test(entry));
+    assertTrue("EQ on labels not matched",
+        CompiledQuery.compile(new LogQuery(QueryOperator.EQ, "labels", "entry2")).test(entry));
+    assertFalse("EQ on logLevel matched",
+        CompiledQuery.compile(new LogQuery(QueryOperator.EQ, "logLevel", "WARN")).test(entry));
+    assertTrue("IN on logLevel not matched",
+        CompiledQuery.compile(LogQuery.in("logLevel", "WARN", "ERROR")).test(entry));
+  }
+
+  @Test
+  public void testPatterns() {
+    LogEntry entry = buildLogEntry(Level.ERROR, 1000L);
+    assertTrue("PREFIX not matched",
+        CompiledQuery.compile(new LogQuery(QueryOperator.PREFIX, "originService", "core-"))
+            .test(entry));
+    assertFalse("PREFIX matched",
+        CompiledQuery.compile(new LogQuery(QueryOperator.PREFIX, "originService", "data"))
+            .test(entry));
+    assertTrue("CONTAINS not matched",
+        CompiledQuery.compile(new LogQuery(QueryOperator.CONTAINS, "message", "the time"))
+            .test(entry));
+    assertTrue("REGEX not matched",
+        CompiledQuery.compile(new LogQuery(QueryOperator.REGEX, "message", "t[io]me\\b"))
+            .test(entry));
+  }
+
+  @Test
+  public void testCombinators() {
+    LogEntry entry = buildLogEntry(Level.ERROR, 1000L);
+    LogQuery level = new LogQuery(QueryOperator.EQ, "logLevel", "ERROR");
+    LogQuery service = new LogQuery(QueryOperator.EQ, "originService", "core-metadata");
+    assertFalse("AND matched", CompiledQuery.compile(LogQuery.and(level, service)).test(entry));
+    assertTrue("OR not matched", CompiledQuery.compile(LogQuery.or(service, level)).test(entry));
+    assertTrue("NOT not matched",
+        CompiledQuery.compile(LogQuery.and(level, LogQuery.not(service))).test(entry));
+  }
+
+  @Test
+  public void testRange() {
+    CompiledQuery query = CompiledQuery.compile(LogQuery.range(500L, 2000L));
+    assertTrue("Entry within range not matched", query.test(buildLogEntry(Level.INFO, 1000L)));
+    assertFalse("Entry after range matched", query.test(buildLogEntry(Level.INFO, 2000L)));
+    assertEquals("Unexpected start", 500L, query.getStart());
+    assertEquals("Unexpected end", 2000L, query.getEnd());
+  }
+
+  @Test
+  public void testTimeBounds() {
+    LogQuery level = new LogQuery(QueryOperator.EQ, "logLevel", "ERROR");
+    CompiledQuery and = CompiledQuery
+        .compile(LogQuery.and(LogQuery.range(500L, 0L), level, LogQuery.range(0L, 2000L)));
+    assertEquals("AND start not intersected", 500L, and.getStart());
+    assertEquals("AND end not intersected", 2000L, and.getEnd());
+    CompiledQuery or =
+        CompiledQuery.compile(LogQuery.or(LogQuery.range(500L, 1000L), LogQuery.range(800L, 2000L)));
+    assertEquals("OR start not united", 500L, or.getStart());
+    assertEquals("OR end not united", 2000L, or.getEnd());
+    CompiledQuery unbounded = CompiledQuery.compile(LogQuery.or(LogQuery.range(500L, 1000L), level));
+    assertEquals("OR with unbounded clause bounded", 0L, unbounded.getStart());
+    assertEquals("OR with unbounded clause bounded", 0L, unbounded.getEnd());
+    CompiledQuery not = CompiledQuery.compile(LogQuery.not(LogQuery.range(500L, 1000L)));
+    assertEquals("NOT bounded", 0L, not.getStart());
+  }
+
+  @Test
+  public void testClauseOrder() {
+    LogQuery regex = new LogQuery(QueryOperator.REGEX, "message", "men$");
+    LogQuery keyword = new LogQuery(QueryOperator.CONTAINS, "message", "time");
+    LogQuery level = new LogQuery(QueryOperator.EQ, "logLevel", "ERROR");
+    LogQuery service = new LogQuery(QueryOperator.EQ, "originService", TEST_ORIGIN_SERVICE);
+    List<LogQuery> and =
+        CompiledQuery.compile(LogQuery.and(regex, keyword, service, level)).getQuery().getClauses();
+    assertEquals("Cheap selective clause not first", level, and.get(0));
+    assertEquals("Equality not before keyword", service, and.get(1));
+    assertEquals("Keyword not before regex", keyword, and.get(2));
+    assertEquals("Regex not last", regex, and.get(3));
+    List<LogQuery> or =
+        CompiledQuery.compile(LogQuery.or(regex, LogQuery.in("logLevel", "INFO", "WARN", "ERROR")))
+            .getQuery().getClauses();
+    assertEquals("Cheap likely clause not first", QueryOperator.IN, or.get(0).getOp());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownField() {
+    CompiledQuery.compile(new LogQuery(QueryOperator.EQ, "device", "thermostat"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownLogLevel() {
+    CompiledQuery.compile(new LogQuery(QueryOperator.EQ, "logLevel", "FATAL"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidRegex() {
+    CompiledQuery.compile(new LogQuery(QueryOperator.REGEX, "message", "(time"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEmptyAnd() {
+    CompiledQuery.compile(LogQuery.and());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRangeOnMessage() {
+    LogQuery query = LogQuery.range(0L, 1000L);
+    query.setField("message");
+    CompiledQuery.compile(query);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingOperator() {
+    CompiledQuery.compile(new LogQuery());
+  }
+
+  private LogEntry buildLogEntry(Level level, long created) {
+    LogEntry entry = new LogEntry();
+    entry.setOriginService(TEST_ORIGIN_SERVICE);
+    entry.setLabels(TEST_LABELS);
+    entry.setLogLevel(level);
+    entry.setMessage(TEST_MSG);
+    entry.setCreated(created);
+    return entry;
+  }
+
+}
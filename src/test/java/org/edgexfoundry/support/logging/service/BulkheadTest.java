@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.edgexfoundry.exception.controller.LimitExceededException;
+import org.edgexfoundry.support.logging.service.Bulkhead.RejectionPolicy;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(RequiresNone.class)
+public class BulkheadTest {
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private Bulkhead pool;
+
+  @After
+  public void cleanup() {
+    release.countDown();
+    pool.shutdown();
+  }
+
+  @Test
+  public void testCall() throws InterruptedException {
+    pool = new Bulkhead("test", 1, 1, RejectionPolicy.ABORT);
+    assertEquals("Wrong result from the pool", "done", pool.call(() -> "done"));
+    // the worker counts the work as completed only after handing its result over
+    long deadline = System.currentTimeMillis() + 1000;
+    while (pool.getStats().get("completed") == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(1);
+    }
+    assertEquals("Completed work not counted", Long.valueOf(1), pool.getStats().get("completed"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCallRethrows() {
+    pool = new Bulkhead("test", 1, 1, RejectionPolicy.ABORT);
+    pool.call(() -> {
+      throw new IllegalArgumentException("bad");
+    });
+  }
+
+  @Test
+  public void testAbortWhenSaturated() throws InterruptedException {
+    pool = new Bulkhead("test", 1, 1, RejectionPolicy.ABORT);
+    saturate();
+    try {
+      pool.execute(() -> {
+      });
+      assertTrue("Saturated pool accepted work", false);
+    } catch (LimitExceededException e) {
+      // expected
+    }
+    assertEquals("Rejection not counted", Long.valueOf(1), pool.getStats().get("rejected"));
+    assertEquals("Queued work not reported", Long.valueOf(1), pool.getStats().get("queued"));
+  }
+
+  @Test
+  public void testCallerRunsWhenSaturated() throws InterruptedException {
+    pool = new Bulkhead("test", 1, 1, RejectionPolicy.CALLER_RUNS);
+    saturate();
+    AtomicReference<Thread> runner = new AtomicReference<>();
+    pool.execute(() -> runner.set(Thread.currentThread()));
+    assertEquals("Rejected work not run by the caller", Thread.currentThread(), runner.get());
+    assertEquals("Rejection not counted", Long.valueOf(1), pool.getStats().get("rejected"));
+  }
+
+  @Test(expected = LimitExceededException.class)
+  public void testCallDiscardedWhenSaturated() throws InterruptedException {
+    pool = new Bulkhead("test", 1, 1, RejectionPolicy.DISCARD);
+    saturate();
+    pool.call(() -> "never");
+  }
+
+  /**
+   * Occupy the only thread and the only queue slot of the pool
+   */
+  private void saturate() throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    pool.execute(() -> {
+      started.countDown();
+      await();
+    });
+    assertTrue("Pool did not start the work", started.await(5, TimeUnit.SECONDS));
+    pool.execute(this::await);
+  }
+
+  private void await() {
+    try {
+      release.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
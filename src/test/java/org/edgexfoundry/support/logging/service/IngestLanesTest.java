@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.edgexfoundry.support.logging.service.Bulkhead.RejectionPolicy;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class IngestLanesTest {
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private Bulkhead priority;
+  private Bulkhead standard;
+  private IngestLanes lanes;
+
+  @Before
+  public void setup() {
+    priority = new Bulkhead("ingest-priority", 1, 4, RejectionPolicy.CALLER_RUNS);
+    standard = new Bulkhead("ingest", 1, 4, RejectionPolicy.CALLER_RUNS);
+    lanes = new IngestLanes(priority, standard, 0.5);
+  }
+
+  @After
+  public void cleanup() {
+    release.countDown();
+    priority.shutdown();
+    standard.shutdown();
+  }
+
+  @Test
+  public void testErrorBypassesCongestedLane() throws InterruptedException {
+    congest(4);
+    CountDownLatch done = new CountDownLatch(1);
+    AtomicReference<Thread> runner = new AtomicReference<>();
+    assertTrue("ERROR entry dropped", lanes.execute(Level.ERROR, () -> {
+      runner.set(Thread.currentThread());
+      done.countDown();
+    }));
+    assertTrue("ERROR entry held up by the congested lane", done.await(5, TimeUnit.SECONDS));
+    assertTrue("ERROR entry not run on the priority lane",
+        runner.get().getName().startsWith("ingest-priority"));
+    assertEquals("Priority entry not counted", Long.valueOf(1),
+        lanes.getStats().get(IngestLanes.PRIORITY).get("accepted"));
+  }
+
+  @Test
+  public void testDebugShedFirst() throws InterruptedException {
+    congest(2);
+    assertFalse("DEBUG entry not shed past the threshold", lanes.execute(Level.DEBUG, this::await));
+    assertFalse("TRACE entry not shed past the threshold", lanes.execute(Level.TRACE, this::await));
+    assertTrue("INFO entry shed", lanes.execute(Level.INFO, this::await));
+    assertEquals("INFO entry not queued", 3, standard.getQueued());
+    Map<String, Long> stats = lanes.getStats().get(IngestLanes.STANDARD);
+    assertEquals("Shed entries not counted", Long.valueOf(2), stats.get("dropped"));
+    assertEquals("Shed DEBUG entry not counted", Long.valueOf(1), stats.get("shed.DEBUG"));
+    assertEquals("Accepted entries not counted", Long.valueOf(4), stats.get("accepted"));
+  }
+
+  @Test
+  public void testDelayedWhenFull() throws InterruptedException {
+    congest(4);
+    AtomicReference<Thread> runner = new AtomicReference<>();
+    assertTrue("INFO entry dropped",
+        lanes.execute(Level.INFO, () -> runner.set(Thread.currentThread())));
+    assertEquals("INFO entry not run by the caller of a full lane", Thread.currentThread(),
+        runner.get());
+    assertEquals("Delayed entry not counted", Long.valueOf(1),
+        lanes.getStats().get(IngestLanes.STANDARD).get("delayed"));
+  }
+
+  @Test
+  public void testNoSheddingThreshold() throws InterruptedException {
+    lanes = new IngestLanes(priority, standard, 1);
+    congest(4);
+    AtomicReference<Thread> runner = new AtomicReference<>();
+    assertTrue("DEBUG entry shed",
+        lanes.execute(Level.DEBUG, () -> runner.set(Thread.currentThread())));
+    assertEquals("DEBUG entry not delayed", Thread.currentThread(), runner.get());
+  }
+
+  @Test
+  public void testDispatchNeitherShedNorCounted() throws InterruptedException {
+    congest(2);
+    AtomicReference<Thread> runner = new AtomicReference<>();
+    lanes.dispatch(Level.DEBUG, () -> runner.set(Thread.currentThread()));
+    assertEquals("Dispatched DEBUG entry shed", 3, standard.getQueued());
+    Map<String, Long> stats = lanes.getStats().get(IngestLanes.STANDARD);
+    assertEquals("Dispatched entry counted as shed", Long.valueOf(0), stats.get("dropped"));
+    assertEquals("Dispatched entry counted as accepted", Long.valueOf(3), stats.get("accepted"));
+  }
+
+  /**
+   * Occupy the only thread of the standard lane and queue INFO entries behind it
+   */
+  private void congest(int queued) throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    lanes.execute(Level.INFO, () -> {
+      started.countDown();
+      await();
+    });
+    assertTrue("Lane did not start the work", started.await(5, TimeUnit.SECONDS));
+    for (int i = 0; i < queued; i++) {
+      lanes.execute(Level.INFO, this::await);
+    }
+  }
+
+  private void await() {
+    try {
+      release.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
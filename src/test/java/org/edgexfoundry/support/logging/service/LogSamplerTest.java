@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.logging.dao.RepeatedLogEntry;
+import org.edgexfoundry.support.logging.dao.SampledLogEntry;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class LogSamplerTest {
+
+  private static final String[] TEST_LABELS = {"test", "entry2"};
+  private static final String TEST_MSG = "now is the time for all good men";
+  private static final String TEST_ORIGIN_SERVICE = "core-data";
+  private static final double THRESHOLD = 10;
+  private static final double RATE = 5;
+
+  private LogSampler sampler;
+
+  @Before
+  public void setup() throws Exception {
+    sampler = new LogSampler();
+    setField("enabled", true);
+    setField("threshold", THRESHOLD);
+    setField("rate", RATE);
+    setField("window", 1000L);
+  }
+
+  @Test
+  public void testDisabled() throws Exception {
+    setField("enabled", false);
+    for (int i = 0; i < 2 * THRESHOLD; i++) {
+      LogEntry entry = buildLogEntry(Level.INFO, TEST_ORIGIN_SERVICE);
+      assertSame("Entry sampled while disabled", entry, sampler.offer(entry).get(0));
+    }
+    assertEquals("Sampling while disabled", Long.valueOf(0),
+        sampler.getStats().get(LogSampler.SAMPLING));
+  }
+
+  @Test
+  public void testUnderThreshold() {
+    for (int i = 0; i < THRESHOLD; i++) {
+      LogEntry entry = buildLogEntry(Level.DEBUG, TEST_ORIGIN_SERVICE);
+      assertSame("Entry sampled under the threshold", entry, sampler.offer(entry).get(0));
+    }
+    assertTrue("Entries kept under the threshold",
+        sampler.flush(System.currentTimeMillis() + 1000L).isEmpty());
+    assertEquals("Sampling under the threshold", Long.valueOf(0),
+        sampler.getStats().get(LogSampler.SAMPLING));
+  }
+
+  @Test
+  public void testOverThreshold() {
+    fillWindow();
+    for (int i = 0; i < 20; i++) {
+      assertTrue("Entry stored over the threshold",
+          sampler.offer(buildLogEntry(Level.INFO, TEST_ORIGIN_SERVICE)).isEmpty());
+    }
+    LogEntry error = buildLogEntry(Level.ERROR, TEST_ORIGIN_SERVICE);
+    assertSame("Error sampled", error, sampler.offer(error).get(0));
+    LogEntry warn = buildLogEntry(Level.WARN, TEST_ORIGIN_SERVICE);
+    assertSame("Warning sampled", warn, sampler.offer(warn).get(0));
+
+    List<LogEntry> kept = sampler.flush(System.currentTimeMillis());
+    assertEquals("Reservoir not bounded by the rate", (int) RATE, kept.size());
+    double weight = 0;
+    for (LogEntry entry : kept) {
+      assertTrue("Kept entry not weighted", entry instanceof SampledLogEntry);
+      weight += SampledLogEntry.weight(entry);
+    }
+    assertEquals("Weights do not add up to the entries sampled", 20, weight, 0.001);
+
+    assertEquals(Long.valueOf(1), sampler.getStats().get(LogSampler.SAMPLING));
+    assertEquals(Long.valueOf(20), sampler.getStats().get(LogSampler.SAMPLED));
+    assertEquals(Long.valueOf(5), sampler.getStats().get(LogSampler.KEPT));
+    assertEquals(Long.valueOf(15), sampler.getStats().get(LogSampler.DROPPED));
+  }
+
+  @Test
+  public void testFewEntriesNotWeighted() {
+    fillWindow();
+    LogEntry entry = buildLogEntry(Level.INFO, TEST_ORIGIN_SERVICE);
+    assertTrue("Entry stored over the threshold", sampler.offer(entry).isEmpty());
+    List<LogEntry> kept = sampler.flushAll();
+    assertEquals(1, kept.size());
+    assertSame("Entry weighted though nothing was dropped", entry, kept.get(0));
+    assertEquals("Reservoir not retired", Long.valueOf(0),
+        sampler.getStats().get(LogSampler.SERVICES));
+  }
+
+  @Test
+  public void testRepeatsNotSampled() {
+    fillWindow();
+    LogEntry repeated =
+        new RepeatedLogEntry(buildLogEntry(Level.INFO, TEST_ORIGIN_SERVICE), 3L, 100L, 300L);
+    assertSame("Repeats sampled", repeated, sampler.offer(repeated).get(0));
+  }
+
+  @Test
+  public void testMaxServices() throws Exception {
+    setField("maxServices", 1);
+    fillWindow();
+    assertTrue(sampler.offer(buildLogEntry(Level.INFO, TEST_ORIGIN_SERVICE)).isEmpty());
+    LogEntry other = buildLogEntry(Level.INFO, "core-metadata");
+    assertSame("Service over maxServices sampled", other, sampler.offer(other).get(0));
+    assertEquals(Long.valueOf(1), sampler.getStats().get(LogSampler.SERVICES));
+    assertEquals(Long.valueOf(1), sampler.getStats().get(LogSampler.UNTRACKED));
+  }
+
+  private void fillWindow() {
+    for (int i = 0; i < THRESHOLD; i++) {
+      sampler.offer(buildLogEntry(Level.DEBUG, TEST_ORIGIN_SERVICE));
+    }
+  }
+
+  private void setField(String name, Object value) throws Exception {
+    Field field = LogSampler.class.getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(sampler, value);
+  }
+
+  private LogEntry buildLogEntry(Level level, String originService) {
+    LogEntry entry = new LogEntry();
+    entry.setOriginService(originService);
+    entry.setLabels(TEST_LABELS);
+    entry.setLogLevel(level);
+    entry.setMessage(TEST_MSG);
+    entry.setCreated(100L);
+    return entry;
+  }
+
+}
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.edgexfoundry.exception.controller.LimitExceededException;
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.service.impl.LogTailServiceImpl;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class LogTailServiceTest {
+
+  private static final String TEST_ORIGIN_SERVICE = "core-data";
+  private static final String TEST_MSG = "now is the time for all good men";
+
+  private LogTailServiceImpl service;
+
+  @Before
+  public void setup() throws Exception {
+    service = new LogTailServiceImpl();
+    setField("bufferSize", 2);
+    setField("maxSubscribers", 2);
+    // a stopped dispatcher leaves published logEntries in the subscriber buffers
+    ExecutorService dispatcher = Executors.newSingleThreadExecutor();
+    dispatcher.shutdown();
+    setField("dispatcher", dispatcher);
+  }
+
+  @After
+  public void cleanup() throws Exception {
+    Method destroy = LogTailServiceImpl.class.getDeclaredMethod("destroy");
+    destroy.setAccessible(true);
+    destroy.invoke(service);
+  }
+
+  @Test
+  public void testSubscribe() {
+    assertNotNull("No emitter returned", service.subscribe(buildCriteria(Level.ERROR)));
+    assertEquals("Subscription not registered", 1, service.getSubscriptions().size());
+  }
+
+  @Test(expected = LimitExceededException.class)
+  public void testSubscribeTooMany() {
+    service.subscribe(buildCriteria(Level.ERROR));
+    service.subscribe(buildCriteria(Level.ERROR));
+    service.subscribe(buildCriteria(Level.ERROR));
+  }
+
+  @Test
+  public void testSubscribeConcurrentlyWithinLimit() throws Exception {
+    ExecutorService clients = Executors.newFixedThreadPool(8);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Boolean>> results = new ArrayList<>();
+    Callable<Boolean> subscribe = () -> {
+      start.await();
+      try {
+        service.subscribe(buildCriteria(Level.ERROR));
+        return true;
+      } catch (LimitExceededException e) {
+        return false;
+      }
+    };
+    for (int i = 0; i < 8; i++) {
+      results.add(clients.submit(subscribe));
+    }
+    start.countDown();
+    int subscribed = 0;
+    for (Future<Boolean> result : results) {
+      subscribed += result.get() ? 1 : 0;
+    }
+    clients.shutdown();
+    assertEquals("Subscribers past the limit", 2, subscribed);
+    assertEquals("Wrong subscriptions", 2, service.getSubscriptions().size());
+  }
+
+  @Test
+  public void testSubscribeAfterRemoval() throws Exception {
+    service.subscribe(buildCriteria(Level.ERROR));
+    service.subscribe(buildCriteria(Level.ERROR));
+    Method remove = LogTailServiceImpl.class.getDeclaredMethod("remove", TailSubscription.class);
+    remove.setAccessible(true);
+    TailSubscription subscription = service.getSubscriptions().get(0);
+    remove.invoke(service, subscription);
+    // removed twice, as on a timeout followed by the completion, releases one slot
+    remove.invoke(service, subscription);
+    assertNotNull("Slot not released", service.subscribe(buildCriteria(Level.ERROR)));
+    try {
+      service.subscribe(buildCriteria(Level.ERROR));
+      fail("Slot released twice");
+    } catch (LimitExceededException e) {
+      assertEquals("Wrong subscriptions", 2, service.getSubscriptions().size());
+    }
+  }
+
+  @Test
+  public void testPublish() {
+    service.subscribe(buildCriteria(Level.ERROR));
+    service.publish(buildLogEntry(Level.ERROR));
+    service.publish(buildLogEntry(Level.DEBUG));
+    TailSubscription subscription = service.getSubscriptions().get(0);
+    assertEquals("Matching logEntry not buffered", 1, subscription.getBuffered());
+    assertEquals("Unexpected drops", 0, subscription.getDropped());
+  }
+
+  @Test
+  public void testPublishBufferFull() {
+    service.subscribe(buildCriteria(Level.ERROR));
+    for (int i = 0; i < 5; i++) {
+      service.publish(buildLogEntry(Level.ERROR));
+    }
+    TailSubscription subscription = service.getSubscriptions().get(0);
+    assertEquals("Buffer not bounded", 2, subscription.getBuffered());
+    assertEquals("Drops not counted", 3, subscription.getDropped());
+    assertEquals("Drops not pending notification", 3, subscription.takePendingDrops());
+    assertEquals("Drops notified twice", 0, subscription.takePendingDrops());
+  }
+
+  @Test
+  public void testPublishDelivered() throws Exception {
+    ExecutorService dispatcher = Executors.newSingleThreadExecutor();
+    setField("dispatcher", dispatcher);
+    service.subscribe(buildCriteria(Level.ERROR));
+    service.publish(buildLogEntry(Level.ERROR));
+    TailSubscription subscription = service.getSubscriptions().get(0);
+    for (int i = 0; i < 100 && subscription.getDelivered() == 0; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals("LogEntry not delivered", 1, subscription.getDelivered());
+    assertTrue("Buffer not drained", !subscription.hasPending());
+  }
+
+  private void setField(String name, Object value) throws Exception {
+    Field field = LogTailServiceImpl.class.getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(service, value);
+  }
+
+  private MatchCriteria buildCriteria(Level level) {
+    MatchCriteria criteria = new MatchCriteria();
+    Level[] levels = {level};
+    criteria.setLogLevels(levels);
+    return criteria;
+  }
+
+  private LogEntry buildLogEntry(Level level) {
+    LogEntry entry = new LogEntry();
+    entry.setOriginService(TEST_ORIGIN_SERVICE);
+    entry.setLogLevel(level);
+    entry.setMessage(TEST_MSG);
+    return entry;
+  }
+
+}
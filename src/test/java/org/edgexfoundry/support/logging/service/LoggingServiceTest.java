@@ -18,20 +18,56 @@
 
 package org.edgexfoundry.support.logging.service;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import org.edgexfoundry.support.domain.logging.LogEntry;
 import org.edgexfoundry.support.domain.logging.MatchCriteria;
 import org.edgexfoundry.support.logging.dao.LogEntryDAO;
+import org.edgexfoundry.support.logging.dao.MDC_ENUM_CONSTANTS;
+import org.edgexfoundry.support.logging.dao.QueryContext;
+import org.edgexfoundry.support.logging.dao.RepeatedLogEntry;
+import org.edgexfoundry.support.logging.dao.RetentionPolicy;
+import org.edgexfoundry.support.logging.metrics.LoggingMetrics;
+import org.edgexfoundry.support.logging.query.CompiledQuery;
+import org.edgexfoundry.support.logging.query.LogQuery;
+import org.edgexfoundry.support.logging.query.QueryOperator;
+import org.edgexfoundry.support.logging.service.Bulkhead.RejectionPolicy;
 import org.edgexfoundry.support.logging.service.impl.LoggingServiceImpl;
+import org.edgexfoundry.support.logging.template.LogTemplate;
+import org.edgexfoundry.support.logging.template.TemplateMiner;
 import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.slf4j.event.Level;
+import org.springframework.data.util.CloseableIterator;
 
 @Category(RequiresNone.class)
 public class LoggingServiceTest {
@@ -47,17 +83,127 @@ public class LoggingServiceTest {
   @Mock
   private LogEntryDAO dao;
 
+  @Mock
+  private LogTailService tailService;
+
+  @Mock
+  private QueryResultCache queryCache;
+
+  @Mock
+  private LoggingMetrics metrics;
+
+  @Spy
+  private RepeatCoalescer coalescer = new RepeatCoalescer();
+
+  @Spy
+  private TemplateMiner templates = new TemplateMiner();
+
+  @Spy
+  private LogSampler sampler = new LogSampler();
+
   private LogEntry entry;
 
+  private IngestLanes lanes;
+
+  private final List<Bulkhead> pools = new ArrayList<>();
+
   @Before
-  public void setup() {
+  public void setup() throws Exception {
     MockitoAnnotations.initMocks(this);
+    Bulkhead priority = new Bulkhead("ingest-priority", 1, 1, RejectionPolicy.CALLER_RUNS);
+    Bulkhead standard = new Bulkhead("ingest", 1, 1, RejectionPolicy.CALLER_RUNS);
+    pools.add(priority);
+    pools.add(standard);
+    lanes = spy(new IngestLanes(priority, standard, 0.8));
+    // ingest runs inline so its effects can be verified right away
+    doAnswer(invocation -> {
+      ((Runnable) invocation.getArguments()[1]).run();
+      return true;
+    }).when(lanes).execute(any(Level.class), any(Runnable.class));
+    Field field = LoggingServiceImpl.class.getDeclaredField("ingestLanes");
+    field.setAccessible(true);
+    field.set(service, lanes);
+    setPool("queryExecutor", new Bulkhead("query", 1, 1, RejectionPolicy.ABORT));
+    setPool("deleteExecutor", new Bulkhead("delete", 1, 1, RejectionPolicy.ABORT));
+  }
+
+  @After
+  public void cleanup() {
+    for (Bulkhead pool : pools) {
+      pool.shutdown();
+    }
   }
 
   @Test
   public void testAddEntry() {
     entry = buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    when(dao.save(entry)).thenReturn(true);
     service.addLogEntry(entry);
+    verify(queryCache).invalidate(entry);
+    verify(tailService).publish(entry);
+    verify(metrics).recordSave(anyLong());
+    verify(metrics).saved(TEST_ORIGIN_SERVICE);
+  }
+
+  @Test
+  public void testAddEntryOnLaneOfItsLevel() {
+    service.addLogEntry(buildLogEntry(TEST_ORIGIN_SERVICE, Level.ERROR, TEST_LABELS, TEST_MSG));
+    verify(lanes).execute(eq(Level.ERROR), any(Runnable.class));
+  }
+
+  @Test
+  public void testAddEntryShed() {
+    entry = buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    doReturn(false).when(lanes).execute(any(Level.class), any(Runnable.class));
+    assertFalse("Shed logEntry reported as accepted", service.addLogEntry(entry));
+    verify(dao, never()).save(entry);
+  }
+
+  @Test
+  public void testAddEntryNotSaved() {
+    entry = buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    service.addLogEntry(entry);
+    verify(tailService, never()).publish(entry);
+    verify(metrics, never()).saved(TEST_ORIGIN_SERVICE);
+  }
+
+  @Test
+  public void testAddEntryRepeatsCoalesced() throws Exception {
+    Field enabled = RepeatCoalescer.class.getDeclaredField("enabled");
+    enabled.setAccessible(true);
+    enabled.set(coalescer, true);
+    when(dao.save(any(LogEntry.class))).thenReturn(true);
+    for (int i = 0; i < 3; i++) {
+      service.addLogEntry(buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG));
+    }
+    verify(dao, times(1)).save(any(LogEntry.class));
+    service.destroy();
+    ArgumentCaptor<LogEntry> captor = ArgumentCaptor.forClass(LogEntry.class);
+    verify(dao, times(2)).save(captor.capture());
+    assertEquals("Repeats not stored as one entry", 2L,
+        ((RepeatedLogEntry) captor.getAllValues().get(1)).getRepeatCount());
+    verify(tailService, times(2)).publish(any(LogEntry.class));
+  }
+
+  @Test
+  public void testFlushRepeatsOnIngestLane() {
+    LogEntry repeated = new RepeatedLogEntry(
+        buildLogEntry(TEST_ORIGIN_SERVICE, Level.ERROR, TEST_LABELS, TEST_MSG), 2L, 1L, 2L);
+    doReturn(Collections.singletonList(repeated)).when(coalescer).flush(anyLong());
+    when(dao.save(any(LogEntry.class))).thenReturn(true);
+    service.flushRepeats();
+    verify(lanes).dispatch(eq(Level.ERROR), any(Runnable.class));
+    verify(dao, timeout(5000)).save(repeated);
+  }
+
+  @Test
+  public void testFlushSamplesOnIngestLane() {
+    LogEntry sample = buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    doReturn(Collections.singletonList(sample)).when(sampler).flush(anyLong());
+    when(dao.save(any(LogEntry.class))).thenReturn(true);
+    service.flushSamples();
+    verify(lanes).dispatch(eq(TEST_LEVEL), any(Runnable.class));
+    verify(dao, timeout(5000)).save(sample);
   }
 
   @Test
@@ -75,6 +221,82 @@ public class LoggingServiceTest {
         .isEmpty());
   }
 
+  @Test
+  public void testSearchByCriteriaCached() {
+    MatchCriteria criteria = buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    List<LogEntry> cached = new ArrayList<>();
+    cached.add(buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG));
+    when(queryCache.get(criteria, 10)).thenReturn(cached);
+    assertEquals("Cached result not returned", cached, service.searchByCriteria(criteria, 10));
+    verify(dao, never()).findByCriteria(eq(criteria), eq(10), any(QueryContext.class));
+  }
+
+  @Test
+  public void testSearchByCriteriaNotCached() {
+    MatchCriteria criteria = buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    List<LogEntry> found = new ArrayList<>();
+    when(queryCache.get(criteria, 10)).thenReturn(null);
+    when(queryCache.generation()).thenReturn(7L);
+    when(dao.findByCriteria(eq(criteria), eq(10), any(QueryContext.class))).thenReturn(found);
+    service.searchByCriteria(criteria, 10);
+    verify(queryCache).put(criteria, 10, found, 7L);
+    verify(metrics).recordFind(anyLong());
+  }
+
+  @Test
+  public void testSearchByCriteriaTruncatedNotCached() {
+    MatchCriteria criteria = buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    QueryContext context = new QueryContext(1000);
+    context.truncate();
+    when(queryCache.get(criteria, 10)).thenReturn(null);
+    service.searchByCriteria(criteria, 10, context);
+    verify(dao).findByCriteria(criteria, 10, context);
+    verify(queryCache, never()).put(eq(criteria), eq(10), any(), anyLong());
+  }
+
+  @Test
+  public void testSearchByQuery() {
+    CompiledQuery query =
+        CompiledQuery.compile(new LogQuery(QueryOperator.EQ, "originService", TEST_ORIGIN_SERVICE));
+    assertTrue("Log entries found with fake DAO", service.searchByQuery(query, 10).isEmpty());
+    verify(dao).findByQuery(eq(query), eq(10), any(QueryContext.class));
+  }
+
+  @Test
+  public void testRemoveByCriteriaInvalidates() {
+    MatchCriteria criteria = buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    List<LogEntry> removed = new ArrayList<>();
+    when(dao.removeByCriteria(criteria)).thenReturn(removed);
+    service.removeByCriteria(criteria);
+    verify(queryCache).invalidate(removed);
+    verify(metrics).recordRemove(anyLong());
+  }
+
+  @Test
+  public void testEnforceRetentionClearsCache() {
+    RetentionPolicy policy = new RetentionPolicy();
+    when(dao.enforceRetention(policy, 1000L))
+        .thenReturn(Collections.singletonMap("entries", 3L));
+    assertEquals("Dropped entries not returned", Long.valueOf(3),
+        service.enforceRetention(policy, 1000L).get("entries"));
+    verify(queryCache).clear();
+  }
+
+  @Test
+  public void testEnforceRetentionNothingDropped() {
+    RetentionPolicy policy = new RetentionPolicy();
+    when(dao.enforceRetention(policy, 1000L))
+        .thenReturn(Collections.singletonMap("entries", 0L));
+    service.enforceRetention(policy, 1000L);
+    verify(queryCache, never()).clear();
+  }
+
+  @Test
+  public void testGetCacheStats() {
+    service.getCacheStats();
+    verify(queryCache).getStats();
+  }
+
   @Test
   public void testRemoveByCriteria() {
     assertTrue("Log entries removed with fake DAO",
@@ -83,6 +305,146 @@ public class LoggingServiceTest {
             .isEmpty());
   }
 
+  @Test
+  public void testStreamByCriteria() {
+    MatchCriteria criteria = buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    service.streamByCriteria(criteria);
+    verify(dao).streamByCriteria(criteria);
+  }
+
+  @Test
+  public void testStreamByCriteriaWithContext() {
+    MatchCriteria criteria = buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    QueryContext context = new QueryContext();
+    service.streamByCriteria(criteria, context);
+    verify(dao).streamByCriteria(criteria, context);
+  }
+
+  @Test
+  public void testCountByCriteria() {
+    assertTrue("Log entries counted with fake DAO", service
+        .countByCriteria(buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG),
+            MDC_ENUM_CONSTANTS.LOGLEVEL, 0)
+        .isEmpty());
+  }
+
+  @Test
+  public void testCountByTemplate() {
+    List<LogEntry> entries = new ArrayList<>();
+    for (String message : new String[] {"Reading 7 out of range", "Reading 8 out of range",
+        "Reading 9 out of range", "Connection to mongo lost"}) {
+      LogEntry saved = buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, message);
+      when(dao.save(saved)).thenReturn(true);
+      service.addLogEntry(saved);
+      entries.add(saved);
+    }
+    entries.add(buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, "never saved"));
+    MatchCriteria criteria = buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    when(dao.streamByCriteria(eq(criteria), any(QueryContext.class))).thenReturn(stream(entries));
+
+    Map<String, Long> counts = service.countByTemplate(criteria);
+    assertEquals("Wrong most frequent template", "Reading <*> out of range",
+        counts.keySet().iterator().next());
+    assertEquals("Wrong count of the most frequent template", Long.valueOf(3),
+        counts.get("Reading <*> out of range"));
+    assertEquals("Known template not counted", Long.valueOf(1),
+        counts.get("Connection to mongo lost"));
+    assertEquals("Message without template not counted by itself", Long.valueOf(1),
+        counts.get("never saved"));
+  }
+
+  @Test
+  public void testCountByTemplateSeedsMiner() {
+    // logEntries restored after a restart, never learnt by this miner
+    List<LogEntry> entries = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      entries.add(buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS,
+          "Reading " + i + " out of range"));
+    }
+    MatchCriteria criteria = buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    when(dao.streamByCriteria(eq(criteria), any(QueryContext.class))).thenReturn(stream(entries));
+
+    Map<String, Long> counts = service.countByTemplate(criteria);
+    assertEquals("Restored messages not counted by template", Long.valueOf(3),
+        counts.get("Reading <*> out of range"));
+    assertEquals("Miner not seeded", "Reading <*> out of range",
+        templates.match("Reading 12 out of range").getTemplate());
+  }
+
+  @Test
+  public void testCountByTemplateFoldsUnmatched() throws Exception {
+    Field max = TemplateMiner.class.getDeclaredField("maxTemplates");
+    max.setAccessible(true);
+    max.set(templates, 0);
+    List<LogEntry> entries = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      entries.add(buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, "message " + i));
+    }
+    MatchCriteria criteria = buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    when(dao.streamByCriteria(eq(criteria), any(QueryContext.class))).thenReturn(stream(entries));
+
+    Map<String, Long> counts = service.countByTemplate(criteria);
+    assertEquals("Unmatched messages not counted together", 1, counts.size());
+    assertEquals("Unmatched messages not counted", Long.valueOf(5),
+        counts.get(LogTemplate.UNMATCHED));
+  }
+
+  @Test
+  public void testCountByTemplateTruncated() {
+    List<LogEntry> entries = new ArrayList<>();
+    entries.add(buildLogEntry(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG));
+    MatchCriteria criteria = buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG);
+    QueryContext context = new QueryContext();
+    context.cancel();
+    when(dao.streamByCriteria(criteria, context)).thenReturn(stream(entries));
+
+    assertTrue("Counted past the end of the query",
+        service.countByTemplate(criteria, context).isEmpty());
+    assertTrue("Stopped count not flagged as truncated", context.isTruncated());
+  }
+
+  @Test
+  public void testGetPoolStats() throws InterruptedException {
+    service.countByCriteria(buildCriteria(TEST_ORIGIN_SERVICE, TEST_LEVEL, TEST_LABELS, TEST_MSG),
+        MDC_ENUM_CONSTANTS.LOGLEVEL, 0);
+    // the pool counts the work as completed right after handing its result over
+    for (int i = 0; i < 100 && service.getPoolStats().get("query").get("completed") == 0; i++) {
+      Thread.sleep(10);
+    }
+    Map<String, Map<String, Long>> stats = service.getPoolStats();
+    assertEquals("Wrong pools reported",
+        Arrays.asList("ingest-priority", "ingest", "query", "delete"),
+        new ArrayList<>(stats.keySet()));
+    assertEquals("Query not run on the query pool", Long.valueOf(1),
+        stats.get("query").get("completed"));
+    assertEquals("Delete pool ran work", Long.valueOf(0), stats.get("delete").get("completed"));
+  }
+
+  private void setPool(String name, Bulkhead pool) throws Exception {
+    Field field = LoggingServiceImpl.class.getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(service, pool);
+    pools.add(pool);
+  }
+
+  private static CloseableIterator<LogEntry> stream(List<LogEntry> entries) {
+    Iterator<LogEntry> iterator = entries.iterator();
+    return new CloseableIterator<LogEntry>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public LogEntry next() {
+        return iterator.next();
+      }
+
+      @Override
+      public void close() {}
+    };
+  }
+
   private MatchCriteria buildCriteria(String originService, Level logLevel, String[] labels,
       String message) {
     return buildCriteria(originService, logLevel, labels, message, 0, Long.MAX_VALUE);
@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.edgexfoundry.exception.controller.LimitExceededException;
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.dao.QueryContext;
+import org.edgexfoundry.support.logging.service.impl.QueryJobServiceImpl;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.event.Level;
+import org.springframework.data.util.CloseableIterator;
+
+@Category(RequiresNone.class)
+public class QueryJobServiceTest {
+
+  private static final String TEST_MSG = "now is the time for all good men";
+  private static final String TEST_ORIGIN_SERVICE = "core-data";
+
+  @InjectMocks
+  private QueryJobServiceImpl service;
+
+  @Mock
+  private LoggingService loggingService;
+
+  @Before
+  public void setup() throws Exception {
+    MockitoAnnotations.initMocks(this);
+  }
+
+  @After
+  public void cleanup() throws Exception {
+    invoke("destroy");
+  }
+
+  @Test
+  public void testSubmit() throws Exception {
+    invoke("init");
+    mockEntries(2500);
+    QueryJob job = service.submit(new MatchCriteria());
+    waitUntilDone(job);
+    assertEquals("Job not completed", QueryJob.Status.COMPLETED, job.getStatus());
+    assertEquals("Unexpected matched entries", 2500L, job.getMatched());
+    assertFalse("Job truncated", job.isTruncated());
+    assertEquals("Job not listed", 1, service.getJobs().size());
+    // a page spanning a checkpoint
+    List<LogEntry> page = service.getResults(job.getId(), 995, 10);
+    assertEquals("Unexpected page size", 10, page.size());
+    assertEquals("Unexpected first result", 995L, page.get(0).getCreated());
+    assertEquals("Unexpected last result", 1004L, page.get(9).getCreated());
+    assertEquals("Unexpected last page size", 5,
+        service.getResults(job.getId(), 2495, 10).size());
+    assertTrue("Page past the results not empty",
+        service.getResults(job.getId(), 2500, 10).isEmpty());
+  }
+
+  @Test
+  public void testMaxResults() throws Exception {
+    setField("maxResults", 10L);
+    invoke("init");
+    mockEntries(-1);
+    QueryJob job = service.submit(new MatchCriteria());
+    waitUntilDone(job);
+    assertTrue("Job not truncated", job.isTruncated());
+    assertEquals("Unexpected matched entries", 10L, job.getMatched());
+    assertEquals("Unexpected results", 10, service.getResults(job.getId(), 0, 100).size());
+  }
+
+  @Test
+  public void testCancel() throws Exception {
+    invoke("init");
+    mockEntries(-1);
+    QueryJob job = service.submit(new MatchCriteria());
+    assertTrue("Running job not cancelled", service.cancel(job.getId()));
+    waitUntilDone(job);
+    assertEquals("Job not cancelled", QueryJob.Status.CANCELLED, job.getStatus());
+    assertFalse("Done job cancelled", service.cancel(job.getId()));
+    assertEquals("Partial results not readable", job.getMatched(),
+        service.getResults(job.getId(), 0, Integer.MAX_VALUE).size());
+  }
+
+  @Test
+  public void testRemove() throws Exception {
+    invoke("init");
+    mockEntries(10);
+    QueryJob job = service.submit(new MatchCriteria());
+    waitUntilDone(job);
+    assertTrue("Job not removed", service.remove(job.getId()));
+    assertNull("Removed job returned", service.getJob(job.getId()));
+    assertNull("Removed job results returned", service.getResults(job.getId(), 0, 10));
+    assertFalse("Unknown job removed", service.remove(job.getId()));
+  }
+
+  @Test
+  public void testPurgeExpired() throws Exception {
+    setField("ttl", -1L);
+    invoke("init");
+    mockEntries(10);
+    QueryJob job = service.submit(new MatchCriteria());
+    waitUntilDone(job);
+    service.purgeExpired();
+    assertNull("Expired job not purged", service.getJob(job.getId()));
+  }
+
+  @Test(expected = LimitExceededException.class)
+  public void testQueueFull() throws Exception {
+    setField("threads", 1);
+    setField("queueSize", 1);
+    invoke("init");
+    mockEntries(-1);
+    service.submit(new MatchCriteria());
+    service.submit(new MatchCriteria());
+    service.submit(new MatchCriteria());
+  }
+
+  @Test
+  public void testMaxRetained() throws Exception {
+    setField("maxRetained", 2);
+    invoke("init");
+    mockEntries(10);
+    QueryJob job = service.submit(new MatchCriteria());
+    waitUntilDone(job);
+    waitUntilDone(service.submit(new MatchCriteria()));
+    try {
+      service.submit(new MatchCriteria());
+      fail("Job retained past the limit");
+    } catch (LimitExceededException e) {
+      // expected
+    }
+    assertEquals("Rejected job listed", 2, service.getJobs().size());
+    service.remove(job.getId());
+    waitUntilDone(service.submit(new MatchCriteria()));
+  }
+
+  private void mockEntries(int count) {
+    when(loggingService.streamByCriteria(any(MatchCriteria.class), any(QueryContext.class)))
+        .thenAnswer(invocation -> new CloseableIterator<LogEntry>() {
+          private int next;
+
+          @Override
+          public boolean hasNext() {
+            return count < 0 || next < count;
+          }
+
+          @Override
+          public LogEntry next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            return buildLogEntry(next++);
+          }
+
+          @Override
+          public void close() {}
+        });
+  }
+
+  private void waitUntilDone(QueryJob job) throws InterruptedException {
+    for (int i = 0; i < 500 && !job.isDone(); i++) {
+      Thread.sleep(10);
+    }
+    assertTrue("Job not done", job.isDone());
+  }
+
+  private void invoke(String name) throws Exception {
+    Method method = QueryJobServiceImpl.class.getDeclaredMethod(name);
+    method.setAccessible(true);
+    method.invoke(service);
+  }
+
+  private void setField(String name, Object value) throws Exception {
+    Field field = QueryJobServiceImpl.class.getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(service, value);
+  }
+
+  private LogEntry buildLogEntry(long created) {
+    LogEntry entry = new LogEntry();
+    entry.setOriginService(TEST_ORIGIN_SERVICE);
+    entry.setLogLevel(Level.INFO);
+    entry.setMessage(TEST_MSG);
+    entry.setCreated(created);
+    return entry;
+  }
+
+}
@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class QueryResultCacheTest {
+
+  private static final String TEST_MSG = "now is the time for all good men";
+  private static final String TEST_ORIGIN_SERVICE = "core-data";
+
+  private QueryResultCache cache;
+
+  @Before
+  public void setup() {
+    cache = new QueryResultCache();
+  }
+
+  @Test
+  public void testHitAndMiss() {
+    MatchCriteria criteria = buildCriteria(0L, 0L, Level.ERROR, Level.WARN);
+    assertNull("Empty cache hit", cache.get(criteria, 10));
+    cache.put(criteria, 10, buildResult(3), cache.generation());
+    assertEquals("Cached result not returned", 3, cache.get(criteria, 10).size());
+    // same criteria with the values in another order
+    assertNotNull("Normalized criteria not hit",
+        cache.get(buildCriteria(0L, 0L, Level.WARN, Level.ERROR, Level.WARN), 10));
+    assertNull("Other limit hit", cache.get(criteria, 20));
+    assertEquals("Unexpected hits", 2L, cache.getStats().get(QueryResultCache.HITS).longValue());
+    assertEquals("Unexpected misses", 2L,
+        cache.getStats().get(QueryResultCache.MISSES).longValue());
+  }
+
+  @Test
+  public void testCriteriaCopied() {
+    MatchCriteria criteria = buildCriteria(0L, 0L, Level.ERROR);
+    cache.put(criteria, 10, buildResult(1), cache.generation());
+    criteria.getLogLevels()[0] = Level.INFO;
+    cache.invalidate(buildLogEntry(Level.INFO, 1000L));
+    assertNotNull("Cached criteria modified by the caller",
+        cache.get(buildCriteria(0L, 0L, Level.ERROR), 10));
+  }
+
+  @Test
+  public void testInvalidateOnSave() {
+    MatchCriteria errors = buildCriteria(0L, 0L, Level.ERROR);
+    MatchCriteria past = buildCriteria(1000L, 2000L, Level.INFO);
+    MatchCriteria current = buildCriteria(1000L, 0L, Level.INFO);
+    long generation = cache.generation();
+    cache.put(errors, 10, buildResult(1), generation);
+    cache.put(past, 10, buildResult(1), generation);
+    cache.put(current, 10, buildResult(1), generation);
+    cache.invalidate(buildLogEntry(Level.INFO, 5000L));
+    assertNotNull("Query on other logLevel evicted", cache.get(errors, 10));
+    assertNotNull("Query on past time range evicted", cache.get(past, 10));
+    assertNull("Matching query not evicted", cache.get(current, 10));
+    assertEquals("Unexpected invalidations", 1L,
+        cache.getStats().get(QueryResultCache.INVALIDATIONS).longValue());
+  }
+
+  @Test
+  public void testInvalidateQueryOnAnyLevel() {
+    MatchCriteria all = buildCriteria(0L, 0L);
+    MatchCriteria errors = buildCriteria(0L, 0L, Level.ERROR, Level.WARN);
+    cache.put(all, 10, buildResult(1), cache.generation());
+    cache.put(errors, 10, buildResult(1), cache.generation());
+    cache.invalidate(buildLogEntry(Level.WARN, 5000L));
+    assertNull("Query on every logLevel not evicted", cache.get(all, 10));
+    assertNull("Query on several logLevels not evicted", cache.get(errors, 10));
+    cache.put(errors, 10, buildResult(1), cache.generation());
+    assertNotNull("Query not cached again", cache.get(errors, 10));
+  }
+
+  @Test
+  public void testInvalidateOnRemove() {
+    MatchCriteria errors = buildCriteria(0L, 0L, Level.ERROR);
+    MatchCriteria infos = buildCriteria(0L, 0L, Level.INFO);
+    cache.put(errors, 10, buildResult(1), cache.generation());
+    cache.put(infos, 10, buildResult(1), cache.generation());
+    List<LogEntry> removed = new ArrayList<>();
+    removed.add(buildLogEntry(Level.DEBUG, 1000L));
+    removed.add(buildLogEntry(Level.ERROR, 2000L));
+    cache.invalidate(removed);
+    cache.invalidate(Collections.emptyList());
+    assertNull("Overlapping query not evicted", cache.get(errors, 10));
+    assertNotNull("Query on other logLevel evicted", cache.get(infos, 10));
+  }
+
+  @Test
+  public void testStaleResultNotCached() {
+    MatchCriteria criteria = buildCriteria(0L, 0L, Level.ERROR);
+    long generation = cache.generation();
+    // a matching logEntry saved while the query was running
+    cache.invalidate(buildLogEntry(Level.ERROR, 1000L));
+    cache.put(criteria, 10, buildResult(1), generation);
+    assertNull("Result computed before a matching invalidation cached", cache.get(criteria, 10));
+  }
+
+  @Test
+  public void testResultCachedDespiteUnrelatedSaves() {
+    MatchCriteria criteria = buildCriteria(0L, 0L, Level.ERROR);
+    long generation = cache.generation();
+    // logEntries of other levels saved while the query was running
+    for (int i = 0; i < 10; i++) {
+      cache.invalidate(buildLogEntry(Level.DEBUG, 1000L + i));
+    }
+    cache.put(criteria, 10, buildResult(1), generation);
+    assertNotNull("Result dropped for saves it doesn't match", cache.get(criteria, 10));
+  }
+
+  @Test
+  public void testResultNotCachedPastRecentInvalidations() {
+    MatchCriteria criteria = buildCriteria(0L, 0L, Level.ERROR);
+    long generation = cache.generation();
+    // more saves than kept, so whether one matched is unknown
+    for (int i = 0; i < QueryResultCache.RECENT_INVALIDATIONS; i++) {
+      cache.invalidate(buildLogEntry(Level.DEBUG, 1000L + i));
+    }
+    cache.put(criteria, 10, buildResult(1), generation);
+    assertNull("Result cached past the recent invalidations", cache.get(criteria, 10));
+  }
+
+  @Test
+  public void testClearDropsInFlightResult() {
+    MatchCriteria criteria = buildCriteria(0L, 0L, Level.ERROR);
+    long generation = cache.generation();
+    cache.clear();
+    cache.put(criteria, 10, buildResult(1), generation);
+    assertNull("Result computed before a clear cached", cache.get(criteria, 10));
+  }
+
+  @Test
+  public void testSizeBudget() throws Exception {
+    setField("maxEntries", 10L);
+    cache.put(buildCriteria(1L, 0L), 10, buildResult(4), cache.generation());
+    cache.put(buildCriteria(2L, 0L), 10, buildResult(4), cache.generation());
+    // touch the first query so the second one is the least recently used
+    assertNotNull("First query not cached", cache.get(buildCriteria(1L, 0L), 10));
+    cache.put(buildCriteria(3L, 0L), 10, buildResult(4), cache.generation());
+    assertNull("Least recently used query not evicted", cache.get(buildCriteria(2L, 0L), 10));
+    assertNotNull("Recently used query evicted", cache.get(buildCriteria(1L, 0L), 10));
+    assertEquals("Unexpected cached logEntries", 10L,
+        cache.getStats().get(QueryResultCache.ENTRIES).longValue());
+    cache.put(buildCriteria(4L, 0L), 10, buildResult(10), cache.generation());
+    assertNull("Result over budget cached", cache.get(buildCriteria(4L, 0L), 10));
+  }
+
+  @Test
+  public void testBytes() {
+    List<LogEntry> first = buildResult(3);
+    List<LogEntry> second = buildResult(5);
+    cache.put(buildCriteria(1L, 0L), 10, first, cache.generation());
+    cache.put(buildCriteria(2L, 0L), 10, second, cache.generation());
+    assertEquals("Unexpected cached bytes",
+        QueryResultCache.estimateBytes(first) + QueryResultCache.estimateBytes(second),
+        cache.getStats().get(QueryResultCache.BYTES).longValue());
+    cache.clear();
+    assertEquals("Cached bytes left after clear", 0L,
+        cache.getStats().get(QueryResultCache.BYTES).longValue());
+  }
+
+  @Test
+  public void testMaxQueries() throws Exception {
+    setField("maxQueries", 1);
+    cache.put(buildCriteria(1L, 0L), 10, buildResult(1), cache.generation());
+    cache.put(buildCriteria(2L, 0L), 10, buildResult(1), cache.generation());
+    assertNull("Eldest query not evicted", cache.get(buildCriteria(1L, 0L), 10));
+    assertEquals("Unexpected evictions", 1L,
+        cache.getStats().get(QueryResultCache.EVICTIONS).longValue());
+  }
+
+  @Test
+  public void testExpiry() throws Exception {
+    setField("ttl", 1L);
+    MatchCriteria criteria = buildCriteria(0L, 0L, Level.ERROR);
+    cache.put(criteria, 10, buildResult(1), cache.generation());
+    Thread.sleep(5);
+    assertNull("Expired result returned", cache.get(criteria, 10));
+    assertEquals("Expired query still cached", 0L,
+        cache.getStats().get(QueryResultCache.QUERIES).longValue());
+  }
+
+  @Test
+  public void testDisabled() throws Exception {
+    setField("maxQueries", 0);
+    MatchCriteria criteria = buildCriteria(0L, 0L, Level.ERROR);
+    cache.put(criteria, 10, buildResult(1), cache.generation());
+    assertNull("Disabled cache hit", cache.get(criteria, 10));
+  }
+
+  private void setField(String name, Object value) throws Exception {
+    Field field = QueryResultCache.class.getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(cache, value);
+  }
+
+  private MatchCriteria buildCriteria(long start, long end, Level... levels) {
+    MatchCriteria criteria = new MatchCriteria();
+    criteria.setLogLevels(levels);
+    criteria.setStart(start);
+    criteria.setEnd(end);
+    return criteria;
+  }
+
+  private List<LogEntry> buildResult(int size) {
+    List<LogEntry> result = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      result.add(buildLogEntry(Level.ERROR, i));
+    }
+    return result;
+  }
+
+  private LogEntry buildLogEntry(Level level, long created) {
+    LogEntry entry = new LogEntry();
+    entry.setOriginService(TEST_ORIGIN_SERVICE);
+    entry.setLogLevel(level);
+    entry.setMessage(TEST_MSG);
+    entry.setCreated(created);
+    return entry;
+  }
+
+}
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.logging.dao.ServiceUsage;
+import org.edgexfoundry.support.logging.service.impl.QuotaServiceImpl;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class QuotaServiceTest {
+
+  private static final String TEST_ORIGIN_SERVICE = "core-data";
+  private static final String NOISY_SERVICE = "device-virtual";
+
+  @InjectMocks
+  private QuotaServiceImpl service;
+
+  @Mock
+  private LoggingService loggingService;
+
+  @Before
+  public void setup() {
+    MockitoAnnotations.initMocks(this);
+    when(loggingService.getUsage()).thenReturn(Collections.emptyMap());
+  }
+
+  @Test
+  public void testNoLimits() throws Exception {
+    invoke("init");
+    for (int i = 0; i < 1000; i++) {
+      service.admit(buildLogEntry(NOISY_SERVICE));
+    }
+    assertEquals(Long.valueOf(0), service.getStats().get(QuotaServiceImpl.THROTTLED));
+    verify(loggingService).setQuota(service.getQuota());
+  }
+
+  @Test
+  public void testRateLimited() throws Exception {
+    setField("rate", 1.0);
+    setField("burst", 3);
+    setField("serviceRates", TEST_ORIGIN_SERVICE + ":1000");
+    invoke("init");
+    for (int i = 0; i < 3; i++) {
+      service.admit(buildLogEntry(NOISY_SERVICE));
+    }
+    try {
+      service.admit(buildLogEntry(NOISY_SERVICE));
+      fail("Entry admitted past the rate limit");
+    } catch (QuotaExceededException e) {
+      assertTrue("No retry delay", e.getRetryAfter() > 0);
+    }
+    // a bucket of its own
+    for (int i = 0; i < 3; i++) {
+      service.admit(buildLogEntry(TEST_ORIGIN_SERVICE));
+    }
+    Map<String, Long> usage = service.getUsage().get(NOISY_SERVICE);
+    assertEquals(Long.valueOf(1), usage.get(QuotaServiceImpl.RATE));
+    assertEquals(Long.valueOf(1), usage.get(QuotaServiceImpl.THROTTLED));
+    assertEquals(Long.valueOf(1000),
+        service.getUsage().get(TEST_ORIGIN_SERVICE).get(QuotaServiceImpl.RATE));
+    assertEquals(Long.valueOf(1), service.getStats().get(QuotaServiceImpl.THROTTLED));
+  }
+
+  @Test
+  public void testMaxServicesShareRateLimit() throws Exception {
+    setField("rate", 1.0);
+    setField("burst", 1);
+    setField("maxServices", 1);
+    invoke("init");
+    service.admit(buildLogEntry(TEST_ORIGIN_SERVICE));
+    service.admit(buildLogEntry(NOISY_SERVICE));
+    try {
+      service.admit(buildLogEntry("core-metadata"));
+      fail("Entry admitted past the shared rate limit");
+    } catch (QuotaExceededException e) {
+      assertEquals(Long.valueOf(1), service.getStats().get(QuotaServiceImpl.THROTTLED));
+    }
+  }
+
+  @Test
+  public void testMaxServicesShareCounters() throws Exception {
+    setField("rate", 1.0);
+    setField("burst", 1);
+    setField("maxServices", 2);
+    invoke("init");
+    for (int i = 0; i < 100; i++) {
+      try {
+        service.admit(buildLogEntry("made-up-" + i));
+      } catch (QuotaExceededException e) {
+        // throttled by the shared rate limit
+      }
+    }
+    assertEquals("Services past the limit tracked on their own", 2,
+        service.getUsage().size());
+    assertEquals(Long.valueOf(97), service.getStats().get(QuotaServiceImpl.THROTTLED));
+  }
+
+  @Test
+  public void testQuotaExceeded() throws Exception {
+    setField("maxBytes", 1024L);
+    setField("serviceMaxBytes", TEST_ORIGIN_SERVICE + ":0, malformed");
+    invoke("init");
+    when(loggingService.getUsedBytes(anyString())).thenReturn(1024L);
+    when(loggingService.getUsage()).thenReturn(Collections.singletonMap(NOISY_SERVICE,
+        Collections.singletonMap(ServiceUsage.BYTES, 1024L)));
+    try {
+      service.admit(buildLogEntry(NOISY_SERVICE));
+      fail("Entry admitted past the storage quota");
+    } catch (QuotaExceededException e) {
+      assertEquals("Retry delay over the quota", 0L, e.getRetryAfter());
+    }
+    // no quota of its own
+    service.admit(buildLogEntry(TEST_ORIGIN_SERVICE));
+    Map<String, Long> usage = service.getUsage().get(NOISY_SERVICE);
+    assertEquals(Long.valueOf(1024), usage.get(ServiceUsage.BYTES));
+    assertEquals(Long.valueOf(1), usage.get(QuotaServiceImpl.REJECTED));
+    assertEquals(Long.valueOf(0), usage.get(QuotaServiceImpl.THROTTLED));
+    assertEquals(Long.valueOf(1), service.getStats().get(QuotaServiceImpl.REJECTED));
+  }
+
+  private LogEntry buildLogEntry(String originService) {
+    LogEntry entry = new LogEntry();
+    entry.setOriginService(originService);
+    entry.setLogLevel(Level.INFO);
+    entry.setMessage("now is the time for all good men");
+    return entry;
+  }
+
+  private void setField(String name, Object value) throws Exception {
+    Field field = QuotaServiceImpl.class.getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(service, value);
+  }
+
+  private void invoke(String name) throws Exception {
+    Method method = QuotaServiceImpl.class.getDeclaredMethod(name);
+    method.setAccessible(true);
+    method.invoke(service);
+  }
+
+}
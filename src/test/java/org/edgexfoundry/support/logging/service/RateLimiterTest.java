@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(RequiresNone.class)
+public class RateLimiterTest {
+
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  @Test
+  public void testBurst() {
+    RateLimiter limiter = new RateLimiter(10, 5, 0L);
+    for (int i = 0; i < 5; i++) {
+      assertEquals("Token refused within the burst", 0L, limiter.tryAcquire(0L));
+    }
+    long wait = limiter.tryAcquire(0L);
+    assertEquals("Wrong wait past the burst", SECOND / 10, wait);
+    assertEquals("Token refused once refilled", 0L, limiter.tryAcquire(wait));
+    assertTrue("Token taken before being refilled", limiter.tryAcquire(wait) > 0);
+  }
+
+  @Test
+  public void testIdleBucketRefilled() {
+    RateLimiter limiter = new RateLimiter(10, 2, 0L);
+    assertEquals(0L, limiter.tryAcquire(0L));
+    assertEquals(0L, limiter.tryAcquire(0L));
+    assertTrue("Token taken past the burst", limiter.tryAcquire(0L) > 0);
+    // an idle bucket refills up to the burst only
+    long later = 10 * SECOND;
+    assertEquals(0L, limiter.tryAcquire(later));
+    assertEquals(0L, limiter.tryAcquire(later));
+    assertTrue("Idle time saved beyond the burst", limiter.tryAcquire(later) > 0);
+  }
+
+  @Test
+  public void testNanoTimeWraps() {
+    long now = Long.MAX_VALUE - SECOND / 20;
+    RateLimiter limiter = new RateLimiter(10, 1, now);
+    assertEquals(0L, limiter.tryAcquire(now));
+    assertTrue("Token taken as the clock wraps", limiter.tryAcquire(now + 1) > 0);
+    assertEquals("Token refused as the clock wraps", 0L, limiter.tryAcquire(now + SECOND / 10));
+  }
+
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.logging.dao.RepeatedLogEntry;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class RepeatCoalescerTest {
+
+  private static final String[] TEST_LABELS = {"test", "entry2"};
+  private static final String TEST_MSG = "now is the time for all good men";
+  private static final String TEST_ORIGIN_SERVICE = "core-data";
+  private static final long WINDOW = 1000L;
+
+  private RepeatCoalescer coalescer;
+
+  @Before
+  public void setup() throws Exception {
+    coalescer = new RepeatCoalescer();
+    setField("enabled", true);
+    setField("window", WINDOW);
+  }
+
+  @Test
+  public void testDisabled() throws Exception {
+    setField("enabled", false);
+    LogEntry entry = buildLogEntry(TEST_MSG, 100L);
+    assertSame("Entry coalesced while disabled", entry, coalescer.offer(entry).get(0));
+    assertSame("Repeat coalesced while disabled", entry, coalescer.offer(entry).get(0));
+    assertEquals("Entries tracked while disabled", Long.valueOf(0),
+        coalescer.getStats().get(RepeatCoalescer.TRACKED));
+  }
+
+  @Test
+  public void testRepeatsCoalesced() {
+    LogEntry first = buildLogEntry(TEST_MSG, 100L);
+    assertSame("First occurrence not stored", first, coalescer.offer(first).get(0));
+    for (long created = 200L; created < 700L; created += 100L) {
+      assertTrue("Repeat not coalesced",
+          coalescer.offer(buildLogEntry(TEST_MSG, created)).isEmpty());
+    }
+    assertTrue("Window flushed before it expired", coalescer.flush(100L + WINDOW - 1).isEmpty());
+
+    List<LogEntry> flushed = coalescer.flush(100L + WINDOW);
+    assertEquals("Repeats not flushed once", 1, flushed.size());
+    RepeatedLogEntry repeated = (RepeatedLogEntry) flushed.get(0);
+    assertEquals("Wrong repeat count", 5L, repeated.getRepeatCount());
+    assertEquals("Wrong first repeat", 200L, repeated.getFirstCreated());
+    assertEquals("Wrong last repeat", 600L, repeated.getLastCreated());
+    assertEquals("Wrong message", TEST_MSG, repeated.getMessage());
+    assertEquals("Wrong coalesced count", Long.valueOf(5),
+        coalescer.getStats().get(RepeatCoalescer.COALESCED));
+    assertEquals("Window still tracked", Long.valueOf(0),
+        coalescer.getStats().get(RepeatCoalescer.TRACKED));
+  }
+
+  @Test
+  public void testWindowClosedByLaterOccurrence() {
+    coalescer.offer(buildLogEntry(TEST_MSG, 100L));
+    coalescer.offer(buildLogEntry(TEST_MSG, 500L));
+    LogEntry late = buildLogEntry(TEST_MSG, 100L + WINDOW);
+    List<LogEntry> stored = coalescer.offer(late);
+    assertEquals("Closed window and new occurrence not stored", 2, stored.size());
+    assertEquals("Repeats of the closed window not stored first", 1L,
+        ((RepeatedLogEntry) stored.get(0)).getRepeatCount());
+    assertSame("Occurrence opening a new window not stored", late, stored.get(1));
+  }
+
+  @Test
+  public void testDistinctTuplesNotCoalesced() {
+    assertEquals("First message not stored", 1,
+        coalescer.offer(buildLogEntry(TEST_MSG, 100L)).size());
+    assertEquals("Other message coalesced", 1,
+        coalescer.offer(buildLogEntry("failed", 100L)).size());
+    LogEntry otherLabels = buildLogEntry(TEST_MSG, 100L);
+    otherLabels.setLabels(new String[] {"test"});
+    assertEquals("Other labels coalesced", 1, coalescer.offer(otherLabels).size());
+    LogEntry otherLevel = buildLogEntry(TEST_MSG, 100L);
+    otherLevel.setLogLevel(Level.ERROR);
+    assertEquals("Other level coalesced", 1, coalescer.offer(otherLevel).size());
+    assertTrue("Windows without repeats flushed", coalescer.flushAll().isEmpty());
+  }
+
+  @Test
+  public void testMaxKeys() throws Exception {
+    setField("maxKeys", 1);
+    coalescer.offer(buildLogEntry(TEST_MSG, 100L));
+    assertEquals("Entry beyond max keys not stored", 1,
+        coalescer.offer(buildLogEntry("failed", 100L)).size());
+    assertEquals("Entry beyond max keys coalesced", 1,
+        coalescer.offer(buildLogEntry("failed", 100L)).size());
+    assertEquals("Wrong untracked count", Long.valueOf(2),
+        coalescer.getStats().get(RepeatCoalescer.UNTRACKED));
+  }
+
+  private void setField(String name, Object value) throws Exception {
+    Field field = RepeatCoalescer.class.getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(coalescer, value);
+  }
+
+  private LogEntry buildLogEntry(String message, long created) {
+    LogEntry entry = new LogEntry();
+    entry.setOriginService(TEST_ORIGIN_SERVICE);
+    entry.setLabels(TEST_LABELS);
+    entry.setLogLevel(Level.WARN);
+    entry.setMessage(message);
+    entry.setCreated(created);
+    return entry;
+  }
+
+}
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.edgexfoundry.exception.controller.LimitExceededException;
+import org.edgexfoundry.support.logging.dao.RetentionPolicy;
+import org.edgexfoundry.support.logging.service.impl.RetentionServiceImpl;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class RetentionServiceTest {
+
+  @InjectMocks
+  private RetentionServiceImpl service;
+
+  @Mock
+  private LoggingService loggingService;
+
+  @Before
+  public void setup() {
+    MockitoAnnotations.initMocks(this);
+  }
+
+  @Test
+  public void testDisabled() throws Exception {
+    invoke("init");
+    assertTrue("Retention without limits dropped log entries", service.enforce().isEmpty());
+    verify(loggingService, never()).enforceRetention(any(RetentionPolicy.class), anyLong());
+  }
+
+  @Test
+  public void testLevelTiers() throws Exception {
+    setField("maxAge", 1000L);
+    setField("errorMaxAge", 5000L);
+    invoke("init");
+    assertEquals("Wrong DEBUG max age", 1000L, service.getPolicy().getMaxAge(Level.DEBUG));
+    assertEquals("Wrong ERROR max age", 5000L, service.getPolicy().getMaxAge(Level.ERROR));
+  }
+
+  @Test
+  public void testStatsAccumulated() throws Exception {
+    setField("maxBytes", 1024L);
+    invoke("init");
+    Map<String, Long> dropped = new LinkedHashMap<>();
+    dropped.put("segments", 1L);
+    dropped.put("reclaimed.bytes", 2048L);
+    when(loggingService.enforceRetention(any(RetentionPolicy.class), anyLong()))
+        .thenReturn(dropped);
+    assertEquals("Dropped segments not returned", dropped, service.enforce());
+    service.enforce();
+    Map<String, Long> stats = service.getStats();
+    assertEquals("Wrong number of runs", Long.valueOf(2), stats.get("runs"));
+    assertEquals("Wrong reclaimed bytes", Long.valueOf(4096), stats.get("reclaimed.bytes"));
+  }
+
+  @Test
+  public void testDeletePoolSaturated() throws Exception {
+    setField("maxAge", 1000L);
+    invoke("init");
+    when(loggingService.enforceRetention(any(RetentionPolicy.class), anyLong()))
+        .thenThrow(new LimitExceededException("delete"));
+    assertTrue("Saturated delete pool not skipped", service.enforce().isEmpty());
+  }
+
+  private void invoke(String name) throws Exception {
+    Method method = RetentionServiceImpl.class.getDeclaredMethod(name);
+    method.setAccessible(true);
+    method.invoke(service);
+  }
+
+  private void setField(String name, Object value) throws Exception {
+    Field field = RetentionServiceImpl.class.getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(service, value);
+  }
+
+}
@@ -18,12 +18,39 @@
 
 package org.edgexfoundry.support.logging.suites;
 
+import org.edgexfoundry.support.logging.controller.LogTailControllerTest;
 import org.edgexfoundry.support.logging.controller.LoggingControllerTest;
+import org.edgexfoundry.support.logging.controller.MetricsControllerTest;
 import org.edgexfoundry.support.logging.controller.PingControllerTest;
+import org.edgexfoundry.support.logging.controller.QueryJobControllerTest;
+import org.edgexfoundry.support.logging.controller.QuotaControllerTest;
 import org.edgexfoundry.support.logging.dao.BaseLogEntryDAOTest;
+import org.edgexfoundry.support.logging.dao.CompositeLogEntryDAOTest;
+import org.edgexfoundry.support.logging.dao.FileLogEntryDAOStressTest;
 import org.edgexfoundry.support.logging.dao.FileLogEntryDAOTest;
+import org.edgexfoundry.support.logging.dao.LogEntryIndexTest;
 import org.edgexfoundry.support.logging.dao.MongoDBLogEntryDAOTest;
+import org.edgexfoundry.support.logging.dao.RepeatedLogEntryTest;
+import org.edgexfoundry.support.logging.dao.RetentionPolicyTest;
+import org.edgexfoundry.support.logging.dao.SampledLogEntryTest;
+import org.edgexfoundry.support.logging.dao.impl.SegmentFooterTest;
+import org.edgexfoundry.support.logging.dao.impl.TieredLogEntryDAOTest;
+import org.edgexfoundry.support.logging.jfr.FlightRecorderEventsTest;
+import org.edgexfoundry.support.logging.metrics.LoggingMetricsTest;
+import org.edgexfoundry.support.logging.metrics.StartupTimingsTest;
+import org.edgexfoundry.support.logging.query.CompiledQueryTest;
+import org.edgexfoundry.support.logging.service.BulkheadTest;
+import org.edgexfoundry.support.logging.service.IngestLanesTest;
+import org.edgexfoundry.support.logging.service.LogSamplerTest;
+import org.edgexfoundry.support.logging.service.LogTailServiceTest;
 import org.edgexfoundry.support.logging.service.LoggingServiceTest;
+import org.edgexfoundry.support.logging.service.QueryJobServiceTest;
+import org.edgexfoundry.support.logging.service.QueryResultCacheTest;
+import org.edgexfoundry.support.logging.service.QuotaServiceTest;
+import org.edgexfoundry.support.logging.service.RateLimiterTest;
+import org.edgexfoundry.support.logging.service.RepeatCoalescerTest;
+import org.edgexfoundry.support.logging.service.RetentionServiceTest;
+import org.edgexfoundry.support.logging.template.TemplateMinerTest;
 import org.junit.Ignore;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
@@ -39,7 +66,16 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({LoggingControllerTest.class, PingControllerTest.class,
     BaseLogEntryDAOTest.class, FileLogEntryDAOTest.class, MongoDBLogEntryDAOTest.class,
-    LoggingServiceTest.class
+    LogEntryIndexTest.class, LoggingServiceTest.class, LogTailServiceTest.class,
+    LogTailControllerTest.class, CompiledQueryTest.class,
+    QueryResultCacheTest.class, QueryJobServiceTest.class, QueryJobControllerTest.class,
+    BulkheadTest.class, LoggingMetricsTest.class, MetricsControllerTest.class,
+    StartupTimingsTest.class, FlightRecorderEventsTest.class, FileLogEntryDAOStressTest.class,
+    RetentionPolicyTest.class, RetentionServiceTest.class, RepeatedLogEntryTest.class,
+    RepeatCoalescerTest.class, TemplateMinerTest.class, SegmentFooterTest.class,
+    IngestLanesTest.class, SampledLogEntryTest.class, LogSamplerTest.class,
+    RateLimiterTest.class, QuotaServiceTest.class, QuotaControllerTest.class,
+    CompositeLogEntryDAOTest.class, TieredLogEntryDAOTest.class
 
 })
 public class UnitTestSuite {
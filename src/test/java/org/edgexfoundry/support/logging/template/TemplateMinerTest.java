@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.support.logging.template;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.Field;
+
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(RequiresNone.class)
+public class TemplateMinerTest {
+
+  private TemplateMiner miner;
+
+  @Before
+  public void setup() {
+    miner = new TemplateMiner();
+  }
+
+  @Test
+  public void testLearnGeneralizes() {
+    LogTemplate first = miner.learn("Received event 12 from device pump-a with 3 readings");
+    assertEquals("Wrong template of a single message",
+        "Received event 12 from device pump-a with 3 readings", first.getTemplate());
+    LogTemplate second = miner.learn("Received event 13 from device pump-b with 5 readings");
+    assertSame("Similar message started another template", first, second);
+    assertEquals("Differing tokens not turned into wildcards",
+        "Received event <*> from device <*> with <*> readings", second.getTemplate());
+    assertEquals("Wrong template size", 2L, second.getSize());
+    assertEquals("Wrong parameter count", 3, second.getParameterCount());
+  }
+
+  @Test
+  public void testDistinctPatterns() {
+    LogTemplate event = miner.learn("Received event 12 from device pump-a");
+    LogTemplate other = miner.learn("Connection to mongo lost after 3 retries");
+    assertNotSame("Unrelated messages share a template", event, other);
+    assertNotSame("Messages of another length share a template", event,
+        miner.learn("Received event 12"));
+    assertEquals("Wrong number of templates", 3, miner.getTemplates().size());
+  }
+
+  @Test
+  public void testMatchDoesNotLearn() {
+    assertNull("Template matched before learning", miner.match("Reading 7 out of range"));
+    miner.learn("Reading 7 out of range");
+    miner.learn("Reading 8 out of range");
+    assertEquals("Message not matched", "Reading <*> out of range",
+        miner.match("Reading 9 out of range").getTemplate());
+    assertEquals("Match learnt the message", 2L, miner.getTemplates().get(0).getSize());
+    assertNull("Null message matched", miner.match(null));
+  }
+
+  @Test
+  public void testSeedCountsOnlyWhatItLearns() {
+    miner.learn("Reading 7 out of range");
+    miner.learn("Reading 8 out of range");
+    LogTemplate template = miner.seed("Reading 8 out of range");
+    assertEquals("Seeded message fits no template", "Reading <*> out of range",
+        template.getTemplate());
+    assertEquals("Message the template fits counted again", 2L, template.getSize());
+    miner.seed("Connection to mongo lost");
+    assertEquals("Seeded message not learnt", "Connection to <*> lost",
+        miner.seed("Connection to redis lost").getTemplate());
+  }
+
+  @Test
+  public void testExtractFormatRoundTrip() {
+    miner.learn("Pump  a stopped at 12 ");
+    LogTemplate template = miner.learn("Pump  b stopped at 13 ");
+    String message = "Pump  c stopped at 14 ";
+    String[] params = template.extract(message);
+    assertArrayEquals("Wrong parameters", new String[] {"c", "14"}, params);
+    assertEquals("Message not rebuilt from its parameters", message, template.format(params));
+  }
+
+  @Test
+  public void testMaxTemplates() throws Exception {
+    Field max = TemplateMiner.class.getDeclaredField("maxTemplates");
+    max.setAccessible(true);
+    max.set(miner, 1);
+    miner.learn("Reading 7 out of range");
+    assertNull("Template learnt past the max", miner.learn("Connection to mongo lost"));
+    assertEquals("Known template not learnt past the max", 2L,
+        miner.learn("Reading 8 out of range").getSize());
+  }
+
+}